@@ -0,0 +1,565 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>A BK-tree that indexes Strings by their Levenshtein distance. Every entry is a node, the children of a node are 
+ * labelled with their distance to it. By the triangle inequality, a search only needs to descend into children 
+ * whose label differs by at most the search radius from the distance of the query to the node.</p>
+ * 
+ * <p>The triangle inequality only holds for a weighted Levenshtein distance of entire Strings. Therefore the
+ * <code>Levenshtein</code> object must use the flags <code>ABSOLUTE</code>, <code>TREAT_AS_ONE_WORD</code>,
+ * <code>PLAIN</code>, <code>DISALLOW_SWAP</code> and <code>IGNORE_CASE</code> (swaps and case changes are not
+ * metric) and positive costs for substitutions, insertions and deletions.</p>
+ * 
+ * <p>Entries are stored in flat arrays. A tree can be built offline and saved with {@link #save(File)}. Searches
+ * may run concurrently, adding entries blocks them.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see SearchHit
+ */
+public class BKTree implements Serializable {
+	
+	/**
+	 * Serialization
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * A node without children or siblings
+	 */
+	private static final int NONE = -1;
+	
+	/**
+	 * The tolerance of the triangle inequality for rounding errors of the distances
+	 */
+	private static final float TOLERANCE = 1e-4f;
+	
+	/**
+	 * The flags and costs of the distance
+	 */
+	private final boolean[] flags;
+	private final float[] costs;
+	
+	/**
+	 * The entries (node i holds entry i, node 0 is the root)
+	 */
+	private String[] entries;
+	
+	/**
+	 * The distance of every node to its parent, its first child and its next sibling
+	 */
+	private float[] keys;
+	private int[] firstChild, nextSibling;
+	
+	/**
+	 * The number of entries
+	 */
+	private int size;
+	
+	/**
+	 * The distance function, the prepared entries and the lock (rebuilt after deserialization)
+	 */
+	private transient Levenshtein levenshtein;
+	private transient PreparedString[] preparedEntries;
+	private transient ReadWriteLock rwLock;
+	
+	/**
+	 * Creates an empty tree
+	 * @param levenshtein The object whose configuration is used (will be copied)
+	 * @throws IllegalArgumentException An exception that indicates that the configuration is not a metric
+	 */
+	public BKTree(Levenshtein levenshtein) throws IllegalArgumentException {
+		
+		Levenshtein copy = levenshtein.frozenCopy();
+		checkMetric(copy);
+		
+		flags = copy.currentFlags;
+		costs = copy.operationCosts;
+		
+		entries = new String[16];
+		keys = new float[16];
+		firstChild = new int[16];
+		nextSibling = new int[16];
+		
+		init(copy);
+		
+	}
+	
+	/**
+	 * Creates a tree of the given entries (bulk build)
+	 * @param entries The entries of the tree
+	 * @param levenshtein The object whose configuration is used (will be copied)
+	 * @throws IllegalArgumentException An exception that indicates that the configuration is not a metric
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 */
+	public BKTree(Collection<String> entries, Levenshtein levenshtein) throws IllegalArgumentException, NullPointerException {
+		
+		this(levenshtein);
+		
+		ensureCapacity(entries.size());
+		addAll(entries);
+		
+	}
+	
+	/**
+	 * Checks that the distance of a configuration fulfils the triangle inequality
+	 * @param levenshtein The configuration
+	 * @throws IllegalArgumentException If the configuration is not a metric
+	 */
+	private static void checkMetric(Levenshtein levenshtein) throws IllegalArgumentException {
+		
+		boolean[] flags = levenshtein.currentFlags;
+		float[] costs = levenshtein.operationCosts;
+		
+		if(flags[Levenshtein.ABSOLUTE] == false || flags[Levenshtein.ONE_WORD] == false || flags[Levenshtein.USE_PHONETIC] || 
+				flags[Levenshtein.SWAP] || flags[Levenshtein.MIND_CASE]) {
+			throw new IllegalArgumentException("The flags ABSOLUTE, TREAT_AS_ONE_WORD, PLAIN, DISALLOW_SWAP and " +
+					"IGNORE_CASE are required for a metric distance.");
+		}
+		
+		if((costs[Levenshtein.CHAR_SUBSTITUTION] > 0f && costs[Levenshtein.CHAR_INDEL] > 0f) == false) {
+			throw new IllegalArgumentException("Substitutions, insertions and deletions must have positive costs.");
+		}
+		
+	}
+	
+	/**
+	 * Sets up the transient state
+	 * @param levenshtein The frozen configuration that computes the distances
+	 */
+	private void init(Levenshtein levenshtein) {
+		
+		this.levenshtein = levenshtein;
+		rwLock = new ReentrantReadWriteLock();
+		preparedEntries = new PreparedString[entries.length];
+		
+		// Prepare all entries once
+		for(int i = 0; i < size; i++) {
+			preparedEntries[i] = levenshtein.prepare(entries[i]);
+		}
+		
+	}
+	
+	/**
+	 * Assures that the arrays can hold the given number of entries
+	 * @param capacity The number of entries
+	 */
+	private void ensureCapacity(int capacity) {
+		
+		if(capacity > entries.length) {
+			
+			capacity = Math.max(capacity, entries.length + (entries.length >> 1));
+			entries = Arrays.copyOf(entries, capacity);
+			preparedEntries = Arrays.copyOf(preparedEntries, capacity);
+			keys = Arrays.copyOf(keys, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			nextSibling = Arrays.copyOf(nextSibling, capacity);
+			
+		}
+		
+	}
+	
+	/**
+	 * Adds an entry to the tree
+	 * @param entry The entry to add
+	 * @return The ID of the entry
+	 * @throws NullPointerException An exception that indicates that the entry is not set
+	 */
+	public int add(String entry) throws NullPointerException {
+		
+		if(entry == null) {
+			throw new NullPointerException("The entry is not set.");
+		}
+		
+		PreparedString preparedEntry = levenshtein.prepare(entry);
+		DistanceScratch scratch = new DistanceScratch();
+		
+		rwLock.writeLock().lock();
+		try {
+			
+			ensureCapacity(size + 1);
+			
+			int node = size++;
+			entries[node] = entry;
+			preparedEntries[node] = preparedEntry;
+			firstChild[node] = NONE;
+			nextSibling[node] = NONE;
+			
+			// Descend to the first node without a child of the same distance
+			int parent = node > 0 ? 0 : NONE;
+			while(parent != NONE) {
+				
+				float distance = levenshtein.compareCandidate(preparedEntries[parent], preparedEntry, false, 0f, scratch).distance();
+				
+				int child = firstChild[parent];
+				while(child != NONE && keys[child] != distance) {
+					child = nextSibling[child];
+				}
+				
+				if(child == NONE) {
+					keys[node] = distance;
+					nextSibling[node] = firstChild[parent];
+					firstChild[parent] = node;
+					parent = NONE;
+				} else {
+					parent = child;
+				}
+				
+			}
+			
+			return node;
+			
+		} finally {
+			rwLock.writeLock().unlock();
+		}
+		
+	}
+	
+	/**
+	 * Adds several entries to the tree
+	 * @param entries The entries to add
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 */
+	public void addAll(Collection<String> entries) throws NullPointerException {
+		
+		for(String entry : entries) {
+			add(entry);
+		}
+		
+	}
+	
+	/**
+	 * Finds all entries within the given distance of the query
+	 * @param query The String that is searched
+	 * @param maxDistance The maximum distance of the results
+	 * @return All entries within the distance, the closest entry first (earlier entries first for equal distances)
+	 * @throws NullPointerException An exception that indicates that the query is not set
+	 */
+	public List<SearchHit> search(String query, float maxDistance) throws NullPointerException {
+		
+		PreparedString preparedQuery = levenshtein.prepare(query);
+		DistanceScratch scratch = new DistanceScratch();
+		List<SearchHit> hits = new ArrayList<SearchHit>();
+		
+		rwLock.readLock().lock();
+		try {
+			
+			int[] stack = new int[16];
+			int stackSize = 0;
+			
+			if(size > 0) {
+				stack[stackSize++] = 0;
+			}
+			
+			while(stackSize > 0) {
+				
+				int node = stack[--stackSize];
+				BasicCompared basicCompared = compare(preparedQuery, node, maxDistance, scratch);
+				float distance = basicCompared != null ? basicCompared.distance() : Float.POSITIVE_INFINITY;
+				
+				if(distance <= maxDistance) {
+					hits.add(new SearchHit(node, entries[node], basicCompared.index(), distance));
+				}
+				
+				// Descend into children that may contain results by the triangle inequality
+				for(int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+					if(Math.abs(keys[child] - distance) <= maxDistance + TOLERANCE * (1f + distance)) {
+						if(stackSize == stack.length) {
+							stack = Arrays.copyOf(stack, stackSize * 2);
+						}
+						stack[stackSize++] = child;
+					}
+				}
+				
+			}
+			
+		} finally {
+			rwLock.readLock().unlock();
+		}
+		
+		Collections.sort(hits, SearchHit.DISTANCE_ORDER);
+		
+		return hits;
+		
+	}
+	
+	/**
+	 * Finds the entries closest to the query
+	 * @param query The String that is searched
+	 * @param k The maximum number of results
+	 * @return The closest entries, the closest entry first (earlier entries first for equal distances)
+	 * @throws NullPointerException An exception that indicates that the query is not set
+	 * @throws IllegalArgumentException An exception that indicates that k is not positive
+	 */
+	public List<SearchHit> nearest(String query, int k) throws NullPointerException, IllegalArgumentException {
+		
+		if(k <= 0) {
+			throw new IllegalArgumentException("The number of results must be positive.");
+		}
+		
+		PreparedString preparedQuery = levenshtein.prepare(query);
+		DistanceScratch scratch = new DistanceScratch();
+		PriorityQueue<SearchHit> heap = new PriorityQueue<SearchHit>(k + 1, Collections.reverseOrder(SearchHit.DISTANCE_ORDER));
+		
+		rwLock.readLock().lock();
+		try {
+			
+			int[] stack = new int[16];
+			int stackSize = 0;
+			
+			if(size > 0) {
+				stack[stackSize++] = 0;
+			}
+			
+			while(stackSize > 0) {
+				
+				// Shrink the radius to the worst result kept so far
+				float radius = heap.size() == k ? heap.peek().distance() : Float.POSITIVE_INFINITY;
+				int node = stack[--stackSize];
+				BasicCompared basicCompared = compare(preparedQuery, node, radius, scratch);
+				float distance = basicCompared != null ? basicCompared.distance() : Float.POSITIVE_INFINITY;
+				
+				if(distance <= radius) {
+					
+					SearchHit hit = new SearchHit(node, entries[node], basicCompared.index(), distance);
+					
+					if(heap.size() < k) {
+						heap.add(hit);
+					} else if(SearchHit.DISTANCE_ORDER.compare(hit, heap.peek()) < 0) {
+						heap.poll();
+						heap.add(hit);
+					}
+					
+					radius = heap.size() == k ? heap.peek().distance() : Float.POSITIVE_INFINITY;
+					
+				}
+				
+				// Descend into children that may contain closer entries, the closest children are visited first
+				int firstPushed = stackSize;
+				for(int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+					if(Math.abs(keys[child] - distance) <= radius + TOLERANCE * (1f + distance)) {
+						if(stackSize == stack.length) {
+							stack = Arrays.copyOf(stack, stackSize * 2);
+						}
+						stack[stackSize++] = child;
+					}
+				}
+				
+				sortByKeyDistance(stack, firstPushed, stackSize, distance);
+				
+			}
+			
+		} finally {
+			rwLock.readLock().unlock();
+		}
+		
+		List<SearchHit> hits = new ArrayList<SearchHit>(heap);
+		Collections.sort(hits, SearchHit.DISTANCE_ORDER);
+		
+		return hits;
+		
+	}
+	
+	/**
+	 * Compares the query with a node, abandoned if the distance exceeds the radius and no child can be reached
+	 * @param preparedQuery The prepared query
+	 * @param node The node
+	 * @param radius The search radius
+	 * @param scratch The columns to reuse
+	 * @return The result or <code>null</code> if neither the node nor its children are within the radius
+	 */
+	private BasicCompared compare(PreparedString preparedQuery, int node, float radius, DistanceScratch scratch) {
+		
+		// Children with the label k can only be reached if the distance does not exceed k + radius
+		float maxKey = 0f;
+		for(int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+			maxKey = Math.max(maxKey, keys[child]);
+		}
+		
+		float bound = radius + maxKey;
+		return levenshtein.compareCandidate(preparedQuery, preparedEntries[node], bound < Float.POSITIVE_INFINITY, 
+				bound + TOLERANCE * (1f + bound), scratch);
+		
+	}
+	
+	/**
+	 * Sorts a range of nodes on the stack so that the node whose label is closest to the distance is on top
+	 * @param stack The stack of nodes
+	 * @param from The first node of the range
+	 * @param to The end of the range (exclusive)
+	 * @param distance The distance of the query to the parent of the nodes
+	 */
+	private void sortByKeyDistance(int[] stack, int from, int to, float distance) {
+		
+		// Insertion sort, the number of children is small
+		for(int i = from + 1; i < to; i++) {
+			int node = stack[i];
+			int j = i - 1;
+			while(j >= from && Math.abs(keys[stack[j]] - distance) < Math.abs(keys[node] - distance)) {
+				stack[j+1] = stack[j];
+				j--;
+			}
+			stack[j+1] = node;
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of entries
+	 * @return The size of the tree
+	 */
+	public int size() {
+		
+		rwLock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			rwLock.readLock().unlock();
+		}
+		
+	}
+	
+	/**
+	 * Returns the entry with the given ID
+	 * @param entryID The ID of the entry
+	 * @return The entry
+	 * @throws IndexOutOfBoundsException If the ID does not exist
+	 */
+	public String getEntry(int entryID) throws IndexOutOfBoundsException {
+		
+		rwLock.readLock().lock();
+		try {
+			
+			if(entryID < 0 || entryID >= size) {
+				throw new IndexOutOfBoundsException("This ID does not exist");
+			}
+			
+			return entries[entryID];
+			
+		} finally {
+			rwLock.readLock().unlock();
+		}
+		
+	}
+	
+	/**
+	 * Writes the tree to a file
+	 * @param file The file to write to
+	 * @throws IOException If the file can not be written
+	 */
+	public void save(File file) throws IOException {
+		
+		ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeObject(this);
+		} finally {
+			out.close();
+		}
+		
+	}
+	
+	/**
+	 * Reads a tree from a file that was written by {@link #save(File)}
+	 * @param file The file to read from
+	 * @return The tree
+	 * @throws IOException If the file can not be read or does not contain a tree
+	 */
+	public static BKTree load(File file) throws IOException {
+		
+		ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			return (BKTree)in.readObject();
+		} catch(ClassNotFoundException e) {
+			throw new IOException("Could not find necessary objects in file: " + file, e);
+		} catch(ClassCastException e) {
+			throw new IOException("The file does not contain a BK-tree: " + file, e);
+		} finally {
+			in.close();
+		}
+		
+	}
+	
+	/**
+	 * Writes the tree without unused capacity
+	 * @param out The stream to write to
+	 * @throws IOException If the stream can not be written
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		
+		rwLock.writeLock().lock();
+		try {
+			
+			entries = Arrays.copyOf(entries, size);
+			keys = Arrays.copyOf(keys, size);
+			firstChild = Arrays.copyOf(firstChild, size);
+			nextSibling = Arrays.copyOf(nextSibling, size);
+			preparedEntries = Arrays.copyOf(preparedEntries, size);
+			
+			out.defaultWriteObject();
+			
+		} finally {
+			rwLock.writeLock().unlock();
+		}
+		
+	}
+	
+	/**
+	 * Reads the tree and rebuilds the transient state
+	 * @param in The stream to read from
+	 * @throws IOException If the stream can not be read
+	 * @throws ClassNotFoundException If a class of the stream is unknown
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		
+		in.defaultReadObject();
+		
+		Levenshtein copy = Levenshtein.frozen(flags, costs, null);
+		try {
+			checkMetric(copy);
+		} catch(IllegalArgumentException e) {
+			throw new IOException("The stored configuration is not a metric.", e);
+		}
+		
+		init(copy);
+		
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.Collection;
+
+/**
+ * A function that assigns records to blocks. Only records that share at least one block are compared with each
+ * other, hence the keys trade the number of comparisons for the number of matches that are found. An 
+ * implementation must be thread safe.
+ * @author Rafael W.
+ * @version 0.1
+ * @see DedupeEngine
+ * @see PhoneticBlockingIndex
+ */
+public interface BlockingIndex {
+	
+	/**
+	 * Returns the keys of all blocks a record belongs to
+	 * @param record The record
+	 * @return The keys of the blocks (an empty collection if the record is not compared at all)
+	 * @throws PhoneticException An exception that is throws if the record contains invalid phonetic symbols
+	 */
+	public Collection<String> blockKeys(String record) throws PhoneticException;
+
+}
@@ -0,0 +1,129 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+/**
+ * The trade-off of a blocking index measured on a set of queries: the share of all matches that are still found 
+ * when only the candidates of the blocks are compared (recall), and the share of all comparisons that is saved 
+ * (reduction ratio).
+ * @author Rafael W.
+ * @version 0.1
+ * @see PhoneticBlockingIndex
+ */
+public final class BlockingReport {
+	
+	/**
+	 * The number of queries and the number of pairs a full scan compares
+	 */
+	private final long queries, possiblePairs;
+	
+	/**
+	 * The number of pairs that are compared after blocking
+	 */
+	private final long candidatePairs;
+	
+	/**
+	 * The number of matches of a full scan and the number of matches among the candidates
+	 */
+	private final long matches, foundMatches;
+	
+	/**
+	 * Basic constructor (for internal use only)
+	 * @param queries The number of queries
+	 * @param possiblePairs The number of pairs a full scan compares
+	 * @param candidatePairs The number of pairs that are compared after blocking
+	 * @param matches The number of matches of a full scan
+	 * @param foundMatches The number of matches among the candidates
+	 */
+	BlockingReport(long queries, long possiblePairs, long candidatePairs, long matches, long foundMatches) {
+		
+		this.queries = queries;
+		this.possiblePairs = possiblePairs;
+		this.candidatePairs = candidatePairs;
+		this.matches = matches;
+		this.foundMatches = foundMatches;
+		
+	}
+	
+	/**
+	 * Returns the number of evaluated queries
+	 * @return The number of queries
+	 */
+	public long queries() {
+		return queries;
+	}
+	
+	/**
+	 * Returns the number of pairs that a full scan compares
+	 * @return The number of queries times the size of the dictionary
+	 */
+	public long possiblePairs() {
+		return possiblePairs;
+	}
+	
+	/**
+	 * Returns the number of pairs that are compared after blocking
+	 * @return The number of candidates of all queries
+	 */
+	public long candidatePairs() {
+		return candidatePairs;
+	}
+	
+	/**
+	 * Returns the number of matches of a full scan
+	 * @return The number of matches
+	 */
+	public long matches() {
+		return matches;
+	}
+	
+	/**
+	 * Returns the number of matches that are found after blocking
+	 * @return The number of matches among the candidates
+	 */
+	public long foundMatches() {
+		return foundMatches;
+	}
+	
+	/**
+	 * Returns the share of all matches that are found after blocking
+	 * @return The recall between 0 and 1 (1 if there are no matches)
+	 */
+	public double recall() {
+		return matches > 0 ? (double)foundMatches / matches : 1d;
+	}
+	
+	/**
+	 * Returns the share of all comparisons that is saved by blocking
+	 * @return The reduction ratio between 0 and 1 (0 if there are no pairs)
+	 */
+	public double reductionRatio() {
+		return possiblePairs > 0 ? 1d - (double)candidatePairs / possiblePairs : 0d;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Recall: %.4f (%d of %d matches), reduction ratio: %.4f (%d of %d pairs compared)", 
+				recall(), foundMatches, matches, reductionRatio(), candidatePairs, possiblePairs);
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+/**
+ * The statistics of a cache at one point in time: the number of lookups that found a result (hits) or had to 
+ * compute it (misses), the number of entries that were removed to make room for others (evictions) and the number 
+ * of entries that are currently kept. Lookups that waited for the result of a concurrent identical lookup are counted
+ * as misses and as coalesced.
+ * @author Rafael W.
+ * @version 0.1
+ * @see CompareCache
+ */
+public final class CacheStats {
+	
+	/**
+	 * The number of lookups that found or did not find a result
+	 */
+	private final long hits, misses;
+	
+	/**
+	 * The number of removed entries
+	 */
+	private final long evictions;
+	
+	/**
+	 * The number of lookups that waited for a concurrent identical lookup
+	 */
+	private final long coalesced;
+	
+	/**
+	 * The number of kept entries
+	 */
+	private final int size;
+	
+	/**
+	 * Basic constructor (for internal use only)
+	 * @param hits The number of lookups that found a result
+	 * @param misses The number of lookups that did not find a result
+	 * @param evictions The number of removed entries
+	 * @param coalesced The number of lookups that waited for a concurrent identical lookup
+	 * @param size The number of kept entries
+	 */
+	CacheStats(long hits, long misses, long evictions, long coalesced, int size) {
+		
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.coalesced = coalesced;
+		this.size = size;
+		
+	}
+	
+	/**
+	 * Returns the number of lookups that found a result
+	 * @return The number of hits
+	 */
+	public long hits() {
+		return hits;
+	}
+	
+	/**
+	 * Returns the number of lookups that had to compute the result
+	 * @return The number of misses
+	 */
+	public long misses() {
+		return misses;
+	}
+	
+	/**
+	 * Returns the number of entries that were removed to make room for more frequent ones
+	 * @return The number of evictions
+	 */
+	public long evictions() {
+		return evictions;
+	}
+	
+	/**
+	 * Returns the number of lookups that missed the cache but waited for a concurrent identical lookup instead of
+	 * computing the result again
+	 * @return The number of coalesced lookups
+	 */
+	public long coalesced() {
+		return coalesced;
+	}
+	
+	/**
+	 * Returns the number of entries that are kept
+	 * @return The size of the cache
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the share of all lookups that found a result
+	 * @return The hit rate between 0 and 1 (0 if there were no lookups)
+	 */
+	public double hitRate() {
+		return hits + misses > 0 ? (double)hits / (hits + misses) : 0d;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Hit rate: %.4f (%d hits, %d misses, %d coalesced), %d evictions, %d entries", 
+				hitRate(), hits, misses, coalesced, evictions, size);
+	}
+
+}
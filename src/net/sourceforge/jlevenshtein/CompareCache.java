@@ -0,0 +1,336 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A bounded cache of the results of {@link Levenshtein#compare(String, String)}. Every entry is keyed by the 
+ * fingerprint of the configuration (flags, costs and feature table, see {@link LevenshteinConfig}) and both inputs, 
+ * and keeps the result as a primitive float. Single words are compared symmetrically, hence their inputs are ordered
+ * before the lookup such that both directions share one entry. Changing the configuration of the 
+ * <code>Levenshtein</code> object changes the fingerprint, entries of older configurations are evicted over time.</p>
+ * 
+ * <p>The entries are spread over independently locked stripes, results are computed without holding a lock. If a 
+ * stripe is full, a few of its entries are sampled and the least frequently used one is evicted, but only if the new 
+ * entry was accessed more frequently (TinyLFU). Hence rare pairs do not push out the pairs that keep coming back.</p>
+ * 
+ * <p>Concurrent lookups of the same missing key are coalesced: the first caller computes the result, the others wait 
+ * for it instead of computing it again. If the result takes longer than the coalescing timeout, the waiting callers 
+ * compute it on their own.</p>
+ * 
+ * <p>This class is thread safe.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see CacheStats
+ */
+public class CompareCache {
+	
+	/**
+	 * The minimal number of entries per stripe
+	 */
+	private static final int STRIPE_ENTRIES = 16;
+	
+	/**
+	 * The default time callers wait for the result of a concurrent identical comparison (in nanoseconds)
+	 */
+	private static final long DEFAULT_COALESCING_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+	
+	/**
+	 * The object whose current configuration is used for every comparison
+	 */
+	private final Levenshtein levenshtein;
+	
+	/**
+	 * The results (the bits of the floats)
+	 */
+	private final StripedTable<Key> table;
+	
+	/**
+	 * The statistics
+	 */
+	private final LongAdder hits = new LongAdder(), misses = new LongAdder(), coalesced = new LongAdder();
+	
+	/**
+	 * The results of the comparisons that are currently computed
+	 */
+	private final ConcurrentHashMap<Key, CompletableFuture<Float>> flights = 
+			new ConcurrentHashMap<Key, CompletableFuture<Float>>();
+	
+	/**
+	 * The time callers wait for the result of a concurrent identical comparison (in nanoseconds, 0 = never)
+	 */
+	private volatile long coalescingTimeout = DEFAULT_COALESCING_TIMEOUT;
+	
+	/**
+	 * Creates a cache in front of the given object
+	 * @param levenshtein The object whose configuration is used (changes of its configuration apply to later lookups)
+	 * @param maximumSize The maximum number of entries
+	 * @throws IllegalArgumentException An exception that indicates that the maximum size is not positive
+	 */
+	public CompareCache(Levenshtein levenshtein, int maximumSize) throws IllegalArgumentException {
+		
+		if(maximumSize < 1) {
+			throw new IllegalArgumentException("The cache must be able to keep at least one entry.");
+		}
+		
+		this.levenshtein = levenshtein;
+		table = new StripedTable<Key>(maximumSize, STRIPE_ENTRIES);
+		
+	}
+	
+	/**
+	 * Compares two Strings or returns the cached result
+	 * @param firstInput The first String that is to be compared
+	 * @param secondInput The second String that is to be compared
+	 * @return The index (or distance if the absolute flag is set)
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that one of the Strings is not set
+	 */
+	public float compare(String firstInput, String secondInput) throws PhoneticException, NullPointerException {
+		
+		if(firstInput == null || secondInput == null) {
+			throw new NullPointerException("At least one of the Strings that was to be compared is not set.");
+		}
+		
+		// Read the snapshot once, its engine computes the result that is stored under its fingerprint
+		LevenshteinConfig config = levenshtein.getConfig();
+		long fingerprint = config.fingerprint();
+		
+		// Single words are symmetric, order them
+		if(config.flags[Levenshtein.ONE_WORD] && firstInput.compareTo(secondInput) > 0) {
+			String temp = firstInput;
+			firstInput = secondInput;
+			secondInput = temp;
+		}
+		
+		int hash = hash(fingerprint, firstInput, secondInput);
+		Key key = new Key(hash, fingerprint, firstInput, secondInput);
+		
+		long cached = table.get(hash, key);
+		if(cached != StripedTable.MISSING) {
+			hits.increment();
+			return Float.intBitsToFloat((int)cached);
+		}
+		
+		// Wait for a concurrent caller that computes the same result
+		long timeout = coalescingTimeout;
+		CompletableFuture<Float> ownResult = timeout > 0 ? new CompletableFuture<Float>() : null;
+		CompletableFuture<Float> otherResult = ownResult != null ? flights.putIfAbsent(key, ownResult) : null;
+		
+		if(otherResult != null) {
+			
+			misses.increment();
+			coalesced.increment();
+			
+			try {
+				return otherResult.get(timeout, TimeUnit.NANOSECONDS).floatValue();
+				
+			} catch(TimeoutException e) {
+				// Compute the result without waiting any longer
+				return config.engine().compare(firstInput, secondInput);
+				
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for a concurrent comparison.", e);
+				
+			} catch(ExecutionException e) {
+				throw Levenshtein.unwrap(e, RuntimeException.class);
+			}
+			
+		}
+		
+		// A concurrent caller may have stored the result and finished its flight since the lookup
+		if(ownResult != null) {
+			
+			cached = table.peek(hash, key);
+			if(cached != StripedTable.MISSING) {
+				hits.increment();
+				ownResult.complete(Float.intBitsToFloat((int)cached));
+				flights.remove(key, ownResult);
+				return Float.intBitsToFloat((int)cached);
+			}
+			
+		}
+		
+		misses.increment();
+		
+		float result;
+		
+		try {
+			
+			result = config.engine().compare(firstInput, secondInput);
+			table.put(hash, key, Float.floatToIntBits(result) & 0xffffffffL);
+			
+		} catch(RuntimeException e) {
+			land(key, ownResult, e);
+			throw e;
+			
+		} catch(Error e) {
+			land(key, ownResult, e);
+			throw e;
+		}
+		
+		// Hand the result over to the waiting callers, later callers find it in the cache
+		if(ownResult != null) {
+			ownResult.complete(result);
+			flights.remove(key, ownResult);
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Returns the time callers wait for the result of a concurrent identical comparison
+	 * @param unit The unit of the returned time
+	 * @return The timeout or <code>0</code> if concurrent comparisons are not coalesced
+	 */
+	public long getCoalescingTimeout(TimeUnit unit) {
+		return unit.convert(coalescingTimeout, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Sets the time callers wait for the result of a concurrent identical comparison before they compute it on their
+	 * own. The default timeout is ten seconds.
+	 * @param timeout The timeout (<code>0</code> disables the coalescing)
+	 * @param unit The unit of the timeout
+	 */
+	public void setCoalescingTimeout(long timeout, TimeUnit unit) {
+		if(timeout >= 0) {
+			coalescingTimeout = unit.toNanos(timeout);
+		} else {
+			throw new IllegalArgumentException("The timeout must not be negative");
+		}
+	}
+	
+	/**
+	 * Returns the statistics of this cache
+	 * @return The current statistics
+	 */
+	public CacheStats stats() {
+		return new CacheStats(hits.sum(), misses.sum(), table.evictions(), coalesced.sum(), size());
+	}
+	
+	/**
+	 * Returns the number of cached results
+	 * @return The number of entries
+	 */
+	public int size() {
+		return table.size();
+	}
+	
+	/**
+	 * Removes all cached results (the statistics are kept)
+	 */
+	public void clear() {
+		table.clear();
+	}
+	
+	/**
+	 * Hands a failure over to the callers that wait for a comparison
+	 * @param key The key of the comparison
+	 * @param ownResult The result the callers wait for or <code>null</code> if the comparison is not coalesced
+	 * @param failure The failure of the comparison
+	 */
+	private void land(Key key, CompletableFuture<Float> ownResult, Throwable failure) {
+		if(ownResult != null) {
+			ownResult.completeExceptionally(failure);
+			flights.remove(key, ownResult);
+		}
+	}
+	
+	/**
+	 * Computes the hash of a key
+	 * @param fingerprint The fingerprint of the configuration
+	 * @param firstInput The first String
+	 * @param secondInput The second String
+	 * @return The hash
+	 */
+	private static int hash(long fingerprint, String firstInput, String secondInput) {
+		
+		long h = fingerprint ^ (firstInput.hashCode() * 0x9e3779b97f4a7c15L) ^ secondInput.hashCode();
+		h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+		h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		
+		return (int)(h ^ (h >>> 33));
+		
+	}
+	
+	/**
+	 * The key of a cached result or of a comparison that is currently computed
+	 */
+	private static final class Key {
+		
+		/**
+		 * The hash of the key
+		 */
+		private final int hash;
+		
+		/**
+		 * The fingerprint of the configuration and both inputs
+		 */
+		private final long fingerprint;
+		private final String firstInput, secondInput;
+		
+		/**
+		 * Basic constructor
+		 * @param hash The hash of the key
+		 * @param fingerprint The fingerprint of the configuration
+		 * @param firstInput The first String
+		 * @param secondInput The second String
+		 */
+		Key(int hash, long fingerprint, String firstInput, String secondInput) {
+			
+			this.hash = hash;
+			this.fingerprint = fingerprint;
+			this.firstInput = firstInput;
+			this.secondInput = secondInput;
+			
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object object) {
+			
+			if(object instanceof Key == false) {
+				return false;
+			}
+			
+			Key key = (Key)object;
+			return hash == key.hash && fingerprint == key.fingerprint && firstInput.equals(key.firstInput) && 
+					secondInput.equals(key.secondInput);
+			
+		}
+		
+	}
+
+}
@@ -23,17 +23,18 @@ package net.sourceforge.jlevenshtein;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.TreeMap;
 
 /**
  * <p>This class offers various functions to describe the comparison process of the 
  * {@link Levenshtein} algorithm in this package. All results of this class are final and 
  * are consequently this object is immutable. To optimize possible long time storage of
  * serialized instances this class does not remember any computation flags or operation 
- * costs that were used by the generating <code>Levenshtein</code> object.</p>
+ * costs that were used by the generating <code>Levenshtein</code> object, unless it was created
+ * with the {@link DetailLevel#LAZY} detail level. In this case a frozen copy of the configuration 
+ * is kept to recompute the Levenshtein matrices on access.</p>
  * 
  * <p>This class is not compatible to the Java Beans framework since the later requires setter
  * methods which do not make sense for this descriptive class.</p>
@@ -99,9 +100,43 @@ public final class ComparedStrings extends BasicCompared implements Serializable
 	}
 	
 	/**
-	 * Serial version ID - since v0.1
+	 * A map that keeps the recently used Levenshtein matrices of a lazy comparison
+	 * @author Rafael W.
+	 * @version 0.1
+	 */
+	private static class MatrixCache extends LinkedHashMap<HashPoint,FloatMatrix> {
+		
+		/**
+		 * Serial ID (v0.1)
+		 */
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * Creates an empty cache in access order
+		 */
+		private MatrixCache() {
+			super(LAZY_CACHE_SIZE * 2, 0.75f, true);
+		}
+		
+		/**
+		 * Removes the least recently used matrix once the cache is full
+		 */
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<HashPoint,FloatMatrix> eldest) {
+			return size() > LAZY_CACHE_SIZE;
+		}
+		
+	}
+	
+	/**
+	 * Serial version ID - since v0.1, 2 since the Levenshtein matrices are kept as {@link FloatMatrix} objects
 	 */
-	private static final long serialVersionUID = 1L;
+	private static final long serialVersionUID = 2L;
+	
+	/**
+	 * The number of recomputed Levenshtein matrices a lazy comparison keeps
+	 */
+	private static final int LAZY_CACHE_SIZE = 16;
 	
 	/**
 	 * The first user input string
@@ -131,7 +166,24 @@ public final class ComparedStrings extends BasicCompared implements Serializable
 	/**
 	 * A map containing all possible comparisons
 	 */
-	private final Map<HashPoint,float[][]> matrixCollection;
+	private final Map<HashPoint,FloatMatrix> matrixCollection;
+	
+	/**
+	 * The details that were kept by this comparison
+	 */
+	private final DetailLevel detailLevel;
+	
+	/**
+	 * The frozen flags, operation costs and feature table of a lazy comparison
+	 */
+	private final boolean[] frozenFlags;
+	private final float[] frozenCosts;
+	private final Map<String, Float[]> frozenPhonetics;
+	
+	/**
+	 * The object that recomputes the Levenshtein matrices of a lazy comparison (rebuilt after deserialization)
+	 */
+	private transient volatile Levenshtein recomputation;
 	
 	/**
 	 * Basic constructor (for internal use only) that builds the object
@@ -142,9 +194,12 @@ public final class ComparedStrings extends BasicCompared implements Serializable
 	 * @param wordsSecondInput The sequence of words of the users second input String
 	 * @param comparedResults The matrix of compared results
 	 * @param matrixCollection A collection of Levenshtein matrices word to word
+	 * @param detailLevel The details that were kept in the collection of Levenshtein matrices
+	 * @param recomputation A frozen configuration to recompute matrices or <code>null</code> if not a lazy comparison
 	 */
 	protected ComparedStrings(BasicCompared basicCompared, String firstInput, String secondInput, String[] wordsFirstInput, 
-			String[] wordsSecondInput, float[][] comparedResults, Map<HashPoint,float[][]> matrixCollection) {
+			String[] wordsSecondInput, float[][] comparedResults, Map<HashPoint,FloatMatrix> matrixCollection, 
+			DetailLevel detailLevel, Levenshtein recomputation) {
 		
 		super(basicCompared);
 		this.firstInput = firstInput;
@@ -152,10 +207,24 @@ public final class ComparedStrings extends BasicCompared implements Serializable
 		this.wordsFirstInput = stringsSwapped ? wordsSecondInput : wordsFirstInput;
 		this.wordsSecondInput = stringsSwapped ? wordsFirstInput : wordsSecondInput;
 		this.comparedResults = comparedResults;
-		this.matrixCollection = matrixCollection;
+		this.matrixCollection = detailLevel == DetailLevel.LAZY ? new MatrixCache() : matrixCollection;
+		this.detailLevel = detailLevel;
+		this.recomputation = recomputation;
+		this.frozenFlags = recomputation != null ? recomputation.currentFlags : null;
+		this.frozenCosts = recomputation != null ? recomputation.operationCosts : null;
+		this.frozenPhonetics = recomputation != null ? recomputation.phoneticTable() : null;
 		
 	}
 	
+	/**
+	 * Returns the details that were kept by this comparison. This level may be lower than the requested level if
+	 * the Levenshtein matrices would have exceeded the memory budget of the <code>Levenshtein</code> object.
+	 * @return The detail level of this comparison
+	 */
+	public DetailLevel detailLevel() {
+		return detailLevel;
+	}
+	
 	/**
 	 * Returns the ID (position - 1) of the word in the second sequence that was matched to the word in the first sequence carrying this ID
 	 * @param id The ID of the first word in the first sequence
@@ -296,29 +365,50 @@ public final class ComparedStrings extends BasicCompared implements Serializable
 	 * Returns the Levenshtein distance of two words words
 	 * @param firstWordID The ID of the word in the first sequence
 	 * @param secondWordID The ID of the word in the second sequence
-	 * @return The Levenshtein distance between both words
+	 * @return The Levenshtein distance between both words or <code>Float.NaN</code> if the matrix was not kept
 	 * @throws IndexOutOfBoundsException If at least one of the ID does not exist
 	 */
 	public float distance(int firstWordID, int secondWordID) throws IndexOutOfBoundsException {
 
-		float[][] tempMatrix = getLevenshteinMatrix(firstWordID, secondWordID);
-		return tempMatrix[tempMatrix.length-1][tempMatrix[0].length-1];
+		FloatMatrix tempMatrix = matrixView(firstWordID, secondWordID);
+		return tempMatrix != null ? tempMatrix.distance() : Float.NaN;
 		
 	}
 	
 	/**
-	 * The Levenshtein distance matrix for two given words
+	 * The Levenshtein distance matrix for two given words as an array of rows. The array is copied out of the 
+	 * internal storage on every call, {@link #matrixView(int, int)} reads the matrix without copying it.
 	 * @param firstWordID The ID of the word in the first sequence
 	 * @param secondWordID The ID of the word in the second sequence
-	 * @return The Levenshtein matrix of two items
+	 * @return The Levenshtein matrix of two items or <code>null</code> if the matrix was not kept at the
+	 * 		{@link #detailLevel()} of this comparison
 	 * @throws IndexOutOfBoundsException If at least one of the ID does not exist
 	 */
 	public float[][] getLevenshteinMatrix(int firstWordID, int secondWordID) throws IndexOutOfBoundsException {
 		
-		if(firstWordID >= 0 && firstWordID < comparedResults.length && 
-				secondWordID >= 0 && secondWordID < comparedResults[0].length) {
+		FloatMatrix matrix = matrixView(firstWordID, secondWordID);
+		return matrix != null ? matrix.toArray() : null;
+		
+	}
+	
+	/**
+	 * A read-only view of the Levenshtein distance matrix for two given words
+	 * @param firstWordID The ID of the word in the first sequence
+	 * @param secondWordID The ID of the word in the second sequence
+	 * @return The Levenshtein matrix of two items or <code>null</code> if the matrix was not kept at the
+	 * 		{@link #detailLevel()} of this comparison
+	 * @throws IndexOutOfBoundsException If at least one of the ID does not exist
+	 */
+	public FloatMatrix matrixView(int firstWordID, int secondWordID) throws IndexOutOfBoundsException {
+		
+		if(firstWordID >= 0 && firstWordID < wordsFirstInput.length && 
+				secondWordID >= 0 && secondWordID < wordsSecondInput.length) {
+			
+			if(detailLevel == DetailLevel.LAZY) {
+				return lazyMatrix(new HashPoint(firstWordID, secondWordID));
+			}
 
-			return matrixCollection.get(new HashPoint(firstWordID, secondWordID)).clone();
+			return matrixCollection.get(new HashPoint(firstWordID, secondWordID));
 		
 		} else {
 			throw new IndexOutOfBoundsException("At least one of the IDs does not exist.");
@@ -326,6 +416,39 @@ public final class ComparedStrings extends BasicCompared implements Serializable
 		
 	}
 	
+	/**
+	 * Looks up the Levenshtein matrix of a lazy comparison and recomputes it on first access
+	 * @param key The IDs of both words (in the direction of the original input)
+	 * @return The Levenshtein matrix in the same orientation as an eagerly computed one
+	 */
+	private FloatMatrix lazyMatrix(HashPoint key) {
+		
+		FloatMatrix matrix;
+		synchronized(matrixCollection) {
+			matrix = matrixCollection.get(key);
+		}
+		
+		if(matrix == null) {
+			
+			Levenshtein levenshtein = recomputation;
+			if(levenshtein == null) {
+				recomputation = levenshtein = Levenshtein.frozen(frozenFlags, frozenCosts, frozenPhonetics);
+			}
+			
+			// The longer sequence was the first one during the comparison
+			matrix = stringsSwapped ? levenshtein.getMatrix(wordsSecondInput[key.y], wordsFirstInput[key.x]) 
+									: levenshtein.getMatrix(wordsFirstInput[key.x], wordsSecondInput[key.y]);
+			
+			synchronized(matrixCollection) {
+				matrixCollection.put(key, matrix);
+			}
+			
+		}
+		
+		return matrix;
+		
+	}
+	
 	/**
 	 * Returns the optimal path of transformation
 	 * @param firstWordID The ID of the first word
@@ -334,13 +457,27 @@ public final class ComparedStrings extends BasicCompared implements Serializable
 	 * 		for their x,y coordinates. The corresponding Integer will indicate the transformation action done at 
 	 * 		this point to yield one string out of the other. (As described by the <code>ACTION_*</code> constants 
 	 * 		x can be interpreted as a columns and y as a row in the Levenshtein matrix. (starting at origin (0,0))
+	 * 		Returns <code>null</code> if the matrix of both words was not kept.
 	 * @throws IndexOutOfBoundsException If at least one of the ID does not exist
 	 */
 	public Map<HashPoint,Integer> levenshteinPath(int firstWordID, int secondWordID) throws IndexOutOfBoundsException {
-		return Levenshtein.getIdealPath(getLevenshteinMatrix(firstWordID, secondWordID));
+		EditPath path = editPath(firstWordID, secondWordID);
+		return path != null ? path.toMap() : null;
 		
 	}
 	
+	/**
+	 * Returns the optimal path of transformation as a compact sequence of steps in traversal order
+	 * @param firstWordID The ID of the first word
+	 * @param secondWordID The ID of the second word
+	 * @return The path or <code>null</code> if the matrix of both words was not kept
+	 * @throws IndexOutOfBoundsException If at least one of the ID does not exist
+	 * @see #levenshteinPath(int, int)
+	 */
+	public EditPath editPath(int firstWordID, int secondWordID) throws IndexOutOfBoundsException {
+		return EditPath.trace(matrixView(firstWordID, secondWordID));
+	}
+	
 	/**
 	 * <p>This convenience wrapper function filters all real transformations that have to be undertaken on the first
 	 * string to transform the later into the second string. Both strings have to be represented by a path that is yielded
@@ -360,28 +497,38 @@ public final class ComparedStrings extends BasicCompared implements Serializable
 	 * @since jLevenshtein v0.2
 	 */
 	public static Transformation[] editTransformation(Map<HashPoint,Integer> levenshteinPath) {
+		return editTransformation(EditPath.sorted(levenshteinPath));
+	}
+	
+	/**
+	 * Filters all real transformations of a compact path, which is already in traversal order and hence is not
+	 * sorted (see {@link #editTransformation(Map)})
+	 * @param editPath A path that describes the transformation of one string into another
+	 * @return An array with all real transformations to yield the second string out of the first string
+	 */
+	public static Transformation[] editTransformation(EditPath editPath) {
 		
-		List<Transformation> transformations = new ArrayList<Transformation>(levenshteinPath.size() - 1);
+		List<Transformation> transformations = new ArrayList<Transformation>(editPath.size() - 1);
 		
 		int action;
-		for(Entry<HashPoint,Integer> entry : new TreeMap<HashPoint,Integer>(levenshteinPath).entrySet()) {
+		for(int i = 0; i < editPath.size(); i++) {
 				
-			switch(action = entry.getValue().intValue()) {
+			switch(action = editPath.action(i)) {
 			
 				case Levenshtein.ACTION_SUBSTITUTE: transformations.add(new Transformation(action, 
-														entry.getKey().y - 1, entry.getKey().x - 1));
+														editPath.y(i) - 1, editPath.x(i) - 1));
 													break;
 														
 				case Levenshtein.ACTION_INSERT: 	transformations.add(new Transformation(action, 
-														entry.getKey().y, entry.getKey().x - 1));
+														editPath.y(i), editPath.x(i) - 1));
 													break;
 														
 				case Levenshtein.ACTION_DELETE: 	transformations.add(new Transformation(action, 
-														entry.getKey().y - 1, -1));
+														editPath.y(i) - 1, -1));
 													break;
 														
 				case Levenshtein.ACTION_SWAP:	 	transformations.add(new Transformation(action, 
-														entry.getKey().y - 2, entry.getKey().x - 1));
+														editPath.y(i) - 2, editPath.x(i) - 1));
 													break;
 													
 			}
@@ -408,36 +555,48 @@ public final class ComparedStrings extends BasicCompared implements Serializable
 	 * @since jLevenshtein v0.2
 	 */
 	public static String[] resultTransformation(Map<HashPoint,Integer> levenshteinPath, String firstWord, String secondWord) {
+		return resultTransformation(EditPath.sorted(levenshteinPath), firstWord, secondWord);
+	}
+	
+	/**
+	 * Applies all real transformations of a compact path one after another, the path is already in traversal order
+	 * and hence is not sorted (see {@link #resultTransformation(Map, String, String)})
+	 * @param editPath The transformation path that alters one string into another
+	 * @param firstWord The first word that is represented by <code>editPath</code>
+	 * @param secondWord The second word that is represented by <code>editPath</code>
+	 * @return An array of strings that describes all transformation steps including in their order
+	 */
+	public static String[] resultTransformation(EditPath editPath, String firstWord, String secondWord) {
 		
 		StringBuilder sb = new StringBuilder(firstWord);
 		char[] secondWordChars = secondWord.toCharArray();
 		sb.ensureCapacity(secondWordChars.length);
 		
 		int firstWordIndexShifted = 0;
-		List<String> transformations = new ArrayList<String>(levenshteinPath.size() - 1);
+		List<String> transformations = new ArrayList<String>(editPath.size() - 1);
 		transformations.add(firstWord);
 		
-		loop: for(Entry<HashPoint,Integer> entry : new TreeMap<HashPoint,Integer>(levenshteinPath).entrySet()) {
+		loop: for(int i = 0; i < editPath.size(); i++) {
 				
-			switch(entry.getValue().intValue()) {
+			switch(editPath.action(i)) {
 			
-				case Levenshtein.ACTION_SUBSTITUTE: sb.setCharAt(entry.getKey().y - 1 + firstWordIndexShifted, 
-														secondWordChars[entry.getKey().x - 1]);
+				case Levenshtein.ACTION_SUBSTITUTE: sb.setCharAt(editPath.y(i) - 1 + firstWordIndexShifted, 
+														secondWordChars[editPath.x(i) - 1]);
 													break;
 														
-				case Levenshtein.ACTION_INSERT: 	sb.insert(entry.getKey().y + firstWordIndexShifted, 
-														secondWordChars[entry.getKey().x - 1]);
+				case Levenshtein.ACTION_INSERT: 	sb.insert(editPath.y(i) + firstWordIndexShifted, 
+														secondWordChars[editPath.x(i) - 1]);
 													firstWordIndexShifted++;
 													break;
 														
-				case Levenshtein.ACTION_DELETE: 	sb.deleteCharAt(entry.getKey().y - 1 + firstWordIndexShifted);
+				case Levenshtein.ACTION_DELETE: 	sb.deleteCharAt(editPath.y(i) - 1 + firstWordIndexShifted);
 													firstWordIndexShifted--;
 													break;
 														
-				case Levenshtein.ACTION_SWAP:	 	sb.setCharAt(entry.getKey().y - 1 + firstWordIndexShifted, 
-														secondWordChars[entry.getKey().x - 1]);
-													sb.setCharAt(entry.getKey().y - 2 + firstWordIndexShifted, 
-														secondWordChars[entry.getKey().x - 2]);
+				case Levenshtein.ACTION_SWAP:	 	sb.setCharAt(editPath.y(i) - 1 + firstWordIndexShifted, 
+														secondWordChars[editPath.x(i) - 1]);
+													sb.setCharAt(editPath.y(i) - 2 + firstWordIndexShifted, 
+														secondWordChars[editPath.x(i) - 2]);
 													break;
 													
 				default:							continue loop;
@@ -0,0 +1,397 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>A fuzzy deduplication of a stream of records. Every record is assigned to blocks by a {@link BlockingIndex},
+ * every pair of records that share a block is compared once (in parallel) and pairs that meet the threshold are 
+ * merged into clusters by a union-find structure. The result is the cluster ID of every record, which is the ID
+ * (position in the stream) of the first record of its cluster. Clusters are transitive: two records end up in the 
+ * same cluster if a chain of matching pairs connects them.</p>
+ * 
+ * <p>Memory is bounded by the memory budget plus a long (the position of a record in the temporary file) and an 
+ * integer (the cluster) per record: the records, the block postings and 
+ * the candidate pairs are moved to temporary files as soon as they exceed their share of the budget, and the
+ * candidate pairs are sorted such that every pair is compared at most once. Pairs whose records are already in the 
+ * same cluster are not compared at all. Blocks with more than the maximum block size records are skipped (such 
+ * blocks usually stem from keys that are too common to be selective).</p>
+ * 
+ * <p>An engine is thread safe, concurrent deduplications do not share any state.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see BlockingIndex
+ */
+public class DedupeEngine {
+	
+	/**
+	 * The default maximum number of records of a block
+	 */
+	public static final int DEFAULT_MAX_BLOCK_SIZE = 1000;
+	
+	/**
+	 * The number of candidate pairs that are compared between two merges of the clusters and the number of pairs 
+	 * of a single task
+	 */
+	private static final int BATCH_SIZE = 1 << 16;
+	private static final int TASK_SIZE = 1 << 10;
+	
+	/**
+	 * The configuration of the comparisons (a frozen copy that is never changed)
+	 */
+	private final Levenshtein levenshtein;
+	
+	/**
+	 * The function that assigns records to blocks
+	 */
+	private final BlockingIndex blockingIndex;
+	
+	/**
+	 * The maximum distance (if the absolute flag is set) or the minimum similarity index of matching records
+	 */
+	private final float threshold;
+	
+	/**
+	 * The number of bytes the records, block postings and candidate pairs may occupy in memory
+	 */
+	private volatile long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+	
+	/**
+	 * The maximum number of records of a block that is compared
+	 */
+	private volatile int maxBlockSize = DEFAULT_MAX_BLOCK_SIZE;
+	
+	/**
+	 * The executor that compares the candidate pairs (<code>null</code> for the common fork join pool)
+	 */
+	private volatile ExecutorService executor = null;
+	
+	/**
+	 * Creates an engine that compares with the flags and costs of the given object
+	 * @param levenshtein The object whose configuration is used (will be copied)
+	 * @param blockingIndex The function that assigns records to blocks
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index of 
+	 * matching records
+	 * @throws NullPointerException An exception that indicates that the blocking index is not set
+	 */
+	public DedupeEngine(Levenshtein levenshtein, BlockingIndex blockingIndex, float threshold) throws NullPointerException {
+		
+		if(blockingIndex == null) {
+			throw new NullPointerException("The blocking index is not set.");
+		}
+		
+		this.levenshtein = levenshtein.frozenCopy();
+		this.blockingIndex = blockingIndex;
+		this.threshold = threshold;
+		
+	}
+	
+	/**
+	 * Assigns every record of the stream to a cluster
+	 * @param records The records (read once)
+	 * @return The cluster ID of every record in the order of the stream, that is the position of the first record
+	 * of the same cluster
+	 * @throws PhoneticException An exception that is throws if a record contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that a record is not set
+	 * @throws IllegalStateException An exception that indicates that a temporary file could not be used
+	 */
+	public int[] dedupe(Iterable<String> records) throws PhoneticException, NullPointerException, IllegalStateException {
+		
+		long budget = memoryBudget;
+		RecordStore store = new RecordStore(budget / 2);
+		LongSpillSorter postings = new LongSpillSorter(budget / 4, 2);
+		LongSpillSorter pairs = new LongSpillSorter(budget / 4);
+		
+		try {
+			
+			// Store every record and its block postings (64-bit key hash and record ID)
+			for(String record : records) {
+				
+				if(record == null) {
+					throw new NullPointerException("At least one of the records is not set.");
+				}
+				
+				int recordID = store.add(record);
+				for(String key : blockingIndex.blockKeys(record)) {
+					postings.add(keyHash(key), recordID);
+				}
+				
+			}
+			
+			store.finish();
+			
+			// Pair the records of every block, the postings are sorted by block and record ID
+			int[] block = new int[16];
+			int blockSize = 0;
+			long blockKey = 0L;
+			
+			PrimitiveIterator.OfLong postingIterator = postings.sorted();
+			while(postingIterator.hasNext()) {
+				
+				long keyHash = postingIterator.nextLong();
+				int recordID = (int)postingIterator.nextLong();
+				
+				if(blockSize > 0 && keyHash != blockKey) {
+					addPairs(pairs, block, blockSize);
+					blockSize = 0;
+				}
+				
+				blockKey = keyHash;
+				if(blockSize == block.length) {
+					block = Arrays.copyOf(block, blockSize * 2);
+				}
+				block[blockSize++] = recordID;
+				
+			}
+			
+			addPairs(pairs, block, blockSize);
+			postings.close();
+			
+			return cluster(store, pairs);
+			
+		} catch(IOException e) {
+			throw new IllegalStateException("Unable to move the records or pairs to a temporary file.", e);
+			
+		} finally {
+			store.close();
+			postings.close();
+			pairs.close();
+		}
+		
+	}
+	
+	/**
+	 * Computes the 64-bit hash of a blocking key (FNV-1a), different keys share a block only if their hashes collide
+	 * @param key The blocking key
+	 * @return The hash
+	 */
+	private static long keyHash(String key) {
+		
+		long hash = 0xcbf29ce484222325L;
+		for(int i = 0; i < key.length(); i++) {
+			hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+		}
+		
+		return hash;
+		
+	}
+	
+	/**
+	 * Adds all pairs of a block to the candidate pairs
+	 * @param pairs The candidate pairs (first ID in the upper, second ID in the lower half)
+	 * @param block The IDs of the records of the block in ascending order
+	 * @param blockSize The number of records of the block
+	 * @throws IOException An exception that indicates that the pairs could not be spilled
+	 */
+	private void addPairs(LongSpillSorter pairs, int[] block, int blockSize) throws IOException {
+		
+		if(blockSize > maxBlockSize) {
+			return;
+		}
+		
+		for(int i = 0; i < blockSize; i++) {
+			for(int j = i + 1; j < blockSize; j++) {
+				pairs.add(((long)block[i] << 32) | block[j]);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Compares the candidate pairs in batches and merges the records of matching pairs
+	 * @param store The records
+	 * @param pairs The candidate pairs
+	 * @return The cluster ID of every record
+	 * @throws IOException An exception that indicates that the pairs could not be read
+	 */
+	private int[] cluster(final RecordStore store, LongSpillSorter pairs) throws IOException {
+		
+		// Every record starts in its own cluster
+		int[] parent = new int[store.size()];
+		for(int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		
+		final long[] batch = new long[BATCH_SIZE];
+		final boolean[] matches = new boolean[BATCH_SIZE];
+		PrimitiveIterator.OfLong pairIterator = pairs.sorted();
+		ExecutorService executor = this.executor != null ? this.executor : ForkJoinPool.commonPool();
+		
+		while(pairIterator.hasNext()) {
+			
+			// Collect the pairs that are not in the same cluster yet
+			int batchSize = 0;
+			while(batchSize < BATCH_SIZE && pairIterator.hasNext()) {
+				long pair = pairIterator.nextLong();
+				if(find(parent, (int)(pair >>> 32)) != find(parent, (int)pair)) {
+					batch[batchSize++] = pair;
+				}
+			}
+			
+			// Compare the batch in parallel, the tasks only read the records and the batch
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for(int start = 0; start < batchSize; start += TASK_SIZE) {
+				
+				final int first = start, last = Math.min(start + TASK_SIZE, batchSize);
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException, PhoneticException {
+						
+						DistanceScratch scratch = new DistanceScratch();
+						PreparedString firstRecord = null;
+						int firstID = -1;
+						
+						for(int k = first; k < last; k++) {
+							
+							// Pairs are sorted by the first record, hence it is prepared once for consecutive pairs
+							if((int)(batch[k] >>> 32) != firstID) {
+								firstID = (int)(batch[k] >>> 32);
+								firstRecord = levenshtein.prepare(store.get(firstID));
+							}
+							
+							PreparedString secondRecord = levenshtein.prepare(store.get((int)batch[k]));
+							matches[k] = levenshtein.compareCandidate(firstRecord, secondRecord, true, threshold, scratch) != null;
+							
+						}
+						
+						return null;
+						
+					}
+				});
+				
+			}
+			
+			// Wait for all tasks (a record that can not be read fails the deduplication)
+			Levenshtein.invokeAllUnwrapped(executor, tasks, IOException.class);
+			
+			// Merge the clusters of all matching pairs
+			for(int k = 0; k < batchSize; k++) {
+				if(matches[k]) {
+					union(parent, (int)(batch[k] >>> 32), (int)batch[k]);
+				}
+			}
+			
+		}
+		
+		for(int i = 0; i < parent.length; i++) {
+			parent[i] = find(parent, i);
+		}
+		
+		return parent;
+		
+	}
+	
+	/**
+	 * Finds the root of the cluster of a record (and halves the path to it)
+	 * @param parent The parent of every record
+	 * @param recordID The ID of the record
+	 * @return The ID of the root, the first record of the cluster
+	 */
+	private static int find(int[] parent, int recordID) {
+		
+		while(parent[recordID] != recordID) {
+			parent[recordID] = parent[parent[recordID]];
+			recordID = parent[recordID];
+		}
+		
+		return recordID;
+		
+	}
+	
+	/**
+	 * Merges the clusters of two records, the first record of both clusters becomes the root
+	 * @param parent The parent of every record
+	 * @param firstID The ID of the first record
+	 * @param secondID The ID of the second record
+	 */
+	private static void union(int[] parent, int firstID, int secondID) {
+		
+		int firstRoot = find(parent, firstID);
+		int secondRoot = find(parent, secondID);
+		
+		if(firstRoot < secondRoot) {
+			parent[secondRoot] = firstRoot;
+		} else if(secondRoot < firstRoot) {
+			parent[firstRoot] = secondRoot;
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of bytes the records, block postings and candidate pairs may occupy in memory
+	 * @return The memory budget in bytes
+	 */
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+	
+	/**
+	 * Sets the number of bytes the records, block postings and candidate pairs may occupy in memory. Half of the 
+	 * budget is used for the records and a quarter each for the postings and the pairs, anything beyond is moved to
+	 * temporary files. The default budget is a quarter of the maximum heap size.
+	 * @param memoryBudget The memory budget in bytes
+	 */
+	public void setMemoryBudget(long memoryBudget) {
+		if(memoryBudget >= 0) {
+			this.memoryBudget = memoryBudget;
+		} else {
+			throw new IllegalArgumentException("The memory budget must not be negative");
+		}
+	}
+	
+	/**
+	 * Returns the maximum number of records of a block that is compared
+	 * @return The maximum block size
+	 */
+	public int getMaxBlockSize() {
+		return maxBlockSize;
+	}
+	
+	/**
+	 * Sets the maximum number of records of a block that is compared, larger blocks are skipped
+	 * @param maxBlockSize The maximum block size
+	 */
+	public void setMaxBlockSize(int maxBlockSize) {
+		if(maxBlockSize >= 2) {
+			this.maxBlockSize = maxBlockSize;
+		} else {
+			throw new IllegalArgumentException("The maximum block size must be at least 2");
+		}
+	}
+	
+	/**
+	 * Compares the candidate pairs on the given executor. The executor is not shut down by this class.
+	 * @param executor The executor that compares the pairs or <code>null</code> to use the common fork join pool
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+}
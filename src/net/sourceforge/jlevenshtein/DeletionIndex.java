@@ -0,0 +1,403 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>A symmetric deletion index of a plain dictionary for searches within a small number of operations. The index
+ * keeps the 64-bit hashes of all variants of every word that result from deleting up to <code>k</code> characters
+ * in an open-addressing hash table that points to the IDs of the words.</p>
+ * 
+ * <p>If two words are within <code>e</code> operations, deleting at most <code>e</code> characters from each word 
+ * yields the same variant: a substitution or a swap is undone by deleting one of the characters from both words, an 
+ * insertion by deleting the character from one word. The variants are formed after folding the case, hence case 
+ * changes need no deletion at all. Every operation of the configured cost model costs at least <code>c</code>, 
+ * so a search within the distance <code>d</code> needs the variants of up to <code>floor(d/c)</code> deletions.
+ * All candidates are compared with the exact weighted distance, the results equal a comparison with all entries.</p>
+ * 
+ * <p>Entries (and queries) of several words are always compared. An index is immutable and thread safe.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see SearchHit
+ */
+public class DeletionIndex {
+	
+	/**
+	 * The maximum number of deletions that can be indexed
+	 */
+	public static final int MAX_DELETIONS = 3;
+	
+	/**
+	 * The key of an empty slot
+	 */
+	private static final long EMPTY = 0L;
+	
+	/**
+	 * The configuration of the comparisons (a private copy that is never changed)
+	 */
+	private final Levenshtein levenshtein;
+	
+	/**
+	 * The maximum number of deletions of the indexed variants
+	 */
+	private final int maxDeletions;
+	
+	/**
+	 * The dictionary, its prepared entries and the length of every normalized entry (<code>-1</code> for entries of 
+	 * several words)
+	 */
+	private final String[] dictionary;
+	private final PreparedString[] preparedDictionary;
+	private final int[] lengths;
+	
+	/**
+	 * The entries of several words
+	 */
+	private final int[] unfilteredEntries;
+	
+	/**
+	 * The hash table: the hash of a variant and the range of its word IDs in the list of IDs
+	 */
+	private final long[] slotKeys;
+	private final int[] slotStarts, slotEnds;
+	private final int[] wordIDs;
+	
+	/**
+	 * The minimum cost of an operation that needs a deletion (not positive if the index can not filter)
+	 */
+	private final float minimumCost;
+	
+	/**
+	 * Creates an index of up to two deletions with the default flags
+	 * @param dictionary The entries that are searched
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 */
+	public DeletionIndex(Collection<String> dictionary) throws NullPointerException {
+		this(dictionary, new Levenshtein(), 2);
+	}
+	
+	/**
+	 * Creates an index that compares with the flags and costs of the given object
+	 * @param dictionary The entries that are searched
+	 * @param levenshtein The object whose configuration is used (will be copied)
+	 * @param maxDeletions The maximum number of deletions of the indexed variants (0 to {@link #MAX_DELETIONS})
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 * @throws IllegalArgumentException An exception that indicates that phonetic comparison is requested or the
+	 * number of deletions is invalid
+	 */
+	public DeletionIndex(Collection<String> dictionary, Levenshtein levenshtein, int maxDeletions) 
+		throws NullPointerException, IllegalArgumentException {
+		
+		this.levenshtein = levenshtein.frozenCopy();
+		this.maxDeletions = maxDeletions;
+		
+		if(this.levenshtein.currentFlags[Levenshtein.USE_PHONETIC]) {
+			throw new IllegalArgumentException("A deletion index can only store plain words.");
+		}
+		if(maxDeletions < 0 || maxDeletions > MAX_DELETIONS) {
+			throw new IllegalArgumentException("The number of deletions must be between 0 and " + MAX_DELETIONS + ".");
+		}
+		
+		// Case changes need no deletion, any other operation needs one
+		float[] costs = this.levenshtein.operationCosts;
+		boolean[] flags = this.levenshtein.currentFlags;
+		float cost = Math.min(costs[Levenshtein.CHAR_SUBSTITUTION], costs[Levenshtein.CHAR_INDEL]);
+		if(flags[Levenshtein.SWAP]) {
+			cost = Math.min(cost, costs[Levenshtein.CHAR_SWAP]);
+		}
+		if(flags[Levenshtein.MIND_CASE]) {
+			cost = Math.min(cost, costs[Levenshtein.CHAR_SWAP_CASE]);
+		}
+		minimumCost = this.levenshtein.nonNegativeCosts() ? cost : 0f;
+		
+		this.dictionary = dictionary.toArray(new String[dictionary.size()]);
+		preparedDictionary = new PreparedString[this.dictionary.length];
+		lengths = new int[this.dictionary.length];
+		
+		long[] pairHashes = new long[16];
+		int[] pairIDs = new int[16];
+		int pairs = 0, unfiltered = 0;
+		int[] tempUnfiltered = new int[this.dictionary.length];
+		
+		// Collect the distinct variants of every word
+		for(int i = 0; i < this.dictionary.length; i++) {
+			
+			PreparedString preparedEntry = this.levenshtein.prepare(this.dictionary[i]);
+			preparedDictionary[i] = preparedEntry;
+			
+			if(preparedEntry.words.length > 1) {
+				lengths[i] = -1;
+				tempUnfiltered[unfiltered++] = i;
+				continue;
+			}
+			
+			lengths[i] = preparedEntry.wordChars[0].length;
+			
+			for(long hash : variantHashes(preparedEntry.wordChars[0], maxDeletions)) {
+				if(pairs == pairHashes.length) {
+					pairHashes = Arrays.copyOf(pairHashes, pairs * 2);
+					pairIDs = Arrays.copyOf(pairIDs, pairs * 2);
+				}
+				pairHashes[pairs] = hash;
+				pairIDs[pairs++] = i;
+			}
+			
+		}
+		
+		unfilteredEntries = Arrays.copyOf(tempUnfiltered, unfiltered);
+		
+		// Count the words of every variant
+		int capacity = Integer.highestOneBit(Math.max(16, pairs * 2 - 1)) << 1;
+		slotKeys = new long[capacity];
+		slotStarts = new int[capacity];
+		slotEnds = new int[capacity];
+		
+		for(int i = 0; i < pairs; i++) {
+			slotEnds[slot(pairHashes[i], true)]++;
+		}
+		
+		// Assign the ranges of the word IDs (the end is the fill position while filling)
+		int offset = 0;
+		for(int i = 0; i < capacity; i++) {
+			int count = slotEnds[i];
+			slotStarts[i] = offset;
+			slotEnds[i] = offset;
+			offset += count;
+		}
+		
+		wordIDs = new int[pairs];
+		for(int i = 0; i < pairs; i++) {
+			wordIDs[slotEnds[slot(pairHashes[i], false)]++] = pairIDs[i];
+		}
+		
+	}
+	
+	/**
+	 * Returns the slot of a hash in the hash table (linear probing)
+	 * @param hash The hash of the variant
+	 * @param insert True if an empty slot should be claimed for a new hash
+	 * @return The slot or <code>-1</code> if the hash is not in the table
+	 */
+	private int slot(long hash, boolean insert) {
+		
+		int mask = slotKeys.length - 1;
+		int slot = (int)(hash ^ (hash >>> 32)) & mask;
+		
+		while(slotKeys[slot] != hash) {
+			
+			if(slotKeys[slot] == EMPTY) {
+				if(insert == false) {
+					return -1;
+				}
+				slotKeys[slot] = hash;
+				return slot;
+			}
+			
+			slot = (slot + 1) & mask;
+			
+		}
+		
+		return slot;
+		
+	}
+	
+	/**
+	 * Returns the distinct hashes of all variants of a word with up to the given number of deletions
+	 * @param word The characters of the word
+	 * @param deletions The maximum number of deletions
+	 * @return The hashes of the case folded variants
+	 */
+	private static long[] variantHashes(char[] word, int deletions) {
+		
+		char[] folded = new char[word.length];
+		for(int i = 0; i < word.length; i++) {
+			folded[i] = Character.toLowerCase(word[i]);
+		}
+		
+		// Delete one more character of every variant of the previous level
+		Set<String> variants = new HashSet<String>();
+		List<String> level = new ArrayList<String>();
+		level.add(new String(folded));
+		variants.add(level.get(0));
+		
+		for(int d = 0; d < deletions; d++) {
+			
+			List<String> nextLevel = new ArrayList<String>();
+			for(String variant : level) {
+				for(int i = 0; i < variant.length(); i++) {
+					String shorter = variant.substring(0, i) + variant.substring(i + 1);
+					if(variants.add(shorter)) {
+						nextLevel.add(shorter);
+					}
+				}
+			}
+			level = nextLevel;
+			
+		}
+		
+		long[] hashes = new long[variants.size()];
+		int i = 0;
+		for(String variant : variants) {
+			hashes[i++] = hash(variant);
+		}
+		
+		return hashes;
+		
+	}
+	
+	/**
+	 * Computes the 64-bit hash of a variant (FNV-1a with a final mix, never zero)
+	 * @param variant The variant
+	 * @return The hash
+	 */
+	private static long hash(String variant) {
+		
+		long hash = 0xcbf29ce484222325L;
+		for(int i = 0; i < variant.length(); i++) {
+			hash = (hash ^ variant.charAt(i)) * 0x100000001b3L;
+		}
+		
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		
+		return hash != EMPTY ? hash : 1L;
+		
+	}
+	
+	/**
+	 * Returns the entries that may be within the given distance of the query
+	 * @param query The String that is searched
+	 * @param maxDistance The maximum distance
+	 * @return The IDs of the candidates in ascending order
+	 * @throws NullPointerException An exception that indicates that the query is not set
+	 * @throws IllegalArgumentException An exception that indicates that the distance needs more deletions than indexed
+	 */
+	public int[] candidates(String query, float maxDistance) throws NullPointerException, IllegalArgumentException {
+		return candidates(levenshtein.prepare(query), maxDistance);
+	}
+	
+	/**
+	 * Returns the entries that may be within the given distance of the prepared query
+	 * @param preparedQuery The prepared query
+	 * @param maxDistance The maximum distance
+	 * @return The IDs of the candidates in ascending order
+	 * @throws IllegalArgumentException An exception that indicates that the distance needs more deletions than indexed
+	 */
+	private int[] candidates(PreparedString preparedQuery, float maxDistance) throws IllegalArgumentException {
+		
+		// Compare queries of several words with every entry
+		if(preparedQuery.words.length > 1 || maxDistance < 0f) {
+			
+			int[] all = new int[maxDistance < 0f ? 0 : dictionary.length];
+			for(int i = 0; i < all.length; i++) {
+				all[i] = i;
+			}
+			return all;
+			
+		}
+		
+		double operations = minimumCost > 0f ? Math.floor(maxDistance / minimumCost * 1.000001) : Double.POSITIVE_INFINITY;
+		if(operations > maxDeletions) {
+			throw new IllegalArgumentException("The distance may need more than " + maxDeletions + " deletions.");
+		}
+		
+		final int queryLength = preparedQuery.wordChars[0].length;
+		int[] candidates = new int[16];
+		int size = 0;
+		
+		// Look up every variant of the query and apply the length filter
+		for(long hash : variantHashes(preparedQuery.wordChars[0], (int)operations)) {
+			
+			int slot = slot(hash, false);
+			if(slot < 0) {
+				continue;
+			}
+			
+			for(int i = slotStarts[slot]; i < slotEnds[slot]; i++) {
+				if(Math.abs(lengths[wordIDs[i]] - queryLength) <= operations) {
+					if(size == candidates.length) {
+						candidates = Arrays.copyOf(candidates, size * 2);
+					}
+					candidates[size++] = wordIDs[i];
+				}
+			}
+			
+		}
+		
+		// Add the entries of several words and remove duplicates
+		candidates = Arrays.copyOf(candidates, size + unfilteredEntries.length);
+		System.arraycopy(unfilteredEntries, 0, candidates, size, unfilteredEntries.length);
+		Arrays.sort(candidates);
+		
+		int distinct = 0;
+		for(int i = 0; i < candidates.length; i++) {
+			if(i == 0 || candidates[i] != candidates[i-1]) {
+				candidates[distinct++] = candidates[i];
+			}
+		}
+		
+		return Arrays.copyOf(candidates, distinct);
+		
+	}
+	
+	/**
+	 * Finds all entries within the given distance of the query
+	 * @param query The String that is searched
+	 * @param maxDistance The maximum distance of the results
+	 * @return All entries within the distance, the closest entry first (earlier entries first for equal distances)
+	 * @throws NullPointerException An exception that indicates that the query is not set
+	 * @throws IllegalArgumentException An exception that indicates that the distance needs more deletions than indexed
+	 */
+	public List<SearchHit> search(String query, float maxDistance) throws NullPointerException, IllegalArgumentException {
+		
+		PreparedString preparedQuery = levenshtein.prepare(query);
+		
+		// Verify every candidate
+		return levenshtein.verifyCandidates(preparedQuery, candidates(preparedQuery, maxDistance), dictionary, 
+				preparedDictionary, maxDistance);
+		
+	}
+	
+	/**
+	 * Returns the number of entries of the dictionary
+	 * @return The size of the dictionary
+	 */
+	public int size() {
+		return dictionary.length;
+	}
+	
+	/**
+	 * Returns the maximum number of deletions of the indexed variants
+	 * @return The number of deletions
+	 */
+	public int maxDeletions() {
+		return maxDeletions;
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+/**
+ * Enumeration of the amount of details a {@link ComparedStrings} object keeps about a comparison. The levels are
+ * ordered by the memory they require, the <code>Levenshtein</code> class falls back to a lower level if the
+ * requested level would exceed its memory budget.
+ * @author Rafael W.
+ * @version 0.1
+ * @see Levenshtein#compareDetailed(String, String, DetailLevel)
+ * @see ComparedStrings
+ */
+public enum DetailLevel {
+	
+	/**
+	 * Keep the similarities of all words and the word mappings only
+	 */
+	SCORES,
+	
+	/**
+	 * Keep the words and a frozen copy of the configuration only and recompute the Levenshtein matrices of
+	 * any word pair on first access (a small number of recently used matrices is cached)
+	 */
+	LAZY,
+	
+	/**
+	 * Additionally keep the Levenshtein matrices of the matched word pairs
+	 */
+	MATCHED,
+	
+	/**
+	 * Additionally keep the Levenshtein matrices of all compared word pairs
+	 */
+	ALL;
+
+}
@@ -0,0 +1,78 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+/**
+ * The reusable columns of a distance-only Damerau-Levenshtein computation. A swap reaches back two columns, hence
+ * the last three columns of the matrix are kept. An object must not be shared between threads.
+ * @author Rafael W.
+ * @version 0.1
+ * @see Levenshtein
+ */
+final class DistanceScratch {
+	
+	/**
+	 * The column before the last column
+	 */
+	float[] beforeLastColumn = new float[0];
+	
+	/**
+	 * The last column
+	 */
+	float[] lastColumn = new float[0];
+	
+	/**
+	 * The column that is currently computed
+	 */
+	float[] column = new float[0];
+	
+	/**
+	 * Assures that all columns can hold the given number of rows (the content is not preserved)
+	 * @param rows The number of rows that is needed
+	 */
+	void ensure(int rows) {
+		
+		if(column.length < rows) {
+			
+			// Grow by half to avoid many reallocations for increasing word lengths
+			int capacity = Math.max(rows, column.length + (column.length >> 1));
+			beforeLastColumn = new float[capacity];
+			lastColumn = new float[capacity];
+			column = new float[capacity];
+			
+		}
+		
+	}
+	
+	/**
+	 * Moves the columns on by one, the current column becomes the last column
+	 */
+	void rotate() {
+		
+		float[] temp = beforeLastColumn;
+		beforeLastColumn = lastColumn;
+		lastColumn = column;
+		column = temp;
+		
+	}
+
+}
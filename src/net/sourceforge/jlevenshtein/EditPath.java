@@ -0,0 +1,244 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>The ideal path through a Damerau-Levenshtein matrix in traversal order, from the starting point at the origin 
+ * to the last cell of the matrix. Every step is stored as its coordinates (x is the column, y the row of the matrix)
+ * and the action that leads to it (see the <code>ACTION_*</code> constants of {@link Levenshtein}). The path keeps 
+ * three arrays only, hence long alignments do not create an object per step as the map of 
+ * {@link ComparedStrings#levenshteinPath(int, int)} does.</p>
+ * 
+ * <p>An object of this class is immutable.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see ComparedStrings#editPath(int, int)
+ * @see ComparedStrings#editTransformation(EditPath)
+ */
+public final class EditPath {
+	
+	/**
+	 * The coordinates of all steps
+	 */
+	private final int[] x, y;
+	
+	/**
+	 * The actions of all steps
+	 */
+	private final byte[] actions;
+	
+	/**
+	 * Basic constructor (for internal use only)
+	 * @param x The columns of all steps (will not be cloned)
+	 * @param y The rows of all steps (will not be cloned)
+	 * @param actions The actions of all steps (will not be cloned)
+	 */
+	private EditPath(int[] x, int[] y, byte[] actions) {
+		
+		this.x = x;
+		this.y = y;
+		this.actions = actions;
+		
+	}
+	
+	/**
+	 * Finds the ideal path through a Damerau-Levenshtein matrix. The path is traced back from the last cell twice, 
+	 * once to count its steps and once to fill the arrays of their exact size.
+	 * @param matrix The completed matrix
+	 * @return The path or <code>null</code> if the matrix is <code>null</code>
+	 */
+	static EditPath trace(FloatMatrix matrix) {
+		
+		if(matrix == null) {
+			return null;
+		}
+		
+		int steps = trace(matrix, null, null, null);
+		int[] x = new int[steps];
+		int[] y = new int[steps];
+		byte[] actions = new byte[steps];
+		trace(matrix, x, y, actions);
+		
+		return new EditPath(x, y, actions);
+		
+	}
+	
+	/**
+	 * Traces the ideal path back from the last cell of a matrix
+	 * @param matrix The completed matrix
+	 * @param x The columns of the steps to fill from the end or <code>null</code> to count the steps only
+	 * @param y The rows of the steps to fill from the end or <code>null</code> to count the steps only
+	 * @param actions The actions of the steps to fill from the end or <code>null</code> to count the steps only
+	 * @return The number of steps including the starting point
+	 */
+	private static int trace(FloatMatrix matrix, int[] x, int[] y, byte[] actions) {
+		
+		final float[] cells = matrix.values;
+		final int stride = matrix.stride;
+		
+		int column = stride - 1;
+		int row = matrix.rows - 1;
+		int steps = 0;
+		
+		// Go through matrix and break if limit is reached (cell is the index of (row,column) in the array)
+		for(int i = 0; i < matrix.rows + stride - 2; i++) {
+			
+			// Break if limit is reached (faster than maximum part which is the sum minus two)
+			if(row == 0 && column == 0) {
+				break;
+			}
+			
+			int pointColumn = column, pointRow = row, action;
+			int cell = row * stride + column;
+			
+			// Check if a letter swap would be an option
+			if(column > 1 && row > 1 && cells[cell - stride - 1] > cells[cell]) {
+				column -= 2; row -= 2;
+				action = Levenshtein.ACTION_SWAP;
+			
+			// Check if going down or right is a strictly better option, if not go cross (see Levenshtein.getIdealPath)
+			} else if(row == 0 || (column > 0 && cells[cell - 1] < Math.min(cells[cell - stride - 1], cells[cell - stride]))) {
+				column--;
+				action = Levenshtein.ACTION_INSERT;
+				
+			} else if(column == 0 || cells[cell - stride] < Math.min(cells[cell - stride - 1], cells[cell - 1])) {
+				row--;
+				action = Levenshtein.ACTION_DELETE;
+				
+			} else {
+				column--; row--;
+				action = cells[cell - stride - 1] == cells[cell] ? Levenshtein.ACTION_REMAIN : Levenshtein.ACTION_SUBSTITUTE;
+			}
+			
+			steps++;
+			if(actions != null) {
+				x[actions.length - steps] = pointColumn;
+				y[actions.length - steps] = pointRow;
+				actions[actions.length - steps] = (byte)action;
+			}
+			
+		}
+		
+		// The starting point comes first
+		if(actions != null) {
+			actions[0] = Levenshtein.ACTION_START;
+		}
+		
+		return steps + 1;
+		
+	}
+	
+	/**
+	 * Creates a path out of a map of coordinates and actions by sorting its steps
+	 * @param levenshteinPath The map of the path
+	 * @return The path in traversal order
+	 */
+	static EditPath sorted(Map<HashPoint,Integer> levenshteinPath) {
+		
+		int[] x = new int[levenshteinPath.size()];
+		int[] y = new int[levenshteinPath.size()];
+		byte[] actions = new byte[levenshteinPath.size()];
+		
+		int i = 0;
+		for(Map.Entry<HashPoint,Integer> entry : new TreeMap<HashPoint,Integer>(levenshteinPath).entrySet()) {
+			x[i] = entry.getKey().x;
+			y[i] = entry.getKey().y;
+			actions[i++] = entry.getValue().byteValue();
+		}
+		
+		return new EditPath(x, y, actions);
+		
+	}
+	
+	/**
+	 * Returns the number of steps of the path
+	 * @return The number of steps including the starting point
+	 */
+	public int size() {
+		return actions.length;
+	}
+	
+	/**
+	 * Returns the column of a step
+	 * @param step The ID of the step in traversal order
+	 * @return The column (the position in the second word plus one)
+	 * @throws IndexOutOfBoundsException If the ID does not exist
+	 */
+	public int x(int step) throws IndexOutOfBoundsException {
+		return x[step];
+	}
+	
+	/**
+	 * Returns the row of a step
+	 * @param step The ID of the step in traversal order
+	 * @return The row (the position in the first word plus one)
+	 * @throws IndexOutOfBoundsException If the ID does not exist
+	 */
+	public int y(int step) throws IndexOutOfBoundsException {
+		return y[step];
+	}
+	
+	/**
+	 * Returns the action of a step
+	 * @param step The ID of the step in traversal order
+	 * @return The action as described by the <code>ACTION_*</code> constants of {@link Levenshtein}
+	 * @throws IndexOutOfBoundsException If the ID does not exist
+	 */
+	public int action(int step) throws IndexOutOfBoundsException {
+		return actions[step];
+	}
+	
+	/**
+	 * Converts the path into the map that is returned by {@link ComparedStrings#levenshteinPath(int, int)}
+	 * @return A map of the coordinates of all steps to their actions
+	 */
+	public Map<HashPoint,Integer> toMap() {
+		
+		Map<HashPoint,Integer> coordinates = new HashMap<HashPoint,Integer>();
+		for(int i = 0; i < actions.length; i++) {
+			coordinates.put(new HashPoint(x[i], y[i]), Integer.valueOf(actions[i]));
+		}
+		
+		return coordinates;
+		
+	}
+	
+	/**
+	 * A user readable <code>toString</code> function that shows the steps of the path.
+	 */
+	@Override
+	public String toString() {
+		
+		StringBuilder sb = new StringBuilder("EditPath[");
+		for(int i = 0; i < actions.length; i++) {
+			sb.append(i > 0 ? ", " : "").append('(').append(x[i]).append(',').append(y[i]).append(")=").append(actions[i]);
+		}
+		
+		return sb.append(']').toString();
+		
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.io.Serializable;
+
+/**
+ * <p>A Damerau-Levenshtein matrix stored in a single array in row-major order. The cell of a row and a column is 
+ * found at <code>row * stride + column</code>, hence a matrix needs only one allocation and the neighbouring cells 
+ * that are read by the algorithm are close to each other in memory.</p>
+ * 
+ * <p>An object of this class is a read-only view for the user, only the {@link Levenshtein} class fills its cells.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see ComparedStrings#matrixView(int, int)
+ */
+public final class FloatMatrix implements Serializable {
+	
+	/**
+	 * Serial version ID - since v0.1
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The number of rows (length of the first word + 1)
+	 */
+	final int rows;
+	
+	/**
+	 * The number of columns (length of the second word + 1), also the distance between two rows in the array
+	 */
+	final int stride;
+	
+	/**
+	 * The cells of all rows
+	 */
+	final float[] values;
+	
+	/**
+	 * Creates a matrix with all cells set to <code>0</code> (for internal use only)
+	 * @param rows The number of rows
+	 * @param columns The number of columns
+	 */
+	FloatMatrix(int rows, int columns) {
+		
+		this.rows = rows;
+		this.stride = columns;
+		this.values = new float[rows * columns];
+		
+	}
+	
+	/**
+	 * Copies a matrix of rows into a flat matrix
+	 * @param matrix The matrix to copy (every row must have the same length)
+	 * @return The flat matrix or <code>null</code> if the matrix is <code>null</code>
+	 */
+	static FloatMatrix of(float[][] matrix) {
+		
+		if(matrix == null) {
+			return null;
+		}
+		
+		FloatMatrix flatMatrix = new FloatMatrix(matrix.length, matrix.length > 0 ? matrix[0].length : 0);
+		for(int i = 0; i < matrix.length; i++) {
+			System.arraycopy(matrix[i], 0, flatMatrix.values, i * flatMatrix.stride, flatMatrix.stride);
+		}
+		
+		return flatMatrix;
+		
+	}
+	
+	/**
+	 * Returns the number of rows
+	 * @return The length of the first word + 1
+	 */
+	public int rows() {
+		return rows;
+	}
+	
+	/**
+	 * Returns the number of columns
+	 * @return The length of the second word + 1
+	 */
+	public int columns() {
+		return stride;
+	}
+	
+	/**
+	 * Returns the value of a cell
+	 * @param row The row of the cell
+	 * @param column The column of the cell
+	 * @return The distance of the first <code>row</code> symbols of the first word to the first <code>column</code>
+	 * 		symbols of the second word
+	 * @throws IndexOutOfBoundsException If the cell does not exist
+	 */
+	public float get(int row, int column) throws IndexOutOfBoundsException {
+		
+		if(row < 0 || row >= rows || column < 0 || column >= stride) {
+			throw new IndexOutOfBoundsException("The cell (" + row + "," + column + ") does not exist.");
+		}
+		
+		return values[row * stride + column];
+		
+	}
+	
+	/**
+	 * Returns the value of the last cell
+	 * @return The Damerau-Levenshtein distance of both words
+	 */
+	public float distance() {
+		return values[values.length - 1];
+	}
+	
+	/**
+	 * Copies the matrix into an array of rows
+	 * @return A new matrix that can be altered by the user
+	 */
+	public float[][] toArray() {
+		
+		float[][] matrix = new float[rows][stride];
+		for(int i = 0; i < rows; i++) {
+			System.arraycopy(values, i * stride, matrix[i], 0, stride);
+		}
+		
+		return matrix;
+		
+	}
+	
+	/**
+	 * Prints the matrix to a {@link String}
+	 * @return A text describing the dimensions and the distance
+	 */
+	@Override
+	public String toString() {
+		return "FloatMatrix[rows=" + rows + ",columns=" + stride + ",distance=" + distance() + "]";
+	}
+	
+}
@@ -0,0 +1,128 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+/**
+ * An approximate counter of how often keys were accessed recently (a count-min sketch of 4-bit counters). Every 
+ * key is counted in four counters of different rows and its frequency is the smallest of them. Once the number of 
+ * accesses reaches ten times the capacity of the cache, all counters are halved, such that old accesses fade out. 
+ * A cache admits a new entry only if it is accessed more frequently than the entry it would replace (TinyLFU).
+ * An object must not be shared between threads without synchronization.
+ * @author Rafael W.
+ * @version 0.1
+ * @see CompareCache
+ */
+final class FrequencySketch {
+	
+	/**
+	 * The seeds of the four rows
+	 */
+	private static final int[] SEEDS = {0x9e3779b9, 0x85ebca6b, 0xc2b2ae35, 0x27d4eb2f};
+	
+	/**
+	 * The counters, sixteen 4-bit counters per value
+	 */
+	private final long[] table;
+	private final int mask;
+	
+	/**
+	 * The number of accesses after which all counters are halved and the number of accesses since then
+	 */
+	private final int sampleSize;
+	private int additions = 0;
+	
+	/**
+	 * Creates a sketch for a cache of the given capacity
+	 * @param capacity The maximum number of entries of the cache
+	 */
+	FrequencySketch(int capacity) {
+		
+		int size = Integer.highestOneBit(Math.max(capacity, 8) - 1) << 1;
+		table = new long[size];
+		mask = size - 1;
+		sampleSize = 10 * Math.max(capacity, 1);
+		
+	}
+	
+	/**
+	 * Returns the estimated number of recent accesses of a key
+	 * @param hash The hash of the key
+	 * @return The frequency between 0 and 15
+	 */
+	int frequency(int hash) {
+		
+		int frequency = 15;
+		
+		for(int i = 0; i < SEEDS.length; i++) {
+			int h = spread(hash, i);
+			frequency = Math.min(frequency, (int)(table[h & mask] >>> ((h >>> 28) << 2)) & 15);
+		}
+		
+		return frequency;
+		
+	}
+	
+	/**
+	 * Counts an access of a key
+	 * @param hash The hash of the key
+	 */
+	void increment(int hash) {
+		
+		boolean added = false;
+		
+		for(int i = 0; i < SEEDS.length; i++) {
+			
+			int h = spread(hash, i);
+			int offset = (h >>> 28) << 2;
+			
+			// Saturate at 15
+			if(((table[h & mask] >>> offset) & 15) != 15) {
+				table[h & mask] += 1L << offset;
+				added = true;
+			}
+			
+		}
+		
+		// Let old accesses fade out
+		if(added && ++additions == sampleSize) {
+			for(int i = 0; i < table.length; i++) {
+				table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+			}
+			additions >>>= 1;
+		}
+		
+	}
+	
+	/**
+	 * Mixes a hash for one row
+	 * @param hash The hash of the key
+	 * @param row The row
+	 * @return The mixed hash (the low bits select the value, the high bits the counter)
+	 */
+	private static int spread(int hash, int row) {
+		
+		int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) & 3];
+		return h ^ (h >>> 15);
+		
+	}
+
+}
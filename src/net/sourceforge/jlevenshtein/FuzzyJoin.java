@@ -0,0 +1,423 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * <p>A fuzzy join of two sides of records that emits every pair that meets a threshold. The smaller side is indexed
+ * in memory when the join is created, the larger side is streamed in batches of a fixed size that are compared by 
+ * a worker pool. The memory of a join hence depends on the indexed side only.</p>
+ * 
+ * <p>The indexed single words are grouped by their length. Since a plain path needs at least one insertion or 
+ * deletion per character of difference in length, whole groups are skipped if their length alone can not meet the 
+ * threshold, and the remaining candidates are abandoned as soon as they can not meet it any more. Indexed records
+ * of several words (and phonetic records) are always compared.</p>
+ * 
+ * <p>A join is immutable and thread safe, several sides can be streamed against the same index concurrently.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see JoinSink
+ */
+public class FuzzyJoin {
+	
+	/**
+	 * The number of streamed records of a batch and of a single task
+	 */
+	private static final int BATCH_SIZE = 1 << 12;
+	private static final int TASK_SIZE = 1 << 5;
+	
+	/**
+	 * The configuration of the comparisons (a frozen copy that is never changed)
+	 */
+	private final Levenshtein levenshtein;
+	
+	/**
+	 * The indexed side and its prepared records
+	 */
+	private final String[] indexedSide;
+	private final PreparedString[] preparedSide;
+	
+	/**
+	 * The IDs of the single words ordered by length, the length of every group and its start in the order (the 
+	 * last start is the end of the last group)
+	 */
+	private final int[] lengthOrder;
+	private final int[] groupLengths;
+	private final int[] groupStarts;
+	
+	/**
+	 * The IDs of the records that are always compared
+	 */
+	private final int[] unfilteredRecords;
+	
+	/**
+	 * Creates a join of the given side with the default flags
+	 * @param indexedSide The (smaller) side that is kept in memory
+	 * @throws PhoneticException An exception that is throws if a record contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that a record is not set
+	 */
+	public FuzzyJoin(Collection<String> indexedSide) throws PhoneticException, NullPointerException {
+		this(indexedSide, new Levenshtein());
+	}
+	
+	/**
+	 * Creates a join of the given side that compares with the flags and costs of the given object
+	 * @param indexedSide The (smaller) side that is kept in memory
+	 * @param levenshtein The object whose configuration is used (will be copied)
+	 * @throws PhoneticException An exception that is throws if a record contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that a record is not set
+	 */
+	public FuzzyJoin(Collection<String> indexedSide, Levenshtein levenshtein) throws PhoneticException, NullPointerException {
+		
+		this.levenshtein = levenshtein.frozenCopy();
+		this.indexedSide = indexedSide.toArray(new String[indexedSide.size()]);
+		preparedSide = new PreparedString[this.indexedSide.length];
+		
+		boolean filtered = this.levenshtein.currentFlags[Levenshtein.USE_PHONETIC] == false && 
+				this.levenshtein.nonNegativeCosts();
+		int[] lengths = new int[this.indexedSide.length];
+		int[] tempUnfiltered = new int[this.indexedSide.length];
+		int singleWords = 0, unfiltered = 0;
+		
+		// Prepare every record once and count the single words of every length
+		for(int i = 0; i < this.indexedSide.length; i++) {
+			
+			preparedSide[i] = this.levenshtein.prepare(this.indexedSide[i]);
+			
+			if(filtered && preparedSide[i].words.length == 1) {
+				lengths[i] = preparedSide[i].wordChars[0].length;
+				singleWords++;
+			} else {
+				lengths[i] = -1;
+				tempUnfiltered[unfiltered++] = i;
+			}
+			
+		}
+		
+		unfilteredRecords = Arrays.copyOf(tempUnfiltered, unfiltered);
+		
+		// Sort the single words by length (and ID), packed into one value
+		long[] packed = new long[singleWords];
+		for(int i = 0, j = 0; i < lengths.length; i++) {
+			if(lengths[i] >= 0) {
+				packed[j++] = ((long)lengths[i] << 32) | i;
+			}
+		}
+		Arrays.sort(packed);
+		
+		lengthOrder = new int[singleWords];
+		int[] tempLengths = new int[singleWords];
+		int[] tempStarts = new int[singleWords + 1];
+		int groups = 0;
+		
+		for(int i = 0; i < singleWords; i++) {
+			
+			int length = (int)(packed[i] >>> 32);
+			lengthOrder[i] = (int)packed[i];
+			
+			if(groups == 0 || tempLengths[groups-1] != length) {
+				tempLengths[groups] = length;
+				tempStarts[groups++] = i;
+			}
+			
+		}
+		
+		tempStarts[groups] = singleWords;
+		groupLengths = Arrays.copyOf(tempLengths, groups);
+		groupStarts = Arrays.copyOf(tempStarts, groups + 1);
+		
+	}
+	
+	/**
+	 * Joins the indexed side with a streamed side on the common fork join pool
+	 * @param streamedSide The (larger) side that is read once
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index of a pair
+	 * @param sink The receiver of the matching pairs
+	 * @return The number of matching pairs that were emitted
+	 * @throws PhoneticException An exception that is throws if a record contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that a record is not set
+	 */
+	public long join(Iterable<String> streamedSide, float threshold, JoinSink sink) throws PhoneticException, NullPointerException {
+		return join(streamedSide.iterator(), threshold, sink, null);
+	}
+	
+	/**
+	 * Joins the indexed side with a streamed side on the common fork join pool
+	 * @param streamedSide The (larger) side that is read once (not closed by this method)
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index of a pair
+	 * @param sink The receiver of the matching pairs
+	 * @return The number of matching pairs that were emitted
+	 * @throws PhoneticException An exception that is throws if a record contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that a record is not set
+	 */
+	public long join(Stream<String> streamedSide, float threshold, JoinSink sink) throws PhoneticException, NullPointerException {
+		return join(streamedSide.iterator(), threshold, sink, null);
+	}
+	
+	/**
+	 * Joins the indexed side with the lines of a file (UTF-8) on the common fork join pool
+	 * @param streamedSide The (larger) side of which every line is a record
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index of a pair
+	 * @param sink The receiver of the matching pairs
+	 * @return The number of matching pairs that were emitted
+	 * @throws PhoneticException An exception that is throws if a record contains invalid phonetic symbols or similar
+	 * @throws IOException An exception that indicates that the file could not be read
+	 */
+	public long join(File streamedSide, float threshold, JoinSink sink) throws PhoneticException, IOException {
+		
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(streamedSide), "UTF-8"));
+		
+		try {
+			
+			// Read one line ahead
+			Iterator<String> lines = new Iterator<String>() {
+				
+				private String nextLine = readLine();
+				
+				@Override
+				public boolean hasNext() {
+					return nextLine != null;
+				}
+				
+				@Override
+				public String next() {
+					
+					if(nextLine == null) {
+						throw new NoSuchElementException();
+					}
+					
+					String line = nextLine;
+					nextLine = readLine();
+					
+					return line;
+					
+				}
+				
+				private String readLine() {
+					try {
+						return reader.readLine();
+					} catch(IOException e) {
+						throw new IllegalStateException("Unable to read the streamed side.", e);
+					}
+				}
+				
+			};
+			
+			return join(lines, threshold, sink, null);
+			
+		} catch(IllegalStateException e) {
+			if(e.getCause() instanceof IOException) {
+				throw (IOException)e.getCause();
+			}
+			throw e;
+			
+		} finally {
+			reader.close();
+		}
+		
+	}
+	
+	/**
+	 * Joins the indexed side with a streamed side on the given executor. The executor is not shut down by this class.
+	 * @param streamedSide The (larger) side that is read once
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index of a pair
+	 * @param sink The receiver of the matching pairs
+	 * @param executor The executor that compares the batches or <code>null</code> to use the common fork join pool
+	 * @return The number of matching pairs that were emitted
+	 * @throws PhoneticException An exception that is throws if a record contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that a record is not set
+	 * @throws IllegalStateException An exception that indicates that the join was interrupted
+	 */
+	public long join(Iterator<String> streamedSide, final float threshold, JoinSink sink, ExecutorService executor) 
+		throws PhoneticException, NullPointerException, IllegalStateException {
+		
+		final String[] batch = new String[BATCH_SIZE];
+		final long[][] batchMatches = new long[BATCH_SIZE][];
+		long streamedID = 0L, emitted = 0L;
+		
+		while(streamedSide.hasNext()) {
+			
+			// Read the next batch
+			int batchSize = 0;
+			while(batchSize < BATCH_SIZE && streamedSide.hasNext()) {
+				batch[batchSize] = streamedSide.next();
+				if(batch[batchSize] == null) {
+					throw new NullPointerException("At least one of the streamed records is not set.");
+				}
+				batchSize++;
+			}
+			
+			// Compare the batch in parallel, every task writes the matches of its own records
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for(int start = 0; start < batchSize; start += TASK_SIZE) {
+				
+				final int first = start, last = Math.min(start + TASK_SIZE, batchSize);
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() throws PhoneticException {
+						
+						DistanceScratch scratch = new DistanceScratch();
+						for(int i = first; i < last; i++) {
+							batchMatches[i] = matches(levenshtein.prepare(batch[i]), threshold, scratch);
+						}
+						
+						return null;
+						
+					}
+				});
+				
+			}
+			
+			// Wait for all tasks
+			Levenshtein.invokeAllUnwrapped(executor != null ? executor : ForkJoinPool.commonPool(), tasks);
+			
+			// Emit the matches in order
+			for(int i = 0; i < batchSize; i++, streamedID++) {
+				for(long match : batchMatches[i]) {
+					
+					int indexedID = (int)(match >>> 32);
+					emitted++;
+					
+					if(sink.accept(streamedID, batch[i], indexedID, indexedSide[indexedID], Float.intBitsToFloat((int)match)) == false) {
+						return emitted;
+					}
+					
+				}
+				batch[i] = null;
+				batchMatches[i] = null;
+			}
+			
+		}
+		
+		return emitted;
+		
+	}
+	
+	/**
+	 * Finds all indexed records that meet the threshold with a prepared streamed record
+	 * @param preparedRecord The prepared streamed record
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index of a pair
+	 * @param scratch The columns to reuse
+	 * @return The matches in the order of the indexed side (ID in the upper, bits of the result in the lower half)
+	 * @throws PhoneticException An exception that is throws if the record contains invalid phonetic symbols or similar
+	 */
+	private long[] matches(PreparedString preparedRecord, float threshold, DistanceScratch scratch) throws PhoneticException {
+		
+		long[] matches = new long[0];
+		int size = 0;
+		
+		for(int group = 0; group < groupLengths.length + 1; group++) {
+			
+			int start, end;
+			int[] ids;
+			
+			if(group < groupLengths.length) {
+				
+				// Skip groups that can not meet the threshold by their length alone
+				if(preparedRecord.words.length == 1 && 
+						meetsLengthBound(preparedRecord.wordChars[0].length, groupLengths[group], threshold) == false) {
+					continue;
+				}
+				
+				ids = lengthOrder;
+				start = groupStarts[group];
+				end = groupStarts[group+1];
+				
+			} else {
+				ids = unfilteredRecords;
+				start = 0;
+				end = unfilteredRecords.length;
+			}
+			
+			for(int i = start; i < end; i++) {
+				
+				BasicCompared basicCompared = levenshtein.compareCandidate(preparedRecord, preparedSide[ids[i]], true, 
+						threshold, scratch);
+				
+				if(basicCompared != null) {
+					
+					float result = levenshtein.currentFlags[Levenshtein.ABSOLUTE] ? basicCompared.distance() : basicCompared.index();
+					if(size == matches.length) {
+						matches = Arrays.copyOf(matches, Math.max(4, size * 2));
+					}
+					matches[size++] = ((long)ids[i] << 32) | (Float.floatToIntBits(result) & 0xffffffffL);
+					
+				}
+				
+			}
+			
+		}
+		
+		// Order the matches by the ID of the indexed record
+		matches = Arrays.copyOf(matches, size);
+		Arrays.sort(matches);
+		
+		return matches;
+		
+	}
+	
+	/**
+	 * Checks whether two single words of the given lengths can meet the threshold, i.e. whether the result of the 
+	 * insertions and deletions their difference in length needs still meets it
+	 * @param firstLength The length of the first word
+	 * @param secondLength The length of the second word
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index of a pair
+	 * @return False if the pair can not meet the threshold
+	 */
+	private boolean meetsLengthBound(int firstLength, int secondLength, float threshold) {
+		
+		float minimumDistance = levenshtein.operationCosts[Levenshtein.CHAR_INDEL] * Math.abs(firstLength - secondLength);
+		
+		if(levenshtein.currentFlags[Levenshtein.ABSOLUTE]) {
+			return minimumDistance <= threshold;
+		}
+		
+		// Allow for rounding errors of the index (and empty words), the threshold is checked on the exact result
+		float maximumIndex = levenshtein.getIndex(minimumDistance, firstLength + 1, secondLength + 1);
+		return Float.isNaN(maximumIndex) || maximumIndex >= threshold - 0.0001f;
+		
+	}
+	
+	/**
+	 * Returns the number of records of the indexed side
+	 * @return The size of the indexed side
+	 */
+	public int size() {
+		return indexedSide.length;
+	}
+
+}
@@ -0,0 +1,288 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.Locale;
+
+/**
+ * <p>This internal class prepares a user input for the {@link Levenshtein} class in a single pass. It folds the 
+ * case, strips special characters and finds the word boundaries at once and writes the resulting characters and 
+ * word offsets into buffers that are reused by the next call. The result is identical to the former chain of
+ * <code>toLowerCase()</code>, <code>replaceAll("[\\W&&\\S]", "")</code> (respectively the phonetic variant 
+ * <code>"[0\\W&&\\S&&[^:\\\\}@&`?]]"</code>) and <code>trim().split("\\s+")</code> (respectively 
+ * <code>trim().replaceAll("\\s+", " ")</code> if the input is treated as one word).</p>
+ * 
+ * <p>Instances are not thread safe, the <code>Levenshtein</code> class keeps one instance per thread.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see Levenshtein
+ */
+final class InputNormalizer {
+	
+	/**
+	 * Character classes of ASCII characters as used by the former regular expressions
+	 */
+	private static final byte WORD = 1, SPACE = 2, PHONETIC_SYMBOL = 4;
+	
+	/**
+	 * The character classes of all ASCII characters
+	 */
+	private static final byte[] CLASSES = new byte[128];
+	
+	static {
+		for(char c = 'a'; c <= 'z'; c++) CLASSES[c] = WORD;
+		for(char c = 'A'; c <= 'Z'; c++) CLASSES[c] = WORD;
+		for(char c = '0'; c <= '9'; c++) CLASSES[c] = WORD;
+		CLASSES['_'] = WORD;
+		
+		// Equals \s of regular expressions (no unicode white spaces)
+		for(char c : " \t\n\u000B\f\r".toCharArray()) CLASSES[c] = SPACE;
+		
+		// Special characters that are part of XSAMPA symbols
+		for(char c : ":\\}@&`?".toCharArray()) CLASSES[c] = PHONETIC_SYMBOL;
+	}
+	
+	/**
+	 * The characters of the last normalized input
+	 */
+	private char[] chars = new char[64];
+	
+	/**
+	 * The start (even positions) and end (odd positions) offsets of all words of the last input
+	 */
+	private int[] bounds = new int[16];
+	
+	/**
+	 * The number of words of the last input
+	 */
+	private int words;
+	
+	/**
+	 * Normalizes an input and stores the resulting characters and word offsets in this object
+	 * @param input The user input
+	 * @param foldCase <code>true</code> if the input should be converted to lower case
+	 * @param stripSpecial <code>true</code> if special characters should be removed
+	 * @param phonetic <code>true</code> if special characters of XSAMPA symbols should be kept (and zeros removed)
+	 * @param oneWord <code>true</code> if the entire input is one word (white spaces are collapsed)
+	 * @return This object
+	 */
+	InputNormalizer normalize(String input, boolean foldCase, boolean stripSpecial, boolean phonetic, boolean oneWord) {
+		
+		// Locales with special casing rules of ASCII letters are handled by the JDK
+		if(foldCase && requiresLocaleFolding()) {
+			input = input.toLowerCase();
+			foldCase = false;
+		}
+		
+		if(normalizeAscii(input, foldCase, stripSpecial, phonetic, oneWord) == false) {
+			
+			// Non ASCII characters may change their length when converted to lower case, fold them in advance
+			normalizeAscii(input.toLowerCase(), false, stripSpecial, phonetic, oneWord);
+			
+		}
+		
+		return this;
+		
+	}
+	
+	/**
+	 * The single pass over the input
+	 * @param input The user input
+	 * @param foldCase <code>true</code> if ASCII letters should be converted to lower case
+	 * @param stripSpecial <code>true</code> if special characters should be removed
+	 * @param phonetic <code>true</code> if special characters of XSAMPA symbols should be kept (and zeros removed)
+	 * @param oneWord <code>true</code> if the entire input is one word (white spaces are collapsed)
+	 * @return <code>false</code> if the input contains a non ASCII character while folding the case (nothing is stored)
+	 */
+	private boolean normalizeAscii(String input, boolean foldCase, boolean stripSpecial, boolean phonetic, boolean oneWord) {
+		
+		final int inputLength = input.length();
+		if(chars.length < inputLength + 1) {
+			chars = new char[Math.max(inputLength + 1, chars.length * 2)];
+		}
+		
+		char[] out = chars;
+		int length = 0;
+		int significantEnd = 0;
+		boolean started = false;
+		boolean pendingSpace = false;
+		words = 0;
+		
+		for(int i = 0; i < inputLength; i++) {
+			
+			char c = input.charAt(i);
+			int charClass;
+			
+			if(c < 128) {
+				charClass = CLASSES[c];
+				if(foldCase && c >= 'A' && c <= 'Z') {
+					c += 'a' - 'A';
+				}
+			} else if(foldCase) {
+				return false;
+			} else {
+				charClass = 0;
+			}
+			
+			// Remove special characters (not a word character and not a white space)
+			if(stripSpecial && (charClass & SPACE) == 0) {
+				boolean special = phonetic 	? ((charClass & WORD) == 0 || c == '0') && (charClass & PHONETIC_SYMBOL) == 0 
+											: (charClass & WORD) == 0;
+				if(special) continue;
+			}
+			
+			// Trim leading characters
+			if(started == false) {
+				if(c <= ' ') continue;
+				started = true;
+			}
+			
+			// White spaces separate words (respectively are collapsed to one space)
+			if((charClass & SPACE) != 0) {
+				if(pendingSpace == false && oneWord == false) {
+					closeWord(length);
+				}
+				pendingSpace = true;
+				continue;
+			}
+			
+			if(pendingSpace || words == 0) {
+				if(oneWord && pendingSpace) {
+					out[length++] = ' ';
+				} else if(oneWord == false) {
+					openWord(length);
+				}
+				pendingSpace = false;
+			}
+			
+			out[length++] = c;
+			if(c > ' ') {
+				significantEnd = length;
+			}
+			
+		}
+		
+		// Trim trailing characters
+		if(oneWord) {
+			words = 0;
+			openWord(0);
+			closeWord(significantEnd);
+		} else if(words == 0) {
+			openWord(0);
+			closeWord(0);
+		} else {
+			if((words & 1) == 1) {
+				closeWord(length);
+			}
+			while(bounds[words - 2] >= significantEnd) {
+				words -= 2;
+			}
+			bounds[words - 1] = Math.min(bounds[words - 1], significantEnd);
+		}
+		
+		words /= 2;
+		return true;
+		
+	}
+	
+	/**
+	 * Stores the start offset of a word (temporarily counts bounds instead of words)
+	 * @param offset The offset of the first character
+	 */
+	private void openWord(int offset) {
+		if(words + 2 > bounds.length) {
+			int[] tempBounds = new int[bounds.length * 2];
+			System.arraycopy(bounds, 0, tempBounds, 0, words);
+			bounds = tempBounds;
+		}
+		bounds[words++] = offset;
+	}
+	
+	/**
+	 * Stores the end offset of the currently opened word (temporarily counts bounds instead of words)
+	 * @param offset The offset after the last character
+	 */
+	private void closeWord(int offset) {
+		if((words & 1) == 1) {
+			bounds[words++] = offset;
+		}
+	}
+	
+	/**
+	 * Checks if the default locale converts ASCII letters differently (e.g. the dotless i of the Turkish locale)
+	 * @return <code>true</code> if the JDK has to convert the input to lower case
+	 */
+	private static boolean requiresLocaleFolding() {
+		String language = Locale.getDefault().getLanguage();
+		return "tr".equals(language) || "az".equals(language) || "lt".equals(language);
+	}
+	
+	/**
+	 * Returns the number of words of the last input
+	 * @return The number of words (at least one, which may be empty)
+	 */
+	int words() {
+		return words;
+	}
+	
+	/**
+	 * Returns the buffer with the characters of the last input (only valid until the next call)
+	 * @return The character buffer
+	 */
+	char[] chars() {
+		return chars;
+	}
+	
+	/**
+	 * Returns the offset of the first character of a word
+	 * @param word The ID of the word
+	 * @return The offset in the character buffer
+	 */
+	int start(int word) {
+		return bounds[2 * word];
+	}
+	
+	/**
+	 * Returns the offset after the last character of a word
+	 * @param word The ID of the word
+	 * @return The offset in the character buffer
+	 */
+	int end(int word) {
+		return bounds[2 * word + 1];
+	}
+	
+	/**
+	 * Creates the words of the last input
+	 * @return An array of all words
+	 */
+	String[] toWords() {
+		
+		String[] result = new String[words];
+		for(int i = 0; i < words; i++) {
+			result[i] = new String(chars, bounds[2 * i], bounds[2 * i + 1] - bounds[2 * i]);
+		}
+		
+		return result;
+		
+	}
+	
+}
@@ -0,0 +1,45 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+/**
+ * A receiver of the matching pairs of a fuzzy join. It is called by the thread that started the join, in the order 
+ * of the streamed records and, for every streamed record, in the order of the indexed records. Returning 
+ * <code>false</code> stops the join.
+ * @author Rafael W.
+ * @version 0.1
+ * @see FuzzyJoin
+ */
+public interface JoinSink {
+	
+	/**
+	 * Receives a matching pair
+	 * @param streamedID The position of the record in the streamed side
+	 * @param streamedRecord The record of the streamed side
+	 * @param indexedID The position of the record in the indexed side
+	 * @param indexedRecord The record of the indexed side
+	 * @param result The similarity index or the distance (if the absolute flag is set) of both records
+	 * @return <code>true</code> if the join should continue, <code>false</code> otherwise
+	 */
+	public boolean accept(long streamedID, String streamedRecord, int indexedID, String indexedRecord, float result);
+
+}
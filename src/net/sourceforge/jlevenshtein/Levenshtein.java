@@ -33,7 +33,9 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -41,8 +43,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -93,7 +101,10 @@ import java.util.regex.Pattern;
  * <p>The source code contains additional private functions that can be used to visualize and explain the entire computation process if 
  * used on a console. For this purpose remove the related commenting tags in the source code and recompile this file.</p>
  * 
- * <p>This class is thread safe but not optimized for the usage of multiple processors.</p>
+ * <p>This class is thread safe. Its configuration is kept in an immutable {@link LevenshteinConfig} snapshot that every
+ * comparison reads once, hence comparisons never lock and changing the configuration does not wait for them. Long sentences 
+ * can be compared on multiple processors by setting a threshold of compared word pairs via <code>setParallel</code> from 
+ * which on the rows of the word matrix are computed concurrently.</p>
  * 
  * <p>This class is licensed under the GNU GPLv3. It comes without any warranty or support. However, if you experience problems with
  * using it, please contact me on: <a href="http://j-levenshtein.sourceforge.net">http://j-levenshtein.sourceforge.net</a>.</p>
@@ -119,15 +130,15 @@ public class Levenshtein {
 							PHONETIC_MAXIMUM_DIFFERENCE = WORD_POSITION_ERROR + 1;
 	
 	/**
-	 * An array with all costs of an operation
+	 * An array with all costs of an operation (a copy of the costs of the current snapshot, assigning a new array or 
+	 * changing an element replaces the snapshot before the next computation)
 	 */
-	protected volatile float[] operationCosts = {2f, 1f, 1f, 1.5f, 1.5f, 0.95f, 20f};
+	protected volatile float[] operationCosts;
 	
 	/**
-	 * A path for finding the mappings for phonetic comparison
+	 * A path for finding the mappings for phonetic comparison (mirrors the current snapshot like the costs)
 	 */
-	protected volatile File featurePath = new File(Levenshtein.class.getResource("/ressource/features.txt").getFile()),
-							savePath = new File(Levenshtein.class.getResource("/ressource/features.dat").getFile());
+	protected volatile File featurePath, savePath;
 
 	/**
 	 * A key for the costs of a specific transformation
@@ -150,37 +161,202 @@ public class Levenshtein {
 								ACTION_REMAIN = ACTION_SWAP + 1;
 
 	/**
-	 * The flags for a Levenshtein distance computation
+	 * The flags for a Levenshtein distance computation (mirrors the current snapshot like the costs)
 	 */
-	protected volatile boolean[] currentFlags = {false, false, true, true, true, false};
+	protected volatile boolean[] currentFlags;
 	
 	/**
-	 * A lock to ensure no flags are changed while a computation is running
+	 * The current snapshot of the configuration, every computation reads it once and computes with its engine
 	 */
-	private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+	private volatile LevenshteinConfig config;
+	
+	/**
+	 * A lock that serializes changes of the configuration (computations never take it)
+	 */
+	private final Object configLock = new Object();
+	
+	/**
+	 * The pattern that splits a word into its XSAMPA symbols
+	 */
+	private static final Pattern SYMBOL_PATTERN = Pattern.compile("((?:\\S[\\\\`]{0,2})(?::(?:\\\\)?)?)");
+	
+	/**
+	 * The number of Strings per row and column of a tile of a pairwise comparison
+	 */
+	private static final int PAIRWISE_TILE = 64;
+	
+	/**
+	 * The buffers to prepare the user input (one per thread)
+	 */
+	private static final ThreadLocal<InputNormalizer> NORMALIZER = new ThreadLocal<InputNormalizer>() {
+		@Override
+		protected InputNormalizer initialValue() {
+			return new InputNormalizer();
+		}
+	};
+	
+	/**
+	 * The number of compared word pairs from which on the word matrix is computed in parallel (0 = never)
+	 */
+	private final int parallelThreshold;
+	
+	/**
+	 * The executor that computes rows of the word matrix in parallel (null = common fork join pool)
+	 */
+	private final ExecutorService parallelExecutor;
+	
+	/**
+	 * The number of bytes the Levenshtein matrices of a detailed comparison (or the results of a pairwise comparison) 
+	 * may occupy
+	 */
+	private final long memoryBudget;
+	
+	/**
+	 * The cache of single word comparisons of sentences (null = no cache or the input is treated as one word)
+	 */
+	private final WordPairCache wordCache;
 	  
 	/**
 	 * Basic constructor that takes optional flags
 	 * @param userFlags The flags of this object
 	 */
 	public Levenshtein(LevFlag... userFlags) {
+		this(LevenshteinConfig.DEFAULT);
 		setFlag(userFlags);
 	}
 	
 	/**
-	 * Constructor that copies the flags of another Levenshtein object
+	 * Constructor that copies the flags of another Levenshtein object (both objects share the current snapshot)
 	 * @param levenshtein The object that should be copied
 	 */
 	public Levenshtein(Levenshtein levenshtein) {
+		this(levenshtein.snapshot());
+	}
+	
+	/**
+	 * Constructor that starts with the given snapshot of a configuration
+	 * @param config The snapshot of the configuration
+	 */
+	public Levenshtein(LevenshteinConfig config) {
 		
-		levenshtein.rwLock.readLock().lock();
+		this.config = config;
+		currentFlags = config.flags.clone();
+		operationCosts = config.costs.clone();
+		featurePath = config.featurePath;
+		savePath = config.savePath;
+		parallelThreshold = config.parallelThreshold;
+		parallelExecutor = config.parallelExecutor;
+		memoryBudget = config.memoryBudget;
 		
-		currentFlags = levenshtein.currentFlags.clone();
-		operationCosts = levenshtein.operationCosts.clone();
-		featurePath = levenshtein.featurePath;
-		savePath = levenshtein.savePath;
+		// Inputs that are treated as one word would fill the vocabulary with entire sentences
+		wordCache = config.flags[ONE_WORD] ? null : config.wordCache;
 		
-		levenshtein.rwLock.readLock().unlock();
+	}
+	
+	/**
+	 * Returns a frozen configuration (for internal use only) that does not read the feature files
+	 * @param flags The flags (will be cloned)
+	 * @param costs The costs of all operations (will be cloned)
+	 * @param phoneticTable The feature table for phonetic comparisons or <code>null</code> if not needed
+	 * @return The engine of the configuration
+	 */
+	static Levenshtein frozen(boolean[] flags, float[] costs, Map<String, Float[]> phoneticTable) {
+		return new LevenshteinConfig(flags, costs, LevenshteinConfig.DEFAULT.featurePath, LevenshteinConfig.DEFAULT.savePath, 
+				0, null, LevenshteinConfig.DEFAULT.memoryBudget, null, phoneticTable).engine();
+	}
+	
+	/**
+	 * Returns the object that computes with the current snapshot of the configuration. The snapshot is read once, 
+	 * hence the engine does not change during a computation.
+	 * @return The engine of the current snapshot (<code>this</code> if this object is that engine)
+	 */
+	private Levenshtein engine() {
+		return snapshot().engine();
+	}
+	
+	/**
+	 * Returns the current snapshot of the configuration. If a subclass assigned or changed one of the protected fields 
+	 * of the configuration, a snapshot of their values replaces the current one.
+	 * @return The immutable snapshot
+	 */
+	private LevenshteinConfig snapshot() {
+		
+		LevenshteinConfig snapshot = config;
+		if(mirrors(snapshot)) {
+			return snapshot;
+		}
+		
+		synchronized(configLock) {
+			
+			// Check again, the fields may have been mirrored by a concurrent change in the meantime
+			LevenshteinConfig current = config;
+			snapshot = current;
+			if(Arrays.equals(currentFlags, snapshot.flags) == false) {
+				snapshot = snapshot.withFlags(currentFlags);
+			}
+			if(Arrays.equals(operationCosts, snapshot.costs) == false) {
+				snapshot = snapshot.withCosts(operationCosts);
+			}
+			if(featurePath != snapshot.featurePath || savePath != snapshot.savePath) {
+				snapshot = snapshot.withPaths(featurePath, savePath);
+			}
+			
+			if(snapshot != current) {
+				setSnapshot(snapshot);
+			}
+			return snapshot;
+			
+		}
+		
+	}
+	
+	/**
+	 * Checks if the protected fields of the configuration still hold the values of a snapshot
+	 * @param snapshot The snapshot
+	 * @return True if neither a field was assigned nor an element of the flags or costs was changed
+	 */
+	private boolean mirrors(LevenshteinConfig snapshot) {
+		return Arrays.equals(currentFlags, snapshot.flags) && Arrays.equals(operationCosts, snapshot.costs) && 
+				featurePath == snapshot.featurePath && savePath == snapshot.savePath;
+	}
+	
+	/**
+	 * Replaces the current snapshot and mirrors copies of it into the protected fields (the caller must hold the lock 
+	 * of the configuration)
+	 * @param snapshot The new snapshot
+	 */
+	private void setSnapshot(LevenshteinConfig snapshot) {
+		
+		currentFlags = snapshot.flags.clone();
+		operationCosts = snapshot.costs.clone();
+		featurePath = snapshot.featurePath;
+		savePath = snapshot.savePath;
+		config = snapshot;
+		
+	}
+	
+	/**
+	 * Returns the current snapshot of the configuration
+	 * @return The immutable snapshot
+	 */
+	public LevenshteinConfig getConfig() {
+		return snapshot();
+	}
+	
+	/**
+	 * Replaces the configuration by the given snapshot. Comparisons that already run finish with the old snapshot.
+	 * @param config The new snapshot
+	 * @throws NullPointerException An exception that indicates that the snapshot is not set
+	 */
+	public void setConfig(LevenshteinConfig config) throws NullPointerException {
+		
+		if(config == null) {
+			throw new NullPointerException("The configuration is not set.");
+		}
+		
+		synchronized(configLock) {
+			setSnapshot(config);
+		}
 		
 	}
 	
@@ -193,14 +369,40 @@ public class Levenshtein {
 	 */
 	public float compare(String firstInput, String secondInput) throws PhoneticException {
 		
-		rwLock.readLock().lock();
-		try {
-			return currentFlags[ABSOLUTE] 	? compareStrings(firstInput, secondInput, false).distance() 
-											: compareStrings(firstInput, secondInput, false).index();
-		} finally {
-			rwLock.readLock().unlock();
+		// Compute with the engine of the current snapshot
+		Levenshtein engine = engine();
+		if(engine != this) {
+			return engine.compare(firstInput, secondInput);
 		}
 		
+		return currentFlags[ABSOLUTE] 	? compareStrings(firstInput, secondInput, null).distance() 
+										: compareStrings(firstInput, secondInput, null).index();
+		
+	}
+	
+	/**
+	 * Function that gives an indicator of how similar two given collections of words are, using the given flags for
+	 * this call only. The configuration of this object is not changed, the snapshots of the overridden flags are 
+	 * cached and share the feature table with the current snapshot.
+	 * @param firstInput The first String that is to be compared
+	 * @param secondInput The first String that is to be compared
+	 * @param userFlags The flags that override the current flags for this call
+	 * @return An indicator variable that will be 1 for identical Strings and decreases to 0 for very unsimilar Strings
+	 * (or the distance if the flags of this call are absolute)
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 */
+	public float compare(String firstInput, String secondInput, LevFlag... userFlags) throws PhoneticException {
+		return snapshot().derive(userFlags).engine().compare(firstInput, secondInput);
+	}
+	
+	/**
+	 * Returns a view of this object with overridden flags. The view starts with the current snapshot and the given 
+	 * flags, it shares the feature table and can be changed without affecting this object.
+	 * @param userFlags The flags that override the current flags
+	 * @return The new view
+	 */
+	public Levenshtein withFlags(LevFlag... userFlags) {
+		return new Levenshtein(snapshot().derive(userFlags));
 	}
 	
 	/**
@@ -212,14 +414,515 @@ public class Levenshtein {
 	 */
 	public ComparedStrings compareDetailed(String firstInput, String secondInput) 
 		throws PhoneticException {
+		return compareDetailed(firstInput, secondInput, DetailLevel.ALL);
+	}
+	
+	/**
+	 * Function that gives an indicator of how similar two given collections of words are. The returned object keeps
+	 * the Levenshtein matrices requested by the detail level. If these matrices would exceed the memory budget, the 
+	 * next lower detail level is used instead, down to {@link DetailLevel#LAZY} which recomputes matrices on access.
+	 * @param firstInput The first String that is to be compared
+	 * @param secondInput The first String that is to be compared
+	 * @param detailLevel The details that should be kept by the returned object
+	 * @return An map containing all details on the comparison
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols
+	 * @see ComparedStrings#detailLevel()
+	 */
+	public ComparedStrings compareDetailed(String firstInput, String secondInput, DetailLevel detailLevel) 
+		throws PhoneticException {
+		
+		if(detailLevel == null) {
+			throw new NullPointerException("The detail level is not set.");
+		}
+		
+		// Compute with the engine of the current snapshot
+		Levenshtein engine = engine();
+		if(engine != this) {
+			return engine.compareDetailed(firstInput, secondInput, detailLevel);
+		}
+		
+		return (ComparedStrings)compareStrings(firstInput, secondInput, detailLevel);
+	
+	}
+	
+	/**
+	 * Normalizes, splits and (in phonetic mode) tokenizes an input once, so that it can be compared repeatedly
+	 * without being prepared again. The prepared input is bound to the current flags (and feature file), it
+	 * can not be compared after these have been changed.
+	 * @param input The String that is to be prepared
+	 * @return The prepared input
+	 * @throws PhoneticException An exception that is thrown if the input contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that the input is not set
+	 */
+	public PreparedString prepare(String input) throws PhoneticException, NullPointerException {
+		
+		if(input == null) {
+			throw new NullPointerException("The String that was to be prepared is not set.");
+		}
+		
+		// Compute with the engine of the current snapshot
+		Levenshtein engine = engine();
+		if(engine != this) {
+			return engine.prepare(input);
+		}
+		
+		return prepareInput(input);
+	
+	}
+	
+	/**
+	 * Function that gives an indicator of how similar two prepared inputs are
+	 * @param firstInput The first prepared input that is to be compared
+	 * @param secondInput The second prepared input that is to be compared
+	 * @return An indicator variable that will be 1 for identical Strings and decreases to 0 for very unsimilar Strings
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws IllegalArgumentException An exception that indicates that an input was prepared with other flags
+	 * @see #prepare(String)
+	 */
+	public float compare(PreparedString firstInput, PreparedString secondInput)
+		throws PhoneticException, IllegalArgumentException {
+		
+		if(firstInput == null || secondInput == null) {
+			throw new NullPointerException("At least one of the Strings that was to be compared is not set.");
+		}
+		
+		// Compute with the engine of the current snapshot
+		Levenshtein engine = engine();
+		if(engine != this) {
+			return engine.compare(firstInput, secondInput);
+		}
+		
+		checkPrepared(firstInput);
+		checkPrepared(secondInput);
+		return currentFlags[ABSOLUTE] 	? compareStrings(firstInput, secondInput, null, new DistanceScratch()).distance()
+										: compareStrings(firstInput, secondInput, null, new DistanceScratch()).index();
+	
+	}
+	
+	/**
+	 * Function that gives an indicator of how similar a prepared input and a String are
+	 * @param firstInput The prepared input that is to be compared
+	 * @param secondInput The String that is to be compared
+	 * @return An indicator variable that will be 1 for identical Strings and decreases to 0 for very unsimilar Strings
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws IllegalArgumentException An exception that indicates that the input was prepared with other flags
+	 * @see #prepare(String)
+	 */
+	public float compare(PreparedString firstInput, String secondInput)
+		throws PhoneticException, IllegalArgumentException {
+		
+		if(firstInput == null || secondInput == null) {
+			throw new NullPointerException("At least one of the Strings that was to be compared is not set.");
+		}
+		
+		// Compute with the engine of the current snapshot
+		Levenshtein engine = engine();
+		if(engine != this) {
+			return engine.compare(firstInput, secondInput);
+		}
+		
+		checkPrepared(firstInput);
+		PreparedString preparedSecond = prepareInput(secondInput);
+		return currentFlags[ABSOLUTE] 	? compareStrings(firstInput, preparedSecond, null, new DistanceScratch()).distance()
+										: compareStrings(firstInput, preparedSecond, null, new DistanceScratch()).index();
+	
+	}
+	
+	/**
+	 * Compares a query with every candidate of a list. The query is prepared once and the snapshot of the
+	 * configuration is read once for the entire list, which is considerably cheaper than calling
+	 * {@link #compare(String, String)} in a loop.
+	 * @param query The String that is compared with every candidate
+	 * @param candidates The Strings that are to be compared with the query
+	 * @return The results in the order of the candidates, as returned by {@link #compare(String, String)}
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that the query or one of the candidates is not set
+	 */
+	public float[] compareAll(String query, List<String> candidates) throws PhoneticException, NullPointerException {
+		
+		final float[] results = new float[candidates.size()];
+		
+		compareAll(query, candidates, false, 0f, new ResultSink() {
+			@Override
+			public boolean accept(int candidateID, String candidate, float result) {
+				results[candidateID] = result;
+				return true;
+			}
+		});
+		
+		return results;
+		
+	}
+	
+	/**
+	 * Compares a query with every candidate of a list and gives up on candidates that can not meet the threshold.
+	 * For single words the computation of such a candidate is abandoned as soon as the threshold can not be met.
+	 * @param query The String that is compared with every candidate
+	 * @param candidates The Strings that are to be compared with the query
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index a candidate
+	 * must meet
+	 * @return The results in the order of the candidates, {@link Float#NaN} for candidates that do not meet the threshold
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that the query or one of the candidates is not set
+	 */
+	public float[] compareAll(String query, List<String> candidates, float threshold) 
+		throws PhoneticException, NullPointerException {
+		
+		final float[] results = new float[candidates.size()];
+		Arrays.fill(results, Float.NaN);
+		
+		compareAll(query, candidates, true, threshold, new ResultSink() {
+			@Override
+			public boolean accept(int candidateID, String candidate, float result) {
+				results[candidateID] = result;
+				return true;
+			}
+		});
+		
+		return results;
+		
+	}
+	
+	/**
+	 * Compares a query with every candidate and hands each result to the sink as soon as it is computed. The 
+	 * comparison stops when the sink returns <code>false</code>.
+	 * @param query The String that is compared with every candidate
+	 * @param candidates The Strings that are to be compared with the query
+	 * @param sink The receiver of the results
+	 * @return The number of candidates that were compared
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that the query or one of the candidates is not set
+	 */
+	public int compareAll(String query, Iterable<String> candidates, ResultSink sink) 
+		throws PhoneticException, NullPointerException {
+		return compareAll(query, candidates, false, 0f, sink);
+	}
+	
+	/**
+	 * Compares a query with every candidate and hands the results that meet the threshold to the sink as soon as
+	 * they are computed. The comparison stops when the sink returns <code>false</code>.
+	 * @param query The String that is compared with every candidate
+	 * @param candidates The Strings that are to be compared with the query
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index a candidate
+	 * must meet
+	 * @param sink The receiver of the results
+	 * @return The number of candidates that were compared
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that the query or one of the candidates is not set
+	 */
+	public int compareAll(String query, Iterable<String> candidates, float threshold, ResultSink sink) 
+		throws PhoneticException, NullPointerException {
+		return compareAll(query, candidates, true, threshold, sink);
+	}
+	
+	/**
+	 * Compares a query with every candidate using the engine of the current snapshot
+	 * @param query The String that is compared with every candidate
+	 * @param candidates The Strings that are to be compared with the query
+	 * @param useThreshold True if candidates that do not meet the threshold should be skipped
+	 * @param threshold The maximum distance or the minimum similarity index
+	 * @param sink The receiver of the results
+	 * @return The number of candidates that were compared
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that the query or one of the candidates is not set
+	 */
+	private int compareAll(String query, Iterable<String> candidates, boolean useThreshold, float threshold, ResultSink sink) 
+		throws PhoneticException, NullPointerException {
+		
+		if(query == null || candidates == null || sink == null) {
+			throw new NullPointerException("The query, the candidates or the sink is not set.");
+		}
+		
+		int candidateID = 0;
+		
+		// Compute with the engine of the current snapshot
+		Levenshtein engine = engine();
+		if(engine != this) {
+			return engine.compareAll(query, candidates, useThreshold, threshold, sink);
+		}
+		
+		PreparedString preparedQuery = prepareInput(query);
+		DistanceScratch scratch = new DistanceScratch();
+		
+		for(String candidate : candidates) {
+			
+			if(candidate == null) {
+				throw new NullPointerException("At least one of the Strings that was to be compared is not set.");
+			}
+			
+			int currentID = candidateID++;
+			BasicCompared basicCompared = compareCandidate(preparedQuery, prepareInput(candidate), useThreshold, threshold, scratch);
+			
+			// Hand over the result and stop if the sink requests so
+			if(basicCompared != null && sink.accept(currentID, candidate, 
+					currentFlags[ABSOLUTE] ? basicCompared.distance() : basicCompared.index()) == false) {
+				break;
+			}
+			
+		}
+		
+		return candidateID;
+		
+	}
+	
+	/**
+	 * Compares a prepared query with a prepared candidate (the caller must use the engine of the current snapshot)
+	 * @param query The prepared query
+	 * @param candidate The prepared candidate
+	 * @param useThreshold True if candidates that do not meet the threshold should be abandoned
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index
+	 * @param scratch The columns to reuse
+	 * @return The basic result (without word mappings for single words) or <code>null</code> if the candidate does 
+	 * not meet the threshold
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 */
+	BasicCompared compareCandidate(PreparedString query, PreparedString candidate, boolean useThreshold, float threshold, 
+			DistanceScratch scratch) throws PhoneticException {
+		
+		BasicCompared basicCompared;
+		
+		// Abandon single words early, multiple words are matched with each other and need all words to be compared
+		if(useThreshold && query.words.length == 1 && candidate.words.length == 1 && 
+				query.input.equals(candidate.input) == false && nonNegativeCosts()) {
+			
+			int rows = wordLength(query, 0) + 1;
+			int columns = wordLength(candidate, 0) + 1;
+			float maxDistance;
+			
+			if(currentFlags[ABSOLUTE]) {
+				maxDistance = threshold;
+			} else {
+				
+				// Allow for rounding errors of the index, the threshold is checked on the exact result below
+				float indexDenominator = getIndexDenominator(rows, columns);
+				maxDistance = indexDenominator > 0f ? (1f - threshold) * indexDenominator * 1.0001f + 0.0001f 
+													: Float.POSITIVE_INFINITY;
+				
+			}
+			
+			float distance = getDistance(query, 0, candidate, 0, scratch, maxDistance);
+			if(distance == Float.POSITIVE_INFINITY) {
+				return null;
+			}
+			
+			basicCompared = new BasicCompared(getIndex(distance, rows, columns), distance, null, null, false);
+		
+		} else {
+			basicCompared = compareStrings(query, candidate, null, scratch);
+		}
+		
+		// Skip result if it does not meet the threshold
+		if(useThreshold && (currentFlags[ABSOLUTE] ? basicCompared.distance() > threshold : basicCompared.index() < threshold)) {
+			return null;
+		}
+		
+		return basicCompared;
+		
+	}
+	
+	/**
+	 * Compares the candidates of an index with a prepared query and collects the entries within the maximum distance 
+	 * (the caller must use the engine of the current snapshot). Single words are compared within a band of the matrix.
+	 * @param preparedQuery The prepared query
+	 * @param candidates The IDs of the entries to compare
+	 * @param dictionary The entries of the index
+	 * @param preparedDictionary The prepared entries of the index
+	 * @param maxDistance The maximum distance of the results
+	 * @return The entries within the distance, the closest entry first (earlier entries first for equal distances)
+	 */
+	List<SearchHit> verifyCandidates(PreparedString preparedQuery, int[] candidates, String[] dictionary, 
+			PreparedString[] preparedDictionary, float maxDistance) {
+		
+		DistanceScratch scratch = new DistanceScratch();
+		List<SearchHit> hits = new ArrayList<SearchHit>();
+		
+		for(int entryID : candidates) {
+			
+			PreparedString preparedEntry = preparedDictionary[entryID];
+			float distance, index;
+			
+			if(preparedQuery.words.length == 1 && preparedEntry.words.length == 1) {
+				distance = getDistance(preparedQuery, 0, preparedEntry, 0, scratch, 
+						nonNegativeCosts() ? maxDistance : Float.POSITIVE_INFINITY);
+				index = getIndex(distance, wordLength(preparedQuery, 0) + 1, wordLength(preparedEntry, 0) + 1);
+			} else {
+				BasicCompared basicCompared = compareCandidate(preparedQuery, preparedEntry, false, 0f, scratch);
+				distance = basicCompared.distance();
+				index = basicCompared.index();
+			}
+			
+			if(distance <= maxDistance) {
+				hits.add(new SearchHit(entryID, dictionary[entryID], index, distance));
+			}
+			
+		}
+		
+		Collections.sort(hits, SearchHit.DISTANCE_ORDER);
+		
+		return hits;
+		
+	}
+	
+	/**
+	 * Checks that no character operation has negative costs, otherwise a distance may decrease along its path
+	 * @return True if all character operations have non-negative costs
+	 */
+	boolean nonNegativeCosts() {
+		
+		for(int i = CHAR_SUBSTITUTION; i <= SWAP_PHONETIC; i++) {
+			if(operationCosts[i] < 0f) {
+				return false;
+			}
+		}
+		
+		return true;
+		
+	}
+	
+	/**
+	 * Returns the cost of the cheapest operation of a plain comparison with the current flags, any path within a
+	 * distance d consists of at most d divided by this cost operations
+	 * @return The minimum cost of a substitution, insertion, deletion, swap or case change
+	 */
+	float minimumOperationCost() {
+		
+		float cost = Math.min(operationCosts[CHAR_SUBSTITUTION], operationCosts[CHAR_INDEL]);
+		
+		if(currentFlags[SWAP]) {
+			cost = Math.min(cost, operationCosts[CHAR_SWAP]);
+		}
+		if(currentFlags[MIND_CASE]) {
+			cost = Math.min(cost, Math.min(operationCosts[SWAP_PHONETIC], operationCosts[CHAR_SWAP_CASE]));
+		}
+		
+		return cost;
+		
+	}
+	
+	/**
+	 * Compares every String of a list with every other String of it
+	 * @param strings The Strings that are to be compared
+	 * @return The matrix of all results
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that one of the Strings is not set
+	 * @see #comparePairwise(List, ProgressListener)
+	 */
+	public PairwiseMatrix comparePairwise(List<String> strings) throws PhoneticException, NullPointerException {
+		return comparePairwise(strings, null);
+	}
+	
+	/**
+	 * Compares every String of a list with every other String of it. Since the results are symmetric, only the
+	 * upper triangle is computed, in tiles of neighbouring Strings on the parallel executor (or the common 
+	 * <code>ForkJoinPool</code> if none is set). The configuration snapshot is read once for the entire computation. If the 
+	 * results exceed the memory budget, they are written to a memory-mapped temporary file.
+	 * @param strings The Strings that are to be compared
+	 * @param listener The receiver of the progress, which may cancel the computation, or <code>null</code>
+	 * @return The matrix of all results
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that one of the Strings is not set
+	 * @throws CancellationException An exception that indicates that the listener cancelled the computation
+	 * @throws IllegalStateException An exception that indicates that the results could not be stored
+	 */
+	public PairwiseMatrix comparePairwise(List<String> strings, final ProgressListener listener) 
+		throws PhoneticException, NullPointerException, CancellationException, IllegalStateException {
+		
+		final int size = strings.size();
+		final long total = PairwiseMatrix.entries(size);
+		final PreparedString[] preparedStrings = new PreparedString[size];
+		final PairwiseMatrix pairwiseMatrix;
+		
+		// Compute with the engine of the current snapshot
+		Levenshtein engine = engine();
+		if(engine != this) {
+			return engine.comparePairwise(strings, listener);
+		}
+		
+		// Prepare every String once
+		for(int i = 0; i < size; i++) {
+			if(strings.get(i) == null) {
+				throw new NullPointerException("At least one of the Strings that was to be compared is not set.");
+			}
+			preparedStrings[i] = prepareInput(strings.get(i));
+		}
+		
+		try {
+			pairwiseMatrix = new PairwiseMatrix(size, currentFlags[ABSOLUTE] ? 0f : 1f, memoryBudget);
+		} catch(IOException e) {
+			throw new IllegalStateException("Unable to map the results to a temporary file.", e);
+		}
+		
+		// Set up one task per tile of the upper triangle
+		final AtomicLong completed = new AtomicLong();
+		final AtomicBoolean cancelled = new AtomicBoolean();
+		List<Callable<Void>> tiles = new ArrayList<Callable<Void>>();
+		
+		for(int rowTile = 0; rowTile < size; rowTile += PAIRWISE_TILE) {
+			for(int columnTile = rowTile; columnTile < size; columnTile += PAIRWISE_TILE) {
+				
+				final int firstRow = rowTile, firstColumn = columnTile;
+				tiles.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						
+						if(cancelled.get()) {
+							return null;
+						}
+						
+						DistanceScratch scratch = new DistanceScratch();
+						int pairs = 0;
+						
+						for(int i = firstRow; i < Math.min(firstRow + PAIRWISE_TILE, size); i++) {
+							for(int j = Math.max(firstColumn, i + 1); j < Math.min(firstColumn + PAIRWISE_TILE, size); j++) {
+								
+								// Compute sequentially, the tiles keep the executor busy
+								BasicCompared basicCompared = compareStrings(preparedStrings[i], preparedStrings[j], null, scratch, 0);
+								pairwiseMatrix.set(i, j, currentFlags[ABSOLUTE] ? basicCompared.distance() : basicCompared.index());
+								pairs++;
+								
+							}
+						}
+						
+						// Report progress, one tile at a time
+						long done = completed.addAndGet(pairs);
+						if(listener != null) {
+							synchronized(listener) {
+								if(cancelled.get() == false && listener.progress(done, total) == false) {
+									cancelled.set(true);
+								}
+							}
+						}
+						
+						return null;
+						
+					}
+				});
+				
+			}
+		}
+		
+		ExecutorService executor = parallelExecutor != null ? parallelExecutor : ForkJoinPool.commonPool();
+		
+		// Wait for all tiles and release the matrix if one of them fails
+		try {
+			invokeAllUnwrapped(executor, tiles);
+			
+		} catch(RuntimeException e) {
+			pairwiseMatrix.close();
+			throw e;
+			
+		} catch(Error e) {
+			pairwiseMatrix.close();
+			throw e;
+		}
 		
-		rwLock.readLock().lock();
-		try {
-			return (ComparedStrings)compareStrings(firstInput, secondInput, true);
-		} finally {
-			rwLock.readLock().unlock();
+		if(cancelled.get()) {
+			pairwiseMatrix.close();
+			throw new CancellationException("The comparison of all pairs was cancelled.");
 		}
 		
+		return pairwiseMatrix;
+		
 	}
 	
 	/**
@@ -228,9 +931,23 @@ public class Levenshtein {
 	 */
 	public void setFlag(LevFlag... userFlags) {
 		
-		boolean[] flagLock = new boolean[currentFlags.length];
+		synchronized(configLock) {
+			LevenshteinConfig snapshot = snapshot();
+			setSnapshot(snapshot.withFlags(applyFlags(snapshot.flags, userFlags)));
+		}
+		
+	}
+	
+	/**
+	 * Applies flags to a copy of the given flags
+	 * @param currentFlags The flags that are overridden (remain unchanged)
+	 * @param userFlags The flags that should be used
+	 * @return The new flags
+	 */
+	static boolean[] applyFlags(boolean[] currentFlags, LevFlag... userFlags) {
 		
-		rwLock.writeLock().lock();
+		boolean[] flags = currentFlags.clone();
+		boolean[] flagLock = new boolean[flags.length];
 		
 		// Check for flags and set corresponding lock and array value
 		for(int i = 0; i < userFlags.length; i++) {
@@ -238,51 +955,51 @@ public class Levenshtein {
 			switch(userFlags[i]) {
 			
 				// Should XSAMPA be used? If so, disable swap is not set by user.
-				case TREAT_AS_ONE_WORD: 	currentFlags[ONE_WORD] = flagLock[ONE_WORD] == false ? true : false; 
+				case TREAT_AS_ONE_WORD: 	flags[ONE_WORD] = flagLock[ONE_WORD] == false ? true : false; 
 											break;
 							
-				case TREAT_AS_SENTANCE:		currentFlags[ONE_WORD] = false;
+				case TREAT_AS_SENTANCE:		flags[ONE_WORD] = false;
 											flagLock[ONE_WORD] = true; 
 											break;
 			
 				// Should XSAMPA be used? If so, disable swap is not set by user.
-				case PHONETIC: 				currentFlags[USE_PHONETIC] = flagLock[USE_PHONETIC] == false ? true : false;
-											currentFlags[SWAP] = flagLock[USE_PHONETIC] == true ? true : false;
+				case PHONETIC: 				flags[USE_PHONETIC] = flagLock[USE_PHONETIC] == false ? true : false;
+											flags[SWAP] = flagLock[USE_PHONETIC] == true ? true : false;
 											break;
 								
-				case PLAIN:					currentFlags[USE_PHONETIC] = false;
+				case PLAIN:					flags[USE_PHONETIC] = false;
 											flagLock[USE_PHONETIC] = true;
 											break;
 				
 				// Should upper/lower case be treated as the same? (always ignored by XSAMPA)					
-				case IGNORE_CASE:			currentFlags[MIND_CASE] = flagLock[MIND_CASE] == false ? false : true;
+				case IGNORE_CASE:			flags[MIND_CASE] = flagLock[MIND_CASE] == false ? false : true;
 											break;
 				
-				case USE_CASE:				currentFlags[MIND_CASE] = true;
+				case USE_CASE:				flags[MIND_CASE] = true;
 											flagLock[MIND_CASE] = true;
 											break;
 			
 				// Should special characters be deleted?
-				case KEEP_SPECIAL:			currentFlags[IGNORE_SPECIAL] = flagLock[IGNORE_SPECIAL] == false ? false : true;
+				case KEEP_SPECIAL:			flags[IGNORE_SPECIAL] = flagLock[IGNORE_SPECIAL] == false ? false : true;
 											break;
 				
-				case STRIP_SPECIAL:			currentFlags[IGNORE_SPECIAL] = true;
+				case STRIP_SPECIAL:			flags[IGNORE_SPECIAL] = true;
 											flagLock[IGNORE_SPECIAL] = true;
 											break;
 											
 				// Allow or disallow to swap characters.
-				case DISALLOW_SWAP:			currentFlags[SWAP] = flagLock[SWAP] == false ? false : true;
+				case DISALLOW_SWAP:			flags[SWAP] = flagLock[SWAP] == false ? false : true;
 											break;
 				
-				case ALLOW_SWAP:			currentFlags[SWAP] = true;
+				case ALLOW_SWAP:			flags[SWAP] = true;
 											flagLock[SWAP] = true;	
 											break;
 											
 				// Compute absolute or relative distance
-				case ABSOLUTE:				currentFlags[ABSOLUTE] = flagLock[ABSOLUTE] == false ? true : false;
+				case ABSOLUTE:				flags[ABSOLUTE] = flagLock[ABSOLUTE] == false ? true : false;
 											break;
 				
-				case RELATIVE:				currentFlags[ABSOLUTE] = false;
+				case RELATIVE:				flags[ABSOLUTE] = false;
 											flagLock[ABSOLUTE] = true;	
 											break;
 			
@@ -290,7 +1007,7 @@ public class Levenshtein {
 			
 		}
 		
-		rwLock.writeLock().unlock();
+		return flags;
 		
 	}
 
@@ -298,12 +1015,12 @@ public class Levenshtein {
 	 * Function that gives an indicator of how similar two given collections of words are
 	 * @param firstOriginalInput The first user string that is to be compared
 	 * @param secondOriginalInput The second user string that is to be compared
-	 * @param computeFeatures <code>true</code> if a detailed comparison object should be computed
+	 * @param detailLevel The details of the comparison object to compute or <code>null</code> if a basic object suffices
 	 * @return A comparison object that contains the requested information
 	 * @throws PhoneticException An exception that is thrown if the input contains invalid phonetic symbols
 	 * @throws NullPointerException An exception that indicates that at least one of the input strings is not set
 	 */
-	private BasicCompared compareStrings(String firstOriginalInput, String secondOriginalInput, boolean computeFeatures) 
+	private BasicCompared compareStrings(String firstOriginalInput, String secondOriginalInput, DetailLevel detailLevel) 
 		throws PhoneticException, NullPointerException {
 		
 		// Throw NullPointerException if one of the inputs is not set
@@ -312,61 +1029,54 @@ public class Levenshtein {
 		}
 		
 		// If both inputs are identical return null
-		if(firstOriginalInput.equals(secondOriginalInput) && computeFeatures == false) {
+		if(firstOriginalInput.equals(secondOriginalInput) && detailLevel == null) {
 			return new BasicCompared(1f, 0, null, null, false);
 		}
 		
 		//System.out.printf("Comparing: '%s' with '%s'%n", firstInput, secondInput);
 		
-		String[] wordsFirstInput;
-		String[] wordsSecondInput;
-		
-		String firstInput;
-		String secondInput;
+		// Change to lower case, delete special characters and split down to words (unless the user requests to 
+		// match the entire String) as requested by the user
+		return compareStrings(prepareInput(firstOriginalInput), prepareInput(secondOriginalInput), detailLevel, 
+				new DistanceScratch());
 		
-		// Change to lower case if XAMPA is not used and user requested this
-		if(currentFlags[USE_PHONETIC] == false && currentFlags[MIND_CASE] == false) {
-			firstInput = firstOriginalInput.toLowerCase();
-			secondInput = secondOriginalInput.toLowerCase();
-		} else {
-			firstInput = firstOriginalInput;
-			secondInput = secondOriginalInput;
-		}
-		
-		// Check for special characters and delete if this is requested by the user
-		if(currentFlags[IGNORE_SPECIAL]) {
-			
-			String regex;
-			
-			// Prepare regex depending on XAMPA usage
-			if(currentFlags[USE_PHONETIC] == true) {
-				regex = "[0\\W&&\\S&&[^:\\\\}@&`?]]";
-			} else {
-				regex = "[\\W&&\\S]";
-			}
-			
-			firstInput = firstInput.replaceAll(regex, "");
-			secondInput = secondInput.replaceAll(regex, "");
+	}
+	
+	/**
+	 * Function that gives an indicator of how similar two prepared collections of words are
+	 * @param firstInput The first prepared input that is to be compared
+	 * @param secondInput The second prepared input that is to be compared
+	 * @param detailLevel The details of the comparison object to compute or <code>null</code> if a basic object suffices
+	 * @param scratch The columns to reuse for distance-only computations
+	 * @return A comparison object that contains the requested information
+	 * @throws PhoneticException An exception that is thrown if the input contains invalid phonetic symbols
+	 */
+	private BasicCompared compareStrings(PreparedString firstInput, PreparedString secondInput, DetailLevel detailLevel, 
+			DistanceScratch scratch) throws PhoneticException {
+		return compareStrings(firstInput, secondInput, detailLevel, scratch, parallelThreshold);
+	}
+	
+	/**
+	 * Function that gives an indicator of how similar two prepared collections of words are
+	 * @param firstInput The first prepared input that is to be compared
+	 * @param secondInput The second prepared input that is to be compared
+	 * @param detailLevel The details of the comparison object to compute or <code>null</code> if a basic object suffices
+	 * @param scratch The columns to reuse for distance-only computations
+	 * @param threshold The number of word pairs from which on the rows are computed in parallel, <code>0</code> to 
+	 * compute sequentially
+	 * @return A comparison object that contains the requested information
+	 * @throws PhoneticException An exception that is thrown if the input contains invalid phonetic symbols
+	 */
+	private BasicCompared compareStrings(PreparedString firstInput, PreparedString secondInput, DetailLevel detailLevel, 
+			DistanceScratch scratch, int threshold) throws PhoneticException {
 		
+		// If both inputs are identical return null
+		if(firstInput.input.equals(secondInput.input) && detailLevel == null) {
+			return new BasicCompared(1f, 0, null, null, false);
 		}
 		
-		String regexPattern = "\\s+";
-		
-		// Split down to words only if user does not request to match the entire String
-		if(currentFlags[ONE_WORD]) {
-			
-			wordsFirstInput = new String[1];
-			wordsSecondInput = new String[1];
-			
-			wordsFirstInput[0] = firstInput.trim().replaceAll(regexPattern, " ");
-			wordsSecondInput[0] = secondInput.trim().replaceAll(regexPattern, " ");
-			
-		} else {
-
-			wordsFirstInput = firstInput.trim().split(regexPattern);
-			wordsSecondInput = secondInput.trim().split(regexPattern);
-			
-		}
+		String[] wordsFirstInput = firstInput.words;
+		String[] wordsSecondInput = secondInput.words;
 		
 		//System.out.printf("Transformed to: '%s' and '%s'%n", firstInput, secondInput);
 		//System.out.printf("************************%n");
@@ -374,30 +1084,57 @@ public class Levenshtein {
 		// Jump to compare words function is only words are found
 		if(wordsFirstInput.length == 1 && wordsSecondInput.length == 1) {
 			
-			// Create dummy object
-			float[][] matrix = getMatrix(wordsFirstInput[0], wordsSecondInput[0]);
+			// The distance suffices for a basic object
+			if(detailLevel == null) {
+				
+				Map<Integer,Integer> overallComparedMapping = new HashMap<Integer,Integer>(1);
+				overallComparedMapping.put(1, 1);
+				
+				if(wordCache != null) {
+					long cached = cachedWords(firstInput, 0, wordCache.intern(firstInput.words)[0], 
+							secondInput, 0, wordCache.intern(secondInput.words)[0], scratch);
+					return new BasicCompared(WordPairCache.index(cached), WordPairCache.distance(cached), 
+							overallComparedMapping, overallComparedMapping, false);
+				}
+				
+				float distance = getDistance(firstInput, 0, secondInput, 0, scratch, Float.POSITIVE_INFINITY);
+				return new BasicCompared(getIndex(distance, wordLength(firstInput, 0) + 1, wordLength(secondInput, 0) + 1), 
+						distance, overallComparedMapping, overallComparedMapping, false);
+				
+			}
+			
 			Map<Integer,Integer> overallComparedMapping = new HashMap<Integer,Integer>(1);
 			overallComparedMapping.put(1, 1);
 			
-			// Compute basic return object
-			BasicCompared basicCompared = new BasicCompared(getIndex(matrix), matrix[matrix.length-1][matrix[0].length-1], 
-					overallComparedMapping, overallComparedMapping, false);
-			
-			if(computeFeatures == false) {
-				return basicCompared;
+			int rows = wordLength(firstInput, 0) + 1, columns = wordLength(secondInput, 0) + 1;
+			Map<HashPoint,FloatMatrix> matrixCollection = new HashMap<HashPoint,FloatMatrix>(1);
+			float distance;
 			
-			} else {
-				float[][] comparedResults = {{getIndex(matrix)}};
-				Map<HashPoint,float[][]> matrixCollection = new HashMap<HashPoint,float[][]>(1);
+			// Build the only matrix if it is kept within the memory budget, the distance suffices otherwise
+			if(detailLevel.compareTo(DetailLevel.MATCHED) >= 0 && matrixMemory(rows, columns) <= memoryBudget) {
+				FloatMatrix matrix = getMatrix(firstInput, 0, secondInput, 0);
 				matrixCollection.put(new HashPoint(0, 0), matrix);
-				
-				return new ComparedStrings(basicCompared, firstOriginalInput, secondOriginalInput, wordsFirstInput, wordsSecondInput, 
-						comparedResults, matrixCollection);
-				
+				distance = matrix.distance();
+			} else {
+				distance = getDistance(firstInput, 0, secondInput, 0, scratch, Float.POSITIVE_INFINITY);
+				if(detailLevel != DetailLevel.SCORES) {
+					detailLevel = DetailLevel.LAZY;
+				}
 			}
+			
+			// Compute basic return object
+			float index = getIndex(distance, rows, columns);
+			BasicCompared basicCompared = new BasicCompared(index, distance, overallComparedMapping, overallComparedMapping, false);
+			float[][] comparedResults = {{index}};
+			
+			return new ComparedStrings(basicCompared, firstInput.input, secondInput.input, wordsFirstInput, wordsSecondInput, 
+					comparedResults, matrixCollection, detailLevel, frozenCopy(detailLevel));
+			
 		}
 		
 		boolean stringsSwapped = false;
+		String firstOriginalInput = firstInput.input;
+		String secondOriginalInput = secondInput.input;
 			
 		// Set the longer array to be the first if necessary to get deterministic results
 		if(wordsFirstInput.length < wordsSecondInput.length) {
@@ -406,6 +1143,10 @@ public class Levenshtein {
 			wordsFirstInput = wordsSecondInput;
 			wordsSecondInput = temp;
 			
+			PreparedString tempInput = firstInput;
+			firstInput = secondInput;
+			secondInput = tempInput;
+			
 			stringsSwapped = true;
 			
 			//System.out.println("Swapped values, first argument is now second argument and vice versa.");
@@ -415,73 +1156,410 @@ public class Levenshtein {
 		// Setting up variables to compare more than two words
 		float[][] comparedResults = new float[wordsFirstInput.length][wordsSecondInput.length];
 		List<ArrayList<Integer>> orderedResults = new ArrayList<ArrayList<Integer>>(wordsFirstInput.length);
-		Map<HashPoint,float[][]> matrixCollection = new HashMap<HashPoint,float[][]>(wordsFirstInput.length*wordsSecondInput.length);
+		Map<HashPoint,FloatMatrix> matrixCollection = new HashMap<HashPoint,FloatMatrix>(wordsFirstInput.length*wordsSecondInput.length);
+		
+		// Fall back to the matched matrices if all matrices would exceed the memory budget
+		if(detailLevel == DetailLevel.ALL && wordMatrixMemory(wordsFirstInput, wordsSecondInput) > memoryBudget) {
+			detailLevel = DetailLevel.MATCHED;
+		}
 		
-		// Set up some other variables
+		// Set up some other variables (every row owns its own slots, so rows can be computed concurrently)
 		float[] sumResults = new float[wordsFirstInput.length];
-		HashPoint tempID;
+		FloatMatrix[][] rowMatrices = detailLevel == DetailLevel.ALL ? new FloatMatrix[wordsFirstInput.length][] : null;
+		
+		for(int i = 0; i < wordsFirstInput.length; i++) {
+			orderedResults.add(new ArrayList<Integer>(wordsSecondInput.length));
+		}
 
+		// Look up the words in the word cache by their numbers (distances only)
+		int[][] wordIDs = null;
+		if(wordCache != null && rowMatrices == null) {
+			wordIDs = new int[][] {wordCache.intern(wordsFirstInput), wordCache.intern(wordsSecondInput)};
+		}
+		
 		// Create matrix that gives similarity of single words as its values
-		for(int i = 0; i < wordsFirstInput.length; i++) {
-			
-			// Add new element to Array list
-			orderedResults.add(i, new ArrayList<Integer>());
+		if(threshold > 0 && wordsFirstInput.length > 1 && 
+				(long)wordsFirstInput.length * wordsSecondInput.length >= threshold) {
+			compareRowsParallel(firstInput, secondInput, comparedResults, orderedResults, sumResults, rowMatrices, wordIDs);
+		} else {
+			for(int i = 0; i < wordsFirstInput.length; i++) {
+				compareRow(i, firstInput, secondInput, comparedResults, orderedResults, sumResults, rowMatrices, wordIDs, 
+						scratch);
+			}
+		}
+		
+		//System.out.printf("************************%n");
+		
+		// Collect the matrices of all rows once every row is done
+		if(detailLevel == DetailLevel.ALL) {
+			for(int i = 0; i < wordsFirstInput.length; i++) {
+				for(int j = 0; j < wordsSecondInput.length; j++) {
+					matrixCollection.put(stringsSwapped ? new HashPoint(j, i) : new HashPoint(i, j), rowMatrices[i][j]);
+				}
+			}
+		}
+		
+		// Compute basic return object
+		BasicCompared basicCompared = matchWordSequences(wordsFirstInput, wordsSecondInput, comparedResults, orderedResults, 
+				sumResults, stringsSwapped);
+		
+		// Decide whether to compute features and return comparison object
+		if(detailLevel == null) {
+			return basicCompared;
+		
+		// Compute more complex comparison object to return to user
+		} else {
 			
-			for(int j = 0; j < wordsSecondInput.length; j++) {
+			// Recompute the matrices of the matched words only, unless they exceed the memory budget
+			if(detailLevel == DetailLevel.MATCHED) {
 				
-				// Get word matrix for these words and fill result into matrix for sequences
-				float[][] matrix = getMatrix(wordsFirstInput[i], wordsSecondInput[j]);
-				
-				// Store matrix in map if detailed results are required
-				if(computeFeatures == true) {
-					tempID = stringsSwapped ? new HashPoint(j, i) : new HashPoint(i, j);
-					matrixCollection.put(tempID, matrix);
+				long requiredMemory = 0;
+				for(Map.Entry<Integer,Integer> entry : basicCompared.firstComparedMapping.entrySet()) {
+					requiredMemory += matrixMemory(wordsFirstInput[stringsSwapped ? entry.getValue() : entry.getKey()].length() + 1, 
+							wordsSecondInput[stringsSwapped ? entry.getKey() : entry.getValue()].length() + 1);
 				}
-
-				// Store index in sequence matrix and sum index up to measure its volaitlity
-				comparedResults[i][j] = getIndex(matrix) * 
-					(float)Math.pow(operationCosts[WORD_POSITION_ERROR], Math.abs(i-j));
-				sumResults[i] += comparedResults[i][j];
 				
-				// Find best match to use iteration for first result
-				for (int k = 0; k <= j; k++) {
-					
-					// Check if it is time to add value (to assure descending ordering)
-					if(j == 0 || k == j || comparedResults[i][j] >= comparedResults[i][orderedResults.get(i).get(k)]) {
-						
-						//System.out.print("- Adding " + j + " @ " + k + " - ");
-						orderedResults.get(i).add(k, j);
-						break;
-						
+				if(requiredMemory <= memoryBudget) {
+					for(Map.Entry<Integer,Integer> entry : basicCompared.firstComparedMapping.entrySet()) {
+						int i = stringsSwapped ? entry.getValue() : entry.getKey();
+						int j = stringsSwapped ? entry.getKey() : entry.getValue();
+						matrixCollection.put(new HashPoint(entry.getKey(), entry.getValue()), 
+								getMatrix(firstInput, i, secondInput, j));
 					}
-				
+				} else {
+					detailLevel = DetailLevel.LAZY;
 				}
 				
-				// Print resulting table (debugging)
-				//System.out.printf("%d with %d: %.2f | ", i, j, comparedResults[i][j]);
+			}
+			
+			return new ComparedStrings(basicCompared, firstOriginalInput, secondOriginalInput, wordsFirstInput, wordsSecondInput, 
+					comparedResults, matrixCollection, detailLevel, frozenCopy(detailLevel));
+		}
+		
+	}
+	
+	/**
+	 * Normalizes, splits and (in phonetic mode) tokenizes a user input with the current flags
+	 * @param input The user input
+	 * @return The prepared input
+	 * @throws PhoneticException An exception that is thrown if the input contains invalid phonetic symbols
+	 */
+	private PreparedString prepareInput(String input) throws PhoneticException {
+		
+		String[] words = normalizeWords(input);
+		
+		if(currentFlags[USE_PHONETIC]) {
+			
+			String[][] symbols = new String[words.length][];
+			float[][] zeroDistances = new float[words.length][];
+			
+			for(int i = 0; i < words.length; i++) {
+				symbols[i] = getSymbols(words[i]);
+				zeroDistances[i] = getZeroDistances(symbols[i]);
+			}
+			
+			return new PreparedString(input, currentFlags.clone(), featurePath, words, null, symbols, zeroDistances);
+			
+		} else {
+			
+			char[][] wordChars = new char[words.length][];
+			for(int i = 0; i < words.length; i++) {
+				wordChars[i] = words[i].toCharArray();
+			}
+			
+			return new PreparedString(input, currentFlags.clone(), null, words, wordChars, null, null);
+			
+		}
+		
+	}
+	
+	/**
+	 * Checks that a prepared input was prepared with the current flags (and feature file)
+	 * @param preparedInput The prepared input
+	 * @throws IllegalArgumentException If the input was prepared with another configuration
+	 */
+	private void checkPrepared(PreparedString preparedInput) throws IllegalArgumentException {
+		
+		if(Arrays.equals(preparedInput.flags, currentFlags) == false || 
+				(currentFlags[USE_PHONETIC] && featurePath.equals(preparedInput.featurePath) == false)) {
+			throw new IllegalArgumentException("The input was prepared with other flags than the current ones.");
+		}
+		
+	}
+	
+	/**
+	 * Converts a user input into the sequence of words that is compared. Upper case letters are converted if XSAMPA
+	 * is not used and the user requested this, special characters are removed if requested by the user.
+	 * @param input The user input
+	 * @return The words of the input (a single word if the input is treated as one word)
+	 */
+	private String[] normalizeWords(String input) {
+		
+		boolean phonetic = currentFlags[USE_PHONETIC];
+		return NORMALIZER.get().normalize(input, phonetic == false && currentFlags[MIND_CASE] == false, 
+				currentFlags[IGNORE_SPECIAL], phonetic, currentFlags[ONE_WORD]).toWords();
+		
+	}
+	
+	/**
+	 * Creates a copy of the current configuration that is never changed and can recompute Levenshtein matrices 
+	 * without reading the feature files again
+	 * @param detailLevel The detail level of the comparison that requests the copy
+	 * @return The frozen copy or <code>null</code> if the detail level does not recompute matrices
+	 */
+	private Levenshtein frozenCopy(DetailLevel detailLevel) {
+		return detailLevel == DetailLevel.LAZY ? frozenCopy() : null;
+	}
+	
+	/**
+	 * Creates a copy of the current configuration that is never changed and compares phonetic input without reading 
+	 * the feature files again
+	 * @return The frozen copy
+	 */
+	Levenshtein frozenCopy() {
+		
+		// The engine of a snapshot is never reconfigured, only its feature table has to be read in advance
+		Levenshtein engine = engine();
+		if(engine.currentFlags[USE_PHONETIC]) {
+			engine.featureTable();
+		}
+		
+		return engine;
+		
+	}
+	
+	/**
+	 * Returns the feature table of the current snapshot, phonetic configurations read it if this has not happened yet
+	 * @return The feature table or <code>null</code> if the input is compared plain and the table was not read
+	 */
+	Map<String, Float[]> phoneticTable() {
+		
+		Levenshtein engine = engine();
+		return engine.currentFlags[USE_PHONETIC] ? engine.featureTable() : engine.config.phoneticTable();
+		
+	}
+	
+	/**
+	 * Returns the feature table of the snapshot this object computes with, it is read from the feature files on 
+	 * first use and then kept by the snapshot
+	 * @return The feature table
+	 */
+	private Map<String, Float[]> featureTable() {
+		
+		LevenshteinConfig snapshot = config;
+		Map<String, Float[]> table = snapshot.phoneticTable();
+		
+		if(table == null) {
+			table = readPhonetics(false);
+			snapshot.setPhoneticTable(table);
+		}
+		
+		return table;
+		
+	}
+	
+	/**
+	 * Compares one word of the first sequence with all words of the second sequence. Every call only writes to the
+	 * row <code>i</code> of the given containers such that different rows can be computed concurrently.
+	 * @param i The row (word of the first sequence) that is to be computed
+	 * @param firstInput The prepared first input
+	 * @param secondInput The prepared second input
+	 * @param comparedResults The matrix of compared results (of the words of the subsequence)
+	 * @param orderedResults The order of best words to match with a given String
+	 * @param sumResults The sum of index values over all values
+	 * @param rowMatrices The Levenshtein matrices of every row or null if no detailed results are required
+	 * @param wordIDs The numbers of the words of both inputs in the word cache or null if it is not used
+	 * @param scratch The columns to reuse if no detailed results are required
+	 */
+	private void compareRow(int i, PreparedString firstInput, PreparedString secondInput, float[][] comparedResults, 
+			List<ArrayList<Integer>> orderedResults, float[] sumResults, FloatMatrix[][] rowMatrices, int[][] wordIDs, 
+			DistanceScratch scratch) {
+		
+		final int secondLength = secondInput.words.length;
+		List<Integer> orderedRow = orderedResults.get(i);
+		FloatMatrix[] matrices = rowMatrices != null ? new FloatMatrix[secondLength] : null;
+		
+		for(int j = 0; j < secondLength; j++) {
+			
+			// Get word matrix (or distance only) for these words and fill result into matrix for sequences
+			float index;
+			if(matrices != null) {
+				matrices[j] = getMatrix(firstInput, i, secondInput, j);
+				index = getIndex(matrices[j]);
+			} else if(wordIDs != null) {
+				index = WordPairCache.index(cachedWords(firstInput, i, wordIDs[0][i], secondInput, j, wordIDs[1][j], scratch));
+			} else {
+				index = getIndex(getDistance(firstInput, i, secondInput, j, scratch, Float.POSITIVE_INFINITY), 
+						wordLength(firstInput, i) + 1, wordLength(secondInput, j) + 1);
+			}
+
+			// Store index in sequence matrix and sum index up to measure its volaitlity
+			comparedResults[i][j] = index * 
+				(float)Math.pow(operationCosts[WORD_POSITION_ERROR], Math.abs(i-j));
+			sumResults[i] += comparedResults[i][j];
+			
+			// Find best match to use iteration for first result
+			for (int k = 0; k <= j; k++) {
 				
+				// Check if it is time to add value (to assure descending ordering)
+				if(j == 0 || k == j || comparedResults[i][j] >= comparedResults[i][orderedRow.get(k)]) {
+					
+					//System.out.print("- Adding " + j + " @ " + k + " - ");
+					orderedRow.add(k, j);
+					break;
+					
+				}
+			
 			}
 			
-			// Print new line (debugging)
-			//System.out.println();
+			// Print resulting table (debugging)
+			//System.out.printf("%d with %d: %.2f | ", i, j, comparedResults[i][j]);
 			
 		}
 		
-		//System.out.printf("************************%n");
+		if(rowMatrices != null) {
+			rowMatrices[i] = matrices;
+		}
 		
-		// Compute basic return object
-		BasicCompared basicCompared = matchWordSequences(wordsFirstInput, wordsSecondInput, comparedResults, orderedResults, 
-				sumResults, stringsSwapped);
+		// Print new line (debugging)
+		//System.out.println();
 		
-		// Decide whether to compute features and return comparison object
-		if(computeFeatures == false) {
-			return basicCompared;
+	}
+	
+	/**
+	 * Returns the distance and the index of two words from the word cache, they are computed and offered to the cache 
+	 * if it does not contain them yet
+	 * @param firstInput The prepared first input
+	 * @param i The ID of the first word
+	 * @param firstID The number of the first word in the cache or <code>-1</code> if it is not interned
+	 * @param secondInput The prepared second input
+	 * @param j The ID of the second word
+	 * @param secondID The number of the second word in the cache or <code>-1</code> if it is not interned
+	 * @param scratch The columns to reuse
+	 * @return The bits of the distance (high half) and of the index (low half)
+	 */
+	private long cachedWords(PreparedString firstInput, int i, int firstID, PreparedString secondInput, int j, int secondID, 
+			DistanceScratch scratch) {
 		
-		// Compute more complex comparison object to return to user
-		} else {
+		long fingerprint = config.fingerprint();
+		boolean interned = firstID >= 0 && secondID >= 0;
+		
+		if(interned) {
+			long cached = wordCache.find(fingerprint, firstID, secondID);
+			if(cached != WordPairCache.MISSING) {
+				return cached;
+			}
+		}
+		
+		float distance = getDistance(firstInput, i, secondInput, j, scratch, Float.POSITIVE_INFINITY);
+		float index = getIndex(distance, wordLength(firstInput, i) + 1, wordLength(secondInput, j) + 1);
+		
+		if(interned) {
+			wordCache.put(fingerprint, firstID, secondID, distance, index);
+		}
+		
+		return WordPairCache.pack(distance, index);
+		
+	}
+	
+	/**
+	 * Computes all rows of the word matrix on the parallel executor and returns once every row is done.
+	 * @param firstInput The prepared first input
+	 * @param secondInput The prepared second input
+	 * @param comparedResults The matrix of compared results (of the words of the subsequence)
+	 * @param orderedResults The order of best words to match with a given String
+	 * @param sumResults The sum of index values over all values
+	 * @param rowMatrices The Levenshtein matrices of every row or null if no detailed results are required
+	 * @param wordIDs The numbers of the words of both inputs in the word cache or null if it is not used
+	 * @throws PhoneticException An exception that is thrown if a row contains invalid phonetic symbols
+	 */
+	private void compareRowsParallel(final PreparedString firstInput, final PreparedString secondInput, 
+			final float[][] comparedResults, final List<ArrayList<Integer>> orderedResults, final float[] sumResults, 
+			final FloatMatrix[][] rowMatrices, final int[][] wordIDs) throws PhoneticException {
+		
+		ExecutorService executor = parallelExecutor != null ? parallelExecutor : ForkJoinPool.commonPool();
+		List<Callable<Void>> rows = new ArrayList<Callable<Void>>(firstInput.words.length);
+		
+		for(int i = 0; i < firstInput.words.length; i++) {
+			final int row = i;
+			rows.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					compareRow(row, firstInput, secondInput, comparedResults, orderedResults, sumResults, rowMatrices, 
+							wordIDs, new DistanceScratch());
+					return null;
+				}
+			});
+		}
+		
+		invokeAllUnwrapped(executor, rows);
+		
+	}
+	
+	/**
+	 * Runs all tasks on an executor and waits until every task is done. The futures make the results of the workers 
+	 * visible to the calling thread. The failure of a task is thrown as its original cause.
+	 * @param executor The executor to run the tasks on
+	 * @param tasks The tasks to run
+	 * @return The results of all tasks in the order of the tasks
+	 * @throws IllegalStateException An exception that is thrown if the thread is interrupted while waiting or if a task 
+	 * 		fails with a checked exception
+	 */
+	static <T> List<T> invokeAllUnwrapped(ExecutorService executor, List<? extends Callable<T>> tasks) 
+		throws IllegalStateException {
+		return invokeAllUnwrapped(executor, tasks, RuntimeException.class);
+	}
+	
+	/**
+	 * Runs all tasks on an executor and waits until every task is done. The futures make the results of the workers 
+	 * visible to the calling thread. The failure of a task is thrown as its original cause.
+	 * @param executor The executor to run the tasks on
+	 * @param tasks The tasks to run
+	 * @param checkedType The type of checked exceptions that are thrown as they are
+	 * @return The results of all tasks in the order of the tasks
+	 * @throws E The checked exception of a failed task
+	 * @throws IllegalStateException An exception that is thrown if the thread is interrupted while waiting or if a task 
+	 * 		fails with another checked exception
+	 */
+	static <T, E extends Exception> List<T> invokeAllUnwrapped(ExecutorService executor, List<? extends Callable<T>> tasks, 
+			Class<E> checkedType) throws E, IllegalStateException {
+		
+		try {
 			
-			return new ComparedStrings(basicCompared, firstOriginalInput, secondOriginalInput, wordsFirstInput, wordsSecondInput, 
-					comparedResults, matrixCollection);
+			List<T> results = new ArrayList<T>(tasks.size());
+			for(Future<T> future : executor.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+			
+			return results;
+			
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the parallel tasks.", e);
+			
+		} catch(ExecutionException e) {
+			throw unwrap(e, checkedType);
+		}
+		
+	}
+	
+	/**
+	 * Unwraps the failure of a task, unchecked causes and causes of the given checked type are thrown as they are
+	 * @param e The failure of the task
+	 * @param checkedType The type of checked exceptions that are thrown as they are
+	 * @return An exception that wraps any other checked cause (to be thrown by the caller)
+	 * @throws E The checked cause of the failure
+	 */
+	static <E extends Exception> IllegalStateException unwrap(ExecutionException e, Class<E> checkedType) throws E {
+		
+		if(e.getCause() instanceof RuntimeException) {
+			throw (RuntimeException)e.getCause();
+		} else if(e.getCause() instanceof Error) {
+			throw (Error)e.getCause();
+		} else if(checkedType.isInstance(e.getCause())) {
+			throw checkedType.cast(e.getCause());
+		} else {
+			return new IllegalStateException("A parallel task failed.", e.getCause());
 		}
 		
 	}
@@ -677,111 +1755,109 @@ public class Levenshtein {
 	 * @param matrix The matrix of all distances
 	 * @return The overall similarity index value
 	 */
-	private float getIndex(float[][] matrix) {
+	private float getIndex(FloatMatrix matrix) {
+		return getIndex(matrix.distance(), matrix.rows, matrix.stride);
+	}
+	
+	/**
+	 * Computes the similarity index of two words from their Levenshtein distance
+	 * @param levenshteinDistance The Levenshtein distance of both words
+	 * @param rows The number of rows of the Levenshtein matrix (length of the first word + 1)
+	 * @param columns The number of columns of the Levenshtein matrix (length of the second word + 1)
+	 * @return The similarity index of both words
+	 */
+	float getIndex(float levenshteinDistance, int rows, int columns) {
+		
+		float indexDenominator = getIndexDenominator(rows, columns);
+		
+		// Print out the result to console (debugging)
+		//System.out.printf("The index value is: %.2f with a Levenshtein distance of %.2f and a denominator of %.2f%n", 
+		//		1f - levenshteinDistance / indexDenominator, levenshteinDistance, indexDenominator);
+		//System.out.println("----------------------");
+		
+		return 1f - levenshteinDistance / indexDenominator;
 		
-		float indexDenominator;
-		float levenshteinDistance = matrix[matrix.length - 1][matrix[0].length - 1];
+	}
+	
+	/**
+	 * Computes the denominator of the similarity index of two words, i.e. the distance of two entirely different words
+	 * @param rows The number of rows of the Levenshtein matrix (length of the first word + 1)
+	 * @param columns The number of columns of the Levenshtein matrix (length of the second word + 1)
+	 * @return The denominator of the similarity index
+	 */
+	private float getIndexDenominator(int rows, int columns) {
 		
 		// Compute denominator of index depending on whether the distance is based XSAMPA or on plain
 		if(currentFlags[USE_PHONETIC]) {
 			
-			indexDenominator = operationCosts[PHONETIC_MAXIMUM_DIFFERENCE] * 2f * (Math.min(matrix.length, matrix[0].length) - 1f) + 
-				operationCosts[PHONETIC_MAXIMUM_DIFFERENCE] * Math.abs(matrix.length - matrix[0].length);
+			return operationCosts[PHONETIC_MAXIMUM_DIFFERENCE] * 2f * (Math.min(rows, columns) - 1f) + 
+				operationCosts[PHONETIC_MAXIMUM_DIFFERENCE] * Math.abs(rows - columns);
 		
 		// Compute for Plain comparison (Is 0 for very unsimilar words and 1 iff both words are equal)
 		} else {
 	
-			indexDenominator = operationCosts[CHAR_SUBSTITUTION] * (Math.min(matrix.length, matrix[0].length) - 1f) + 
-				operationCosts[CHAR_INDEL] * Math.abs(matrix.length - matrix[0].length);
-			
-		}
-		
-		// Print out the result to console (debugging)
-		//System.out.printf("The index value is: %.2f with a Levenshtein distance of %.2f and a denominator of %.2f%n", 
-		//		1f - levenshteinDistance / indexDenominator, levenshteinDistance, indexDenominator);
-		//System.out.println("----------------------");
-		
-		return 1f - levenshteinDistance / indexDenominator;
+			return operationCosts[CHAR_SUBSTITUTION] * (Math.min(rows, columns) - 1f) + 
+				operationCosts[CHAR_INDEL] * Math.abs(rows - columns);
+			
+		}
 		
 	}
 	
 	/**
-	 * Yields the XSAMPA symbols of the given Strings if phonetic comparison is requested
-	 * @param firstWord The first word that is to be compared
-	 * @param secondWord The second word that is to be compared
-	 * @return A list containing all the XSAMPA symbols (0 = first word, 1 = second word)
+	 * Yields the XSAMPA symbols of the given word if phonetic comparison is requested
+	 * @param word The word that is to be compared
+	 * @return An array containing all the XSAMPA symbols of the word
 	 * @throws PhoneticException An exception that indicates invalid XSAMPA symbols
 	 */
-	private static List<String[]> getSymbols(String firstWord, String secondWord) throws PhoneticException {
-		
-		// Set up container, 0 = first word, 1 = second word
-		List<String[]> wordArray = new ArrayList<String[]>(2);
-		
-		// Create regex to match pattern
-		Pattern symbolPattern = Pattern.compile("((?:\\S[\\\\`]{0,2})(?::(?:\\\\)?)?)");
-		Matcher matcher;
+	private static String[] getSymbols(String word) throws PhoneticException {
 		
-		// Prepare both words
-		for (int i = 0; i < 2; i++) {
-			
-			// Temporary lists
-			List<String> tempWordSymbols;
-			
-			// Set pointers to particular variable
-			String tempWord = i == 0 ? firstWord : secondWord;
-			
-			// Prepare pattern
-	    	matcher = symbolPattern.matcher(tempWord);
-	    	tempWordSymbols = new ArrayList<String>();
-	
-	    	// Write all matches to temporary array
-	        while (matcher.find()) {
-	        	tempWordSymbols.add(matcher.group(1));
-	        }
-	        
-	        // Add final result to list
-	        wordArray.add(tempWordSymbols.toArray(new String[0]));
-	        
-	        // Print results to console (debugging)
-	        //System.out.printf("Phonetic matches for word %d: '%s'%n", i, tempWord);
-	        //for(int j = 0; j < tempWordSymbols.size(); j++) {
-	        //	System.out.printf("Symbol %d: %s%n", j, wordArray.get(i)[j]);
-	        //}
-	        
+		// Prepare pattern
+		Matcher matcher = SYMBOL_PATTERN.matcher(word);
+		List<String> tempWordSymbols = new ArrayList<String>();
+
+		// Write all matches to temporary array
+		while (matcher.find()) {
+			tempWordSymbols.add(matcher.group(1));
 		}
 		
-		//System.out.println("****************");
+		// Print results to console (debugging)
+		//System.out.printf("Phonetic matches for word: '%s'%n", word);
+		//for(int j = 0; j < tempWordSymbols.size(); j++) {
+		//	System.out.printf("Symbol %d: %s%n", j, tempWordSymbols.get(j));
+		//}
 		
-		// Throw exception if at least one of the words does not contain phonetic expressions
-		if(wordArray.get(0).length == 0) {
-			System.err.printf("The word '%s' does not contain any phonetic expressions", firstWord);
-			throw new PhoneticException("The first input does not contain any phonetic expression.");
-		} else if (wordArray.get(1).length == 0) {
-			System.err.printf("The word '%s' does not contain any phonetic expressions", secondWord);
-			throw new PhoneticException("The second input does not contain any phonetic expression.");
+		// Throw exception if the word does not contain phonetic expressions
+		if(tempWordSymbols.isEmpty()) {
+			System.err.printf("The word '%s' does not contain any phonetic expressions", word);
+			throw new PhoneticException("The input does not contain any phonetic expression.");
 		}
 		
-		return wordArray;
+		return tempWordSymbols.toArray(new String[tempWordSymbols.size()]);
 	
 	}
 	
 	/**
-	 * A function that gets the distance to zero for all strings to avoid double calculation
-	 * @param containers String arrays that contain the symbols to look up
+	 * A function that gets the distance to zero for all symbols of a word (repeated symbols are looked up once)
+	 * @param symbols The symbols to look up
+	 * @return The distances to zero in the order of the symbols
+	 * @throws PhoneticException An exception that indicates undefined XSAMPA symbols
 	 */
-	private Map<String,Float> getZeroDistance(String[]... containers) throws PhoneticException {
+	private float[] getZeroDistances(String[] symbols) throws PhoneticException {
 		
-		Map<String,Float> symbolZeroDistances = new HashMap<String,Float>();
+		float[] symbolZeroDistances = new float[symbols.length];
 		
-		for(int i = 0; i < containers.length; i++) {
-			for (int j = 0; j < containers[i].length; j++) {
-				
-				// Check if key exists, if not, compute phonetic difference to zero
-				if(symbolZeroDistances.containsKey(containers[i][j]) == false) {
-					symbolZeroDistances.put(containers[i][j], getPhoneticDifference(containers[i][j], "0"));
+		lookup: for(int i = 0; i < symbols.length; i++) {
+			
+			// Check if the symbol was looked up before, if not, compute phonetic difference to zero
+			for(int j = 0; j < i; j++) {
+				if(symbols[j].equals(symbols[i])) {
+					symbolZeroDistances[i] = symbolZeroDistances[j];
+					continue lookup;
 				}
-				
 			}
+			
+			symbolZeroDistances[i] = getPhoneticDifference(symbols[i], "0");
+			
 		}
 		
 		return symbolZeroDistances;
@@ -794,61 +1870,137 @@ public class Levenshtein {
 	 * @param secondWord The second word that is analyzed
 	 * @return The Damerau-Levenshtein matrix
 	 */
-	private float[][] getMatrix(String firstWord, String secondWord) {
-		
-		// Create pointer
-		float[][] matrix;
-		int firstSequenceLength, secondSequenceLength;
+	FloatMatrix getMatrix(String firstWord, String secondWord) {
 		
 		// Create matrix with needed user requirements 
 		if(currentFlags[USE_PHONETIC]) {
 			
-			List<String[]> symbols = getSymbols(firstWord, secondWord);
-			Map<String,Float> symbolZeroDistances = getZeroDistance(symbols.get(0), symbols.get(1));
-			matrix = createMatrixPhonetic(symbols, symbolZeroDistances);
-			fillMatrixPhonetic(matrix, symbols, symbolZeroDistances);
+			String[] firstSymbols = getSymbols(firstWord);
+			String[] secondSymbols = getSymbols(secondWord);
 			
-			// Print Damerau-Levenshtein matrix (debugging)
-			//printMatrix(matrix, symbols.get(0), symbols.get(1));
-			
-			// Adjust length of Strings to number of symbols
-			firstSequenceLength = symbols.get(0).length;
-			secondSequenceLength = symbols.get(1).length;
+			return getMatrix(firstSymbols, getZeroDistances(firstSymbols), secondSymbols, getZeroDistances(secondSymbols));
 
 		} else {
-			
-			firstSequenceLength = firstWord.length();
-			secondSequenceLength = secondWord.length();
-			
-			matrix = createMatrixCasual(firstSequenceLength, secondSequenceLength);
-			fillMatrixCasual(matrix, firstWord, secondWord);
-			
-			// Print Damerau-Levenshtein matrix (debugging)
-			//printMatrix(matrix, firstWord.toCharArray(), secondWord.toCharArray());
-			
+			return getMatrix(firstWord.toCharArray(), secondWord.toCharArray());
+		}
+		
+	}
+	
+	/**
+	 * A function that establishes a fully build Damerau-Levenshtein matrix for two prepared words
+	 * @param firstInput The prepared input of the first word
+	 * @param i The ID of the first word
+	 * @param secondInput The prepared input of the second word
+	 * @param j The ID of the second word
+	 * @return The Damerau-Levenshtein matrix
+	 */
+	private FloatMatrix getMatrix(PreparedString firstInput, int i, PreparedString secondInput, int j) {
+		
+		if(currentFlags[USE_PHONETIC]) {
+			return getMatrix(firstInput.symbols[i], firstInput.zeroDistances[i], secondInput.symbols[j], secondInput.zeroDistances[j]);
+		} else {
+			return getMatrix(firstInput.wordChars[i], secondInput.wordChars[j]);
 		}
 		
+	}
+	
+	/**
+	 * Returns the length of a prepared word (in characters or in XSAMPA symbols)
+	 * @param preparedInput The prepared input
+	 * @param i The ID of the word
+	 * @return The length of the word
+	 */
+	private static int wordLength(PreparedString preparedInput, int i) {
+		return preparedInput.symbols != null ? preparedInput.symbols[i].length : preparedInput.wordChars[i].length;
+	}
+	
+	/**
+	 * A function that establishes a fully build Damerau-Levenshtein matrix for plain input
+	 * @param firstWordChars The characters of the first word
+	 * @param secondWordChars The characters of the second word
+	 * @return The Damerau-Levenshtein matrix
+	 */
+	private FloatMatrix getMatrix(char[] firstWordChars, char[] secondWordChars) {
+		
+		FloatMatrix matrix = createMatrixCasual(firstWordChars.length, secondWordChars.length);
+		fillMatrixCasual(matrix, firstWordChars, secondWordChars);
+		
+		// Print Damerau-Levenshtein matrix (debugging)
+		//printMatrix(matrix, firstWordChars, secondWordChars);
+		
+		return matrix;
+		
+	}
+	
+	/**
+	 * A function that establishes a fully build Damerau-Levenshtein matrix for phonetic input
+	 * @param firstSymbols The XSAMPA symbols of the first word
+	 * @param firstZeroDistances The distances of the symbols of the first word to zero
+	 * @param secondSymbols The XSAMPA symbols of the second word
+	 * @param secondZeroDistances The distances of the symbols of the second word to zero
+	 * @return The Damerau-Levenshtein matrix
+	 */
+	private FloatMatrix getMatrix(String[] firstSymbols, float[] firstZeroDistances, String[] secondSymbols, 
+			float[] secondZeroDistances) {
+		
+		FloatMatrix matrix = createMatrixPhonetic(firstZeroDistances, secondZeroDistances);
+		fillMatrixPhonetic(matrix, firstSymbols, firstZeroDistances, secondSymbols, secondZeroDistances);
+		
+		// Print Damerau-Levenshtein matrix (debugging)
+		//printMatrix(matrix, firstSymbols, secondSymbols);
+		
 		return matrix;
 		
 	}
 	
+	/**
+	 * Estimates the memory occupied by a Levenshtein matrix of the given dimensions
+	 * @param rows The number of rows of the matrix
+	 * @param columns The number of columns of the matrix
+	 * @return The estimated number of bytes (object and array headers included)
+	 */
+	private static long matrixMemory(int rows, int columns) {
+		return 24L + ((16L + 4L * rows * columns + 7L) & ~7L);
+	}
+	
+	/**
+	 * Estimates the memory occupied by the Levenshtein matrices of all pairs of words (plain characters are an upper 
+	 * bound for the number of phonetic symbols)
+	 * @param wordsFirstInput The sequence of words of the first input
+	 * @param wordsSecondInput The sequence of words of the second input
+	 * @return The estimated number of bytes
+	 */
+	private static long wordMatrixMemory(String[] wordsFirstInput, String[] wordsSecondInput) {
+		
+		long requiredMemory = 0;
+		for(int i = 0; i < wordsFirstInput.length; i++) {
+			for(int j = 0; j < wordsSecondInput.length; j++) {
+				requiredMemory += matrixMemory(wordsFirstInput[i].length() + 1, wordsSecondInput[j].length() + 1);
+			}
+		}
+		
+		return requiredMemory;
+		
+	}
+	
 	/**
 	 * Create matrix to run basic Damerau-Levenshtein algorithm
 	 * @param firstWordLength The String length of the first word that will be compared
 	 * @param secondWordLength The String length of the second word that will be compared
 	 * @return A partly prepared matrix with the correct dimensions
 	 */
-	private float[][] createMatrixCasual(int firstWordLength, int secondWordLength) {
+	private FloatMatrix createMatrixCasual(int firstWordLength, int secondWordLength) {
 		
-		float[][] matrix = new float[firstWordLength + 1][secondWordLength + 1];
-		matrix[0][0] = 0;
+		FloatMatrix matrix = new FloatMatrix(firstWordLength + 1, secondWordLength + 1);
+		final float[] cells = matrix.values;
+		final int stride = matrix.stride;
 		
 		for(int i = 1; i <= firstWordLength; i++) {
-			matrix[i][0] = operationCosts[CHAR_INDEL] * i;
+			cells[i * stride] = operationCosts[CHAR_INDEL] * i;
 		}
 		
 		for(int i = 1; i <= secondWordLength; i++) {
-			matrix[0][i] = operationCosts[CHAR_INDEL] * i;
+			cells[i] = operationCosts[CHAR_INDEL] * i;
 		}
 		
 		return matrix;
@@ -857,21 +2009,22 @@ public class Levenshtein {
 	
 	/**
 	 * Create matrix to run Damerau-Levenshtein algorithm with phonetic (XSAMPA) comparison
-	 * @param symbols A list with all symbols of this comparison
-	 * @param symbolZeroDistances A map with all distances of any symbol to the zero symbol
+	 * @param firstZeroDistances The distances of the symbols of the first word to the zero symbol
+	 * @param secondZeroDistances The distances of the symbols of the second word to the zero symbol
 	 * @return A partly prepared matrix with the correct dimensions
 	 */
-	private static float[][] createMatrixPhonetic(List<String[]> symbols, Map<String,Float> symbolZeroDistances) {
+	private static FloatMatrix createMatrixPhonetic(float[] firstZeroDistances, float[] secondZeroDistances) {
 		
-		float[][] matrix = new float[symbols.get(0).length + 1][symbols.get(1).length + 1];
-		matrix[0][0] = 0;
+		FloatMatrix matrix = new FloatMatrix(firstZeroDistances.length + 1, secondZeroDistances.length + 1);
+		final float[] cells = matrix.values;
+		final int stride = matrix.stride;
 		
-		for(int i = 1; i <= symbols.get(0).length; i++) {
-			matrix[i][0] = matrix[i-1][0] + symbolZeroDistances.get(symbols.get(0)[i-1]);
+		for(int i = 1; i <= firstZeroDistances.length; i++) {
+			cells[i * stride] = cells[(i-1) * stride] + firstZeroDistances[i-1];
 		}
 		
-		for(int i = 1; i <= symbols.get(1).length; i++) {
-			matrix[0][i] = matrix[0][i-1] + symbolZeroDistances.get(symbols.get(1)[i-1]);
+		for(int i = 1; i <= secondZeroDistances.length; i++) {
+			cells[i] = cells[i-1] + secondZeroDistances[i-1];
 		}
 		
 		return matrix;
@@ -882,51 +2035,50 @@ public class Levenshtein {
 	 * Run basic Damerau-Levenshtein algorithm on prepared matrix (object will not be cloned)
 	 * Apply normal (not phonetic) Damerau-Levensthein algorithm
 	 * @param matrix The matrix that is to be filled
-	 * @param firstWord The first word that is to be compared
-	 * @param secondWord The second word that is to be compared
+	 * @param firstWordChars The characters of the first word that is to be compared
+	 * @param secondWordChars The characters of the second word that is to be compared
 	 */
-	private float[][] fillMatrixCasual(float[][] matrix, String firstWord, String secondWord) {
+	private FloatMatrix fillMatrixCasual(FloatMatrix matrix, char[] firstWordChars, char[] secondWordChars) {
 		
 		// Initiate basic variables
 		float costCross;
 		
-		final int firstWordLength = firstWord.length();
-		final int secondWordLength = secondWord.length();
+		final int firstWordLength = firstWordChars.length;
+		final int secondWordLength = secondWordChars.length;
+		final float[] cells = matrix.values;
+		final int stride = matrix.stride;
 		
-		char[] firstWordChars = firstWord.toCharArray();
-		char[] secondWordChars = secondWord.toCharArray();
-		
-		// Fill matrix with values that describe word similarity
-		for (int j = 1; j <= secondWordLength; j++) {
-			for (int i = 1; i <= firstWordLength; i++) {
+		// Fill matrix row by row with values that describe word similarity (cell is the index of (i,j) in the array)
+		for (int i = 1; i <= firstWordLength; i++) {
+			for (int j = 1, cell = i * stride + 1; j <= secondWordLength; j++, cell++) {
 				
 				// Do not add costs for identical characters into the cross row of the matrix
 				if(firstWordChars[i-1] == secondWordChars[j-1]) {
-					costCross = matrix[i-1][j-1] + 0f;
+					costCross = cells[cell - stride - 1] + 0f;
 					
 				// Add costs for swap if characters can be swapped
 				} else if(currentFlags[SWAP] && i != 1 && j != 1 && firstWordChars[i-1] == secondWordChars[j-2] && 
 						firstWordChars[i-2] == secondWordChars[j-1]) {
-					costCross = matrix[i-2][j-2] + operationCosts[CHAR_SWAP];
+					costCross = cells[cell - 2 * stride - 2] + operationCosts[CHAR_SWAP];
 					
 				// Set costs for swap if just the case of the letters is wrong
 				} else if(currentFlags[MIND_CASE] && Character.toLowerCase(firstWordChars[i-1]) == Character.toLowerCase(secondWordChars[j-1])) {
-					costCross = matrix[i-1][j-1] + operationCosts[SWAP_PHONETIC];				
+					costCross = cells[cell - stride - 1] + operationCosts[SWAP_PHONETIC];				
 				
 				// Add costs for swap if characters can be swapped
 				} else if(currentFlags[MIND_CASE] && i != 1 && j != 1 && 
 						Character.toLowerCase(firstWordChars[i-1]) == Character.toLowerCase(secondWordChars[j-2]) && 
 						Character.toLowerCase(firstWordChars[i-2]) == Character.toLowerCase(secondWordChars[j-1])) {
-					costCross = matrix[i-2][j-2] + operationCosts[CHAR_SWAP_CASE];
+					costCross = cells[cell - 2 * stride - 2] + operationCosts[CHAR_SWAP_CASE];
 					
 				// Add costs for character substitution if none of the above applies
 				} else {
-					costCross = matrix[i-1][j-1] + operationCosts[CHAR_SUBSTITUTION];
+					costCross = cells[cell - stride - 1] + operationCosts[CHAR_SUBSTITUTION];
 					
 				}
 				
 				// Add best value to matrix path
-				matrix[i][j] = Math.min(Math.min(matrix[i][j-1] + operationCosts[CHAR_INDEL], matrix[i-1][j] + operationCosts[CHAR_INDEL]), costCross);
+				cells[cell] = Math.min(Math.min(cells[cell - 1] + operationCosts[CHAR_INDEL], cells[cell - stride] + operationCosts[CHAR_INDEL]), costCross);
 				
 			}
 		}
@@ -938,71 +2090,77 @@ public class Levenshtein {
 	/**
 	 * Run Damerau-Levenshtein algorithm on prepared matrix with phonetic values (object will not be cloned)
 	 * @param matrix The matrix that should be filled (using phonetic values)
-	 * @param symbols The symbols of the word that are to be compared, 0 = first word, 1 = second word
-	 * @param symbolZeroDistances The distance of all words to zero
+	 * @param firstSymbols The symbols of the first word that is to be compared
+	 * @param firstZeroDistances The distances of the symbols of the first word to zero
+	 * @param secondSymbols The symbols of the second word that is to be compared
+	 * @param secondZeroDistances The distances of the symbols of the second word to zero
 	 * @return The filled matrix
 	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols
 	 */
-	private float[][] fillMatrixPhonetic(float[][] matrix, List<String[]> symbols, 
-			Map<String,Float> symbolZeroDistances) throws PhoneticException {
+	private FloatMatrix fillMatrixPhonetic(FloatMatrix matrix, String[] firstSymbols, float[] firstZeroDistances, 
+			String[] secondSymbols, float[] secondZeroDistances) throws PhoneticException {
 		
 		// Initiate basic variables
 		float costCross, costSwap, tempDistance;
 		
-		// Fill matrix with values that describe word similarity, taking into account the phonetic notation
-		for (int j = 1; j <= symbols.get(1).length; j++) {
-			for (int i = 1; i <= symbols.get(0).length; i++) {
+		final float[] cells = matrix.values;
+		final int stride = matrix.stride;
+		
+		// Fill matrix row by row with values that describe word similarity, taking into account the phonetic notation
+		// (cell is the index of (i,j) in the array)
+		for (int i = 1; i <= firstSymbols.length; i++) {
+			for (int j = 1, cell = i * stride + 1; j <= secondSymbols.length; j++, cell++) {
 				
 				// Compute costs of possible swapping of characters, if allowed, set to maximum otherwise
 				// Do this in a separate step since a substitution could still be less expensive with XSAMPA
-				if (currentFlags[SWAP] && i != 1 && j != 1 && symbols.get(0)[i-1].equals(symbols.get(1)[j-2]) && 
-						symbols.get(0)[i-2].equals(symbols.get(1)[j-1])) {
-					costSwap = matrix[i-2][j-2] + operationCosts[SWAP_PHONETIC];
+				if (currentFlags[SWAP] && i != 1 && j != 1 && firstSymbols[i-1].equals(secondSymbols[j-2]) && 
+						firstSymbols[i-2].equals(secondSymbols[j-1])) {
+					costSwap = cells[cell - 2 * stride - 2] + operationCosts[SWAP_PHONETIC];
 				} else {
 					costSwap = Float.MAX_VALUE;
 				}
 				
 				// Do not add costs for identical characters into the crossrow of the matrix
-				if(symbols.get(0)[i-1].equals(symbols.get(1)[j-1])) {
-					costCross = matrix[i-1][j-1] + 0f;
+				if(firstSymbols[i-1].equals(secondSymbols[j-1])) {
+					costCross = cells[cell - stride - 1] + 0f;
 					
 				// Add costs for character substitution if none of the above applies (phonetic difference)
 				// If function returns -1, distance of both symbols to zero should be added.
 				} else {
 					
 					// Check if one of the values is 0 and use zero-distances table, if so
-					if(symbols.get(0)[i-1].equals("0")) {
-						tempDistance = symbolZeroDistances.get(symbols.get(1)[j-1]);
-					} else if(symbols.get(1)[j-1].equals("0")) {
-						tempDistance = symbolZeroDistances.get(symbols.get(0)[i-1]);
+					if(firstSymbols[i-1].equals("0")) {
+						tempDistance = secondZeroDistances[j-1];
+					} else if(secondSymbols[j-1].equals("0")) {
+						tempDistance = firstZeroDistances[i-1];
 					} else {
-						tempDistance = getPhoneticDifference(symbols.get(0)[i-1], symbols.get(1)[j-1]);
+						tempDistance = getPhoneticDifference(firstSymbols[i-1], secondSymbols[j-1]);
 					}
 					
 					// Set cross row value, if indicated, set value as sum of substitutions
 					if (tempDistance == -1f) {
 						
-						costCross = matrix[i-1][j-1] + symbolZeroDistances.get(symbols.get(0)[i-1]) + 
-							symbolZeroDistances.get(symbols.get(1)[j-1]);
+						costCross = cells[cell - stride - 1] + firstZeroDistances[i-1] + 
+							secondZeroDistances[j-1];
 						//System.out.printf("Vowel / consonant mismatching at cell (%d,%d). Distance value %.2f substituted.%n", 
-						//		i, j, matrix[i][j]);
+						//		i, j, cells[cell]);
 						
 					} else {
 						
-						costCross = matrix[i-1][j-1] + tempDistance;
+						costCross = cells[cell - stride - 1] + tempDistance;
 						
 					}
 					
 				}
 				
 				// Print all possibilities to console (debugging)
-				/*System.out.printf("(%d,%d) : (%s,%s) From cross: %.2f |�from up: %.2f | from left: %.2f%n", i, j, symbols.get(0)[i-1], 
-						symbols.get(1)[j-1], costCross, matrix[i-1][j] + symbolZeroDistances.get(symbols.get(0)[i-1]), 
-						matrix[i][j-1] + symbolZeroDistances.get(symbols.get(1)[j-1]));*/
+				/*System.out.printf("(%d,%d) : (%s,%s) From cross: %.2f |�from up: %.2f | from left: %.2f%n", i, j, firstSymbols[i-1], 
+						secondSymbols[j-1], costCross, cells[cell - stride] + firstZeroDistances[i-1], 
+						cells[cell - 1] + secondZeroDistances[j-1]);*/
 				
 				// Add best value to matrix path (by phonetic difference)
-				matrix[i][j] = Math.min(Math.min(matrix[i-1][j] + symbolZeroDistances.get(symbols.get(0)[i-1]), 
-						matrix[i][j-1] + symbolZeroDistances.get(symbols.get(1)[j-1])), Math.min(costCross, costSwap));
+				cells[cell] = Math.min(Math.min(cells[cell - stride] + firstZeroDistances[i-1], 
+						cells[cell - 1] + secondZeroDistances[j-1]), Math.min(costCross, costSwap));
 				
 			}
 		
@@ -1012,6 +2170,262 @@ public class Levenshtein {
 		
 	}
 	
+	/**
+	 * Computes the Damerau-Levenshtein distance of two prepared words without building the matrix. Only the last
+	 * columns are kept in the given scratch object. 
+	 * @param firstInput The prepared input of the first word
+	 * @param i The ID of the first word
+	 * @param secondInput The prepared input of the second word
+	 * @param j The ID of the second word
+	 * @param scratch The columns to reuse
+	 * @param maxDistance The distance at which the computation is abandoned
+	 * @return The distance or {@link Float#POSITIVE_INFINITY} if it certainly exceeds the maximum distance
+	 * @throws PhoneticException An exception that is thrown if the input contains invalid phonetic symbols
+	 */
+	float getDistance(PreparedString firstInput, int i, PreparedString secondInput, int j, DistanceScratch scratch, 
+			float maxDistance) throws PhoneticException {
+		
+		if(currentFlags[USE_PHONETIC]) {
+			return distancePhonetic(firstInput.symbols[i], firstInput.zeroDistances[i], secondInput.symbols[j], 
+					secondInput.zeroDistances[j], scratch, maxDistance);
+		} else {
+			return distanceCasual(firstInput.wordChars[i], secondInput.wordChars[j], scratch, maxDistance);
+		}
+		
+	}
+	
+	/**
+	 * Computes the basic Damerau-Levenshtein distance column by column (same values as {@link #fillMatrixCasual}). 
+	 * If a maximum distance is given, only the band of cells that a path within this distance can cross is computed
+	 * (all costs must be non-negative then).
+	 * @param firstWordChars The characters of the first word that is to be compared
+	 * @param secondWordChars The characters of the second word that is to be compared
+	 * @param scratch The columns to reuse
+	 * @param maxDistance The distance at which the computation is abandoned
+	 * @return The distance or {@link Float#POSITIVE_INFINITY} if it certainly exceeds the maximum distance
+	 */
+	private float distanceCasual(char[] firstWordChars, char[] secondWordChars, DistanceScratch scratch, float maxDistance) {
+		
+		// Initiate basic variables
+		float columnMinimum, lastColumnMinimum = 0f;
+		
+		final int firstWordLength = firstWordChars.length;
+		final int secondWordLength = secondWordChars.length;
+		
+		// A path through cell (i,j) needs at least |i-j| + |(n-m)-(i-j)| insertions or deletions, hence only cells 
+		// with an offset i-j in [lowOffset, highOffset] can be part of a path within the maximum distance
+		int lowOffset = -secondWordLength, highOffset = firstWordLength;
+		final boolean banded = maxDistance < Float.POSITIVE_INFINITY && operationCosts[CHAR_INDEL] > 0f;
+		
+		if(banded) {
+			
+			int lengthDifference = firstWordLength - secondWordLength;
+			long indels = (long)Math.min(Math.floor(maxDistance / operationCosts[CHAR_INDEL] * 1.000001), 
+					firstWordLength + secondWordLength);
+			
+			// Length filter
+			if(indels < Math.abs(lengthDifference)) {
+				return Float.POSITIVE_INFINITY;
+			}
+			
+			int extent = (int)((indels - Math.abs(lengthDifference)) / 2);
+			lowOffset = Math.max(lowOffset, Math.min(0, lengthDifference) - extent);
+			highOffset = Math.min(highOffset, Math.max(0, lengthDifference) + extent);
+			
+		}
+		
+		scratch.ensure(firstWordLength + 1);
+		
+		// Set up first column
+		for(int i = 0; i <= firstWordLength; i++) {
+			scratch.column[i] = operationCosts[CHAR_INDEL] * i;
+		}
+		
+		for (int j = 1; j <= secondWordLength; j++) {
+			
+			scratch.rotate();
+			float[] beforeLast = scratch.beforeLastColumn, last = scratch.lastColumn, column = scratch.column;
+			
+			int low = Math.max(0, j + lowOffset), high = Math.min(firstWordLength, j + highOffset);
+			
+			// Cells outside of the band are never reached within the maximum distance
+			if(low == 0) {
+				column[0] = operationCosts[CHAR_INDEL] * j;
+				columnMinimum = column[0];
+				low = 1;
+			} else {
+				column[low-1] = Float.POSITIVE_INFINITY;
+				columnMinimum = Float.POSITIVE_INFINITY;
+			}
+			
+			if(high < firstWordLength) {
+				column[high+1] = Float.POSITIVE_INFINITY;
+			}
+			
+			columnMinimum = fillColumnCasual(firstWordChars, secondWordChars[j-1], j != 1 ? secondWordChars[j-2] : 0, j, low, high, 
+					beforeLast, last, column, columnMinimum);
+			
+			// Every path crosses one of two neighboring columns (a swap skips one column only)
+			if(columnMinimum > maxDistance && lastColumnMinimum > maxDistance) {
+				return Float.POSITIVE_INFINITY;
+			}
+			lastColumnMinimum = columnMinimum;
+			
+		}
+		
+		// Values beyond the maximum distance are not exact within a band
+		if(banded && scratch.column[firstWordLength] > maxDistance) {
+			return Float.POSITIVE_INFINITY;
+		}
+		
+		return scratch.column[firstWordLength];
+		
+	}
+	
+	/**
+	 * Computes a range of rows of a column of the basic Damerau-Levenshtein matrix (same values as 
+	 * {@link #fillMatrixCasual}). The rows outside of the range must be set by the caller.
+	 * @param firstWordChars The characters of the first word that is to be compared
+	 * @param secondChar The character of the second word that belongs to the column
+	 * @param previousSecondChar The preceding character of the second word (ignored for the first column)
+	 * @param j The index of the column (starting at 1)
+	 * @param low The first row to compute (at least 1)
+	 * @param high The last row to compute
+	 * @param beforeLast The column before the last column
+	 * @param last The last column
+	 * @param column The column to fill
+	 * @param columnMinimum The minimum of the rows of the column that were set by the caller
+	 * @return The minimum of the column
+	 */
+	float fillColumnCasual(char[] firstWordChars, char secondChar, char previousSecondChar, int j, int low, int high, 
+			float[] beforeLast, float[] last, float[] column, float columnMinimum) {
+		
+		float costCross;
+		
+		for (int i = low; i <= high; i++) {
+			
+			// Do not add costs for identical characters into the cross row of the matrix
+			if(firstWordChars[i-1] == secondChar) {
+				costCross = last[i-1] + 0f;
+				
+			// Add costs for swap if characters can be swapped
+			} else if(currentFlags[SWAP] && i != 1 && j != 1 && firstWordChars[i-1] == previousSecondChar && 
+					firstWordChars[i-2] == secondChar) {
+				costCross = beforeLast[i-2] + operationCosts[CHAR_SWAP];
+				
+			// Set costs for swap if just the case of the letters is wrong
+			} else if(currentFlags[MIND_CASE] && Character.toLowerCase(firstWordChars[i-1]) == Character.toLowerCase(secondChar)) {
+				costCross = last[i-1] + operationCosts[SWAP_PHONETIC];				
+			
+			// Add costs for swap if characters can be swapped
+			} else if(currentFlags[MIND_CASE] && i != 1 && j != 1 && 
+					Character.toLowerCase(firstWordChars[i-1]) == Character.toLowerCase(previousSecondChar) && 
+					Character.toLowerCase(firstWordChars[i-2]) == Character.toLowerCase(secondChar)) {
+				costCross = beforeLast[i-2] + operationCosts[CHAR_SWAP_CASE];
+				
+			// Add costs for character substitution if none of the above applies
+			} else {
+				costCross = last[i-1] + operationCosts[CHAR_SUBSTITUTION];
+				
+			}
+			
+			// Add best value to matrix path
+			column[i] = Math.min(Math.min(last[i] + operationCosts[CHAR_INDEL], column[i-1] + operationCosts[CHAR_INDEL]), costCross);
+			columnMinimum = Math.min(columnMinimum, column[i]);
+			
+		}
+		
+		return columnMinimum;
+		
+	}
+	
+	/**
+	 * Computes the phonetic Damerau-Levenshtein distance column by column (same values as {@link #fillMatrixPhonetic})
+	 * @param firstSymbols The symbols of the first word that is to be compared
+	 * @param firstZeroDistances The distances of the symbols of the first word to zero
+	 * @param secondSymbols The symbols of the second word that is to be compared
+	 * @param secondZeroDistances The distances of the symbols of the second word to zero
+	 * @param scratch The columns to reuse
+	 * @param maxDistance The distance at which the computation is abandoned
+	 * @return The distance or {@link Float#POSITIVE_INFINITY} if it certainly exceeds the maximum distance
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols
+	 */
+	private float distancePhonetic(String[] firstSymbols, float[] firstZeroDistances, String[] secondSymbols, 
+			float[] secondZeroDistances, DistanceScratch scratch, float maxDistance) throws PhoneticException {
+		
+		// Initiate basic variables
+		float costCross, costSwap, tempDistance, columnMinimum, lastColumnMinimum = 0f;
+		
+		scratch.ensure(firstSymbols.length + 1);
+		
+		// Set up first column
+		scratch.column[0] = 0;
+		for(int i = 1; i <= firstSymbols.length; i++) {
+			scratch.column[i] = scratch.column[i-1] + firstZeroDistances[i-1];
+		}
+		
+		for (int j = 1; j <= secondSymbols.length; j++) {
+			
+			scratch.rotate();
+			float[] beforeLast = scratch.beforeLastColumn, last = scratch.lastColumn, column = scratch.column;
+			
+			column[0] = last[0] + secondZeroDistances[j-1];
+			columnMinimum = column[0];
+			
+			for (int i = 1; i <= firstSymbols.length; i++) {
+				
+				// Compute costs of possible swapping of characters, if allowed, set to maximum otherwise
+				if (currentFlags[SWAP] && i != 1 && j != 1 && firstSymbols[i-1].equals(secondSymbols[j-2]) && 
+						firstSymbols[i-2].equals(secondSymbols[j-1])) {
+					costSwap = beforeLast[i-2] + operationCosts[SWAP_PHONETIC];
+				} else {
+					costSwap = Float.MAX_VALUE;
+				}
+				
+				// Do not add costs for identical characters into the crossrow of the matrix
+				if(firstSymbols[i-1].equals(secondSymbols[j-1])) {
+					costCross = last[i-1] + 0f;
+					
+				// Add costs for character substitution if none of the above applies (phonetic difference)
+				} else {
+					
+					// Check if one of the values is 0 and use zero-distances table, if so
+					if(firstSymbols[i-1].equals("0")) {
+						tempDistance = secondZeroDistances[j-1];
+					} else if(secondSymbols[j-1].equals("0")) {
+						tempDistance = firstZeroDistances[i-1];
+					} else {
+						tempDistance = getPhoneticDifference(firstSymbols[i-1], secondSymbols[j-1]);
+					}
+					
+					// Set cross row value, if indicated, set value as sum of substitutions
+					if (tempDistance == -1f) {
+						costCross = last[i-1] + firstZeroDistances[i-1] + secondZeroDistances[j-1];
+					} else {
+						costCross = last[i-1] + tempDistance;
+					}
+					
+				}
+				
+				// Add best value to matrix path (by phonetic difference)
+				column[i] = Math.min(Math.min(column[i-1] + firstZeroDistances[i-1], 
+						last[i] + secondZeroDistances[j-1]), Math.min(costCross, costSwap));
+				columnMinimum = Math.min(columnMinimum, column[i]);
+				
+			}
+			
+			// Every path crosses one of two neighboring columns (a swap skips one column only)
+			if(columnMinimum > maxDistance && lastColumnMinimum > maxDistance) {
+				return Float.POSITIVE_INFINITY;
+			}
+			lastColumnMinimum = columnMinimum;
+			
+		}
+		
+		return scratch.column[firstSymbols.length];
+		
+	}
+	
 	/**
 	 * Function that computes the phonetic difference between two phonetic symbols
 	 * @param firstSymbol The first phonetic sequence
@@ -1024,8 +2438,8 @@ public class Levenshtein {
 		// Return default if symbols are equal
 		if(firstSymbol.equals(secondSymbol)) return 0f; 
 		
-		// Read map and try to find keys
-		Map<String, Float[]> phoneticMap = readPhonetics(false);
+		// Read map (unless the snapshot keeps it already) and try to find keys
+		Map<String, Float[]> phoneticMap = featureTable();
 		
 		Float[] firstFeatures = phoneticMap.get(firstSymbol);
 		Float[] secondFeatures = phoneticMap.get(secondSymbol);
@@ -1168,67 +2582,14 @@ public class Levenshtein {
 	 * @param matrix The completed matrix for which the path should be found
 	 * @return An map of coordinates that represent the path 
 	 * 		(0 = starting point, 1 = deleted, 2 = inserted, 3 = substituted, 4 = swapped)
+	 * @see EditPath
 	 */
 	protected static Map<HashPoint,Integer> getIdealPath(float[][] matrix) {
 		
 		// Return null if matrix is null (for public call of function in ComparedStrings)
 		if(matrix == null) return null;
 		
-		// Set up basic variables
-		Map<HashPoint,Integer> coordinates = new HashMap<HashPoint,Integer>();
-		
-		int x = matrix[0].length - 1;
-		int y = matrix.length - 1;
-		Integer method;
-		
-		// Add final point (build path from final)
-		HashPoint point = new HashPoint(0, 0);
-		coordinates.put(point, ACTION_START);
-		
-		// Go through matrix and break if limit is reached
-		for(int i = 0; i < matrix.length + matrix[0].length - 2; i++) {
-			
-			// Break if limit is reached (faster than maximum part which is the sum minus two)
-			if(y == 0 && x == 0) {
-				break;
-			}
-
-			// Check if a letter swap would be an option
-			if(x > 1 && y > 1 && matrix[y-1][x-1] > matrix[y][x]) {
-				point = new HashPoint(x, y);
-				x-=2; y-=2;
-				method = ACTION_SWAP;
-			
-			// Check if going down or right is a strictly better option, if not go cross, check for matrix bounds
-			// If going down and right would yield identical values, go right
-			// Also check if going right or down does not yield a "dead end" where a later substitution must be done anyways
-			} else if(y == 0 || (x > 0 && y > 0 && matrix[y][x-1] < Math.min(matrix[y-1][x-1], matrix[y-1][x]))) {
-				point = new HashPoint(x--, y);
-				method = ACTION_INSERT;
-				
-			} else if(x == 0 || (y > 0 && y > 0 && (matrix[y-1][x] < Math.min(matrix[y-1][x-1], matrix[y][x-1])))) {
-				point = new HashPoint(x, y--);
-				method = ACTION_DELETE;
-				
-			} else {
-				point = new HashPoint(x--, y--);
-				if(matrix[y][x] == matrix[y+1][x+1]) {
-					method = ACTION_REMAIN;
-				} else {
-					method = ACTION_SUBSTITUTE;
-				}
-				
-			}
-			
-			// Print path to console
-			//System.out.printf("Bachward induction: Moved to (%d,%d) by action id: %d%n", point.x, point.y, method);
-			
-			// Add point to list
-			coordinates.put(point, method);
-				
-		}
-		
-		return coordinates;
+		return EditPath.trace(FloatMatrix.of(matrix)).toMap();
 		
 	}
 	
@@ -1442,13 +2803,13 @@ public class Levenshtein {
 	 */
 	/*
 	//@SuppressWarnings("unused") // Used only by another unused function
-	private static void printMatrix(float[][] matrix, String[] firstSymbols, String[] secondSymbols) {
+	private static void printMatrix(FloatMatrix matrix, String[] firstSymbols, String[] secondSymbols) {
 	
 		System.out.printf("Printing distance matrix to console.%n" +
 				"(* indicates the transformation path, # indicates swapping of the next characters)%n");
 		
 		// Alter Point array to set of ideal points
-		Map<HashPoint,Integer> path = getIdealPath(matrix);
+		Map<HashPoint,Integer> path = EditPath.trace(matrix).toMap();
 		
 		for (int i = -1; i <= firstSymbols.length; i++) {
 			for (int j = -1; j <= secondSymbols.length; j++) {
@@ -1479,7 +2840,7 @@ public class Levenshtein {
 						pathMarker = " ";
 					}
 					
-					System.out.printf("%5.1f%s|", matrix[i][j], pathMarker);
+					System.out.printf("%5.1f%s|", matrix.get(i, j), pathMarker);
 				}
 				
 			}
@@ -1489,7 +2850,7 @@ public class Levenshtein {
 		}
 		
 		System.out.println("----------------------");
-		System.out.printf("Costs of transformation: %.1f%n", matrix[firstSymbols.length][secondSymbols.length]);
+		System.out.printf("Costs of transformation: %.1f%n", matrix.distance());
 		System.out.println("----------------------");
 		
 	}
@@ -1502,7 +2863,7 @@ public class Levenshtein {
 	 */
 	/*
 	@SuppressWarnings("unused")
-	private static void printMatrix(float[][] matrix, char[] firstSymbols, char[] secondSymbols) {
+	private static void printMatrix(FloatMatrix matrix, char[] firstSymbols, char[] secondSymbols) {
 		
 		String[] firstTempArray = new String[firstSymbols.length];
 		String [] secondTempArray = new String[secondSymbols.length];
@@ -1582,7 +2943,7 @@ public class Levenshtein {
 	 * @return The path to the original feature file as a String 
 	 */
 	public String getFeaturePath() {
-		return featurePath.getPath();
+		return snapshot().featurePath.getPath();
 	}
 
 	/**
@@ -1590,12 +2951,7 @@ public class Levenshtein {
 	 * @return A boolean indicating if the new file was read sucessfully
 	 */
 	public boolean setFeaturePath(String featurePath) {
-		
-		rwLock.writeLock().lock();
-		this.featurePath = new File(featurePath);
-		rwLock.writeLock().unlock();
-		
-		return readPhonetics(true) == null ? false : true;
+		return setFeaturePath(new File(featurePath));
 	}
 	
 	/**
@@ -1604,11 +2960,19 @@ public class Levenshtein {
 	 */
 	public boolean setFeaturePath(File featureFile) {
 		
-		rwLock.writeLock().lock();
-		this.featurePath = featureFile;
-		rwLock.writeLock().unlock();
+		LevenshteinConfig snapshot;
 		
-		return readPhonetics(true) == null ? false : true;
+		synchronized(configLock) {
+			snapshot = snapshot();
+			snapshot = snapshot.withPaths(featureFile, snapshot.savePath);
+			setSnapshot(snapshot);
+		}
+		
+		// Read the new file with the engine of the new snapshot and keep the table
+		Map<String, Float[]> table = snapshot.engine().readPhonetics(true);
+		snapshot.setPhoneticTable(table);
+		
+		return table == null ? false : true;
 	}
 	
 	/**
@@ -1617,7 +2981,7 @@ public class Levenshtein {
 	 * @return The path to the rendered feature file as a String 
 	 */
 	public String getSavePath() {
-		return savePath.getPath();
+		return snapshot().savePath.getPath();
 	}
 	
 	/**
@@ -1628,12 +2992,7 @@ public class Levenshtein {
 	 * 		returns true if successful, turns false if not
 	 */
 	public boolean setSavePath(String savePath) {
-		
-		rwLock.writeLock().lock();
-		this.savePath = new File(savePath);
-		rwLock.writeLock().unlock();
-		
-		return readPhonetics(false) == null ? false : true;
+		return setSavePath(new File(savePath));
 	}
 	
 	/**
@@ -1645,11 +3004,19 @@ public class Levenshtein {
 	 */
 	public boolean setSavePath(File savePath) {
 		
-		rwLock.writeLock().lock();
-		this.savePath = savePath;
-		rwLock.writeLock().unlock();
+		LevenshteinConfig snapshot;
+		
+		synchronized(configLock) {
+			snapshot = snapshot();
+			snapshot = snapshot.withPaths(snapshot.featurePath, savePath);
+			setSnapshot(snapshot);
+		}
+		
+		// Read (or render) the file with the engine of the new snapshot and keep the table
+		Map<String, Float[]> table = snapshot.engine().readPhonetics(false);
+		snapshot.setPhoneticTable(table);
 		
-		return readPhonetics(false) == null ? false : true;
+		return table == null ? false : true;
 	}
 	
 	/**
@@ -1658,11 +3025,7 @@ public class Levenshtein {
 	 * @return The costs
 	 */
 	public float getCost(int costID) {
-		if(costID >= 0 && costID < operationCosts.length) {
-			return operationCosts[costID];
-		} else {
-			throw new IllegalArgumentException("This ID does not exist");
-		}
+		return snapshot().getCost(costID);
 	}
 	
 	/**
@@ -1676,13 +3039,98 @@ public class Levenshtein {
 	public void setCost(float cost, int costID) {
 		if(costID >= 0 && costID < operationCosts.length) {
 			
-			rwLock.writeLock().lock();
-			operationCosts[costID] = cost;
-			rwLock.writeLock().unlock();
+			synchronized(configLock) {
+				LevenshteinConfig snapshot = snapshot();
+				float[] costs = snapshot.costs.clone();
+				costs[costID] = cost;
+				setSnapshot(snapshot.withCosts(costs));
+			}
 			
 		} else {
 			throw new IllegalArgumentException("This ID does not exist");
 		}
 	}
+	
+	/**
+	 * Returns the number of bytes the Levenshtein matrices of a detailed comparison may occupy
+	 * @return The memory budget in bytes
+	 */
+	public long getMemoryBudget() {
+		return snapshot().memoryBudget;
+	}
+	
+	/**
+	 * Sets the number of bytes the Levenshtein matrices of a detailed comparison may occupy. If the matrices of the 
+	 * requested {@link DetailLevel} would exceed this budget, the comparison keeps the matrices of a lower level. 
+	 * The default budget is a quarter of the maximum heap size.
+	 * @param memoryBudget The memory budget in bytes
+	 */
+	public void setMemoryBudget(long memoryBudget) {
+		if(memoryBudget >= 0) {
+			
+			synchronized(configLock) {
+				setSnapshot(snapshot().withMemoryBudget(memoryBudget));
+			}
+			
+		} else {
+			throw new IllegalArgumentException("The memory budget must not be negative");
+		}
+	}
+	
+	/**
+	 * Returns the cache of single word comparisons
+	 * @return The cache or <code>null</code> if words are not cached
+	 */
+	public WordPairCache getWordCache() {
+		return snapshot().wordCache;
+	}
+	
+	/**
+	 * Sets a cache of single word comparisons. Sentence comparisons without detailed results look up every pair of 
+	 * words in it before computing the distance of the words. A cache can be shared by any number of objects, their
+	 * entries are told apart by the fingerprint of the configuration.
+	 * @param wordCache The cache or <code>null</code> to compute every word pair
+	 */
+	public void setWordCache(WordPairCache wordCache) {
+		synchronized(configLock) {
+			setSnapshot(snapshot().withWordCache(wordCache));
+		}
+	}
+	
+	/**
+	 * Returns the number of compared word pairs from which on the word matrix is computed in parallel
+	 * @return The threshold or <code>0</code> if the computation is never parallelized
+	 */
+	public int getParallelThreshold() {
+		return snapshot().parallelThreshold;
+	}
+	
+	/**
+	 * Computes the rows of the word matrix of long inputs on the common fork join pool. The parallel mode is used 
+	 * as soon as the product of the number of words of both inputs reaches the given threshold.
+	 * @param threshold The number of word pairs from which on rows are computed in parallel (<code>0</code> disables this mode)
+	 */
+	public void setParallel(int threshold) {
+		setParallel(threshold, null);
+	}
+	
+	/**
+	 * Computes the rows of the word matrix of long inputs on the given executor. The parallel mode is used as soon 
+	 * as the product of the number of words of both inputs reaches the given threshold. The executor is not shut down 
+	 * by this class.
+	 * @param threshold The number of word pairs from which on rows are computed in parallel (<code>0</code> disables this mode)
+	 * @param executor The executor that computes the rows or <code>null</code> to use the common fork join pool
+	 */
+	public void setParallel(int threshold, ExecutorService executor) {
+		if(threshold >= 0) {
+			
+			synchronized(configLock) {
+				setSnapshot(snapshot().withParallel(threshold, executor));
+			}
+			
+		} else {
+			throw new IllegalArgumentException("The threshold must not be negative");
+		}
+	}
 
 }
\ No newline at end of file
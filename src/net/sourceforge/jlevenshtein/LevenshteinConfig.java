@@ -0,0 +1,375 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>An immutable snapshot of the configuration of a {@link Levenshtein} object: its flags, operation costs, feature 
+ * files, parallel mode, memory budget and word cache, together with the feature table that is read from the feature 
+ * files on first use. A <code>Levenshtein</code> object keeps its current snapshot behind a single volatile reference. Every
+ * comparison reads this reference once and computes with the snapshot it found, changing the configuration builds 
+ * a new snapshot and swaps it in. Hence comparisons never lock and never see a half-updated configuration.</p>
+ * 
+ * <p>A snapshot can be shared by any number of <code>Levenshtein</code> objects and threads.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see Levenshtein#getConfig()
+ * @see Levenshtein#setConfig(LevenshteinConfig)
+ */
+public final class LevenshteinConfig {
+	
+	/**
+	 * The default configuration (plain input, sentences, mind case, strip special characters, allow swaps, index)
+	 */
+	static final LevenshteinConfig DEFAULT = new LevenshteinConfig(
+			new boolean[] {false, false, true, true, true, false}, 
+			new float[] {2f, 1f, 1f, 1.5f, 1.5f, 0.95f, 20f},
+			new File(Levenshtein.class.getResource("/ressource/features.txt").getFile()), 
+			new File(Levenshtein.class.getResource("/ressource/features.dat").getFile()), 
+			0, null, Runtime.getRuntime().maxMemory() / 4, null, (Map<String, Float[]>)null);
+	
+	/**
+	 * The flags (a private copy that is never changed)
+	 */
+	final boolean[] flags;
+	
+	/**
+	 * The costs of all operations (a private copy that is never changed)
+	 */
+	final float[] costs;
+	
+	/**
+	 * The original and the rendered feature file for XSAMPA
+	 */
+	final File featurePath, savePath;
+	
+	/**
+	 * The number of compared word pairs from which on the word matrix is computed in parallel (0 = never) and the
+	 * executor of the rows (null = common fork join pool)
+	 */
+	final int parallelThreshold;
+	final ExecutorService parallelExecutor;
+	
+	/**
+	 * The number of bytes the Levenshtein matrices of a detailed comparison may occupy
+	 */
+	final long memoryBudget;
+	
+	/**
+	 * The cache of single word comparisons or <code>null</code> if words are not cached
+	 */
+	final WordPairCache wordCache;
+	
+	/**
+	 * The feature table (read once from the feature files on first use, shared by all snapshots of the same files)
+	 */
+	private final AtomicReference<Map<String, Float[]>> phoneticTable;
+	
+	/**
+	 * The snapshots that differ from this one only by their flags (created on first use, see {@link #derive(LevFlag...)})
+	 */
+	private final ConcurrentHashMap<Integer, LevenshteinConfig> derived = new ConcurrentHashMap<Integer, LevenshteinConfig>();
+	
+	/**
+	 * The fingerprint of the flags, costs and feature table (computed on first use, 0 = not yet computed)
+	 */
+	private volatile long fingerprint = 0L;
+	
+	/**
+	 * The object that computes with this configuration (created on first use)
+	 */
+	private volatile Levenshtein engine = null;
+	
+	/**
+	 * Basic constructor (for internal use only)
+	 * @param flags The flags (will be cloned)
+	 * @param costs The costs of all operations (will be cloned)
+	 * @param featurePath The original feature file
+	 * @param savePath The rendered feature file
+	 * @param parallelThreshold The number of word pairs from which on rows are computed in parallel
+	 * @param parallelExecutor The executor of the rows or <code>null</code>
+	 * @param memoryBudget The memory budget in bytes
+	 * @param wordCache The cache of single word comparisons or <code>null</code>
+	 * @param phoneticTable The feature table or <code>null</code> if it is read on first use
+	 */
+	LevenshteinConfig(boolean[] flags, float[] costs, File featurePath, File savePath, int parallelThreshold, 
+			ExecutorService parallelExecutor, long memoryBudget, WordPairCache wordCache, Map<String, Float[]> phoneticTable) {
+		this(flags, costs, featurePath, savePath, parallelThreshold, parallelExecutor, memoryBudget, wordCache, 
+				new AtomicReference<Map<String, Float[]>>(phoneticTable));
+	}
+	
+	/**
+	 * Constructor that shares the feature table of another snapshot
+	 * @param flags The flags (will be cloned)
+	 * @param costs The costs of all operations (will be cloned)
+	 * @param featurePath The original feature file
+	 * @param savePath The rendered feature file
+	 * @param parallelThreshold The number of word pairs from which on rows are computed in parallel
+	 * @param parallelExecutor The executor of the rows or <code>null</code>
+	 * @param memoryBudget The memory budget in bytes
+	 * @param wordCache The cache of single word comparisons or <code>null</code>
+	 * @param phoneticTable The holder of the feature table
+	 */
+	private LevenshteinConfig(boolean[] flags, float[] costs, File featurePath, File savePath, int parallelThreshold, 
+			ExecutorService parallelExecutor, long memoryBudget, WordPairCache wordCache, AtomicReference<Map<String, Float[]>> phoneticTable) {
+		
+		this.flags = flags.clone();
+		this.costs = costs.clone();
+		this.featurePath = featurePath;
+		this.savePath = savePath;
+		this.parallelThreshold = parallelThreshold;
+		this.parallelExecutor = parallelExecutor;
+		this.memoryBudget = memoryBudget;
+		this.wordCache = wordCache;
+		this.phoneticTable = phoneticTable;
+		
+	}
+	
+	/**
+	 * Returns a copy of this snapshot with other flags
+	 * @param flags The new flags (will be cloned)
+	 * @return The new snapshot
+	 */
+	LevenshteinConfig withFlags(boolean[] flags) {
+		return new LevenshteinConfig(flags, costs, featurePath, savePath, parallelThreshold, parallelExecutor, 
+				memoryBudget, wordCache, phoneticTable);
+	}
+	
+	/**
+	 * Returns a copy of this snapshot with other operation costs
+	 * @param costs The new costs (will be cloned)
+	 * @return The new snapshot
+	 */
+	LevenshteinConfig withCosts(float[] costs) {
+		return new LevenshteinConfig(flags, costs, featurePath, savePath, parallelThreshold, parallelExecutor, 
+				memoryBudget, wordCache, phoneticTable);
+	}
+	
+	/**
+	 * Returns a copy of this snapshot with other feature files (the feature table is read again)
+	 * @param featurePath The new original feature file
+	 * @param savePath The new rendered feature file
+	 * @return The new snapshot
+	 */
+	LevenshteinConfig withPaths(File featurePath, File savePath) {
+		return new LevenshteinConfig(flags, costs, featurePath, savePath, parallelThreshold, parallelExecutor, 
+				memoryBudget, wordCache, (Map<String, Float[]>)null);
+	}
+	
+	/**
+	 * Returns a copy of this snapshot with another parallel mode
+	 * @param parallelThreshold The number of word pairs from which on rows are computed in parallel
+	 * @param parallelExecutor The executor of the rows or <code>null</code>
+	 * @return The new snapshot
+	 */
+	LevenshteinConfig withParallel(int parallelThreshold, ExecutorService parallelExecutor) {
+		return new LevenshteinConfig(flags, costs, featurePath, savePath, parallelThreshold, parallelExecutor, 
+				memoryBudget, wordCache, phoneticTable);
+	}
+	
+	/**
+	 * Returns a copy of this snapshot with another memory budget
+	 * @param memoryBudget The memory budget in bytes
+	 * @return The new snapshot
+	 */
+	LevenshteinConfig withMemoryBudget(long memoryBudget) {
+		return new LevenshteinConfig(flags, costs, featurePath, savePath, parallelThreshold, parallelExecutor, 
+				memoryBudget, wordCache, phoneticTable);
+	}
+	
+	/**
+	 * Returns a copy of this snapshot with another cache of single word comparisons
+	 * @param wordCache The cache or <code>null</code>
+	 * @return The new snapshot
+	 */
+	LevenshteinConfig withWordCache(WordPairCache wordCache) {
+		return new LevenshteinConfig(flags, costs, featurePath, savePath, parallelThreshold, parallelExecutor, 
+				memoryBudget, wordCache, phoneticTable);
+	}
+	
+	/**
+	 * Returns the object that computes with this configuration. It is created once and is never reconfigured.
+	 * @return The engine of this snapshot
+	 */
+	Levenshtein engine() {
+		
+		Levenshtein currentEngine = engine;
+		
+		if(currentEngine == null) {
+			synchronized(this) {
+				if(engine == null) {
+					engine = new Levenshtein(this);
+				}
+				currentEngine = engine;
+			}
+		}
+		
+		return currentEngine;
+		
+	}
+	
+	/**
+	 * Returns a fingerprint of everything that changes the results of a comparison: the flags, the operation costs 
+	 * and (for phonetic comparisons) the content of the feature table. Snapshots with equal settings have equal 
+	 * fingerprints, the parallel mode and the memory budget are not part of it.
+	 * @return The fingerprint (never <code>0</code>)
+	 */
+	long fingerprint() {
+		
+		long currentFingerprint = fingerprint;
+		
+		if(currentFingerprint == 0L) {
+			
+			// FNV-1a over the flags and the bits of the costs
+			long hash = 0xcbf29ce484222325L;
+			for(int i = 0; i < flags.length; i++) {
+				hash = (hash ^ (flags[i] ? 1 : 0)) * 0x100000001b3L;
+			}
+			for(int i = 0; i < costs.length; i++) {
+				hash = (hash ^ Float.floatToIntBits(costs[i])) * 0x100000001b3L;
+			}
+			
+			// The content of the feature table in any order (read once if necessary)
+			if(flags[Levenshtein.USE_PHONETIC]) {
+				
+				Map<String, Float[]> table = engine().phoneticTable();
+				long tableHash = 0L;
+				
+				for(Map.Entry<String, Float[]> entry : table.entrySet()) {
+					tableHash += entry.getKey().hashCode() * 0x9e3779b97f4a7c15L ^ Arrays.hashCode(entry.getValue());
+				}
+				
+				hash = (hash ^ tableHash) * 0x100000001b3L;
+				
+			}
+			
+			currentFingerprint = fingerprint = hash != 0L ? hash : 1L;
+			
+		}
+		
+		return currentFingerprint;
+		
+	}
+	
+	/**
+	 * Returns the feature table if it was read already
+	 * @return The feature table or <code>null</code>
+	 */
+	Map<String, Float[]> phoneticTable() {
+		return phoneticTable.get();
+	}
+	
+	/**
+	 * Stores the feature table that was read from the feature files of this snapshot
+	 * @param phoneticTable The feature table
+	 */
+	void setPhoneticTable(Map<String, Float[]> phoneticTable) {
+		this.phoneticTable.set(phoneticTable);
+	}
+	
+	/**
+	 * Returns a snapshot that differs from this one only by the given flags. The derived snapshots are cached, share
+	 * the feature table of this snapshot and are created without taking any lock of the <code>Levenshtein</code> 
+	 * objects that use this snapshot.
+	 * @param userFlags The flags that override the flags of this snapshot
+	 * @return The derived snapshot (this snapshot if the flags do not change anything)
+	 */
+	LevenshteinConfig derive(LevFlag... userFlags) {
+		
+		boolean[] derivedFlags = Levenshtein.applyFlags(flags, userFlags);
+		if(Arrays.equals(derivedFlags, flags)) {
+			return this;
+		}
+		
+		// Encode the flags as the key of the cache
+		int key = 0;
+		for(int i = 0; i < derivedFlags.length; i++) {
+			if(derivedFlags[i]) {
+				key |= 1 << i;
+			}
+		}
+		
+		LevenshteinConfig derivedConfig = derived.get(key);
+		if(derivedConfig == null) {
+			derivedConfig = new LevenshteinConfig(derivedFlags, costs, featurePath, savePath, parallelThreshold, 
+					parallelExecutor, memoryBudget, wordCache, phoneticTable);
+			LevenshteinConfig previous = derived.putIfAbsent(key, derivedConfig);
+			derivedConfig = previous != null ? previous : derivedConfig;
+		}
+		
+		return derivedConfig;
+		
+	}
+	
+	/**
+	 * Returns the costs for a given operation
+	 * @param costID The ID of the operation
+	 * @return The costs
+	 * @throws IllegalArgumentException An exception that indicates that the ID does not exist
+	 */
+	public float getCost(int costID) throws IllegalArgumentException {
+		if(costID >= 0 && costID < costs.length) {
+			return costs[costID];
+		} else {
+			throw new IllegalArgumentException("This ID does not exist");
+		}
+	}
+	
+	/**
+	 * Returns the original feature file for XSAMPA
+	 * @return The original feature file
+	 */
+	public File getFeaturePath() {
+		return featurePath;
+	}
+	
+	/**
+	 * Returns the rendered feature file for XSAMPA
+	 * @return The rendered feature file
+	 */
+	public File getSavePath() {
+		return savePath;
+	}
+	
+	/**
+	 * Returns the number of compared word pairs from which on the word matrix is computed in parallel
+	 * @return The threshold or <code>0</code> if the computation is never parallelized
+	 */
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+	
+	/**
+	 * Returns the number of bytes the Levenshtein matrices of a detailed comparison may occupy
+	 * @return The memory budget in bytes
+	 */
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+}
@@ -0,0 +1,511 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>An asynchronous front end of a {@link Levenshtein} object. Comparisons and batches of comparisons are submitted 
+ * to a dedicated pool of worker threads and the results are delivered by a <code>CompletableFuture</code>, such that
+ * the submitting threads are not blocked by the computation.</p>
+ * 
+ * <p>The pool has a fixed number of threads (the number of processors by default, since comparisons are CPU bound) 
+ * and a bounded number of waiting submissions. If all threads are busy and the queue is full, a submission either 
+ * waits for a free slot ({@link OverloadPolicy#BLOCK}) or is rejected at once ({@link OverloadPolicy#REJECT}). Every
+ * submission is computed with the configuration the <code>Levenshtein</code> object had when it was submitted, on 
+ * the scratch columns of the worker that computes it.</p>
+ * 
+ * <p>The synchronous {@link #compare(String, String)} serves callers on virtual threads (Java 21 and later): 
+ * comparisons whose matrix exceeds the offload threshold are handed over to the platform threads of the pool, and the 
+ * virtual thread parks until the result is ready instead of occupying its carrier thread. Short comparisons and 
+ * callers on platform threads compute inline. On older Java versions no thread is virtual and every call is inline.</p>
+ * 
+ * <p>This class is thread safe. The threads of the pool are daemon threads, they are stopped by {@link #close()}.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see Levenshtein
+ */
+public class LevenshteinExecutor implements AutoCloseable {
+	
+	/**
+	 * The behaviour of a submission if all threads are busy and the queue is full
+	 */
+	public enum OverloadPolicy {
+		
+		/**
+		 * The submitting thread waits until a slot is free
+		 */
+		BLOCK,
+		
+		/**
+		 * The submission is rejected with a <code>RejectedExecutionException</code>
+		 */
+		REJECT
+		
+	}
+	
+	/**
+	 * The number of waiting submissions per thread of the default queue
+	 */
+	private static final int QUEUE_PER_THREAD = 16;
+	
+	/**
+	 * The columns of the comparisons (one per worker thread)
+	 */
+	private static final ThreadLocal<DistanceScratch> SCRATCH = new ThreadLocal<DistanceScratch>() {
+		@Override
+		protected DistanceScratch initialValue() {
+			return new DistanceScratch();
+		}
+	};
+	
+	/**
+	 * The default number of character pairs from which on comparisons of virtual threads are offloaded
+	 */
+	private static final int DEFAULT_OFFLOAD_THRESHOLD = 1 << 12;
+	
+	/**
+	 * The method <code>Thread.isVirtual()</code> or <code>null</code> if this Java version has no virtual threads
+	 */
+	private static final Method IS_VIRTUAL = virtualThreadMethod();
+	
+	/**
+	 * The number of all pools (names the threads)
+	 */
+	private static final AtomicInteger POOLS = new AtomicInteger();
+	
+	/**
+	 * The object whose current configuration is used for every submission
+	 */
+	private final Levenshtein levenshtein;
+	
+	/**
+	 * The worker threads
+	 */
+	private final ThreadPoolExecutor workers;
+	
+	/**
+	 * The slots of the running and waiting submissions
+	 */
+	private final Semaphore slots;
+	private final int capacity;
+	
+	/**
+	 * The behaviour of a submission if no slot is free
+	 */
+	private final OverloadPolicy policy;
+	
+	/**
+	 * The number of character pairs from which on comparisons of virtual threads are offloaded (0 = never)
+	 */
+	private volatile int offloadThreshold = DEFAULT_OFFLOAD_THRESHOLD;
+	
+	/**
+	 * Overrides the check whether the caller is a virtual thread (<code>null</code> asks the thread itself)
+	 */
+	volatile Boolean virtualCaller;
+	
+	/**
+	 * Creates an executor with one thread per processor that blocks submissions if the queue is full
+	 * @param levenshtein The object whose configuration is used
+	 */
+	public LevenshteinExecutor(Levenshtein levenshtein) {
+		this(levenshtein, Runtime.getRuntime().availableProcessors(), 
+				QUEUE_PER_THREAD * Runtime.getRuntime().availableProcessors(), OverloadPolicy.BLOCK);
+	}
+	
+	/**
+	 * Creates an executor of the given size
+	 * @param levenshtein The object whose configuration is used (changes of its configuration apply to later submissions)
+	 * @param threads The number of worker threads
+	 * @param queueCapacity The number of submissions that may wait for a worker
+	 * @param policy The behaviour of a submission if all workers are busy and the queue is full
+	 * @throws IllegalArgumentException An exception that indicates that there is no thread or the capacity is negative
+	 * @throws NullPointerException An exception that indicates that the object or the policy is not set
+	 */
+	public LevenshteinExecutor(Levenshtein levenshtein, int threads, int queueCapacity, OverloadPolicy policy) 
+		throws IllegalArgumentException, NullPointerException {
+		
+		if(levenshtein == null || policy == null) {
+			throw new NullPointerException("The Levenshtein object or the policy is not set.");
+		}
+		if(threads < 1 || queueCapacity < 0) {
+			throw new IllegalArgumentException("At least one thread and a non-negative queue capacity are required.");
+		}
+		
+		this.levenshtein = levenshtein;
+		this.policy = policy;
+		capacity = threads + queueCapacity;
+		slots = new Semaphore(capacity);
+		
+		// The slots bound the queue, hence it never rejects on its own
+		final String prefix = "jlevenshtein-worker-" + POOLS.incrementAndGet() + "-";
+		workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), 
+				new ThreadFactory() {
+					
+					private final AtomicInteger count = new AtomicInteger();
+					
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+					
+				});
+		
+	}
+	
+	/**
+	 * Compares two Strings on the calling thread, or on a worker if the caller is a virtual thread and the product of 
+	 * the lengths of both Strings reaches the offload threshold
+	 * @param firstInput The first String that is to be compared
+	 * @param secondInput The second String that is to be compared
+	 * @return The index (or distance if the absolute flag is set)
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that one of the Strings is not set
+	 * @throws RejectedExecutionException An exception that indicates that the queue is full (with the reject policy)
+	 * or that the executor is closed
+	 * @throws IllegalStateException An exception that indicates that the thread was interrupted while waiting
+	 */
+	public float compare(String firstInput, String secondInput) 
+		throws PhoneticException, NullPointerException, RejectedExecutionException, IllegalStateException {
+		
+		if(firstInput == null || secondInput == null) {
+			throw new NullPointerException("At least one of the Strings that was to be compared is not set.");
+		}
+		
+		// Compute short comparisons and comparisons of platform threads inline
+		int threshold = offloadThreshold;
+		if(threshold == 0 || (long)firstInput.length() * secondInput.length() < threshold || 
+				isVirtualCaller() == false) {
+			return levenshtein.compare(firstInput, secondInput);
+		}
+		
+		// Park the virtual thread until a worker has computed the result
+		try {
+			return compareAsync(firstInput, secondInput).get();
+			
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the comparison.", e);
+			
+		} catch(ExecutionException e) {
+			throw Levenshtein.unwrap(e, RuntimeException.class);
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of character pairs from which on comparisons of virtual threads are offloaded
+	 * @return The threshold or <code>0</code> if comparisons are never offloaded
+	 */
+	public int getOffloadThreshold() {
+		return offloadThreshold;
+	}
+	
+	/**
+	 * Sets the number of character pairs (the product of the lengths of both Strings) from which on comparisons of 
+	 * virtual threads are offloaded to the workers
+	 * @param threshold The threshold (<code>0</code> computes all comparisons inline)
+	 */
+	public void setOffloadThreshold(int threshold) {
+		if(threshold >= 0) {
+			offloadThreshold = threshold;
+		} else {
+			throw new IllegalArgumentException("The threshold must not be negative");
+		}
+	}
+	
+	/**
+	 * Compares two Strings asynchronously
+	 * @param firstInput The first String that is to be compared
+	 * @param secondInput The second String that is to be compared
+	 * @return The future of the index (or distance if the absolute flag is set)
+	 * @throws NullPointerException An exception that indicates that one of the Strings is not set
+	 * @throws RejectedExecutionException An exception that indicates that the queue is full (with the reject policy)
+	 * or that the executor is closed
+	 * @throws IllegalStateException An exception that indicates that the thread was interrupted while waiting for a slot
+	 */
+	public CompletableFuture<Float> compareAsync(final String firstInput, final String secondInput) 
+		throws NullPointerException, RejectedExecutionException, IllegalStateException {
+		
+		if(firstInput == null || secondInput == null) {
+			throw new NullPointerException("At least one of the Strings that was to be compared is not set.");
+		}
+		
+		final Levenshtein engine = levenshtein.frozenCopy();
+		
+		return submit(new Callable<Float>() {
+			@Override
+			public Float call() {
+				return compare(engine, engine.prepare(firstInput), secondInput, SCRATCH.get());
+			}
+		});
+		
+	}
+	
+	/**
+	 * Compares a query with every candidate of a batch asynchronously, the batch is computed by one worker
+	 * @param query The String that is compared with every candidate
+	 * @param candidates The Strings that are to be compared with the query (copied on submission)
+	 * @return The future of the results in the order of the candidates
+	 * @throws NullPointerException An exception that indicates that the query or one of the candidates is not set
+	 * @throws RejectedExecutionException An exception that indicates that the queue is full (with the reject policy)
+	 * or that the executor is closed
+	 * @throws IllegalStateException An exception that indicates that the thread was interrupted while waiting for a slot
+	 */
+	public CompletableFuture<float[]> compareAsync(final String query, List<String> candidates) 
+		throws NullPointerException, RejectedExecutionException, IllegalStateException {
+		
+		if(query == null) {
+			throw new NullPointerException("The query is not set.");
+		}
+		
+		final String[] batch = copy(candidates);
+		final Levenshtein engine = levenshtein.frozenCopy();
+		
+		return submit(new Callable<float[]>() {
+			@Override
+			public float[] call() {
+				
+				DistanceScratch scratch = SCRATCH.get();
+				PreparedString preparedQuery = engine.prepare(query);
+				float[] results = new float[batch.length];
+				
+				for(int i = 0; i < batch.length; i++) {
+					results[i] = compare(engine, preparedQuery, batch[i], scratch);
+				}
+				
+				return results;
+				
+			}
+		});
+		
+	}
+	
+	/**
+	 * Compares the Strings of two lists pair by pair asynchronously, the batch is computed by one worker
+	 * @param firstInputs The first Strings of the pairs (copied on submission)
+	 * @param secondInputs The second Strings of the pairs (copied on submission)
+	 * @return The future of the results in the order of the pairs
+	 * @throws IllegalArgumentException An exception that indicates that the lists differ in size
+	 * @throws NullPointerException An exception that indicates that one of the Strings is not set
+	 * @throws RejectedExecutionException An exception that indicates that the queue is full (with the reject policy)
+	 * or that the executor is closed
+	 * @throws IllegalStateException An exception that indicates that the thread was interrupted while waiting for a slot
+	 */
+	public CompletableFuture<float[]> compareAsync(List<String> firstInputs, List<String> secondInputs) 
+		throws IllegalArgumentException, NullPointerException, RejectedExecutionException, IllegalStateException {
+		
+		if(firstInputs.size() != secondInputs.size()) {
+			throw new IllegalArgumentException("Both lists must contain the same number of Strings.");
+		}
+		
+		final String[] firstBatch = copy(firstInputs);
+		final String[] secondBatch = copy(secondInputs);
+		final Levenshtein engine = levenshtein.frozenCopy();
+		
+		return submit(new Callable<float[]>() {
+			@Override
+			public float[] call() {
+				
+				DistanceScratch scratch = SCRATCH.get();
+				float[] results = new float[firstBatch.length];
+				
+				for(int i = 0; i < firstBatch.length; i++) {
+					results[i] = compare(engine, engine.prepare(firstBatch[i]), secondBatch[i], scratch);
+				}
+				
+				return results;
+				
+			}
+		});
+		
+	}
+	
+	/**
+	 * Returns the number of submissions that are running or waiting
+	 * @return The number of occupied slots
+	 */
+	public int pending() {
+		return capacity - slots.availablePermits();
+	}
+	
+	/**
+	 * Stops accepting submissions, the submissions that are running or waiting are still completed
+	 */
+	@Override
+	public void close() {
+		workers.shutdown();
+	}
+	
+	/**
+	 * Compares a prepared String with another String
+	 * @param engine The frozen configuration
+	 * @param firstInput The prepared first String
+	 * @param secondInput The second String
+	 * @param scratch The columns of the current worker
+	 * @return The index (or distance if the absolute flag is set)
+	 */
+	private static float compare(Levenshtein engine, PreparedString firstInput, String secondInput, DistanceScratch scratch) {
+		
+		BasicCompared basicCompared = engine.compareCandidate(firstInput, engine.prepare(secondInput), false, 0f, scratch);
+		return engine.currentFlags[Levenshtein.ABSOLUTE] ? basicCompared.distance() : basicCompared.index();
+		
+	}
+	
+	/**
+	 * Checks if the calling thread is a virtual thread, unless the decision is overridden
+	 * @return True if the comparisons of the caller are offloaded from the threshold on
+	 */
+	private boolean isVirtualCaller() {
+		
+		Boolean forced = virtualCaller;
+		return forced != null ? forced.booleanValue() : isVirtual(Thread.currentThread());
+		
+	}
+	
+	/**
+	 * Checks if a thread is a virtual thread
+	 * @param thread The thread
+	 * @return True if this Java version supports virtual threads and the thread is one of them
+	 */
+	static boolean isVirtual(Thread thread) {
+		
+		if(IS_VIRTUAL == null) {
+			return false;
+		}
+		
+		try {
+			return ((Boolean)IS_VIRTUAL.invoke(thread)).booleanValue();
+		} catch(Exception e) {
+			return false;
+		}
+		
+	}
+	
+	/**
+	 * Looks up the method that identifies virtual threads (Java 21 and later)
+	 * @return The method or <code>null</code> if it does not exist
+	 */
+	private static Method virtualThreadMethod() {
+		
+		try {
+			return Thread.class.getMethod("isVirtual");
+		} catch(NoSuchMethodException e) {
+			return null;
+		}
+		
+	}
+	
+	/**
+	 * Copies the Strings of a batch
+	 * @param strings The Strings
+	 * @return The copy
+	 * @throws NullPointerException An exception that indicates that one of the Strings is not set
+	 */
+	private static String[] copy(List<String> strings) throws NullPointerException {
+		
+		String[] batch = strings.toArray(new String[strings.size()]);
+		for(String string : batch) {
+			if(string == null) {
+				throw new NullPointerException("At least one of the Strings that was to be compared is not set.");
+			}
+		}
+		
+		return batch;
+		
+	}
+	
+	/**
+	 * Takes a slot according to the policy and hands the task over to the workers
+	 * @param task The computation
+	 * @return The future of the result
+	 * @throws RejectedExecutionException An exception that indicates that no slot is free (with the reject policy) or 
+	 * that the executor is closed
+	 * @throws IllegalStateException An exception that indicates that the thread was interrupted while waiting for a slot
+	 */
+	<T> CompletableFuture<T> submit(final Callable<T> task) throws RejectedExecutionException, IllegalStateException {
+		
+		if(workers.isShutdown()) {
+			throw new RejectedExecutionException("The executor is closed.");
+		}
+		
+		// Hold back or reject the caller if all slots are occupied
+		if(policy == OverloadPolicy.REJECT) {
+			if(slots.tryAcquire() == false) {
+				throw new RejectedExecutionException("All workers are busy and the queue is full.");
+			}
+		} else {
+			try {
+				slots.acquire();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for a free slot.", e);
+			}
+		}
+		
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		
+		try {
+			workers.execute(new Runnable() {
+				@Override
+				public void run() {
+					
+					T result;
+					
+					// Free the slot before the future is completed, such that waiting callers can submit again
+					try {
+						result = task.call();
+					} catch(Throwable t) {
+						slots.release();
+						future.completeExceptionally(t);
+						return;
+					}
+					
+					slots.release();
+					future.complete(result);
+					
+				}
+			});
+		} catch(RejectedExecutionException e) {
+			slots.release();
+			throw e;
+		}
+		
+		return future;
+		
+	}
+
+}
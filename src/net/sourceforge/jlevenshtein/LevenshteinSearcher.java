@@ -0,0 +1,153 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * <p>A searcher that finds the most similar entries of an in-memory dictionary. All entries are prepared once when 
+ * the searcher is created, with a copy of the given <code>Levenshtein</code> object (later changes of the flags or
+ * costs of that object do not affect the searcher).</p>
+ * 
+ * <p>The best results found so far are kept in a bounded heap. As soon as it is full, the result of its worst
+ * entry becomes the threshold of all further comparisons. Single words are compared within a band of the 
+ * Levenshtein matrix (plain input) and abandoned as soon as they can not beat the threshold any more. Entries of 
+ * multiple words are compared entirely.</p>
+ * 
+ * <p>A searcher is thread safe.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see SearchHit
+ */
+public class LevenshteinSearcher {
+	
+	/**
+	 * The configuration of the comparisons (a private copy that is never changed, hence no lock is needed)
+	 */
+	private final Levenshtein levenshtein;
+	
+	/**
+	 * The dictionary and its prepared entries
+	 */
+	protected final String[] dictionary;
+	private final PreparedString[] preparedDictionary;
+	
+	/**
+	 * Creates a searcher with the default flags
+	 * @param dictionary The entries that are searched
+	 * @throws PhoneticException An exception that is throws if an entry contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 */
+	public LevenshteinSearcher(Collection<String> dictionary) throws PhoneticException, NullPointerException {
+		this(dictionary, new Levenshtein());
+	}
+	
+	/**
+	 * Creates a searcher that compares with the flags and costs of the given object
+	 * @param dictionary The entries that are searched
+	 * @param levenshtein The object whose configuration is used (will be copied)
+	 * @throws PhoneticException An exception that is throws if an entry contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 */
+	public LevenshteinSearcher(Collection<String> dictionary, Levenshtein levenshtein) 
+		throws PhoneticException, NullPointerException {
+		
+		this.levenshtein = levenshtein.frozenCopy();
+		this.dictionary = dictionary.toArray(new String[dictionary.size()]);
+		this.preparedDictionary = new PreparedString[this.dictionary.length];
+		
+		// Prepare every entry once
+		for(int i = 0; i < this.dictionary.length; i++) {
+			preparedDictionary[i] = this.levenshtein.prepare(this.dictionary[i]);
+		}
+		
+	}
+	
+	/**
+	 * Finds the most similar entries of the dictionary (ties are resolved in favour of the earlier entry)
+	 * @param query The String that is searched
+	 * @param k The maximum number of results
+	 * @return The best results, the most similar entry first
+	 * @throws PhoneticException An exception that is throws if the query contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that the query is not set
+	 * @throws IllegalArgumentException An exception that indicates that k is not positive
+	 */
+	public List<SearchHit> topK(String query, int k) throws PhoneticException, NullPointerException, IllegalArgumentException {
+		
+		if(k <= 0) {
+			throw new IllegalArgumentException("The number of results must be positive.");
+		}
+		
+		final boolean absolute = levenshtein.currentFlags[Levenshtein.ABSOLUTE];
+		
+		// Keep the worst result on top of the heap
+		PriorityQueue<SearchHit> heap = new PriorityQueue<SearchHit>(Math.min(k, dictionary.length) + 1, 
+				Collections.reverseOrder(absolute ? SearchHit.DISTANCE_ORDER : SearchHit.INDEX_ORDER));
+		
+		PreparedString preparedQuery = levenshtein.prepare(query);
+		DistanceScratch scratch = new DistanceScratch();
+		
+		for(int i = 0; i < dictionary.length; i++) {
+			
+			// Tighten the threshold to the worst result kept so far
+			boolean full = heap.size() == k;
+			float threshold = full ? (absolute ? heap.peek().distance() : heap.peek().index()) : 0f;
+			
+			BasicCompared basicCompared = levenshtein.compareCandidate(preparedQuery, preparedDictionary[i], full, 
+					threshold, scratch);
+			
+			if(basicCompared == null) {
+				continue;
+			}
+			
+			// Ties do not replace earlier entries
+			if(full) {
+				if(absolute ? basicCompared.distance() >= threshold : basicCompared.index() <= threshold) {
+					continue;
+				}
+				heap.poll();
+			}
+			
+			heap.add(new SearchHit(i, dictionary[i], basicCompared.index(), basicCompared.distance()));
+			
+		}
+		
+		List<SearchHit> hits = new ArrayList<SearchHit>(heap);
+		Collections.sort(hits, absolute ? SearchHit.DISTANCE_ORDER : SearchHit.INDEX_ORDER);
+		
+		return hits;
+		
+	}
+	
+	/**
+	 * Returns the number of entries of the dictionary
+	 * @return The size of the dictionary
+	 */
+	public int size() {
+		return dictionary.length;
+	}
+
+}
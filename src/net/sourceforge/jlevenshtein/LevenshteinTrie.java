@@ -0,0 +1,370 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>A dictionary of plain words stored as a trie in flat arrays. A search walks the trie depth first and keeps
+ * one column of the Levenshtein matrix per depth, hence the column of a common prefix is computed only once for 
+ * all words below it. Subtrees are pruned as soon as two consecutive columns exceed the maximum distance (a swap
+ * skips one column only). The columns are computed by the same kernel as {@link Levenshtein#compare(String, String)}, 
+ * swaps and case changes cost the same.</p>
+ * 
+ * <p>Entries of several words (unless the entire String is treated as one word) can not be stored in the trie and
+ * are compared one by one, just as all entries are for queries of several words.</p>
+ * 
+ * <p>A trie is immutable and thread safe.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see SearchHit
+ */
+public class LevenshteinTrie {
+	
+	/**
+	 * A node without children, siblings or entries
+	 */
+	private static final int NONE = -1;
+	
+	/**
+	 * The configuration of the comparisons (a private copy that is never changed)
+	 */
+	private final Levenshtein levenshtein;
+	
+	/**
+	 * The dictionary
+	 */
+	private final String[] dictionary;
+	
+	/**
+	 * The prepared entries (multi-word entries and multi-word queries are compared with them directly)
+	 */
+	private final PreparedString[] preparedDictionary;
+	
+	/**
+	 * The character of every node (node 0 is the root), its first child and its next sibling
+	 */
+	private char[] labels;
+	private int[] firstChild, nextSibling;
+	
+	/**
+	 * The first entry that ends at a node and the next entry that ends at the same node
+	 */
+	private int[] firstEntry;
+	private final int[] nextEntry;
+	
+	/**
+	 * The number of nodes and the depth of the deepest node
+	 */
+	private int nodes, maxDepth;
+	
+	/**
+	 * The entries of several words
+	 */
+	private final int[] unstoredEntries;
+	
+	/**
+	 * Creates a trie with the default flags
+	 * @param dictionary The entries that are searched
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 */
+	public LevenshteinTrie(Collection<String> dictionary) throws NullPointerException {
+		this(dictionary, new Levenshtein());
+	}
+	
+	/**
+	 * Creates a trie that compares with the flags and costs of the given object
+	 * @param dictionary The entries that are searched
+	 * @param levenshtein The object whose configuration is used (will be copied)
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 * @throws IllegalArgumentException An exception that indicates that phonetic comparison is requested
+	 */
+	public LevenshteinTrie(Collection<String> dictionary, Levenshtein levenshtein) 
+		throws NullPointerException, IllegalArgumentException {
+		
+		this.levenshtein = levenshtein.frozenCopy();
+		
+		if(this.levenshtein.currentFlags[Levenshtein.USE_PHONETIC]) {
+			throw new IllegalArgumentException("A trie can only store plain words.");
+		}
+		
+		this.dictionary = dictionary.toArray(new String[dictionary.size()]);
+		this.preparedDictionary = new PreparedString[this.dictionary.length];
+		
+		labels = new char[16];
+		firstChild = new int[16];
+		nextSibling = new int[16];
+		firstEntry = new int[16];
+		nextEntry = new int[this.dictionary.length];
+		
+		int[] tempUnstored = new int[this.dictionary.length];
+		int unstored = 0;
+		
+		nodes = 1;
+		firstChild[0] = NONE;
+		nextSibling[0] = NONE;
+		firstEntry[0] = NONE;
+		
+		// Insert the normalized word of every entry
+		for(int i = this.dictionary.length - 1; i >= 0; i--) {
+			
+			PreparedString preparedEntry = this.levenshtein.prepare(this.dictionary[i]);
+			preparedDictionary[i] = preparedEntry;
+			
+			if(preparedEntry.words.length == 1) {
+				
+				int node = insert(preparedEntry.wordChars[0]);
+				nextEntry[i] = firstEntry[node];
+				firstEntry[node] = i;
+				
+			} else {
+				tempUnstored[unstored++] = i;
+			}
+			
+		}
+		
+		unstoredEntries = Arrays.copyOf(tempUnstored, unstored);
+		Arrays.sort(unstoredEntries);
+		
+		// Trim the arrays
+		labels = Arrays.copyOf(labels, nodes);
+		firstChild = Arrays.copyOf(firstChild, nodes);
+		nextSibling = Arrays.copyOf(nextSibling, nodes);
+		firstEntry = Arrays.copyOf(firstEntry, nodes);
+		
+	}
+	
+	/**
+	 * Inserts a word into the trie
+	 * @param word The characters of the word
+	 * @return The node at which the word ends
+	 */
+	private int insert(char[] word) {
+		
+		int node = 0;
+		
+		for(char c : word) {
+			
+			int child = firstChild[node];
+			while(child != NONE && labels[child] != c) {
+				child = nextSibling[child];
+			}
+			
+			// Append new node
+			if(child == NONE) {
+				
+				if(nodes == labels.length) {
+					int capacity = nodes + (nodes >> 1);
+					labels = Arrays.copyOf(labels, capacity);
+					firstChild = Arrays.copyOf(firstChild, capacity);
+					nextSibling = Arrays.copyOf(nextSibling, capacity);
+					firstEntry = Arrays.copyOf(firstEntry, capacity);
+				}
+				
+				child = nodes++;
+				labels[child] = c;
+				firstChild[child] = NONE;
+				firstEntry[child] = NONE;
+				nextSibling[child] = firstChild[node];
+				firstChild[node] = child;
+				
+			}
+			
+			node = child;
+			
+		}
+		
+		maxDepth = Math.max(maxDepth, word.length);
+		
+		return node;
+		
+	}
+	
+	/**
+	 * Finds all entries within the given distance of the query
+	 * @param query The String that is searched
+	 * @param maxDistance The maximum distance of the results
+	 * @return All entries within the distance, the closest entry first (earlier entries first for equal distances)
+	 * @throws NullPointerException An exception that indicates that the query is not set
+	 */
+	public List<SearchHit> search(String query, float maxDistance) throws NullPointerException {
+		
+		PreparedString preparedQuery = levenshtein.prepare(query);
+		DistanceScratch scratch = new DistanceScratch();
+		List<SearchHit> hits = new ArrayList<SearchHit>();
+		
+		// Compare queries of several words with every entry
+		if(preparedQuery.words.length > 1) {
+			
+			for(int i = 0; i < dictionary.length; i++) {
+				addHit(hits, i, preparedQuery, preparedDictionary[i], maxDistance, scratch);
+			}
+			
+			Collections.sort(hits, SearchHit.DISTANCE_ORDER);
+			return hits;
+			
+		}
+		
+		searchTrie(preparedQuery.wordChars[0], maxDistance, hits);
+		
+		for(int i : unstoredEntries) {
+			addHit(hits, i, preparedQuery, preparedDictionary[i], maxDistance, scratch);
+		}
+		
+		Collections.sort(hits, SearchHit.DISTANCE_ORDER);
+		
+		return hits;
+		
+	}
+	
+	/**
+	 * Walks the trie depth first and collects all entries within the maximum distance
+	 * @param queryChars The characters of the query
+	 * @param maxDistance The maximum distance of the results
+	 * @param hits The list of results
+	 */
+	private void searchTrie(char[] queryChars, float maxDistance, List<SearchHit> hits) {
+		
+		final int queryLength = queryChars.length;
+		final float indelCost = levenshtein.operationCosts[Levenshtein.CHAR_INDEL];
+		final boolean prune = levenshtein.nonNegativeCosts();
+		
+		// One column (and its minimum) per depth and the characters of the current path
+		float[][] columns = new float[maxDepth + 1][queryLength + 1];
+		float[] minima = new float[maxDepth + 1];
+		char[] path = new char[maxDepth + 1];
+		
+		for(int i = 0; i <= queryLength; i++) {
+			columns[0][i] = indelCost * i;
+		}
+		
+		// Entries of the empty word
+		collect(0, 0, columns[0][queryLength], queryLength, maxDistance, hits);
+		
+		int[] stack = new int[16], depths = new int[16];
+		int stackSize = 0;
+		
+		for(int child = firstChild[0]; child != NONE; child = nextSibling[child]) {
+			if(stackSize == stack.length) {
+				stack = Arrays.copyOf(stack, stackSize * 2);
+				depths = Arrays.copyOf(depths, stackSize * 2);
+			}
+			stack[stackSize] = child;
+			depths[stackSize++] = 1;
+		}
+		
+		while(stackSize > 0) {
+			
+			int node = stack[--stackSize];
+			int j = depths[stackSize];
+			
+			// Compute the column of this node from the columns of its ancestors
+			float[] column = columns[j];
+			path[j] = labels[node];
+			column[0] = indelCost * j;
+			minima[j] = levenshtein.fillColumnCasual(queryChars, path[j], path[j-1], j, 1, queryLength, 
+					columns[Math.max(0, j - 2)], columns[j-1], column, column[0]);
+			
+			collect(node, j, column[queryLength], queryLength, maxDistance, hits);
+			
+			// Prune the subtree if every path through it exceeds the maximum distance
+			if(prune && minima[j] > maxDistance && minima[j-1] > maxDistance) {
+				continue;
+			}
+			
+			for(int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+				if(stackSize == stack.length) {
+					stack = Arrays.copyOf(stack, stackSize * 2);
+					depths = Arrays.copyOf(depths, stackSize * 2);
+				}
+				stack[stackSize] = child;
+				depths[stackSize++] = j + 1;
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Adds the entries that end at a node to the results if they are within the maximum distance
+	 * @param node The node
+	 * @param depth The depth of the node (length of its word)
+	 * @param distance The distance of the query to the word of the node
+	 * @param queryLength The length of the query
+	 * @param maxDistance The maximum distance of the results
+	 * @param hits The list of results
+	 */
+	private void collect(int node, int depth, float distance, int queryLength, float maxDistance, List<SearchHit> hits) {
+		
+		if(firstEntry[node] == NONE || distance > maxDistance) {
+			return;
+		}
+		
+		float index = levenshtein.getIndex(distance, queryLength + 1, depth + 1);
+		
+		for(int i = firstEntry[node]; i != NONE; i = nextEntry[i]) {
+			hits.add(new SearchHit(i, dictionary[i], index, distance));
+		}
+		
+	}
+	
+	/**
+	 * Compares the query with a single entry and adds it to the results if it is within the maximum distance
+	 * @param hits The list of results
+	 * @param entryID The ID of the entry
+	 * @param preparedQuery The prepared query
+	 * @param preparedEntry The prepared entry
+	 * @param maxDistance The maximum distance of the results
+	 * @param scratch The columns to reuse
+	 */
+	private void addHit(List<SearchHit> hits, int entryID, PreparedString preparedQuery, PreparedString preparedEntry, 
+			float maxDistance, DistanceScratch scratch) {
+		
+		BasicCompared basicCompared = levenshtein.compareCandidate(preparedQuery, preparedEntry, false, 0f, scratch);
+		
+		if(basicCompared.distance() <= maxDistance) {
+			hits.add(new SearchHit(entryID, dictionary[entryID], basicCompared.index(), basicCompared.distance()));
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of entries of the dictionary
+	 * @return The size of the dictionary
+	 */
+	public int size() {
+		return dictionary.length;
+	}
+	
+	/**
+	 * Returns the number of nodes of the trie (including the root)
+	 * @return The number of nodes
+	 */
+	public int nodes() {
+		return nodes;
+	}
+
+}
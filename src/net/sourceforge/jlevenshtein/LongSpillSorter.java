@@ -0,0 +1,464 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts a stream of long values within a memory budget. Values are collected in a buffer, every full buffer is 
+ * sorted and written to a temporary file (a run), and all runs are merged when the values are read. Duplicates
+ * are removed. A value may consist of two longs that are compared in lexicographic order. The buffer grows with 
+ * the number of values up to the budget. An object must not be shared between threads.
+ * @author Rafael W.
+ * @version 0.1
+ * @see DedupeEngine
+ */
+final class LongSpillSorter implements Closeable {
+	
+	/**
+	 * The initial number of values of the buffer
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+	
+	/**
+	 * The number of longs of a value (1 or 2) and the maximum number of longs of the buffer
+	 */
+	private final int width;
+	private final int capacity;
+	
+	/**
+	 * The values that were not spilled yet and the number of longs they occupy
+	 */
+	private long[] buffer;
+	private int size = 0;
+	
+	/**
+	 * The runs that were spilled to the hard drive and the streams that read them
+	 */
+	private final List<File> runs = new ArrayList<File>();
+	private final List<DataInputStream> readers = new ArrayList<DataInputStream>();
+	
+	/**
+	 * Creates a sorter of single longs whose buffer occupies at most the given number of bytes
+	 * @param memoryBudget The maximum size of the buffer in bytes (at least 1024 values are buffered)
+	 */
+	LongSpillSorter(long memoryBudget) {
+		this(memoryBudget, 1);
+	}
+	
+	/**
+	 * Creates a sorter whose buffer occupies at most the given number of bytes
+	 * @param memoryBudget The maximum size of the buffer in bytes (at least 1024 values are buffered)
+	 * @param width The number of longs of a value (1 or 2)
+	 * @throws IllegalArgumentException An exception that indicates that the width is not supported
+	 */
+	LongSpillSorter(long memoryBudget, int width) throws IllegalArgumentException {
+		
+		if(width != 1 && width != 2) {
+			throw new IllegalArgumentException("A value must consist of one or two longs.");
+		}
+		
+		this.width = width;
+		long values = Math.max(INITIAL_CAPACITY, Math.min(memoryBudget / 8L / width, (Integer.MAX_VALUE - 8) / width));
+		this.capacity = (int)values * width;
+		this.buffer = new long[INITIAL_CAPACITY * width];
+		
+	}
+	
+	/**
+	 * Adds a value of one long
+	 * @param value The value
+	 * @throws IOException An exception that indicates that a full buffer could not be spilled
+	 */
+	void add(long value) throws IOException {
+		
+		if(width != 1) {
+			throw new IllegalStateException("A value must consist of " + width + " longs.");
+		}
+		
+		ensureSpace();
+		buffer[size++] = value;
+		
+	}
+	
+	/**
+	 * Adds a value of two longs
+	 * @param high The first long of the value (compared first)
+	 * @param low The second long of the value
+	 * @throws IOException An exception that indicates that a full buffer could not be spilled
+	 */
+	void add(long high, long low) throws IOException {
+		
+		if(width != 2) {
+			throw new IllegalStateException("A value must consist of " + width + " long.");
+		}
+		
+		ensureSpace();
+		buffer[size++] = high;
+		buffer[size++] = low;
+		
+	}
+	
+	/**
+	 * Doubles the buffer if it is full and below the budget, spills it otherwise
+	 * @throws IOException An exception that indicates that a full buffer could not be spilled
+	 */
+	private void ensureSpace() throws IOException {
+		
+		if(size == buffer.length) {
+			if(buffer.length < capacity) {
+				buffer = Arrays.copyOf(buffer, (int)Math.min(capacity, 2L * buffer.length));
+			} else {
+				spill();
+			}
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of runs that were spilled to the hard drive
+	 * @return The number of runs
+	 */
+	int runs() {
+		return runs.size();
+	}
+	
+	/**
+	 * Sorts the buffer and removes duplicates
+	 * @return The number of longs of the distinct values at the start of the buffer
+	 */
+	private int sortBuffer() {
+		
+		if(width == 1) {
+			Arrays.sort(buffer, 0, size);
+		} else {
+			sortPairs(buffer, 0, size / 2 - 1);
+		}
+		
+		int distinct = 0;
+		for(int i = 0; i < size; i += width) {
+			if(i == 0 || compare(buffer, i, buffer, distinct - width) != 0) {
+				System.arraycopy(buffer, i, buffer, distinct, width);
+				distinct += width;
+			}
+		}
+		
+		return distinct;
+		
+	}
+	
+	/**
+	 * Compares two values of this sorter
+	 * @param first The array of the first value
+	 * @param firstOffset The position of the first value
+	 * @param second The array of the second value
+	 * @param secondOffset The position of the second value
+	 * @return A negative number, zero or a positive number if the first value is smaller, equal or larger
+	 */
+	private int compare(long[] first, int firstOffset, long[] second, int secondOffset) {
+		
+		for(int i = 0; i < width; i++) {
+			if(first[firstOffset + i] != second[secondOffset + i]) {
+				return first[firstOffset + i] < second[secondOffset + i] ? -1 : 1;
+			}
+		}
+		
+		return 0;
+		
+	}
+	
+	/**
+	 * Sorts the pairs of longs in a range (quicksort, the smaller part is sorted recursively)
+	 * @param pairs The pairs (high and low long of every pair next to each other)
+	 * @param first The number of the first pair of the range
+	 * @param last The number of the last pair of the range
+	 */
+	private static void sortPairs(long[] pairs, int first, int last) {
+		
+		while(first < last) {
+			
+			// Sort short ranges by insertion
+			if(last - first < 16) {
+				for(int i = first + 1; i <= last; i++) {
+					for(int j = i; j > first && comparePairs(pairs, j - 1, j) > 0; j--) {
+						swapPairs(pairs, j - 1, j);
+					}
+				}
+				return;
+			}
+			
+			// Partition around the middle pair
+			long pivotHigh = pairs[2 * ((first + last) >>> 1)];
+			long pivotLow = pairs[2 * ((first + last) >>> 1) + 1];
+			int i = first, j = last;
+			
+			while(i <= j) {
+				while(pairs[2 * i] < pivotHigh || (pairs[2 * i] == pivotHigh && pairs[2 * i + 1] < pivotLow)) {
+					i++;
+				}
+				while(pairs[2 * j] > pivotHigh || (pairs[2 * j] == pivotHigh && pairs[2 * j + 1] > pivotLow)) {
+					j--;
+				}
+				if(i <= j) {
+					swapPairs(pairs, i++, j--);
+				}
+			}
+			
+			if(j - first < last - i) {
+				sortPairs(pairs, first, j);
+				first = i;
+			} else {
+				sortPairs(pairs, i, last);
+				last = j;
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Compares two pairs of longs of the same array
+	 * @param pairs The pairs
+	 * @param first The number of the first pair
+	 * @param second The number of the second pair
+	 * @return A negative number, zero or a positive number if the first pair is smaller, equal or larger
+	 */
+	private static int comparePairs(long[] pairs, int first, int second) {
+		
+		if(pairs[2 * first] != pairs[2 * second]) {
+			return pairs[2 * first] < pairs[2 * second] ? -1 : 1;
+		}
+		
+		return pairs[2 * first + 1] < pairs[2 * second + 1] ? -1 : (pairs[2 * first + 1] == pairs[2 * second + 1] ? 0 : 1);
+		
+	}
+	
+	/**
+	 * Swaps two pairs of longs
+	 * @param pairs The pairs
+	 * @param first The number of the first pair
+	 * @param second The number of the second pair
+	 */
+	private static void swapPairs(long[] pairs, int first, int second) {
+		
+		long high = pairs[2 * first], low = pairs[2 * first + 1];
+		pairs[2 * first] = pairs[2 * second];
+		pairs[2 * first + 1] = pairs[2 * second + 1];
+		pairs[2 * second] = high;
+		pairs[2 * second + 1] = low;
+		
+	}
+	
+	/**
+	 * Writes the sorted buffer to a new run
+	 * @throws IOException An exception that indicates that the run could not be written
+	 */
+	private void spill() throws IOException {
+		
+		int distinct = sortBuffer();
+		
+		File file = File.createTempFile("jlevenshtein", ".run");
+		file.deleteOnExit();
+		runs.add(file);
+		
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			out.writeInt(distinct / width);
+			for(int i = 0; i < distinct; i++) {
+				out.writeLong(buffer[i]);
+			}
+		} finally {
+			out.close();
+		}
+		
+		size = 0;
+		
+	}
+	
+	/**
+	 * Returns all distinct values in ascending order. No values may be added afterwards.
+	 * @return An iterator over the longs of the values, a value of two longs is returned as two consecutive longs 
+	 * 		(throws an <code>IllegalStateException</code> if a run can not be read)
+	 * @throws IOException An exception that indicates that a run could not be opened
+	 */
+	PrimitiveIterator.OfLong sorted() throws IOException {
+		
+		// Values that fit into the buffer are never written to the hard drive
+		if(runs.isEmpty()) {
+			
+			final int distinct = sortBuffer();
+			return new PrimitiveIterator.OfLong() {
+				
+				private int position = 0;
+				
+				@Override
+				public boolean hasNext() {
+					return position < distinct;
+				}
+				
+				@Override
+				public long nextLong() {
+					if(position == distinct) {
+						throw new NoSuchElementException();
+					}
+					return buffer[position++];
+				}
+				
+			};
+			
+		}
+		
+		if(size > 0) {
+			spill();
+		}
+		
+		// Merge the runs, the heap holds the next value of every run (followed by the number of the run)
+		final PriorityQueue<long[]> heap = new PriorityQueue<long[]>(runs.size(), new Comparator<long[]>() {
+			@Override
+			public int compare(long[] first, long[] second) {
+				return LongSpillSorter.this.compare(first, 0, second, 0);
+			}
+		});
+		final int[] remaining = new int[runs.size()];
+		
+		for(int i = 0; i < runs.size(); i++) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(runs.get(i)), 1 << 16));
+			readers.add(in);
+			remaining[i] = in.readInt();
+			if(remaining[i] > 0) {
+				remaining[i]--;
+				long[] head = new long[width + 1];
+				for(int j = 0; j < width; j++) {
+					head[j] = in.readLong();
+				}
+				head[width] = i;
+				heap.add(head);
+			}
+		}
+		
+		return new PrimitiveIterator.OfLong() {
+			
+			private boolean started = false;
+			private final long[] last = new long[width];
+			private int position = width;
+			
+			@Override
+			public boolean hasNext() {
+				
+				if(position < width) {
+					return true;
+				}
+				
+				// Skip the values that were found in an earlier run
+				while(started && heap.isEmpty() == false && compare(heap.peek(), 0, last, 0) == 0) {
+					advance();
+				}
+				
+				return heap.isEmpty() == false;
+				
+			}
+			
+			@Override
+			public long nextLong() {
+				
+				if(hasNext() == false) {
+					throw new NoSuchElementException();
+				}
+				
+				// Take the next value once all longs of the last value were returned
+				if(position == width) {
+					System.arraycopy(heap.peek(), 0, last, 0, width);
+					started = true;
+					position = 0;
+					advance();
+				}
+				
+				return last[position++];
+				
+			}
+			
+			/**
+			 * Replaces the smallest value by the next value of its run
+			 */
+			private void advance() {
+				
+				long[] head = heap.poll();
+				int run = (int)head[width];
+				
+				if(remaining[run] > 0) {
+					remaining[run]--;
+					try {
+						for(int j = 0; j < width; j++) {
+							head[j] = readers.get(run).readLong();
+						}
+					} catch(IOException e) {
+						throw new IllegalStateException("Unable to read a sorted run.", e);
+					}
+					heap.add(head);
+				}
+				
+			}
+			
+		};
+		
+	}
+	
+	/**
+	 * Closes all runs and deletes them from the hard drive
+	 */
+	@Override
+	public void close() {
+		
+		for(DataInputStream in : readers) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				System.err.printf("Could not close sorted run: '%s'%n", e.getMessage());
+			}
+		}
+		readers.clear();
+		
+		for(File file : runs) {
+			if(file.delete() == false) {
+				System.err.printf("Unable to delete file: %s%n", file);
+			}
+		}
+		runs.clear();
+		
+	}
+
+}
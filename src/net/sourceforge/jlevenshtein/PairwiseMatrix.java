@@ -0,0 +1,239 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>The results of comparing every String of a list with every other String of it as computed by
+ * {@link Levenshtein#comparePairwise(java.util.List)}. Only the upper triangle (without the diagonal) is stored, 
+ * the result of <code>(i,j)</code> equals the result of <code>(j,i)</code>.</p>
+ * 
+ * <p>The triangle is kept in a flat array. If it exceeds the memory budget of the computing <code>Levenshtein</code>
+ * object, it is kept in a memory-mapped temporary file instead, which is deleted by {@link #close()}.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see Levenshtein
+ */
+public final class PairwiseMatrix implements Closeable {
+	
+	/**
+	 * The number of floats in a mapped segment (a mapping can not exceed 2GB)
+	 */
+	private static final int SEGMENT_SHIFT = 28, SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	
+	/**
+	 * The number of compared Strings
+	 */
+	private final int size;
+	
+	/**
+	 * The result of comparing a String with itself
+	 */
+	private final float diagonal;
+	
+	/**
+	 * The upper triangle if kept in memory, <code>null</code> otherwise
+	 */
+	private final float[] values;
+	
+	/**
+	 * The segments of the upper triangle if kept in a file, <code>null</code> otherwise
+	 */
+	private final FloatBuffer[] segments;
+	
+	/**
+	 * The temporary file and its handle
+	 */
+	private final File file;
+	private final RandomAccessFile randomAccessFile;
+	
+	/**
+	 * Basic constructor (for internal use only)
+	 * @param size The number of compared Strings
+	 * @param diagonal The result of comparing a String with itself
+	 * @param memoryBudget The number of bytes the triangle may occupy in memory
+	 * @throws IOException If the triangle exceeds the budget and no temporary file can be mapped
+	 */
+	PairwiseMatrix(int size, float diagonal, long memoryBudget) throws IOException {
+		
+		this.size = size;
+		this.diagonal = diagonal;
+		
+		long entries = entries(size);
+		
+		// Keep triangle in memory if possible
+		if(entries * 4L <= memoryBudget && entries <= Integer.MAX_VALUE - 8) {
+			
+			values = new float[(int)entries];
+			segments = null;
+			file = null;
+			randomAccessFile = null;
+			
+		// Map triangle to a temporary file otherwise
+		} else {
+			
+			values = null;
+			file = File.createTempFile("jlevenshtein", ".pairwise");
+			file.deleteOnExit();
+			randomAccessFile = new RandomAccessFile(file, "rw");
+			
+			try {
+				
+				FileChannel channel = randomAccessFile.getChannel();
+				segments = new FloatBuffer[(int)((entries + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+				
+				for(int i = 0; i < segments.length; i++) {
+					long offset = (long)i << SEGMENT_SHIFT;
+					long length = Math.min(SEGMENT_SIZE, entries - offset);
+					segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset * 4L, length * 4L)
+						.order(ByteOrder.nativeOrder()).asFloatBuffer();
+				}
+				
+			} catch(IOException e) {
+				close();
+				throw e;
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of stored results for the given number of Strings
+	 * @param size The number of Strings
+	 * @return The number of pairs of different Strings
+	 */
+	static long entries(int size) {
+		return (long)size * (size - 1) / 2;
+	}
+	
+	/**
+	 * Returns the position of a pair in the flat triangle
+	 * @param i The ID of the first String (must be smaller than the second ID)
+	 * @param j The ID of the second String
+	 * @return The position of the pair
+	 */
+	private long position(int i, int j) {
+		return (long)i * (2L * size - i - 1) / 2 + (j - i - 1);
+	}
+	
+	/**
+	 * Stores the result of a pair (for internal use only, the first ID must be smaller than the second ID)
+	 * @param i The ID of the first String
+	 * @param j The ID of the second String
+	 * @param result The result of comparing both Strings
+	 */
+	void set(int i, int j, float result) {
+		
+		long position = position(i, j);
+		
+		if(values != null) {
+			values[(int)position] = result;
+		} else {
+			segments[(int)(position >>> SEGMENT_SHIFT)].put((int)(position & (SEGMENT_SIZE - 1)), result);
+		}
+		
+	}
+	
+	/**
+	 * Returns the result of comparing two Strings
+	 * @param i The ID of the first String
+	 * @param j The ID of the second String
+	 * @return The similarity index or the distance (if the absolute flag was set) of both Strings
+	 * @throws IndexOutOfBoundsException If one of the IDs does not exist
+	 * @throws IllegalStateException If the matrix was closed
+	 */
+	public float get(int i, int j) {
+		
+		if(i < 0 || j < 0 || i >= size || j >= size) {
+			throw new IndexOutOfBoundsException("This ID does not exist");
+		}
+		
+		if(i == j) {
+			return diagonal;
+		}
+		
+		// Only the upper triangle is stored
+		if(i > j) {
+			int temp = i;
+			i = j;
+			j = temp;
+		}
+		
+		long position = position(i, j);
+		
+		if(values != null) {
+			return values[(int)position];
+		} else if(randomAccessFile.getChannel().isOpen() == false) {
+			throw new IllegalStateException("The matrix was closed.");
+		} else {
+			return segments[(int)(position >>> SEGMENT_SHIFT)].get((int)(position & (SEGMENT_SIZE - 1)));
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of compared Strings
+	 * @return The number of rows (and columns) of the matrix
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns whether the results are kept in a memory-mapped file
+	 * @return True if the results are kept in a file, false if they are kept in memory
+	 */
+	public boolean isMapped() {
+		return values == null;
+	}
+	
+	/**
+	 * Closes and deletes the memory-mapped file, if any (the results can not be read afterwards)
+	 */
+	@Override
+	public void close() {
+		
+		if(randomAccessFile != null) {
+			
+			try {
+				randomAccessFile.close();
+			} catch(IOException e) {
+				System.err.printf("Unable to close file: %s%n'%s'%n", file, e.getMessage());
+			}
+			
+			if(file.delete() == false) {
+				System.err.printf("Unable to delete file: %s%n", file);
+			}
+			
+		}
+		
+	}
+
+}
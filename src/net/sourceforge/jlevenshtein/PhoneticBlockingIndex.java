@@ -0,0 +1,394 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>A blocking index of a phonetic dictionary. Phonetic comparisons are the most expensive ones, hence a search 
+ * only compares the entries whose coarse key matches the key of the query (or is nearby). The key of an input is 
+ * its consonant skeleton: every consonant of the feature table is reduced to a class of its place (labial, coronal,
+ * dorsal, glottal) and its manner (obstruent, nasal, other sonorant), repeated classes are merged and all vowels 
+ * (including their height) are collapsed into a mere separator. The words of an input are separated in the key.</p>
+ * 
+ * <p>With a block radius of <code>1</code> the entries are also found if one class of their key is missing, added
+ * or replaced (every key is stored with all its variants of one deletion). Blocking trades matches for speed: 
+ * {@link #evaluate(Collection, float)} reports the recall and the reduction ratio on a set of queries.</p>
+ * 
+ * <p>The keys can also block the records of a {@link DedupeEngine}. An index is immutable and thread safe.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see BlockingReport
+ */
+public class PhoneticBlockingIndex implements BlockingIndex {
+	
+	/**
+	 * The class of a vowel (or of a symbol that is both a vowel and a consonant)
+	 */
+	private static final char VOWEL = 0;
+	
+	/**
+	 * The separator of words in a key
+	 */
+	private static final char WORD_SEPARATOR = ' ';
+	
+	/**
+	 * The configuration of the comparisons (a frozen copy that does not read the feature files again)
+	 */
+	private final Levenshtein levenshtein;
+	
+	/**
+	 * The feature table of the XSAMPA symbols
+	 */
+	private final Map<String, Float[]> featureTable;
+	
+	/**
+	 * The maximum number of classes that may differ between the keys of the query and of the candidates (0 or 1)
+	 */
+	private final int blockRadius;
+	
+	/**
+	 * The dictionary and its prepared entries
+	 */
+	private final String[] dictionary;
+	private final PreparedString[] preparedDictionary;
+	
+	/**
+	 * The IDs of the entries of every block (in ascending order)
+	 */
+	private final Map<String, int[]> blocks;
+	
+	/**
+	 * Creates an index with exact blocks and the default phonetic flags
+	 * @param dictionary The entries that are searched
+	 * @throws PhoneticException An exception that is throws if an entry contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 */
+	public PhoneticBlockingIndex(Collection<String> dictionary) throws PhoneticException, NullPointerException {
+		this(dictionary, new Levenshtein(LevFlag.PHONETIC), 0);
+	}
+	
+	/**
+	 * Creates an index that compares with the flags and costs of the given object
+	 * @param dictionary The entries that are searched
+	 * @param levenshtein The object whose configuration is used (will be copied)
+	 * @param blockRadius The number of classes that may differ between the keys of query and candidates (0 or 1)
+	 * @throws PhoneticException An exception that is throws if an entry contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 * @throws IllegalArgumentException An exception that indicates that the object does not compare phonetically or
+	 * that the radius is invalid
+	 */
+	public PhoneticBlockingIndex(Collection<String> dictionary, Levenshtein levenshtein, int blockRadius) 
+		throws PhoneticException, NullPointerException, IllegalArgumentException {
+		
+		this.levenshtein = levenshtein.frozenCopy();
+		this.blockRadius = blockRadius;
+		
+		if(this.levenshtein.currentFlags[Levenshtein.USE_PHONETIC] == false) {
+			throw new IllegalArgumentException("A phonetic blocking index requires phonetic comparison.");
+		}
+		if(blockRadius < 0 || blockRadius > 1) {
+			throw new IllegalArgumentException("The block radius must be 0 or 1.");
+		}
+		
+		featureTable = this.levenshtein.phoneticTable();
+		
+		this.dictionary = dictionary.toArray(new String[dictionary.size()]);
+		preparedDictionary = new PreparedString[this.dictionary.length];
+		
+		// Prepare every entry once and add it to the blocks of its key
+		Map<String, List<Integer>> tempBlocks = new HashMap<String, List<Integer>>();
+		
+		for(int i = 0; i < this.dictionary.length; i++) {
+			
+			preparedDictionary[i] = this.levenshtein.prepare(this.dictionary[i]);
+			
+			for(String key : blockKeys(preparedDictionary[i])) {
+				List<Integer> block = tempBlocks.get(key);
+				if(block == null) {
+					block = new ArrayList<Integer>();
+					tempBlocks.put(key, block);
+				}
+				block.add(i);
+			}
+			
+		}
+		
+		blocks = new HashMap<String, int[]>(tempBlocks.size() * 2);
+		for(Map.Entry<String, List<Integer>> entry : tempBlocks.entrySet()) {
+			int[] block = new int[entry.getValue().size()];
+			for(int i = 0; i < block.length; i++) {
+				block[i] = entry.getValue().get(i);
+			}
+			blocks.put(entry.getKey(), block);
+		}
+		
+	}
+	
+	/**
+	 * Returns the coarse key of a phonetic input
+	 * @param input The phonetic input
+	 * @return The consonant skeleton of the input
+	 * @throws PhoneticException An exception that is throws if the input contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that the input is not set
+	 */
+	public String blockKey(String input) throws PhoneticException, NullPointerException {
+		return blockKey(levenshtein.prepare(input));
+	}
+	
+	/**
+	 * Returns the coarse key of a prepared input
+	 * @param preparedInput The prepared input
+	 * @return The consonant skeleton of the input
+	 */
+	private String blockKey(PreparedString preparedInput) {
+		
+		StringBuilder key = new StringBuilder();
+		
+		for(int i = 0; i < preparedInput.symbols.length; i++) {
+			
+			if(i > 0) {
+				key.append(WORD_SEPARATOR);
+			}
+			
+			// Merge repeated classes unless a vowel separates them
+			char lastClass = VOWEL;
+			for(String symbol : preparedInput.symbols[i]) {
+				char symbolClass = symbolClass(featureTable.get(symbol));
+				if(symbolClass != VOWEL && symbolClass != lastClass) {
+					key.append(symbolClass);
+				}
+				lastClass = symbolClass;
+			}
+			
+		}
+		
+		return key.toString();
+		
+	}
+	
+	/**
+	 * Returns the keys of all blocks a phonetic record belongs to
+	 * @param record The phonetic record
+	 * @return The key and (within a radius of one) all its variants of one deletion
+	 * @throws PhoneticException An exception that is throws if the record contains invalid phonetic symbols
+	 */
+	@Override
+	public Collection<String> blockKeys(String record) throws PhoneticException {
+		return blockKeys(levenshtein.prepare(record));
+	}
+	
+	/**
+	 * Returns the keys of all blocks a prepared input belongs to
+	 * @param preparedInput The prepared input
+	 * @return The key and (within a radius of one) all its variants of one deletion
+	 */
+	private Set<String> blockKeys(PreparedString preparedInput) {
+		
+		String key = blockKey(preparedInput);
+		Set<String> keys = new LinkedHashSet<String>();
+		keys.add(key);
+		
+		if(blockRadius > 0) {
+			for(int i = 0; i < key.length(); i++) {
+				keys.add(key.substring(0, i) + key.substring(i + 1));
+			}
+		}
+		
+		return keys;
+		
+	}
+	
+	/**
+	 * Returns the class of an XSAMPA symbol
+	 * @param features The features of the symbol (see the feature file)
+	 * @return The class of the place and manner of a consonant, {@link #VOWEL} for vowels or '?' for unknown symbols
+	 */
+	private static char symbolClass(Float[] features) {
+		
+		if(features == null) {
+			return '?';
+		}
+		
+		// Symbols that are vowels as well as consonants (semivowels, silence) count as vowels
+		if(features[0] == null || features[0].floatValue() != 0f || features[4] == null || features[4].floatValue() != 1f || 
+				features[5] == null || features[6] == null) {
+			return VOWEL;
+		}
+		
+		// Place: labial (1-2), coronal (3-6), dorsal (7-10), glottal (11)
+		float place = features[5].floatValue();
+		int placeClass = place <= 2f ? 0 : (place <= 6f ? 1 : (place <= 10f ? 2 : 3));
+		
+		// Manner: obstruent (plosives and fricatives), nasal, other sonorant
+		float manner = features[6].floatValue();
+		int mannerClass = manner == 2f ? 1 : (manner == 1f || manner == 5f || manner == 6f ? 0 : 2);
+		
+		return (char)('A' + placeClass * 3 + mannerClass);
+		
+	}
+	
+	/**
+	 * Returns the entries in the blocks of the query
+	 * @param query The phonetic query
+	 * @return The IDs of the candidates in ascending order
+	 * @throws PhoneticException An exception that is throws if the query contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that the query is not set
+	 */
+	public int[] candidates(String query) throws PhoneticException, NullPointerException {
+		return candidates(levenshtein.prepare(query));
+	}
+	
+	/**
+	 * Returns the entries in the blocks of the prepared query
+	 * @param preparedQuery The prepared query
+	 * @return The IDs of the candidates in ascending order
+	 */
+	private int[] candidates(PreparedString preparedQuery) {
+		
+		int[] candidates = new int[0];
+		int size = 0;
+		
+		for(String key : blockKeys(preparedQuery)) {
+			
+			int[] block = blocks.get(key);
+			if(block == null) {
+				continue;
+			}
+			
+			if(size + block.length > candidates.length) {
+				candidates = Arrays.copyOf(candidates, Math.max(size + block.length, candidates.length * 2));
+			}
+			System.arraycopy(block, 0, candidates, size, block.length);
+			size += block.length;
+			
+		}
+		
+		// Remove entries that are found in several blocks
+		Arrays.sort(candidates, 0, size);
+		
+		int distinct = 0;
+		for(int i = 0; i < size; i++) {
+			if(i == 0 || candidates[i] != candidates[i-1]) {
+				candidates[distinct++] = candidates[i];
+			}
+		}
+		
+		return Arrays.copyOf(candidates, distinct);
+		
+	}
+	
+	/**
+	 * Finds the entries of the blocks of the query that meet the threshold
+	 * @param query The phonetic query
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index
+	 * @return The entries that meet the threshold, the most similar entry first (earlier entries first for equal 
+	 * results)
+	 * @throws PhoneticException An exception that is throws if the query contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that the query is not set
+	 */
+	public List<SearchHit> search(String query, float threshold) throws PhoneticException, NullPointerException {
+		
+		PreparedString preparedQuery = levenshtein.prepare(query);
+		DistanceScratch scratch = new DistanceScratch();
+		List<SearchHit> hits = new ArrayList<SearchHit>();
+		
+		for(int entryID : candidates(preparedQuery)) {
+			
+			BasicCompared basicCompared = levenshtein.compareCandidate(preparedQuery, preparedDictionary[entryID], true, 
+					threshold, scratch);
+			
+			if(basicCompared != null) {
+				hits.add(new SearchHit(entryID, dictionary[entryID], basicCompared.index(), basicCompared.distance()));
+			}
+			
+		}
+		
+		boolean absolute = levenshtein.currentFlags[Levenshtein.ABSOLUTE];
+		Collections.sort(hits, absolute ? SearchHit.DISTANCE_ORDER : SearchHit.INDEX_ORDER);
+		
+		return hits;
+		
+	}
+	
+	/**
+	 * Measures the recall and the reduction ratio of the blocks on a set of queries. Every query is compared with
+	 * all entries of the dictionary, hence this is as expensive as a full scan.
+	 * @param queries The phonetic queries
+	 * @param threshold The maximum distance (if the absolute flag is set) or the minimum similarity index of a match
+	 * @return The report of the trade-off
+	 * @throws PhoneticException An exception that is throws if a query contains invalid phonetic symbols
+	 * @throws NullPointerException An exception that indicates that a query is not set
+	 */
+	public BlockingReport evaluate(Collection<String> queries, float threshold) throws PhoneticException, NullPointerException {
+		
+		DistanceScratch scratch = new DistanceScratch();
+		long candidatePairs = 0, matches = 0, foundMatches = 0;
+		
+		for(String query : queries) {
+			
+			PreparedString preparedQuery = levenshtein.prepare(query);
+			int[] candidates = candidates(preparedQuery);
+			candidatePairs += candidates.length;
+			
+			// Compare with all entries and check whether the matches are candidates
+			for(int i = 0; i < dictionary.length; i++) {
+				if(levenshtein.compareCandidate(preparedQuery, preparedDictionary[i], true, threshold, scratch) != null) {
+					matches++;
+					if(Arrays.binarySearch(candidates, i) >= 0) {
+						foundMatches++;
+					}
+				}
+			}
+			
+		}
+		
+		return new BlockingReport(queries.size(), (long)queries.size() * dictionary.length, candidatePairs, 
+				matches, foundMatches);
+		
+	}
+	
+	/**
+	 * Returns the number of entries of the dictionary
+	 * @return The size of the dictionary
+	 */
+	public int size() {
+		return dictionary.length;
+	}
+	
+	/**
+	 * Returns the number of blocks (including the blocks of the deletion variants within a radius of one)
+	 * @return The number of distinct keys
+	 */
+	public int blocks() {
+		return blocks.size();
+	}
+
+}
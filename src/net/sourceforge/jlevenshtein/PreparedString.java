@@ -0,0 +1,138 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.io.File;
+
+/**
+ * <p>An immutable handle to a user input that was normalized, split into words and (in phonetic mode) tokenized 
+ * into XSAMPA symbols by {@link Levenshtein#prepare(String)}. Comparing a prepared input with many other inputs
+ * pays this preparation only once.</p>
+ * 
+ * <p>A prepared input is bound to the flags (and the feature file) of the <code>Levenshtein</code> object at the
+ * time of its preparation. It can only be compared by a <code>Levenshtein</code> object that uses the same
+ * flags.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see Levenshtein
+ */
+public final class PreparedString {
+	
+	/**
+	 * The user input
+	 */
+	final String input;
+	
+	/**
+	 * The flags of the preparing <code>Levenshtein</code> object
+	 */
+	final boolean[] flags;
+	
+	/**
+	 * The feature file of the preparing <code>Levenshtein</code> object (phonetic mode only)
+	 */
+	final File featurePath;
+	
+	/**
+	 * The sequence of words of the input
+	 */
+	final String[] words;
+	
+	/**
+	 * The characters of every word (plain mode only)
+	 */
+	final char[][] wordChars;
+	
+	/**
+	 * The XSAMPA symbols of every word (phonetic mode only)
+	 */
+	final String[][] symbols;
+	
+	/**
+	 * The distance of every XSAMPA symbol to the zero symbol (phonetic mode only)
+	 */
+	final float[][] zeroDistances;
+	
+	/**
+	 * Basic constructor (for internal use only)
+	 * @param input The user input
+	 * @param flags The flags that were used for the preparation (will not be cloned)
+	 * @param featurePath The feature file that was used for the preparation or <code>null</code> for plain input
+	 * @param words The sequence of words of the input
+	 * @param wordChars The characters of every word or <code>null</code> for phonetic input
+	 * @param symbols The XSAMPA symbols of every word or <code>null</code> for plain input
+	 * @param zeroDistances The distances of all symbols to the zero symbol or <code>null</code> for plain input
+	 */
+	PreparedString(String input, boolean[] flags, File featurePath, String[] words, char[][] wordChars, 
+			String[][] symbols, float[][] zeroDistances) {
+		
+		this.input = input;
+		this.flags = flags;
+		this.featurePath = featurePath;
+		this.words = words;
+		this.wordChars = wordChars;
+		this.symbols = symbols;
+		this.zeroDistances = zeroDistances;
+		
+	}
+	
+	/**
+	 * Returns the user input that was prepared
+	 * @return The original input
+	 */
+	public String getInput() {
+		return input;
+	}
+	
+	/**
+	 * Returns the number of words of the prepared input
+	 * @return The number of words (<code>1</code> if the input is treated as one word)
+	 */
+	public int words() {
+		return words.length;
+	}
+	
+	/**
+	 * Returns the normalized word with the given ID
+	 * @param elementID The ID of the word
+	 * @return The corresponding word
+	 * @throws IndexOutOfBoundsException If the ID does not exist
+	 */
+	public String getWord(int elementID) {
+		
+		if(elementID >= 0 && elementID < words.length) {
+			return words[elementID];
+		} else {
+			throw new IndexOutOfBoundsException("This ID does not exist.");
+		}
+		
+	}
+	
+	/**
+	 * A user readable <code>toString</code> function that shows the prepared input.
+	 */
+	@Override
+	public String toString() {
+		return new StringBuilder("PreparedString[").append(input).append(']').toString();
+	}
+	
+}
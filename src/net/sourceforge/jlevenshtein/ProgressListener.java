@@ -0,0 +1,41 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+/**
+ * A receiver of the progress of a long running batch computation. The listener may be called from any thread, but
+ * never concurrently. Returning <code>false</code> cancels the computation.
+ * @author Rafael W.
+ * @version 0.1
+ * @see Levenshtein#comparePairwise(java.util.List, ProgressListener)
+ */
+public interface ProgressListener {
+	
+	/**
+	 * Receives the progress of a computation
+	 * @param completed The number of completed comparisons
+	 * @param total The total number of comparisons
+	 * @return <code>true</code> if the computation should continue, <code>false</code> to cancel it
+	 */
+	public boolean progress(long completed, long total);
+
+}
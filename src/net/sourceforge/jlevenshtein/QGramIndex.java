@@ -0,0 +1,451 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>An inverted index of the padded character q-grams of a plain dictionary that generates candidates for a 
+ * search within a maximum distance. The q-grams of a word are counted as a multiset, the key of a q-gram is the
+ * q-gram and its occurrence in the word. Every key maps to a sorted, delta-encoded list of entry IDs.</p>
+ * 
+ * <p>Every operation of the configured cost model costs at least <code>c</code>, so a path within the distance 
+ * <code>d</code> consists of at most <code>e = floor(d/c)</code> operations. Each operation destroys at most 
+ * <code>q</code> q-grams (<code>q+1</code> for swaps), hence two words of the lengths <code>n</code> and 
+ * <code>m</code> within the distance share at least <code>max(n,m) + q - 1 - e*q</code> q-grams (q-gram lemma)
+ * and differ in length by at most <code>e</code>. Only the entries that pass both filters are compared. If the
+ * minimum number of shared q-grams is not positive, all entries of a suitable length are compared. The results
+ * equal a comparison with all entries.</p>
+ * 
+ * <p>Entries (and queries) of several words are always compared. An index is immutable and thread safe.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see SearchHit
+ */
+public class QGramIndex {
+	
+	/**
+	 * The character that pads the words
+	 */
+	private static final char PADDING = '\uFFFF';
+	
+	/**
+	 * The counters of the shared q-grams of a search (one set per thread)
+	 */
+	private static final ThreadLocal<Counters> COUNTERS = new ThreadLocal<Counters>() {
+		@Override
+		protected Counters initialValue() {
+			return new Counters();
+		}
+	};
+	
+	/**
+	 * The configuration of the comparisons (a private copy that is never changed)
+	 */
+	private final Levenshtein levenshtein;
+	
+	/**
+	 * The length of the q-grams
+	 */
+	private final int q;
+	
+	/**
+	 * The dictionary, its prepared entries and the length of every normalized entry (<code>-1</code> for entries of 
+	 * several words)
+	 */
+	private final String[] dictionary;
+	private final PreparedString[] preparedDictionary;
+	private final int[] lengths;
+	
+	/**
+	 * The entries ordered by length and the position of the first entry of every length in that order
+	 */
+	private final int[] entriesByLength, lengthOffsets;
+	
+	/**
+	 * The entries of several words
+	 */
+	private final int[] unfilteredEntries;
+	
+	/**
+	 * The sorted keys (q-gram and occurrence) and their delta-encoded posting lists
+	 */
+	private final long[] keys;
+	private final int[][] postings;
+	
+	/**
+	 * The minimum cost of an operation and the maximum number of q-grams an operation destroys
+	 */
+	private final float minimumCost;
+	private final int gramsPerOperation;
+	
+	/**
+	 * Creates an index of bigrams with the default flags
+	 * @param dictionary The entries that are searched
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 */
+	public QGramIndex(Collection<String> dictionary) throws NullPointerException {
+		this(dictionary, new Levenshtein(), 2);
+	}
+	
+	/**
+	 * Creates an index that compares with the flags and costs of the given object
+	 * @param dictionary The entries that are searched
+	 * @param levenshtein The object whose configuration is used (will be copied)
+	 * @param q The length of the q-grams (1 to 3)
+	 * @throws NullPointerException An exception that indicates that an entry is not set
+	 * @throws IllegalArgumentException An exception that indicates that phonetic comparison is requested or q is invalid
+	 */
+	public QGramIndex(Collection<String> dictionary, Levenshtein levenshtein, int q) 
+		throws NullPointerException, IllegalArgumentException {
+		
+		this.levenshtein = levenshtein.frozenCopy();
+		this.q = q;
+		
+		boolean[] flags = this.levenshtein.currentFlags;
+		
+		if(flags[Levenshtein.USE_PHONETIC]) {
+			throw new IllegalArgumentException("A q-gram index can only store plain words.");
+		}
+		if(q < 1 || q > 3) {
+			throw new IllegalArgumentException("The length of the q-grams must be between 1 and 3.");
+		}
+		
+		minimumCost = this.levenshtein.minimumOperationCost();
+		gramsPerOperation = flags[Levenshtein.SWAP] || flags[Levenshtein.MIND_CASE] ? q + 1 : q;
+		
+		this.dictionary = dictionary.toArray(new String[dictionary.size()]);
+		preparedDictionary = new PreparedString[this.dictionary.length];
+		lengths = new int[this.dictionary.length];
+		
+		Map<Long,int[]> tempPostings = new HashMap<Long,int[]>();
+		int[] tempUnfiltered = new int[this.dictionary.length];
+		int unfiltered = 0, maxLength = 0;
+		
+		// Collect the keys of every entry (in ascending order of the entries)
+		for(int i = 0; i < this.dictionary.length; i++) {
+			
+			PreparedString preparedEntry = this.levenshtein.prepare(this.dictionary[i]);
+			preparedDictionary[i] = preparedEntry;
+			
+			if(preparedEntry.words.length > 1) {
+				lengths[i] = -1;
+				tempUnfiltered[unfiltered++] = i;
+				continue;
+			}
+			
+			lengths[i] = preparedEntry.wordChars[0].length;
+			maxLength = Math.max(maxLength, lengths[i]);
+			
+			for(long key : keys(preparedEntry.wordChars[0])) {
+				
+				// Posting lists are grown by half, the last element holds the size
+				int[] posting = tempPostings.get(key);
+				if(posting == null) {
+					posting = new int[2];
+				} else if(posting[posting.length - 1] == posting.length - 1) {
+					int size = posting[posting.length - 1];
+					posting = Arrays.copyOf(posting, size + (size >> 1) + 2);
+					posting[posting.length - 1] = size;
+				}
+				posting[posting[posting.length - 1]++] = i;
+				tempPostings.put(key, posting);
+				
+			}
+			
+		}
+		
+		unfilteredEntries = Arrays.copyOf(tempUnfiltered, unfiltered);
+		
+		// Sort the keys and delta-encode the posting lists
+		keys = new long[tempPostings.size()];
+		int k = 0;
+		for(Long key : tempPostings.keySet()) {
+			keys[k++] = key;
+		}
+		Arrays.sort(keys);
+		
+		postings = new int[keys.length][];
+		for(int i = 0; i < keys.length; i++) {
+			
+			int[] posting = tempPostings.remove(keys[i]);
+			int size = posting[posting.length - 1];
+			postings[i] = new int[size];
+			
+			for(int j = size - 1; j > 0; j--) {
+				postings[i][j] = posting[j] - posting[j-1];
+			}
+			postings[i][0] = posting[0];
+			
+		}
+		
+		// Group the entries by length (counting sort)
+		lengthOffsets = new int[maxLength + 2];
+		for(int i = 0; i < lengths.length; i++) {
+			if(lengths[i] >= 0) {
+				lengthOffsets[lengths[i] + 1]++;
+			}
+		}
+		for(int i = 1; i < lengthOffsets.length; i++) {
+			lengthOffsets[i] += lengthOffsets[i-1];
+		}
+		
+		entriesByLength = new int[lengthOffsets[lengthOffsets.length - 1]];
+		int[] positions = Arrays.copyOf(lengthOffsets, lengthOffsets.length);
+		for(int i = 0; i < lengths.length; i++) {
+			if(lengths[i] >= 0) {
+				entriesByLength[positions[lengths[i]]++] = i;
+			}
+		}
+		
+	}
+	
+	/**
+	 * Returns the keys of all padded q-grams of a word, the key of the k-th occurrence of a q-gram is 
+	 * <code>k << 48 | gram</code>
+	 * @param word The characters of the word
+	 * @return The keys (one per q-gram)
+	 */
+	private long[] keys(char[] word) {
+		
+		long[] wordKeys = new long[word.length + q - 1];
+		Map<Long,Integer> occurrences = new HashMap<Long,Integer>();
+		
+		for(int start = -(q - 1); start < word.length; start++) {
+			
+			long gram = 0;
+			for(int i = start; i < start + q; i++) {
+				gram = gram << 16 | (i < 0 || i >= word.length ? PADDING : word[i]);
+			}
+			
+			Integer occurrence = occurrences.get(gram);
+			occurrence = occurrence == null ? 0 : occurrence + 1;
+			occurrences.put(gram, occurrence);
+			
+			wordKeys[start + q - 1] = (long)occurrence << 48 | gram;
+			
+		}
+		
+		return wordKeys;
+		
+	}
+	
+	/**
+	 * Returns the entries that may be within the given distance of the query
+	 * @param query The String that is searched
+	 * @param maxDistance The maximum distance
+	 * @return The IDs of the candidates in ascending order
+	 * @throws NullPointerException An exception that indicates that the query is not set
+	 */
+	public int[] candidates(String query, float maxDistance) throws NullPointerException {
+		return candidates(levenshtein.prepare(query), maxDistance);
+	}
+	
+	/**
+	 * Returns the entries that may be within the given distance of the prepared query
+	 * @param preparedQuery The prepared query
+	 * @param maxDistance The maximum distance
+	 * @return The IDs of the candidates in ascending order
+	 */
+	private int[] candidates(PreparedString preparedQuery, float maxDistance) {
+		
+		// Compare queries of several words with every entry
+		if(preparedQuery.words.length > 1 || maxDistance < 0f) {
+			
+			int[] all = new int[maxDistance < 0f ? 0 : dictionary.length];
+			for(int i = 0; i < all.length; i++) {
+				all[i] = i;
+			}
+			return all;
+			
+		}
+		
+		final int queryLength = preparedQuery.wordChars[0].length;
+		
+		// Maximum number of operations within the distance
+		long operations = minimumCost > 0f 	? (long)Math.min(Math.floor(maxDistance / minimumCost * 1.000001), Integer.MAX_VALUE) 
+											: Integer.MAX_VALUE;
+		int shortest = (int)Math.max(0, queryLength - operations);
+		int longest = (int)Math.min(lengthOffsets.length - 2, queryLength + operations);
+		
+		int[] candidates = new int[16];
+		int size = 0;
+		
+		Counters counters = COUNTERS.get();
+		counters.ensure(dictionary.length);
+		
+		try {
+			
+			// Count the shared q-grams of all entries of a suitable length
+			for(long key : keys(preparedQuery.wordChars[0])) {
+				
+				int position = Arrays.binarySearch(keys, key);
+				if(position < 0) {
+					continue;
+				}
+				
+				int entryID = 0;
+				for(int delta : postings[position]) {
+					entryID += delta;
+					if(lengths[entryID] >= shortest && lengths[entryID] <= longest) {
+						counters.increment(entryID);
+					}
+				}
+				
+			}
+			
+			// Entries without shared q-grams may be candidates if the minimum is not positive
+			if(queryLength + q - 1 - operations * gramsPerOperation <= 0 && shortest <= longest) {
+				
+				for(int i = lengthOffsets[shortest]; i < lengthOffsets[longest + 1]; i++) {
+					if(isCandidate(entriesByLength[i], queryLength, operations, counters.counts[entriesByLength[i]])) {
+						if(size == candidates.length) {
+							candidates = Arrays.copyOf(candidates, size * 2);
+						}
+						candidates[size++] = entriesByLength[i];
+					}
+				}
+				
+			} else {
+				
+				for(int i = 0; i < counters.touched; i++) {
+					int entryID = counters.touchedEntries[i];
+					if(isCandidate(entryID, queryLength, operations, counters.counts[entryID])) {
+						if(size == candidates.length) {
+							candidates = Arrays.copyOf(candidates, size * 2);
+						}
+						candidates[size++] = entryID;
+					}
+				}
+				
+			}
+			
+		} finally {
+			counters.reset();
+		}
+		
+		// Add the entries of several words
+		candidates = Arrays.copyOf(candidates, size + unfilteredEntries.length);
+		System.arraycopy(unfilteredEntries, 0, candidates, size, unfilteredEntries.length);
+		Arrays.sort(candidates);
+		
+		return candidates;
+		
+	}
+	
+	/**
+	 * Checks the count filter of an entry
+	 * @param entryID The ID of the entry
+	 * @param queryLength The length of the query
+	 * @param operations The maximum number of operations
+	 * @param sharedGrams The number of q-grams the entry shares with the query
+	 * @return True if the entry shares enough q-grams with the query
+	 */
+	private boolean isCandidate(int entryID, int queryLength, long operations, int sharedGrams) {
+		return sharedGrams >= Math.max(queryLength, lengths[entryID]) + q - 1 - operations * gramsPerOperation;
+	}
+	
+	/**
+	 * Finds all entries within the given distance of the query
+	 * @param query The String that is searched
+	 * @param maxDistance The maximum distance of the results
+	 * @return All entries within the distance, the closest entry first (earlier entries first for equal distances)
+	 * @throws NullPointerException An exception that indicates that the query is not set
+	 */
+	public List<SearchHit> search(String query, float maxDistance) throws NullPointerException {
+		
+		PreparedString preparedQuery = levenshtein.prepare(query);
+		
+		// Verify every candidate
+		return levenshtein.verifyCandidates(preparedQuery, candidates(preparedQuery, maxDistance), dictionary, 
+				preparedDictionary, maxDistance);
+		
+	}
+	
+	/**
+	 * Returns the number of entries of the dictionary
+	 * @return The size of the dictionary
+	 */
+	public int size() {
+		return dictionary.length;
+	}
+	
+	/**
+	 * The reusable counters of shared q-grams of a thread
+	 */
+	private static final class Counters {
+		
+		/**
+		 * The number of shared q-grams of every entry
+		 */
+		int[] counts = new int[0];
+		
+		/**
+		 * The entries with a count above zero
+		 */
+		int[] touchedEntries = new int[16];
+		int touched;
+		
+		/**
+		 * Assures that the counters can hold the given number of entries
+		 * @param entries The number of entries
+		 */
+		void ensure(int entries) {
+			if(counts.length < entries) {
+				counts = new int[entries];
+			}
+		}
+		
+		/**
+		 * Increments the counter of an entry
+		 * @param entryID The ID of the entry
+		 */
+		void increment(int entryID) {
+			
+			if(counts[entryID]++ == 0) {
+				if(touched == touchedEntries.length) {
+					touchedEntries = Arrays.copyOf(touchedEntries, touched * 2);
+				}
+				touchedEntries[touched++] = entryID;
+			}
+			
+		}
+		
+		/**
+		 * Resets all counters to zero
+		 */
+		void reset() {
+			
+			for(int i = 0; i < touched; i++) {
+				counts[touchedEntries[i]] = 0;
+			}
+			touched = 0;
+			
+		}
+		
+	}
+
+}
@@ -0,0 +1,322 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>A comparison of records of several fields (for example name, street and city), every field with its own
+ * configuration. The score of two records is the weighted mean of the similarity indexes of their fields (the index 
+ * is used even if the absolute flag of a field is set), hence it lies between 0 and 1.</p>
+ * 
+ * <p>The fields are evaluated cheapest first: single words before sentences, plain before phonetic input and 
+ * heavier fields first within the same class. With a threshold, the evaluation stops as soon as the remaining 
+ * fields can not lift the score over the threshold any more, and a field is abandoned within its matrix as soon as 
+ * its index can not reach the minimum that is still needed.</p>
+ * 
+ * <p>A comparator is immutable and thread safe.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see RecordField
+ */
+public final class RecordComparator {
+	
+	/**
+	 * The number of record pairs of a single task of a batch comparison
+	 */
+	private static final int TASK_SIZE = 256;
+	
+	/**
+	 * The fields in the order of the records
+	 */
+	private final RecordField[] fields;
+	
+	/**
+	 * The positions of the fields in the order of their evaluation
+	 */
+	private final int[] evaluationOrder;
+	
+	/**
+	 * The sum of the weights of all fields
+	 */
+	private final float totalWeight;
+	
+	/**
+	 * Creates a comparator of records with the given fields
+	 * @param fields The fields in the order of the values of a record
+	 * @throws IllegalArgumentException An exception that indicates that there are no fields
+	 * @throws NullPointerException An exception that indicates that a field is not set
+	 */
+	public RecordComparator(List<RecordField> fields) throws IllegalArgumentException, NullPointerException {
+		
+		if(fields.isEmpty()) {
+			throw new IllegalArgumentException("A record needs at least one field.");
+		}
+		
+		this.fields = fields.toArray(new RecordField[fields.size()]);
+		
+		float weight = 0f;
+		Integer[] order = new Integer[this.fields.length];
+		for(int i = 0; i < this.fields.length; i++) {
+			if(this.fields[i] == null) {
+				throw new NullPointerException("At least one of the fields is not set.");
+			}
+			weight += this.fields[i].getWeight();
+			order[i] = i;
+		}
+		totalWeight = weight;
+		
+		// Cheapest fields first, heavier fields first within the same cost class
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				
+				RecordField firstField = RecordComparator.this.fields[first];
+				RecordField secondField = RecordComparator.this.fields[second];
+				
+				if(firstField.costClass() != secondField.costClass()) {
+					return firstField.costClass() < secondField.costClass() ? -1 : 1;
+				}
+				
+				int byWeight = Float.compare(secondField.getWeight(), firstField.getWeight());
+				return byWeight != 0 ? byWeight : first.compareTo(second);
+				
+			}
+		});
+		
+		evaluationOrder = new int[order.length];
+		for(int i = 0; i < order.length; i++) {
+			evaluationOrder[i] = order[i];
+		}
+		
+	}
+	
+	/**
+	 * Computes the score of two records
+	 * @param firstRecord The values of the first record in the order of the fields
+	 * @param secondRecord The values of the second record in the order of the fields
+	 * @return The weighted mean of the similarity indexes of all fields
+	 * @throws PhoneticException An exception that is throws if a value contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that a record or one of its values is not set
+	 * @throws IllegalArgumentException An exception that indicates that a record does not have one value per field
+	 */
+	public float compare(String[] firstRecord, String[] secondRecord) 
+		throws PhoneticException, NullPointerException, IllegalArgumentException {
+		return score(firstRecord, secondRecord, false, 0f, new DistanceScratch());
+	}
+	
+	/**
+	 * Computes the score of two records and stops as soon as the threshold can not be met any more
+	 * @param firstRecord The values of the first record in the order of the fields
+	 * @param secondRecord The values of the second record in the order of the fields
+	 * @param threshold The minimum score
+	 * @return The weighted mean of the similarity indexes of all fields or {@link Float#NaN} if it does not meet the 
+	 * threshold
+	 * @throws PhoneticException An exception that is throws if a value contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that a record or one of its values is not set
+	 * @throws IllegalArgumentException An exception that indicates that a record does not have one value per field
+	 */
+	public float compare(String[] firstRecord, String[] secondRecord, float threshold) 
+		throws PhoneticException, NullPointerException, IllegalArgumentException {
+		return score(firstRecord, secondRecord, true, threshold, new DistanceScratch());
+	}
+	
+	/**
+	 * Computes the scores of a batch of record pairs on the common fork join pool
+	 * @param firstRecords The first record of every pair
+	 * @param secondRecords The second record of every pair
+	 * @param threshold The minimum score
+	 * @return The score of every pair or {@link Float#NaN} for pairs that do not meet the threshold
+	 * @throws PhoneticException An exception that is throws if a value contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that a record or one of its values is not set
+	 * @throws IllegalArgumentException An exception that indicates that the lists differ in size or that a record 
+	 * does not have one value per field
+	 * @see #comparePairs(List, List, float, ExecutorService)
+	 */
+	public float[] comparePairs(List<String[]> firstRecords, List<String[]> secondRecords, float threshold) 
+		throws PhoneticException, NullPointerException, IllegalArgumentException {
+		return comparePairs(firstRecords, secondRecords, threshold, null);
+	}
+	
+	/**
+	 * Computes the scores of a batch of record pairs on the given executor. The executor is not shut down by this 
+	 * class.
+	 * @param firstRecords The first record of every pair
+	 * @param secondRecords The second record of every pair
+	 * @param threshold The minimum score
+	 * @param executor The executor that compares the pairs or <code>null</code> to use the common fork join pool
+	 * @return The score of every pair or {@link Float#NaN} for pairs that do not meet the threshold
+	 * @throws PhoneticException An exception that is throws if a value contains invalid phonetic symbols or similar
+	 * @throws NullPointerException An exception that indicates that a record or one of its values is not set
+	 * @throws IllegalArgumentException An exception that indicates that the lists differ in size or that a record 
+	 * does not have one value per field
+	 * @throws IllegalStateException An exception that indicates that the comparison was interrupted
+	 */
+	public float[] comparePairs(final List<String[]> firstRecords, final List<String[]> secondRecords, final float threshold, 
+			ExecutorService executor) throws PhoneticException, NullPointerException, IllegalArgumentException, IllegalStateException {
+		
+		if(firstRecords.size() != secondRecords.size()) {
+			throw new IllegalArgumentException("Both lists of records must have the same size.");
+		}
+		
+		final float[] scores = new float[firstRecords.size()];
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		
+		for(int start = 0; start < scores.length; start += TASK_SIZE) {
+			
+			final int first = start, last = Math.min(start + TASK_SIZE, scores.length);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws PhoneticException {
+					
+					DistanceScratch scratch = new DistanceScratch();
+					for(int i = first; i < last; i++) {
+						scores[i] = score(firstRecords.get(i), secondRecords.get(i), true, threshold, scratch);
+					}
+					
+					return null;
+					
+				}
+			});
+			
+		}
+		
+		// Wait for all tasks
+		Levenshtein.invokeAllUnwrapped(executor != null ? executor : ForkJoinPool.commonPool(), tasks);
+		
+		return scores;
+		
+	}
+	
+	/**
+	 * Computes the score of two records
+	 * @param firstRecord The values of the first record
+	 * @param secondRecord The values of the second record
+	 * @param useThreshold True if the evaluation should stop as soon as the threshold can not be met any more
+	 * @param threshold The minimum score
+	 * @param scratch The columns to reuse
+	 * @return The score or {@link Float#NaN} if it does not meet the threshold
+	 * @throws PhoneticException An exception that is throws if a value contains invalid phonetic symbols or similar
+	 */
+	private float score(String[] firstRecord, String[] secondRecord, boolean useThreshold, float threshold, 
+			DistanceScratch scratch) throws PhoneticException {
+		
+		checkRecord(firstRecord);
+		checkRecord(secondRecord);
+		
+		final float requiredWeight = threshold * totalWeight;
+		float weightedIndex = 0f;
+		
+		for(int k = 0; k < evaluationOrder.length; k++) {
+			
+			RecordField field = fields[evaluationOrder[k]];
+			boolean useFieldThreshold = false;
+			float fieldThreshold = 0f;
+			
+			if(useThreshold) {
+				
+				// The best score that is still possible (summed in the same order as the score itself)
+				float bestWeightedIndex = weightedIndex;
+				float restWeight = 0f;
+				for(int l = k; l < evaluationOrder.length; l++) {
+					bestWeightedIndex += fields[evaluationOrder[l]].getWeight();
+					restWeight += l > k ? fields[evaluationOrder[l]].getWeight() : 0f;
+				}
+				if(bestWeightedIndex / totalWeight < threshold) {
+					return Float.NaN;
+				}
+				
+				// The minimum index of this field that still meets the threshold (allow for rounding errors)
+				if(field.levenshtein.currentFlags[Levenshtein.ABSOLUTE] == false) {
+					fieldThreshold = (requiredWeight - weightedIndex - restWeight) / field.getWeight() * 0.9999f - 0.0001f;
+					useFieldThreshold = fieldThreshold > 0f;
+				}
+				
+			}
+			
+			BasicCompared basicCompared = field.levenshtein.compareCandidate(
+					field.levenshtein.prepare(firstRecord[evaluationOrder[k]]), 
+					field.levenshtein.prepare(secondRecord[evaluationOrder[k]]), useFieldThreshold, fieldThreshold, scratch);
+			
+			if(basicCompared == null) {
+				return Float.NaN;
+			}
+			
+			weightedIndex += field.getWeight() * basicCompared.index();
+			
+		}
+		
+		float score = weightedIndex / totalWeight;
+		
+		return useThreshold && score < threshold ? Float.NaN : score;
+		
+	}
+	
+	/**
+	 * Checks whether a record has one value per field
+	 * @param record The record
+	 * @throws NullPointerException An exception that indicates that the record is not set
+	 * @throws IllegalArgumentException An exception that indicates that the record does not have one value per field
+	 */
+	private void checkRecord(String[] record) throws NullPointerException, IllegalArgumentException {
+		
+		if(record == null) {
+			throw new NullPointerException("At least one of the records is not set.");
+		}
+		if(record.length != fields.length) {
+			throw new IllegalArgumentException(String.format("A record must have %d values, not %d.", fields.length, 
+					record.length));
+		}
+		
+	}
+	
+	/**
+	 * Returns the fields in the order of the values of a record
+	 * @return An unmodifiable list of the fields
+	 */
+	public List<RecordField> getFields() {
+		return Collections.unmodifiableList(Arrays.asList(fields));
+	}
+	
+	/**
+	 * Returns the fields in the order of their evaluation
+	 * @return An unmodifiable list of the fields, the cheapest field first
+	 */
+	public List<RecordField> getEvaluationOrder() {
+		
+		List<RecordField> order = new ArrayList<RecordField>(fields.length);
+		for(int fieldID : evaluationOrder) {
+			order.add(fields[fieldID]);
+		}
+		
+		return Collections.unmodifiableList(order);
+		
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+/**
+ * An immutable field of a record: its name, its weight and the configuration of the comparison of its values. 
+ * The configuration is copied when the field is created, later changes of the given <code>Levenshtein</code> object 
+ * do not affect the field.
+ * @author Rafael W.
+ * @version 0.1
+ * @see RecordComparator
+ */
+public final class RecordField {
+	
+	/**
+	 * The name of the field
+	 */
+	private final String name;
+	
+	/**
+	 * The weight of the similarity of the field in the score of a record
+	 */
+	private final float weight;
+	
+	/**
+	 * The configuration of the comparison (a frozen copy that is never changed)
+	 */
+	final Levenshtein levenshtein;
+	
+	/**
+	 * Creates a field
+	 * @param name The name of the field
+	 * @param levenshtein The object whose configuration is used (will be copied)
+	 * @param weight The weight of the similarity of the field in the score of a record
+	 * @throws IllegalArgumentException An exception that indicates that the weight is not positive
+	 */
+	public RecordField(String name, Levenshtein levenshtein, float weight) throws IllegalArgumentException {
+		
+		if((weight > 0f) == false || Float.isInfinite(weight)) {
+			throw new IllegalArgumentException("The weight of a field must be positive");
+		}
+		
+		this.name = name;
+		this.levenshtein = levenshtein.frozenCopy();
+		this.weight = weight;
+		
+	}
+	
+	/**
+	 * Returns the name of the field
+	 * @return The name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Returns the weight of the similarity of the field in the score of a record
+	 * @return The weight
+	 */
+	public float getWeight() {
+		return weight;
+	}
+	
+	/**
+	 * Returns the relative cost of a comparison of this field: words are cheaper than sentences, plain input is 
+	 * cheaper than phonetic input
+	 * @return The cost class (0 to 3)
+	 */
+	int costClass() {
+		return (levenshtein.currentFlags[Levenshtein.USE_PHONETIC] ? 2 : 0) + 
+				(levenshtein.currentFlags[Levenshtein.ONE_WORD] ? 0 : 1);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s (weight: %.2f)", name, weight);
+	}
+
+}
@@ -0,0 +1,235 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A list of records that is kept in memory as long as it fits into a memory budget and is moved to a temporary file 
+ * (UTF-8) otherwise. Records are added by one thread, after {@link #finish()} they can be read by any number of 
+ * threads.
+ * @author Rafael W.
+ * @version 0.1
+ * @see DedupeEngine
+ */
+final class RecordStore implements Closeable {
+	
+	/**
+	 * The encoding of the records in the file
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	/**
+	 * The estimated bytes of a String object besides its characters
+	 */
+	private static final long STRING_OVERHEAD = 64L;
+	
+	/**
+	 * The number of bytes the records may occupy in memory
+	 */
+	private final long memoryBudget;
+	
+	/**
+	 * The records in memory (<code>null</code> as soon as the records are moved to the file)
+	 */
+	private List<String> records = new ArrayList<String>();
+	private long usedMemory = 0L;
+	
+	/**
+	 * The number of records
+	 */
+	private int size = 0;
+	
+	/**
+	 * The file of the records, the position of every record in the file and the streams that access it
+	 */
+	private File file = null;
+	private long[] offsets = null;
+	private OutputStream out = null;
+	private RandomAccessFile randomAccessFile = null;
+	private FileChannel channel = null;
+	
+	/**
+	 * Creates a store that keeps the records in memory as long as they fit into the given budget
+	 * @param memoryBudget The number of bytes the records may occupy in memory
+	 */
+	RecordStore(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+	
+	/**
+	 * Adds a record
+	 * @param record The record
+	 * @return The ID of the record
+	 * @throws IOException An exception that indicates that the records could not be written to the file
+	 */
+	int add(String record) throws IOException {
+		
+		if(records != null) {
+			
+			usedMemory += STRING_OVERHEAD + 2L * record.length();
+			if(usedMemory <= memoryBudget) {
+				records.add(record);
+				return size++;
+			}
+			
+			// Move all records to the file once the budget is exceeded
+			file = File.createTempFile("jlevenshtein", ".records");
+			file.deleteOnExit();
+			out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+			offsets = new long[Math.max(16, size * 2)];
+			
+			List<String> movedRecords = records;
+			records = null;
+			size = 0;
+			
+			for(String movedRecord : movedRecords) {
+				write(movedRecord);
+			}
+			
+		}
+		
+		write(record);
+		
+		return size - 1;
+		
+	}
+	
+	/**
+	 * Appends a record to the file
+	 * @param record The record
+	 * @throws IOException An exception that indicates that the record could not be written
+	 */
+	private void write(String record) throws IOException {
+		
+		byte[] bytes = record.getBytes(UTF8);
+		out.write(bytes);
+		
+		// The offset of the next record is the end of this one
+		if(size + 2 > offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+		}
+		offsets[size+1] = offsets[size] + bytes.length;
+		size++;
+		
+	}
+	
+	/**
+	 * Finishes the addition of records, afterwards the records can be read concurrently
+	 * @throws IOException An exception that indicates that the file could not be written or opened
+	 */
+	void finish() throws IOException {
+		
+		if(out != null) {
+			out.close();
+			out = null;
+			randomAccessFile = new RandomAccessFile(file, "r");
+			channel = randomAccessFile.getChannel();
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of records
+	 * @return The number of records
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns true if the records were moved to a temporary file
+	 * @return True if the records are read from the hard drive
+	 */
+	boolean isSpilled() {
+		return records == null;
+	}
+	
+	/**
+	 * Returns a record
+	 * @param recordID The ID of the record
+	 * @return The record
+	 * @throws IndexOutOfBoundsException If the ID does not exist
+	 * @throws IOException An exception that indicates that the record could not be read
+	 */
+	String get(int recordID) throws IndexOutOfBoundsException, IOException {
+		
+		if(recordID < 0 || recordID >= size) {
+			throw new IndexOutOfBoundsException("This ID does not exist");
+		}
+		
+		if(records != null) {
+			return records.get(recordID);
+		}
+		
+		// Positional reads do not change the position of the channel, hence they can run concurrently
+		ByteBuffer bytes = ByteBuffer.allocate((int)(offsets[recordID+1] - offsets[recordID]));
+		long position = offsets[recordID];
+		while(bytes.hasRemaining()) {
+			int read = channel.read(bytes, position + bytes.position());
+			if(read < 0) {
+				throw new IOException("Unexpected end of the record file.");
+			}
+		}
+		
+		return new String(bytes.array(), UTF8);
+		
+	}
+	
+	/**
+	 * Closes the file of the records and deletes it from the hard drive
+	 */
+	@Override
+	public void close() {
+		
+		try {
+			if(out != null) {
+				out.close();
+			}
+			if(randomAccessFile != null) {
+				randomAccessFile.close();
+			}
+		} catch (IOException e) {
+			System.err.printf("Could not close open file: %s%n'%s'%n", file, e.getMessage());
+		}
+		
+		if(file != null && file.delete() == false) {
+			System.err.printf("Unable to delete file: %s%n", file);
+		}
+		
+		records = null;
+		
+	}
+
+}
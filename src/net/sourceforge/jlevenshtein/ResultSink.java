@@ -0,0 +1,43 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+/**
+ * A receiver of the results of a one-to-many comparison that is called once for every candidate (that meets the
+ * threshold, if one was given) in the order of the candidates. Returning <code>false</code> stops the comparison.
+ * @author Rafael W.
+ * @version 0.1
+ * @see Levenshtein#compareAll(String, Iterable, ResultSink)
+ * @see Levenshtein#compareAll(String, Iterable, float, ResultSink)
+ */
+public interface ResultSink {
+	
+	/**
+	 * Receives the result of a single comparison
+	 * @param candidateID The position of the candidate in the candidate sequence
+	 * @param candidate The candidate that was compared with the query
+	 * @param result The similarity index or the distance (if the absolute flag is set) of query and candidate
+	 * @return <code>true</code> if the comparison should continue with the next candidate, <code>false</code> otherwise
+	 */
+	public boolean accept(int candidateID, String candidate, float result);
+
+}
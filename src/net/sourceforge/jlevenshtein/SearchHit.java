@@ -0,0 +1,132 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.Comparator;
+
+/**
+ * A single result of a search in a dictionary. The similarity index and the distance have the same meaning as
+ * the results of {@link Levenshtein#compare(String, String)} without and with the absolute flag.
+ * @author Rafael W.
+ * @version 0.1
+ * @see LevenshteinSearcher
+ */
+public final class SearchHit {
+	
+	/**
+	 * The order of results by distance, the closest entry first and earlier entries first for equal distances
+	 */
+	static final Comparator<SearchHit> DISTANCE_ORDER = new Comparator<SearchHit>() {
+		@Override
+		public int compare(SearchHit firstHit, SearchHit secondHit) {
+			
+			int order = Float.compare(firstHit.distance(), secondHit.distance());
+			return order != 0 ? order : (firstHit.dictionaryID() < secondHit.dictionaryID() ? -1 : 
+				(firstHit.dictionaryID() == secondHit.dictionaryID() ? 0 : 1));
+			
+		}
+	};
+	
+	/**
+	 * The order of results by similarity index, the most similar entry first and earlier entries first for equal 
+	 * indexes
+	 */
+	static final Comparator<SearchHit> INDEX_ORDER = new Comparator<SearchHit>() {
+		@Override
+		public int compare(SearchHit firstHit, SearchHit secondHit) {
+			
+			int order = Float.compare(secondHit.index(), firstHit.index());
+			return order != 0 ? order : (firstHit.dictionaryID() < secondHit.dictionaryID() ? -1 : 
+				(firstHit.dictionaryID() == secondHit.dictionaryID() ? 0 : 1));
+			
+		}
+	};
+	
+	/**
+	 * The position of the entry in the dictionary
+	 */
+	private final int dictionaryID;
+	
+	/**
+	 * The dictionary entry
+	 */
+	private final String entry;
+	
+	/**
+	 * The similarity index and the distance of query and entry
+	 */
+	private final float index, distance;
+	
+	/**
+	 * Basic constructor (for internal use only)
+	 * @param dictionaryID The position of the entry in the dictionary
+	 * @param entry The dictionary entry
+	 * @param index The similarity index of query and entry
+	 * @param distance The distance of query and entry
+	 */
+	SearchHit(int dictionaryID, String entry, float index, float distance) {
+		
+		this.dictionaryID = dictionaryID;
+		this.entry = entry;
+		this.index = index;
+		this.distance = distance;
+		
+	}
+	
+	/**
+	 * Returns the position of the entry in the dictionary
+	 * @return The ID of the entry
+	 */
+	public int dictionaryID() {
+		return dictionaryID;
+	}
+	
+	/**
+	 * Returns the dictionary entry
+	 * @return The entry that was found
+	 */
+	public String getEntry() {
+		return entry;
+	}
+	
+	/**
+	 * Returns the similarity index of query and entry
+	 * @return The index
+	 */
+	public float index() {
+		return index;
+	}
+	
+	/**
+	 * Returns the distance of query and entry
+	 * @return The distance
+	 */
+	public float distance() {
+		return distance;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s (ID: %d, index: %.2f, distance: %.2f)", entry, dictionaryID, index, distance);
+	}
+
+}
@@ -0,0 +1,359 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A bounded table of keys and primitive values that is spread over independently locked stripes (selected by the 
+ * high bits of the hash of a key). Every stripe is an open addressing table of at most half load, removed entries are 
+ * filled by shifting the following entries of their probe sequence back.</p>
+ * 
+ * <p>If a stripe is full, a few of its entries are sampled and the least frequently used one is evicted, but only 
+ * if the new key was accessed more frequently (TinyLFU, see {@link FrequencySketch}). The keys are compared with 
+ * their <code>equals</code> method, hence every cache uses its own key type.</p>
+ * 
+ * <p>This class is thread safe.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see CompareCache
+ * @see WordPairCache
+ */
+final class StripedTable<K> {
+	
+	/**
+	 * The result of a lookup that found no entry
+	 */
+	static final long MISSING = -1L;
+	
+	/**
+	 * The number of entries that are sampled to find the entry to evict
+	 */
+	private static final int EVICTION_SAMPLE = 8;
+	
+	/**
+	 * The stripes
+	 */
+	private final Stripe[] stripes;
+	private final int stripeShift;
+	
+	/**
+	 * The number of evicted entries
+	 */
+	private final LongAdder evictions = new LongAdder();
+	
+	/**
+	 * Creates an empty table
+	 * @param maximumSize The maximum number of entries
+	 * @param stripeEntries The minimal number of entries per stripe
+	 */
+	StripedTable(int maximumSize, int stripeEntries) {
+		
+		// Use a few stripes per processor, unless they would be too small
+		int stripeCount = 1;
+		while(stripeCount < 4 * Runtime.getRuntime().availableProcessors() && stripeCount * 2 * stripeEntries <= maximumSize) {
+			stripeCount <<= 1;
+		}
+		
+		stripes = new Stripe[stripeCount];
+		stripeShift = 32 - Integer.numberOfTrailingZeros(stripeCount);
+		for(int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe(maximumSize / stripeCount + (i < maximumSize % stripeCount ? 1 : 0), evictions);
+		}
+		
+	}
+	
+	/**
+	 * Looks up the value of a key and counts the access
+	 * @param hash The hash of the key
+	 * @param key The key
+	 * @return The value or {@link #MISSING}
+	 */
+	long get(int hash, K key) {
+		
+		Stripe stripe = stripe(hash);
+		
+		synchronized(stripe) {
+			stripe.sketch.increment(hash);
+			int slot = stripe.find(hash, key);
+			return slot >= 0 ? stripe.values[slot] : MISSING;
+		}
+		
+	}
+	
+	/**
+	 * Looks up the value of a key without counting the access
+	 * @param hash The hash of the key
+	 * @param key The key
+	 * @return The value or {@link #MISSING}
+	 */
+	long peek(int hash, K key) {
+		
+		Stripe stripe = stripe(hash);
+		
+		synchronized(stripe) {
+			int slot = stripe.find(hash, key);
+			return slot >= 0 ? stripe.values[slot] : MISSING;
+		}
+		
+	}
+	
+	/**
+	 * Stores the value of a key that is not contained yet, if the key is admitted
+	 * @param hash The hash of the key
+	 * @param key The key
+	 * @param value The value
+	 */
+	void put(int hash, K key, long value) {
+		
+		Stripe stripe = stripe(hash);
+		
+		synchronized(stripe) {
+			if(stripe.find(hash, key) < 0 && stripe.admit(hash)) {
+				stripe.insert(hash, key, value);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of entries
+	 * @return The number of entries
+	 */
+	int size() {
+		
+		int size = 0;
+		for(Stripe stripe : stripes) {
+			synchronized(stripe) {
+				size += stripe.size;
+			}
+		}
+		
+		return size;
+		
+	}
+	
+	/**
+	 * Returns the number of evicted entries
+	 * @return The number of evictions
+	 */
+	long evictions() {
+		return evictions.sum();
+	}
+	
+	/**
+	 * Removes all entries (the number of evictions is kept)
+	 */
+	void clear() {
+		for(Stripe stripe : stripes) {
+			synchronized(stripe) {
+				stripe.clear();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the stripe of a hash
+	 * @param hash The hash of a key
+	 * @return The stripe
+	 */
+	private Stripe stripe(int hash) {
+		return stripes[stripeShift == 32 ? 0 : hash >>> stripeShift];
+	}
+	
+	/**
+	 * A part of the table with its own lock: an open addressing table and the frequencies of its keys
+	 */
+	private static final class Stripe {
+		
+		/**
+		 * The keys, hashes and values of the entries (a slot is empty if its key is <code>null</code>)
+		 */
+		private final Object[] keys;
+		private final int[] hashes;
+		private final long[] values;
+		private final int mask;
+		
+		/**
+		 * The maximum and the current number of entries
+		 */
+		private final int capacity;
+		private int size = 0;
+		
+		/**
+		 * The frequencies of the keys
+		 */
+		private final FrequencySketch sketch;
+		
+		/**
+		 * The state of the random numbers that select the sampled entries
+		 */
+		private int random = 0x2545f491;
+		
+		/**
+		 * The number of evicted entries of the table
+		 */
+		private final LongAdder evictions;
+		
+		/**
+		 * Creates an empty stripe
+		 * @param capacity The maximum number of entries
+		 * @param evictions The number of evicted entries of the table
+		 */
+		Stripe(int capacity, LongAdder evictions) {
+			
+			this.capacity = capacity;
+			this.evictions = evictions;
+			int length = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) << 1;
+			
+			keys = new Object[length];
+			hashes = new int[length];
+			values = new long[length];
+			mask = length - 1;
+			sketch = new FrequencySketch(capacity);
+			
+		}
+		
+		/**
+		 * Finds the slot of a key
+		 * @param hash The hash of the key
+		 * @param key The key
+		 * @return The slot or <code>-1</code> if the key is not contained
+		 */
+		int find(int hash, Object key) {
+			
+			for(int i = hash & mask; keys[i] != null; i = (i + 1) & mask) {
+				if(hashes[i] == hash && key.equals(keys[i])) {
+					return i;
+				}
+			}
+			
+			return -1;
+			
+		}
+		
+		/**
+		 * Makes room for a new key if it is used more frequently than the least frequent of some sampled entries
+		 * @param hash The hash of the new key
+		 * @return True if the key may be inserted
+		 */
+		boolean admit(int hash) {
+			
+			if(size < capacity) {
+				return true;
+			}
+			
+			// Sample some entries and pick the least frequent one
+			int victim = -1, victimFrequency = Integer.MAX_VALUE;
+			for(int i = 0; i < Math.min(EVICTION_SAMPLE, size); i++) {
+				
+				random ^= random << 13;
+				random ^= random >>> 17;
+				random ^= random << 5;
+				
+				int slot = random & mask;
+				while(keys[slot] == null) {
+					slot = (slot + 1) & mask;
+				}
+				
+				int frequency = sketch.frequency(hashes[slot]);
+				if(frequency < victimFrequency) {
+					victim = slot;
+					victimFrequency = frequency;
+				}
+				
+			}
+			
+			if(sketch.frequency(hash) <= victimFrequency) {
+				return false;
+			}
+			
+			remove(victim);
+			evictions.increment();
+			
+			return true;
+			
+		}
+		
+		/**
+		 * Inserts a key that is not contained yet (there must be room for it)
+		 * @param hash The hash of the key
+		 * @param key The key
+		 * @param value The value
+		 */
+		void insert(int hash, Object key, long value) {
+			
+			int i = hash & mask;
+			while(keys[i] != null) {
+				i = (i + 1) & mask;
+			}
+			
+			keys[i] = key;
+			hashes[i] = hash;
+			values[i] = value;
+			size++;
+			
+		}
+		
+		/**
+		 * Removes the entry of a slot and shifts the following entries of the probe sequence back
+		 * @param slot The slot
+		 */
+		void remove(int slot) {
+			
+			int i = slot;
+			
+			for(int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+				
+				// Move the entry unless its home slot lies cyclically between the gap and itself
+				int home = hashes[j] & mask;
+				if(i <= j ? (i < home && home <= j) : (i < home || home <= j)) {
+					continue;
+				}
+				
+				keys[i] = keys[j];
+				hashes[i] = hashes[j];
+				values[i] = values[j];
+				i = j;
+				
+			}
+			
+			keys[i] = null;
+			size--;
+			
+		}
+		
+		/**
+		 * Removes all entries
+		 */
+		void clear() {
+			
+			for(int i = 0; i < keys.length; i++) {
+				keys[i] = null;
+			}
+			size = 0;
+			
+		}
+		
+	}
+
+}
@@ -0,0 +1,296 @@
+/*
+ * jLevenshtein: An extended Damerau-Levenshtein distance implementation
+ * 
+ * Copyright (C) 2010 Rafael W.
+ * 
+ * This file is part of jLevenshtein on sourceforge.net
+ *
+ * jLevenshtein is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * jLevenshtein is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jLevenshtein. If not, see http://www.gnu.org/licenses/.
+ *
+ */
+package net.sourceforge.jlevenshtein;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A bounded cache of the results of single word comparisons that is shared by all sentence comparisons of the 
+ * <code>Levenshtein</code> objects it is set on (see {@link Levenshtein#setWordCache(WordPairCache)}). If a 
+ * corpus uses a limited vocabulary, the same word pairs recur in many sentence comparisons and their distances are 
+ * computed only once.</p>
+ * 
+ * <p>Every word is interned once and identified by a number. An entry is keyed by the fingerprint of the 
+ * configuration (see {@link LevenshteinConfig}) and the numbers of both words, and keeps the distance and the index 
+ * of the pair as primitives. Once the vocabulary is full, pairs of new words are not cached. The entries are spread 
+ * over independently locked stripes, full stripes evict the least frequently used of some sampled entries if the new 
+ * pair is used more frequently (TinyLFU).</p>
+ * 
+ * <p>This class is thread safe. Only comparisons without detailed results use the cache, since detailed results 
+ * need the Levenshtein matrices of the words.</p>
+ * @author Rafael W.
+ * @version 0.1
+ * @see CompareCache
+ * @see CacheStats
+ */
+public class WordPairCache {
+	
+	/**
+	 * The result of a lookup that found no entry (not the bits of any two floats, since NaN is canonical)
+	 */
+	static final long MISSING = StripedTable.MISSING;
+	
+	/**
+	 * The minimal number of entries per stripe
+	 */
+	private static final int STRIPE_ENTRIES = 64;
+	
+	/**
+	 * The numbers of the interned words and the maximum number of words
+	 */
+	private final ConcurrentHashMap<String, Integer> wordIDs = new ConcurrentHashMap<String, Integer>();
+	private final AtomicInteger nextWordID = new AtomicInteger();
+	private final int maximumWords;
+	
+	/**
+	 * The packed results of the word pairs
+	 */
+	private final StripedTable<Key> table;
+	
+	/**
+	 * The statistics
+	 */
+	private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+	
+	/**
+	 * Creates a cache whose vocabulary is as large as the number of its entries
+	 * @param maximumSize The maximum number of word pairs
+	 * @throws IllegalArgumentException An exception that indicates that the maximum size is not positive
+	 */
+	public WordPairCache(int maximumSize) throws IllegalArgumentException {
+		this(maximumSize, maximumSize);
+	}
+	
+	/**
+	 * Creates a cache
+	 * @param maximumSize The maximum number of word pairs
+	 * @param maximumWords The maximum number of interned words
+	 * @throws IllegalArgumentException An exception that indicates that a maximum is not positive
+	 */
+	public WordPairCache(int maximumSize, int maximumWords) throws IllegalArgumentException {
+		
+		if(maximumSize < 1 || maximumWords < 1) {
+			throw new IllegalArgumentException("The cache must be able to keep at least one pair and one word.");
+		}
+		
+		this.maximumWords = maximumWords;
+		table = new StripedTable<Key>(maximumSize, STRIPE_ENTRIES);
+		
+	}
+	
+	/**
+	 * Returns the statistics of this cache
+	 * @return The current statistics
+	 */
+	public CacheStats stats() {
+		return new CacheStats(hits.sum(), misses.sum(), table.evictions(), 0L, size());
+	}
+	
+	/**
+	 * Returns the number of cached word pairs
+	 * @return The number of entries
+	 */
+	public int size() {
+		return table.size();
+	}
+	
+	/**
+	 * Returns the number of interned words
+	 * @return The size of the vocabulary
+	 */
+	public int words() {
+		return Math.min(nextWordID.get(), maximumWords);
+	}
+	
+	/**
+	 * Removes all cached pairs (the vocabulary and the statistics are kept)
+	 */
+	public void clear() {
+		table.clear();
+	}
+	
+	/**
+	 * Returns the numbers of some words, interning the words that are new while the vocabulary is not full
+	 * @param words The words
+	 * @return The number of every word or <code>-1</code> if the word is not interned
+	 */
+	int[] intern(String[] words) {
+		
+		int[] ids = new int[words.length];
+		
+		for(int i = 0; i < words.length; i++) {
+			
+			Integer id = wordIDs.get(words[i]);
+			
+			if(id == null && nextWordID.get() < maximumWords) {
+				
+				// The number is reserved before the word is added, concurrent words beyond the maximum are dropped
+				int newID = nextWordID.getAndIncrement();
+				if(newID < maximumWords) {
+					Integer previous = wordIDs.putIfAbsent(words[i], newID);
+					id = previous != null ? previous : Integer.valueOf(newID);
+				}
+				
+			}
+			
+			ids[i] = id != null ? id.intValue() : -1;
+			
+		}
+		
+		return ids;
+		
+	}
+	
+	/**
+	 * Looks up the result of a word pair
+	 * @param fingerprint The fingerprint of the configuration
+	 * @param firstID The number of the first word
+	 * @param secondID The number of the second word
+	 * @return The bits of the distance (high half) and of the index (low half) or {@link #MISSING}
+	 */
+	long find(long fingerprint, int firstID, int secondID) {
+		
+		long pair = ((long)firstID << 32) | secondID;
+		int hash = hash(fingerprint, pair);
+		
+		long value = table.get(hash, new Key(hash, fingerprint, pair));
+		if(value != MISSING) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+		
+		return value;
+		
+	}
+	
+	/**
+	 * Stores the result of a word pair (if it is admitted)
+	 * @param fingerprint The fingerprint of the configuration
+	 * @param firstID The number of the first word
+	 * @param secondID The number of the second word
+	 * @param distance The distance of the words
+	 * @param index The index of the words
+	 */
+	void put(long fingerprint, int firstID, int secondID, float distance, float index) {
+		
+		long pair = ((long)firstID << 32) | secondID;
+		int hash = hash(fingerprint, pair);
+		table.put(hash, new Key(hash, fingerprint, pair), pack(distance, index));
+		
+	}
+	
+	/**
+	 * Packs the result of a word pair into one value
+	 * @param distance The distance of the words
+	 * @param index The index of the words
+	 * @return The bits of the distance (high half) and of the index (low half)
+	 */
+	static long pack(float distance, float index) {
+		return ((long)Float.floatToIntBits(distance) << 32) | (Float.floatToIntBits(index) & 0xffffffffL);
+	}
+	
+	/**
+	 * Returns the distance of a packed result
+	 * @param value The result of {@link #find(long, int, int)}
+	 * @return The distance
+	 */
+	static float distance(long value) {
+		return Float.intBitsToFloat((int)(value >>> 32));
+	}
+	
+	/**
+	 * Returns the index of a packed result
+	 * @param value The result of {@link #find(long, int, int)}
+	 * @return The index
+	 */
+	static float index(long value) {
+		return Float.intBitsToFloat((int)value);
+	}
+	
+	/**
+	 * Computes the hash of a key
+	 * @param fingerprint The fingerprint of the configuration
+	 * @param pair The numbers of both words
+	 * @return The hash
+	 */
+	private static int hash(long fingerprint, long pair) {
+		
+		long h = fingerprint ^ (pair * 0x9e3779b97f4a7c15L);
+		h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+		h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		
+		return (int)(h ^ (h >>> 33));
+		
+	}
+	
+	/**
+	 * The key of a word pair
+	 */
+	private static final class Key {
+		
+		/**
+		 * The hash of the key
+		 */
+		private final int hash;
+		
+		/**
+		 * The fingerprint of the configuration and the numbers of both words
+		 */
+		private final long fingerprint, pair;
+		
+		/**
+		 * Basic constructor
+		 * @param hash The hash of the key
+		 * @param fingerprint The fingerprint of the configuration
+		 * @param pair The numbers of both words
+		 */
+		Key(int hash, long fingerprint, long pair) {
+			
+			this.hash = hash;
+			this.fingerprint = fingerprint;
+			this.pair = pair;
+			
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object object) {
+			
+			if(object instanceof Key == false) {
+				return false;
+			}
+			
+			Key key = (Key)object;
+			return pair == key.pair && fingerprint == key.fingerprint;
+			
+		}
+		
+	}
+
+}
@@ -1,7 +1,21 @@
 
 
+import net.sourceforge.jlevenshtein.BKTreeTest;
 import net.sourceforge.jlevenshtein.ComparedStringsTest;
+import net.sourceforge.jlevenshtein.InputNormalizerTest;
+import net.sourceforge.jlevenshtein.LevenshteinSearcherTest;
 import net.sourceforge.jlevenshtein.LevenshteinTest;
+import net.sourceforge.jlevenshtein.LevenshteinTrieTest;
+import net.sourceforge.jlevenshtein.QGramIndexTest;
+import net.sourceforge.jlevenshtein.DeletionIndexTest;
+import net.sourceforge.jlevenshtein.PhoneticBlockingIndexTest;
+import net.sourceforge.jlevenshtein.DedupeEngineTest;
+import net.sourceforge.jlevenshtein.LongSpillSorterTest;
+import net.sourceforge.jlevenshtein.RecordComparatorTest;
+import net.sourceforge.jlevenshtein.FuzzyJoinTest;
+import net.sourceforge.jlevenshtein.LevenshteinExecutorTest;
+import net.sourceforge.jlevenshtein.CompareCacheTest;
+import net.sourceforge.jlevenshtein.WordPairCacheTest;
 
 import org.junit.runner.JUnitCore;
 import org.junit.runner.RunWith;
@@ -10,8 +24,22 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+	BKTreeTest.class,
 	ComparedStringsTest.class,
-	LevenshteinTest.class
+	InputNormalizerTest.class,
+	LevenshteinSearcherTest.class,
+	LevenshteinTest.class,
+	LevenshteinTrieTest.class,
+	QGramIndexTest.class,
+	DeletionIndexTest.class,
+	PhoneticBlockingIndexTest.class,
+	DedupeEngineTest.class,
+	LongSpillSorterTest.class,
+	RecordComparatorTest.class,
+	FuzzyJoinTest.class,
+	LevenshteinExecutorTest.class,
+	CompareCacheTest.class,
+	WordPairCacheTest.class
 })
 public class TestSuite {
 
@@ -0,0 +1,110 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BKTreeTest {
+	
+	private static final RandomWords WORDS = new RandomWords("", 1, 8, "abcd", 0);
+	
+	private static Levenshtein metric() {
+		return new Levenshtein(LevFlag.ABSOLUTE, LevFlag.TREAT_AS_ONE_WORD, LevFlag.DISALLOW_SWAP, LevFlag.IGNORE_CASE);
+	}
+
+	@Test
+	public void search_test() {
+		try
+		{
+			List<String> dictionary = WORDS.create(new Random(3), 1000);
+			Levenshtein ls = metric();
+			BKTree tree = new BKTree(dictionary, ls);
+			Assert.assertEquals(1000, tree.size());
+			Assert.assertEquals(dictionary.get(42), tree.getEntry(42));
+			
+			// The results equal a full scan
+			for(String query : WORDS.create(new Random(4), 20)) {
+				
+				float[] distances = ls.compareAll(query, dictionary);
+				List<SearchHit> hits = tree.search(query, 2f);
+				
+				int expected = 0;
+				for(int i = 0; i < distances.length; i++) {
+					if(distances[i] <= 2f) {
+						expected++;
+					}
+				}
+				Assert.assertEquals(expected, hits.size());
+				
+				for(SearchHit hit : hits) {
+					Assert.assertEquals(distances[hit.dictionaryID()], hit.distance(), 0f);
+					Assert.assertEquals(dictionary.get(hit.dictionaryID()), hit.getEntry());
+				}
+				
+				// The nearest entries equal the results of a searcher
+				List<SearchHit> nearest = tree.nearest(query, 5);
+				List<SearchHit> topK = new LevenshteinSearcher(dictionary, ls).topK(query, 5);
+				for(int i = 0; i < 5; i++) {
+					Assert.assertEquals(topK.get(i).dictionaryID(), nearest.get(i).dictionaryID());
+					Assert.assertEquals(topK.get(i).index(), nearest.get(i).index(), 0f);
+				}
+				
+			}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void metric_test() {
+		
+		// Swaps do not fulfil the triangle inequality
+		try {
+			new BKTree(new Levenshtein(LevFlag.ABSOLUTE, LevFlag.TREAT_AS_ONE_WORD, LevFlag.IGNORE_CASE));
+			fail("Expected IllegalArgumentException");
+		} catch(IllegalArgumentException e) {}
+		
+		try {
+			Levenshtein ls = metric();
+			ls.setCost(0f, Levenshtein.CHAR_INDEL);
+			new BKTree(ls);
+			fail("Expected IllegalArgumentException");
+		} catch(IllegalArgumentException e) {}
+		
+	}
+	
+	@Test
+	public void save_test() {
+		try
+		{
+			List<String> dictionary = WORDS.create(new Random(5), 200);
+			BKTree tree = new BKTree(dictionary, metric());
+			
+			File file = File.createTempFile("bktree", ".dat");
+			file.deleteOnExit();
+			tree.save(file);
+			
+			BKTree loaded = BKTree.load(file);
+			Assert.assertEquals(200, loaded.size());
+			Assert.assertEquals(tree.search("abcd", 1.5f).size(), loaded.search("abcd", 1.5f).size());
+			Assert.assertEquals(tree.nearest("abcd", 1).get(0).dictionaryID(), loaded.nearest("abcd", 1).get(0).dictionaryID());
+			
+			loaded.add("abcd");
+			Assert.assertEquals(0f, loaded.nearest("abcd", 1).get(0).distance(), 0f);
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
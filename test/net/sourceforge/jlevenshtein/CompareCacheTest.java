@@ -0,0 +1,155 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompareCacheTest {
+	
+	@Test
+	public void cache_test() {
+		try
+		{
+			Levenshtein ls = new Levenshtein();
+			CompareCache cache = new CompareCache(ls, 100);
+			
+			Assert.assertEquals(ls.compare("Hallo Welt", "hello world"), cache.compare("Hallo Welt", "hello world"), 0f);
+			Assert.assertEquals(ls.compare("Hallo Welt", "hello world"), cache.compare("Hallo Welt", "hello world"), 0f);
+			Assert.assertEquals(1, cache.stats().hits());
+			Assert.assertEquals(1, cache.stats().misses());
+			Assert.assertEquals(1, cache.size());
+			
+			// Sentences are not symmetric, both directions are cached separately
+			Assert.assertEquals(ls.compare("hello world", "Hallo Welt"), cache.compare("hello world", "Hallo Welt"), 0f);
+			Assert.assertEquals(2, cache.stats().misses());
+			
+			// Single words share one entry for both directions
+			ls.setFlag(LevFlag.TREAT_AS_ONE_WORD);
+			Assert.assertEquals(ls.compare("Hallo", "hello"), cache.compare("Hallo", "hello"), 0f);
+			Assert.assertEquals(ls.compare("hello", "Hallo"), cache.compare("hello", "Hallo"), 0f);
+			Assert.assertEquals(2, cache.stats().hits());
+			
+			// Another configuration has another fingerprint
+			ls.setCost(5f, Levenshtein.CHAR_SUBSTITUTION);
+			Assert.assertEquals(ls.compare("Hallo", "hello"), cache.compare("Hallo", "hello"), 0f);
+			Assert.assertEquals(4, cache.stats().misses());
+			Assert.assertEquals(4, cache.size());
+			
+			// Equal configurations share their entries
+			ls.setCost(2f, Levenshtein.CHAR_SUBSTITUTION);
+			cache.compare("hello", "Hallo");
+			Assert.assertEquals(3, cache.stats().hits());
+			
+			cache.clear();
+			Assert.assertEquals(0, cache.size());
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void eviction_test() {
+		try
+		{
+			Levenshtein ls = new Levenshtein(LevFlag.TREAT_AS_ONE_WORD);
+			CompareCache cache = new CompareCache(ls, 64);
+			Random random = new Random(7);
+			
+			// Frequent pairs survive a flood of pairs that are seen once
+			for(int i = 0; i < 2000; i++) {
+				Assert.assertEquals(ls.compare("hot" + (i % 4), "word"), cache.compare("hot" + (i % 4), "word"), 0f);
+				String rare = Integer.toString(random.nextInt(1 << 30), 36);
+				Assert.assertEquals(ls.compare(rare, "word"), cache.compare(rare, "word"), 0f);
+				Assert.assertTrue(cache.size() <= 64);
+			}
+			
+			long hits = cache.stats().hits();
+			for(int i = 0; i < 4; i++) {
+				cache.compare("hot" + i, "word");
+			}
+			Assert.assertEquals(hits + 4, cache.stats().hits());
+			Assert.assertTrue(cache.stats().evictions() > 0);
+			Assert.assertTrue(cache.stats().hitRate() > 0.45);
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void coalescing_test() {
+		try
+		{
+			StringBuilder first = new StringBuilder(), second = new StringBuilder();
+			for(int i = 0; i < 150; i++) {
+				first.append("word").append(i).append(' ');
+				second.append("wort").append(149 - i).append(' ');
+			}
+			
+			final Levenshtein ls = new Levenshtein();
+			final String firstInput = first.toString(), secondInput = second.toString();
+			final float expected = ls.compare(firstInput, secondInput);
+			
+			for(final long timeout : new long[] {10000, 1, 0}) {
+				
+				final CompareCache cache = new CompareCache(ls, 100);
+				cache.setCoalescingTimeout(timeout, TimeUnit.MILLISECONDS);
+				Assert.assertEquals(timeout, cache.getCoalescingTimeout(TimeUnit.MILLISECONDS));
+				
+				final CountDownLatch start = new CountDownLatch(1);
+				final AtomicBoolean wrong = new AtomicBoolean();
+				Thread[] threads = new Thread[8];
+				
+				for(int i = 0; i < threads.length; i++) {
+					threads[i] = new Thread() {
+						@Override
+						public void run() {
+							try {
+								start.await();
+								if(cache.compare(firstInput, secondInput) != expected) {
+									wrong.set(true);
+								}
+							} catch(InterruptedException e) {
+								wrong.set(true);
+							}
+						}
+					};
+					threads[i].start();
+				}
+				
+				start.countDown();
+				for(Thread thread : threads) {
+					thread.join();
+				}
+				
+				// Only the first caller computes while the others wait long enough
+				CacheStats stats = cache.stats();
+				Assert.assertFalse(wrong.get());
+				Assert.assertEquals(threads.length, stats.hits() + stats.misses());
+				if(timeout == 10000) {
+					Assert.assertEquals(1, stats.misses() - stats.coalesced());
+				} else if(timeout == 0) {
+					Assert.assertEquals(0, stats.coalesced());
+				}
+				
+			}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
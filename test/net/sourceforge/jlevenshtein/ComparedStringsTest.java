@@ -275,4 +275,230 @@ public class ComparedStringsTest {
 				
 	}
 	
-}
\ No newline at end of file
+	@Test
+	public void detailLevel_test() {
+		try
+		{
+		Levenshtein ls = new Levenshtein();
+		
+		String firstString = "A good man is hard to find.";
+		String secondString = "A house is not a home.";
+		ComparedStrings all = ls.compareDetailed(firstString, secondString);
+		ComparedStrings matched = ls.compareDetailed(firstString, secondString, DetailLevel.MATCHED);
+		ComparedStrings scores = ls.compareDetailed(firstString, secondString, DetailLevel.SCORES);
+		
+		Assert.assertEquals(DetailLevel.ALL, all.detailLevel());
+		Assert.assertEquals(DetailLevel.MATCHED, matched.detailLevel());
+		Assert.assertEquals(DetailLevel.SCORES, scores.detailLevel());
+		Assert.assertEquals(all.index(), scores.index(), 0f);
+		Assert.assertEquals(all.matchFirst(1), scores.matchFirst(1));
+		
+		Assert.assertEquals(all.distance(1, all.matchFirst(1)), matched.distance(1, matched.matchFirst(1)), 0f);
+		Assert.assertNull(matched.getLevenshteinMatrix(1, 0));
+		Assert.assertNull(scores.getLevenshteinMatrix(1, all.matchFirst(1)));
+		Assert.assertTrue(Float.isNaN(scores.distance(1, all.matchFirst(1))));
+		
+		// Single words keep the same scores without building the matrix up front
+		ComparedStrings wordAll = ls.compareDetailed("kitten", "sitting");
+		ComparedStrings wordScores = ls.compareDetailed("kitten", "sitting", DetailLevel.SCORES);
+		ComparedStrings wordLazy = ls.compareDetailed("kitten", "sitting", DetailLevel.LAZY);
+		Assert.assertEquals(wordAll.index(), wordScores.index(), 0f);
+		Assert.assertEquals(wordAll.index(), wordLazy.index(), 0f);
+		Assert.assertEquals(wordAll.index(0, 0), wordScores.index(0, 0), 0f);
+		Assert.assertNull(wordScores.getLevenshteinMatrix(0, 0));
+		Assert.assertArrayEquals(wordAll.getLevenshteinMatrix(0, 0), wordLazy.getLevenshteinMatrix(0, 0));
+		
+		// Degrade to the lowest level if the matrices do not fit into the budget
+		ls.setMemoryBudget(0);
+		Assert.assertEquals(DetailLevel.SCORES, ls.compareDetailed(firstString, secondString, DetailLevel.SCORES).detailLevel());
+		Assert.assertEquals(DetailLevel.LAZY, ls.compareDetailed(firstString, secondString, DetailLevel.MATCHED).detailLevel());
+		
+	}
+		catch(IndexOutOfBoundsException ex) {
+			
+			fail("Unexpected"+ex.getStackTrace());
+		}
+				
+	}
+	
+	@Test
+	public void lazy_test() {
+		try
+		{
+		Levenshtein ls = new Levenshtein();
+		
+		String firstString = "A house is not a home.";
+		String secondString = "A good man is hard to find.";
+		ComparedStrings all = ls.compareDetailed(firstString, secondString);
+		ComparedStrings lazy = ls.compareDetailed(firstString, secondString, DetailLevel.LAZY);
+		
+		Assert.assertEquals(DetailLevel.LAZY, lazy.detailLevel());
+		Assert.assertEquals(all.index(), lazy.index(), 0f);
+		
+		// Changing the flags must not affect the recomputation
+		ls.setFlag(LevFlag.IGNORE_CASE, LevFlag.DISALLOW_SWAP);
+		
+		for(int i = 0; i <= all.maxIDFirst(); i++) {
+			for(int j = 0; j <= all.maxIDSecond(); j++) {
+				Assert.assertEquals(all.distance(i, j), lazy.distance(i, j), 0f);
+				Assert.assertEquals(all.levenshteinPath(i, j), lazy.levenshteinPath(i, j));
+			}
+		}
+		
+		// A budget that is too small for any matrix falls back to the lazy mode
+		ls.setMemoryBudget(0);
+		Assert.assertEquals(DetailLevel.LAZY, ls.compareDetailed(firstString, secondString).detailLevel());
+		
+	}
+		catch(IndexOutOfBoundsException ex) {
+			
+			fail("Unexpected"+ex.getStackTrace());
+		}
+				
+	}
+
+	@Test
+	public void editPath_test() {
+		try
+		{
+			Levenshtein ls = new Levenshtein(LevFlag.TREAT_AS_ONE_WORD);
+			String[][] pairs = {{"kitten", "sitting"}, {"ab", "ba"}, {"", "abc"}, {"abc", ""}};
+			
+			// The steps of every path (x, y and action) in traversal order
+			int[][][] steps = {
+				{{0, 0, Levenshtein.ACTION_START}, {1, 1, Levenshtein.ACTION_SUBSTITUTE}, {2, 2, Levenshtein.ACTION_REMAIN}, 
+					{3, 3, Levenshtein.ACTION_REMAIN}, {4, 4, Levenshtein.ACTION_REMAIN}, {5, 5, Levenshtein.ACTION_SUBSTITUTE}, 
+					{6, 6, Levenshtein.ACTION_REMAIN}, {7, 6, Levenshtein.ACTION_INSERT}}, 
+				{{0, 0, Levenshtein.ACTION_START}, {2, 2, Levenshtein.ACTION_SWAP}}, 
+				{{0, 0, Levenshtein.ACTION_START}, {1, 0, Levenshtein.ACTION_INSERT}, {2, 0, Levenshtein.ACTION_INSERT}, 
+					{3, 0, Levenshtein.ACTION_INSERT}}, 
+				{{0, 0, Levenshtein.ACTION_START}, {0, 1, Levenshtein.ACTION_DELETE}, {0, 2, Levenshtein.ACTION_DELETE}, 
+					{0, 3, Levenshtein.ACTION_DELETE}}
+			};
+			
+			// The transformations of every path (action, position in the first and in the second word)
+			int[][][] transformations = {
+				{{Levenshtein.ACTION_SUBSTITUTE, 0, 0}, {Levenshtein.ACTION_SUBSTITUTE, 4, 4}, {Levenshtein.ACTION_INSERT, 6, 6}}, 
+				{{Levenshtein.ACTION_SWAP, 0, 1}}, 
+				{{Levenshtein.ACTION_INSERT, 0, 0}, {Levenshtein.ACTION_INSERT, 0, 1}, {Levenshtein.ACTION_INSERT, 0, 2}}, 
+				{{Levenshtein.ACTION_DELETE, 0, -1}, {Levenshtein.ACTION_DELETE, 1, -1}, {Levenshtein.ACTION_DELETE, 2, -1}}
+			};
+			
+			String[][] results = {
+				{"kitten", "sitten", "sittin", "sitting"}, 
+				{"ab", "ba"}, 
+				{"", "a", "ab", "abc"}, 
+				{"abc", "bc", "c", ""}
+			};
+			
+			for(int p = 0; p < pairs.length; p++) {
+				
+				ComparedStrings compared = ls.compareDetailed(pairs[p][0], pairs[p][1]);
+				EditPath path = compared.editPath(0, 0);
+				
+				Assert.assertEquals(steps[p].length, path.size());
+				for(int i = 0; i < path.size(); i++) {
+					Assert.assertEquals(steps[p][i][0], path.x(i));
+					Assert.assertEquals(steps[p][i][1], path.y(i));
+					Assert.assertEquals(steps[p][i][2], path.action(i));
+				}
+				
+				// Both representations yield the expected transformations
+				ComparedStrings.Transformation[][] actuals = {ComparedStrings.editTransformation(path), 
+						ComparedStrings.editTransformation(compared.levenshteinPath(0, 0))};
+				for(ComparedStrings.Transformation[] actual : actuals) {
+					Assert.assertEquals(transformations[p].length, actual.length);
+					for(int i = 0; i < actual.length; i++) {
+						Assert.assertEquals(transformations[p][i][0], actual[i].action);
+						Assert.assertEquals(transformations[p][i][1], actual[i].transformPosition);
+						Assert.assertEquals(transformations[p][i][2], actual[i].insertPosition);
+					}
+				}
+				
+				Assert.assertArrayEquals(results[p], ComparedStrings.resultTransformation(path, pairs[p][0], pairs[p][1]));
+				Assert.assertArrayEquals(results[p], 
+						ComparedStrings.resultTransformation(compared.levenshteinPath(0, 0), pairs[p][0], pairs[p][1]));
+				
+			}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void matrixView_test() {
+		try
+		{
+			Levenshtein ls = new Levenshtein(LevFlag.USE_CASE);
+			
+			// The cells of known matrices (substitutions cost two, insertions, deletions and swaps one)
+			float[][] kitten = {
+				{0, 1, 2, 3, 4, 5, 6, 7}, 
+				{1, 2, 3, 4, 5, 6, 7, 8}, 
+				{2, 3, 2, 3, 4, 5, 6, 7}, 
+				{3, 4, 3, 2, 3, 4, 5, 6}, 
+				{4, 5, 4, 3, 2, 3, 4, 5}, 
+				{5, 6, 5, 4, 3, 4, 5, 6}, 
+				{6, 7, 6, 5, 4, 5, 4, 5}
+			};
+			float[][] swap = {{0, 1, 2}, {1, 2, 1}, {2, 1, 1}};
+			
+			FloatMatrix kittenView = ls.compareDetailed("kitten", "sitting", DetailLevel.ALL).matrixView(0, 0);
+			FloatMatrix swapView = ls.compareDetailed("ab", "ba", DetailLevel.ALL).matrixView(0, 0);
+			float[][][] expectedMatrices = {kitten, swap};
+			FloatMatrix[] views = {kittenView, swapView};
+			for(int m = 0; m < views.length; m++) {
+				float[][] expected = expectedMatrices[m];
+				FloatMatrix view = views[m];
+				Assert.assertEquals(expected.length, view.rows());
+				Assert.assertEquals(expected[0].length, view.columns());
+				for(int k = 0; k < view.rows(); k++) {
+					for(int l = 0; l < view.columns(); l++) {
+						Assert.assertEquals(expected[k][l], view.get(k, l), 0f);
+					}
+				}
+			}
+			Assert.assertEquals(5f, kittenView.distance(), 0f);
+			Assert.assertEquals(1f, swapView.distance(), 0f);
+			
+			String[][] pairs = {{"Hallo Welt", "Welt hallo"}, {"kitten", "sitting"}};
+			
+			for(String[] pair : pairs) {
+				
+				ComparedStrings compared = ls.compareDetailed(pair[0], pair[1], DetailLevel.ALL);
+				
+				for(int i = 0; i <= compared.maxIDFirst(); i++) {
+					for(int j = 0; j <= compared.maxIDSecond(); j++) {
+						
+						// The view and the copied rows hold the same cells
+						FloatMatrix view = compared.matrixView(i, j);
+						float[][] matrix = compared.getLevenshteinMatrix(i, j);
+						Assert.assertEquals(matrix.length, view.rows());
+						Assert.assertEquals(matrix[0].length, view.columns());
+						for(int k = 0; k < view.rows(); k++) {
+							for(int l = 0; l < view.columns(); l++) {
+								Assert.assertEquals(matrix[k][l], view.get(k, l), 0f);
+							}
+						}
+						Assert.assertEquals(compared.distance(i, j), view.distance(), 0f);
+						
+						// The copy does not alter the view
+						matrix[matrix.length - 1][matrix[0].length - 1] = -1f;
+						Assert.assertEquals(compared.distance(i, j), compared.getLevenshteinMatrix(i, j)[matrix.length - 1][matrix[0].length - 1], 0f);
+						
+					}
+				}
+				
+			}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DedupeEngineTest {
+	
+	private static final BlockingIndex FIRST_AND_LAST = new BlockingIndex() {
+		@Override
+		public Collection<String> blockKeys(String record) {
+			return Arrays.asList("F" + record.charAt(0), "L" + record.charAt(record.length() - 1));
+		}
+	};
+	
+	private static List<String> noisyRecords(Random random, int count) {
+		
+		List<String> records = new ArrayList<String>();
+		for(int i = 0; i < count; i++) {
+			
+			StringBuilder word = new StringBuilder();
+			for(int j = 4 + random.nextInt(6); j > 0; j--) {
+				word.append((char)('a' + random.nextInt(8)));
+			}
+			records.add(word.toString());
+			
+			// Copies with a single substitution
+			for(int j = random.nextInt(4); j > 0; j--) {
+				char[] copy = word.toString().toCharArray();
+				copy[random.nextInt(copy.length)] = (char)('a' + random.nextInt(8));
+				records.add(new String(copy));
+			}
+			
+		}
+		Collections.shuffle(records, random);
+		
+		return records;
+		
+	}
+	
+	private static int find(int[] parent, int i) {
+		while(parent[i] != i) {
+			i = parent[i];
+		}
+		return i;
+	}
+
+	@Test
+	public void dedupe_test() {
+		try
+		{
+			List<String> records = noisyRecords(new Random(41), 150);
+			Levenshtein ls = new Levenshtein();
+			
+			// Brute force: all matching pairs that share a block
+			int[] parent = new int[records.size()];
+			for(int i = 0; i < parent.length; i++) {
+				parent[i] = i;
+			}
+			for(int i = 0; i < records.size(); i++) {
+				for(int j = i + 1; j < records.size(); j++) {
+					boolean shared = false;
+					for(String key : FIRST_AND_LAST.blockKeys(records.get(i))) {
+						shared |= FIRST_AND_LAST.blockKeys(records.get(j)).contains(key);
+					}
+					if(shared && ls.compare(records.get(i), records.get(j)) >= 0.8f) {
+						int first = find(parent, i), second = find(parent, j);
+						parent[Math.max(first, second)] = Math.min(first, second);
+					}
+				}
+			}
+			
+			DedupeEngine engine = new DedupeEngine(ls, FIRST_AND_LAST, 0.8f);
+			
+			// The same clusters in memory and with all records and pairs moved to temporary files
+			for(long memoryBudget : new long[] {Runtime.getRuntime().maxMemory() / 4, 0L}) {
+				
+				engine.setMemoryBudget(memoryBudget);
+				int[] clusters = engine.dedupe(records);
+				Assert.assertEquals(records.size(), clusters.length);
+				
+				int count = 0;
+				for(int i = 0; i < clusters.length; i++) {
+					Assert.assertEquals(find(parent, i), clusters[i]);
+					if(clusters[i] == i) {
+						count++;
+					}
+				}
+				Assert.assertTrue(count < records.size());
+				
+			}
+			
+			// Large blocks are skipped
+			engine.setMaxBlockSize(2);
+			int[] clusters = engine.dedupe(records);
+			for(int i = 0; i < clusters.length; i++) {
+				Assert.assertTrue(clusters[i] <= i);
+			}
+			
+			// Phonetic records with phonetic blocks
+			Levenshtein phonetic = new Levenshtein(LevFlag.PHONETIC);
+			PhoneticBlockingIndex blocks = new PhoneticBlockingIndex(Collections.<String>emptyList(), phonetic, 0);
+			clusters = new DedupeEngine(phonetic, blocks, 0.9f).dedupe(Arrays.asList("mAn", "pat", "mIn", "bad", "kat"));
+			Assert.assertArrayEquals(new int[] {0, 1, 0, 1, 4}, clusters);
+			
+			try {
+				new DedupeEngine(ls, null, 0.8f);
+				fail("Expected NullPointerException");
+			} catch(NullPointerException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void collision_test() {
+		try
+		{
+			// The keys "Aa" and "BB" have the same String hash code but must form two blocks of two records
+			BlockingIndex colliding = new BlockingIndex() {
+				@Override
+				public Collection<String> blockKeys(String record) {
+					return Collections.singletonList(record.startsWith("abc") ? "Aa" : "BB");
+				}
+			};
+			Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+			
+			DedupeEngine engine = new DedupeEngine(new Levenshtein(), colliding, 0.7f);
+			engine.setMaxBlockSize(2);
+			Assert.assertArrayEquals(new int[] {0, 1, 0, 1}, engine.dedupe(Arrays.asList("abcd", "wxyz", "abce", "wxyy")));
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
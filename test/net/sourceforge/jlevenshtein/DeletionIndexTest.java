@@ -0,0 +1,85 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeletionIndexTest {
+	
+	private static final RandomWords WORDS = new RandomWords("", 1, 12, "abcdeAB", 25);
+
+	@Test
+	public void search_test() {
+		try
+		{
+			List<String> dictionary = WORDS.create(new Random(31), 2000);
+			List<String> queries = WORDS.create(new Random(32), 15);
+			
+			// Weighted costs with cheap case changes
+			Levenshtein weighted = new Levenshtein(LevFlag.ABSOLUTE);
+			weighted.setCost(1.5f, Levenshtein.CHAR_SWAP_CASE);
+			weighted.setCost(0.25f, Levenshtein.SWAP_PHONETIC);
+			
+			for(Levenshtein ls : Arrays.asList(new Levenshtein(LevFlag.ABSOLUTE), weighted, 
+					new Levenshtein(LevFlag.ABSOLUTE, LevFlag.IGNORE_CASE, LevFlag.DISALLOW_SWAP))) {
+				for(int k = 1; k <= 2; k++) {
+					
+					DeletionIndex index = new DeletionIndex(dictionary, ls, k);
+					Assert.assertEquals(2000, index.size());
+					
+					// The results equal a full scan (exact recall)
+					for(String query : queries) {
+						
+						float[] distances = ls.compareAll(query, dictionary);
+						
+						for(float maxDistance : new float[] {0f, 0.5f, 1f, (float)k}) {
+							
+							List<SearchHit> hits = index.search(query, maxDistance);
+							
+							int expected = 0;
+							for(int i = 0; i < distances.length; i++) {
+								if(distances[i] <= maxDistance) {
+									expected++;
+								}
+							}
+							Assert.assertEquals(expected, hits.size());
+							
+							for(SearchHit hit : hits) {
+								Assert.assertEquals(distances[hit.dictionaryID()], hit.distance(), 0f);
+							}
+							
+						}
+						
+					}
+					
+				}
+			}
+			
+			// Small distances generate few candidates
+			DeletionIndex index = new DeletionIndex(dictionary);
+			Assert.assertTrue(index.candidates("abcdeabcde", 1f).length < dictionary.size() / 10);
+			
+			try {
+				new DeletionIndex(dictionary, new Levenshtein(), 4);
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+			
+			// Distances that need more deletions than indexed are rejected
+			try {
+				index.search("abc", 3f);
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FuzzyJoinTest {
+	
+	private static final RandomWords WORDS = new RandomWords("", 1, 10, "abcdAB", 20);
+	
+	private static class CollectingSink implements JoinSink {
+		
+		private final List<String> pairs = new ArrayList<String>();
+		
+		@Override
+		public boolean accept(long streamedID, String streamedRecord, int indexedID, String indexedRecord, float result) {
+			pairs.add(streamedID + ":" + indexedID + ":" + result);
+			return true;
+		}
+		
+	}
+
+	@Test
+	public void join_test() {
+		try
+		{
+			List<String> indexedSide = WORDS.create(new Random(61), 300);
+			List<String> streamedSide = WORDS.create(new Random(62), 5000);
+			
+			for(Levenshtein ls : Arrays.asList(new Levenshtein(), new Levenshtein(LevFlag.ABSOLUTE))) {
+				
+				float threshold = ls.compare("ab", "ab") == 0f ? 2f : 0.75f;
+				FuzzyJoin join = new FuzzyJoin(indexedSide, ls);
+				Assert.assertEquals(300, join.size());
+				
+				// The pairs equal nested loops in the same order
+				List<String> expected = new ArrayList<String>();
+				for(int i = 0; i < streamedSide.size(); i++) {
+					float[] results = ls.compareAll(streamedSide.get(i), indexedSide, threshold);
+					for(int j = 0; j < results.length; j++) {
+						if(Float.isNaN(results[j]) == false) {
+							expected.add(i + ":" + j + ":" + results[j]);
+						}
+					}
+				}
+				Assert.assertTrue(expected.size() > 100);
+				
+				CollectingSink sink = new CollectingSink();
+				Assert.assertEquals(expected.size(), join.join(streamedSide, threshold, sink));
+				Assert.assertEquals(expected, sink.pairs);
+				
+				sink = new CollectingSink();
+				join.join(streamedSide.stream(), threshold, sink);
+				Assert.assertEquals(expected, sink.pairs);
+				
+			}
+			
+			// Lines of a file
+			File file = File.createTempFile("jlevenshtein", ".test");
+			file.deleteOnExit();
+			Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+			for(String record : streamedSide.subList(0, 100)) {
+				writer.write(record + "\n");
+			}
+			writer.close();
+			
+			FuzzyJoin join = new FuzzyJoin(indexedSide);
+			CollectingSink fileSink = new CollectingSink(), listSink = new CollectingSink();
+			join.join(file, 0.8f, fileSink);
+			join.join(streamedSide.subList(0, 100), 0.8f, listSink);
+			Assert.assertEquals(listSink.pairs, fileSink.pairs);
+			file.delete();
+			
+			// The sink can stop the join
+			Assert.assertEquals(1L, join.join(streamedSide, 0.5f, new JoinSink() {
+				@Override
+				public boolean accept(long streamedID, String streamedRecord, int indexedID, String indexedRecord, float result) {
+					return false;
+				}
+			}));
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+package net.sourceforge.jlevenshtein;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InputNormalizerTest {
+	
+	private static String[] regexWords(String input, boolean foldCase, boolean stripSpecial, boolean phonetic, boolean oneWord) {
+		
+		String temp = foldCase ? input.toLowerCase() : input;
+		if(stripSpecial) {
+			temp = temp.replaceAll(phonetic ? "[0\\W&&\\S&&[^:\\\\}@&`?]]" : "[\\W&&\\S]", "");
+		}
+		
+		return oneWord ? new String[] {temp.trim().replaceAll("\\s+", " ")} : temp.trim().split("\\s+");
+		
+	}
+
+	@Test
+	public void regexEquivalence_test() {
+		
+		String alphabet = "aAzZ09_0 \t\n\u000B\f\r\u0001\u001F:\\}@&`?!%.-\u00E4\u00D6\u00DF\u0130\u03A3\u00A0\uD83D\uDE00";
+		String[] samples = {"", " ", "  \u0001 ", "A bird! in %the% han&&d (is worth) two in the bu$h", 
+				"gudmO:nIN mAn", "g@mOn@n ma:\\n", " \u0001ab \u0001 cd\u0001 ", "ab\u0001", "\u0001", "0 0"};
+		
+		InputNormalizer normalizer = new InputNormalizer();
+		Random random = new Random(42);
+		
+		for(int n = 0; n < 4000; n++) {
+			
+			String input;
+			if(n < samples.length) {
+				input = samples[n];
+			} else {
+				char[] chars = new char[random.nextInt(12)];
+				for(int i = 0; i < chars.length; i++) {
+					chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+				}
+				input = new String(chars);
+			}
+			
+			for(int flags = 0; flags < 16; flags++) {
+				
+				boolean foldCase = (flags & 1) != 0, stripSpecial = (flags & 2) != 0, phonetic = (flags & 4) != 0, 
+						oneWord = (flags & 8) != 0;
+				
+				String[] expected = regexWords(input, foldCase, stripSpecial, phonetic, oneWord);
+				String[] result = normalizer.normalize(input, foldCase, stripSpecial, phonetic, oneWord).toWords();
+				
+				Assert.assertTrue("Input: '" + input + "' flags: " + flags + " expected " + Arrays.toString(expected) + 
+						" but was " + Arrays.toString(result), Arrays.equals(expected, result));
+				
+			}
+			
+		}
+		
+	}
+
+}
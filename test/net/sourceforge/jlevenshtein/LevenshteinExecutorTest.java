@@ -0,0 +1,173 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LevenshteinExecutorTest {
+	
+	@Test
+	public void async_test() {
+		try
+		{
+			Levenshtein ls = new Levenshtein();
+			LevenshteinExecutor executor = new LevenshteinExecutor(ls, 2, 4, LevenshteinExecutor.OverloadPolicy.BLOCK);
+			List<String> candidates = Arrays.asList("hello", "Hello world", "Halo", "xyz", "world hello");
+			
+			Assert.assertEquals(ls.compare("Hallo", "hello"), executor.compareAsync("Hallo", "hello").get(), 0f);
+			
+			float[] results = executor.compareAsync("Hallo welt", candidates).get();
+			for(int i = 0; i < candidates.size(); i++) {
+				Assert.assertEquals(ls.compare("Hallo welt", candidates.get(i)), results[i], 0f);
+			}
+			
+			results = executor.compareAsync(candidates, Arrays.asList("hallo", "world", "Halo", "xy", "hello world")).get();
+			Assert.assertEquals(ls.compare("Halo", "Halo"), results[2], 0f);
+			Assert.assertEquals(ls.compare("world hello", "hello world"), results[4], 0f);
+			
+			// Many submissions are held back until a slot is free
+			List<CompletableFuture<Float>> futures = new ArrayList<CompletableFuture<Float>>();
+			for(int i = 0; i < 100; i++) {
+				futures.add(executor.compareAsync("Hallo" + i, "hello"));
+			}
+			for(int i = 0; i < 100; i++) {
+				Assert.assertEquals(ls.compare("Hallo" + i, "hello"), futures.get(i).get(), 0f);
+			}
+			
+			// Later submissions use the changed configuration
+			ls.setFlag(LevFlag.ABSOLUTE);
+			Assert.assertEquals(ls.compare("Hallo", "hello"), executor.compareAsync("Hallo", "hello").get(), 0f);
+			
+			// Failures complete the future
+			try {
+				new LevenshteinExecutor(new Levenshtein(LevFlag.PHONETIC)).compareAsync("a", "\u00e4").get();
+				fail("Expected ExecutionException");
+			} catch(ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof PhoneticException);
+			}
+			
+			executor.close();
+			try {
+				executor.compareAsync("Hallo", "hello");
+				fail("Expected RejectedExecutionException");
+			} catch(RejectedExecutionException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			ex.printStackTrace();			ex.printStackTrace();			ex.printStackTrace(System.out);			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void reject_test() {
+		try
+		{
+			LevenshteinExecutor executor = new LevenshteinExecutor(new Levenshtein(), 1, 0, LevenshteinExecutor.OverloadPolicy.REJECT);
+			
+			// The only slot is occupied until the latch is released
+			final CountDownLatch release = new CountDownLatch(1);
+			CompletableFuture<Boolean> blocked = executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws InterruptedException {
+					release.await();
+					return Boolean.TRUE;
+				}
+			});
+			try {
+				executor.compareAsync("Hallo", "hello");
+				fail("Expected RejectedExecutionException");
+			} catch(RejectedExecutionException e) {}
+			Assert.assertEquals(1, executor.pending());
+			
+			release.countDown();
+			Assert.assertTrue(blocked.get());
+			Assert.assertEquals(0, executor.pending());
+			Assert.assertEquals(1f, executor.compareAsync("Hallo", "Hallo").get(), 0f);
+			executor.close();
+		}
+		
+		catch(Exception ex)
+		{
+			ex.printStackTrace();			ex.printStackTrace();			ex.printStackTrace(System.out);			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void offload_test() {
+		try
+		{
+			Levenshtein ls = new Levenshtein();
+			LevenshteinExecutor executor = new LevenshteinExecutor(ls, 1, 1, LevenshteinExecutor.OverloadPolicy.BLOCK);
+			
+			// Platform threads always compute inline
+			Assert.assertFalse(LevenshteinExecutor.isVirtual(Thread.currentThread()));
+			executor.setOffloadThreshold(1);
+			Assert.assertEquals(ls.compare("Hallo Welt", "hello world"), executor.compare("Hallo Welt", "hello world"), 0f);
+			Assert.assertEquals(0, executor.pending());
+			
+			// Comparisons of a virtual caller are computed by the worker
+			executor.virtualCaller = Boolean.TRUE;
+			Assert.assertEquals(ls.compare("Hallo Welt", "hello world"), executor.compare("Hallo Welt", "hello world"), 0f);
+			Assert.assertEquals(0, executor.pending());
+			
+			// While the only worker and the queue are occupied, only the comparisons below the threshold succeed
+			LevenshteinExecutor rejecting = new LevenshteinExecutor(ls, 1, 0, LevenshteinExecutor.OverloadPolicy.REJECT);
+			rejecting.virtualCaller = Boolean.TRUE;
+			rejecting.setOffloadThreshold(30);
+			final CountDownLatch release = new CountDownLatch(1);
+			CompletableFuture<Boolean> blocked = rejecting.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws InterruptedException {
+					release.await();
+					return Boolean.TRUE;
+				}
+			});
+			try {
+				rejecting.compare("Hallo Welt", "hello world");
+				fail("Expected RejectedExecutionException");
+			} catch(RejectedExecutionException e) {}
+			Assert.assertEquals(ls.compare("Hallo", "hello"), rejecting.compare("Hallo", "hello"), 0f);
+			rejecting.virtualCaller = Boolean.FALSE;
+			Assert.assertEquals(ls.compare("Hallo Welt", "hello world"), rejecting.compare("Hallo Welt", "hello world"), 0f);
+			release.countDown();
+			Assert.assertTrue(blocked.get());
+			rejecting.close();
+			
+			// Failures of the worker are thrown as they are
+			LevenshteinExecutor phonetic = new LevenshteinExecutor(new Levenshtein(LevFlag.PHONETIC), 1, 0, 
+					LevenshteinExecutor.OverloadPolicy.BLOCK);
+			phonetic.virtualCaller = Boolean.TRUE;
+			phonetic.setOffloadThreshold(1);
+			try {
+				phonetic.compare("a", "\u00e4");
+				fail("Expected PhoneticException");
+			} catch(PhoneticException e) {}
+			phonetic.close();
+			
+			executor.setOffloadThreshold(0);
+			Assert.assertEquals(0, executor.getOffloadThreshold());
+			try {
+				executor.setOffloadThreshold(-1);
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+			executor.close();
+		}
+		
+		catch(Exception ex)
+		{
+			ex.printStackTrace();			ex.printStackTrace();			ex.printStackTrace(System.out);			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LevenshteinSearcherTest {
+	
+	private static final RandomWords WORDS = new RandomWords("", 1, 8, "abAB", 10);
+
+	@Test
+	public void topK_test() {
+		try
+		{
+			List<String> dictionary = WORDS.create(new Random(7), 500);
+			
+			for(boolean absolute : new boolean[] {false, true}) {
+				
+				Levenshtein ls = absolute ? new Levenshtein(LevFlag.ABSOLUTE) : new Levenshtein();
+				LevenshteinSearcher searcher = new LevenshteinSearcher(dictionary, ls);
+				Assert.assertEquals(500, searcher.size());
+				
+				// The results equal a full scan
+				for(String query : Arrays.asList("abBA", "b", "aaBBab", "ab ab")) {
+					
+					List<SearchHit> hits = searcher.topK(query, 5);
+					Assert.assertEquals(5, hits.size());
+					
+					float[] results = ls.compareAll(query, dictionary);
+					float[] sorted = results.clone();
+					Arrays.sort(sorted);
+					
+					for(int i = 0; i < hits.size(); i++) {
+						SearchHit hit = hits.get(i);
+						Assert.assertEquals(absolute ? sorted[i] : sorted[sorted.length - 1 - i], 
+								absolute ? hit.distance() : hit.index(), 0f);
+						Assert.assertEquals(results[hit.dictionaryID()], absolute ? hit.distance() : hit.index(), 0f);
+						Assert.assertEquals(dictionary.get(hit.dictionaryID()), hit.getEntry());
+					}
+					
+				}
+				
+			}
+			
+			LevenshteinSearcher searcher = new LevenshteinSearcher(Arrays.asList("Hallo", "Hello", "Halo"));
+			Assert.assertEquals("Hallo", searcher.topK("hallo", 1).get(0).getEntry());
+			Assert.assertEquals(3, searcher.topK("hallo", 10).size());
+			
+			try {
+				searcher.topK("hallo", 0);
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void topK_Phonetic_test() {
+		try
+		{
+			List<String> dictionary = Arrays.asList("g@mOn@n ma:\\n", "gudmO:nIN", "mAn", "ma:\\n", "gudmO:nIN mAn");
+			
+			Levenshtein ls = new Levenshtein(LevFlag.PHONETIC);
+			LevenshteinSearcher searcher = new LevenshteinSearcher(dictionary, ls);
+			
+			List<SearchHit> hits = searcher.topK("mAn", 2);
+			Assert.assertEquals(2, hits.size());
+			Assert.assertEquals("mAn", hits.get(0).getEntry());
+			Assert.assertEquals(ls.compare("mAn", hits.get(1).getEntry()), hits.get(1).index(), 0f);
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
@@ -2,6 +2,12 @@ package net.sourceforge.jlevenshtein;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -348,5 +354,275 @@ public class LevenshteinTest {
 			Assert.assertTrue(condition);
 		}
 	}
+	
+	@Test
+	public void parallel_test() {
+		try
+		{
+			String firstString = "A bird in the hand is worth two in the bush";
+			String secondString = "A börd in zhä händ is wörth tuh in thä busch";
+			
+			Levenshtein ls = new Levenshtein();
+			float expected = ls.compare(firstString, secondString);
+			ComparedStrings expectedDetails = ls.compareDetailed(firstString, secondString);
+			
+			ls.setParallel(1);
+			Assert.assertEquals(1, ls.getParallelThreshold());
+			Assert.assertEquals(expected, ls.compare(firstString, secondString), 0f);
+			
+			ComparedStrings cs = ls.compareDetailed(firstString, secondString);
+			Assert.assertEquals(expectedDetails.distance(), cs.distance(), 0f);
+			Assert.assertEquals(expectedDetails.matchFirst(3), cs.matchFirst(3));
+			Assert.assertEquals(expectedDetails.distance(3, 3), cs.distance(3, 3), 0f);
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void prepared_test() {
+		try
+		{
+			String firstString = "A bird in the hand is worth two in the bush";
+			String secondString = "A burd in tha hand is wurth too in the busch";
+			
+			Levenshtein ls = new Levenshtein();
+			PreparedString first = ls.prepare(firstString);
+			PreparedString second = ls.prepare(secondString);
+			Assert.assertEquals(11, first.words());
+			Assert.assertEquals("bird", first.getWord(1));
+			Assert.assertEquals(ls.compare(firstString, secondString), ls.compare(first, second), 0f);
+			Assert.assertEquals(ls.compare(firstString, secondString), ls.compare(first, secondString), 0f);
+			
+			ls.setFlag(LevFlag.PHONETIC);
+			first = ls.prepare("gudmO:nIN mAn");
+			Assert.assertEquals(ls.compare("gudmO:nIN mAn", "g@mOn@n ma:\\n"), ls.compare(first, "g@mOn@n ma:\\n"), 0f);
+			
+			// Prepared inputs are bound to the flags they were prepared with
+			try {
+				ls.compare(second, first);
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void compareAll_test() {
+		try
+		{
+			List<String> candidates = Arrays.asList("Hallo", "hello", "Hello world", "Halo", "xyz", "Hallo");
+			
+			Levenshtein ls = new Levenshtein();
+			float[] results = ls.compareAll("Hallo", candidates);
+			for(int i = 0; i < candidates.size(); i++) {
+				Assert.assertEquals(ls.compare("Hallo", candidates.get(i)), results[i], 0f);
+			}
+			
+			// Candidates that do not meet the threshold are skipped
+			results = ls.compareAll("Hallo", candidates, 0.7f);
+			for(int i = 0; i < candidates.size(); i++) {
+				float expected = ls.compare("Hallo", candidates.get(i));
+				Assert.assertEquals(expected >= 0.7f ? expected : Float.NaN, results[i], 0f);
+			}
+			
+			ls.setFlag(LevFlag.ABSOLUTE);
+			results = ls.compareAll("Hallo", candidates, 1f);
+			Assert.assertEquals(0f, results[0], 0f);
+			Assert.assertEquals(Float.NaN, results[4], 0f);
+			
+			// The sink can stop the comparison
+			final List<Integer> accepted = new ArrayList<Integer>();
+			int compared = ls.compareAll("Hallo", candidates, 1f, new ResultSink() {
+				@Override
+				public boolean accept(int candidateID, String candidate, float result) {
+					accepted.add(candidateID);
+					return accepted.size() < 2;
+				}
+			});
+			Assert.assertEquals(2, accepted.size());
+			Assert.assertEquals(compared - 1, (int)accepted.get(1));
+			
+			ls.setFlag(LevFlag.PHONETIC);
+			candidates = Arrays.asList("g@mOn@n ma:\\n", "gudmO:nIN", "mAn");
+			results = ls.compareAll("gudmO:nIN mAn", candidates);
+			for(int i = 0; i < candidates.size(); i++) {
+				Assert.assertEquals(ls.compare("gudmO:nIN mAn", candidates.get(i)), results[i], 0f);
+			}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void pairwise_test() {
+		try
+		{
+			List<String> strings = Arrays.asList("Hallo", "hello", "Hello world", "Halo", "xyz", "world hello", "Hallo");
+			
+			Levenshtein ls = new Levenshtein();
+			PairwiseMatrix pm = ls.comparePairwise(strings);
+			Assert.assertEquals(7, pm.size());
+			Assert.assertFalse(pm.isMapped());
+			for(int i = 0; i < strings.size(); i++) {
+				Assert.assertEquals(1f, pm.get(i, i), 0f);
+				for(int j = i + 1; j < strings.size(); j++) {
+					Assert.assertEquals(ls.compare(strings.get(i), strings.get(j)), pm.get(i, j), 0f);
+					Assert.assertEquals(pm.get(i, j), pm.get(j, i), 0f);
+				}
+			}
+			
+			// Results that exceed the memory budget are mapped to a file
+			ls.setFlag(LevFlag.ABSOLUTE);
+			ls.setMemoryBudget(0);
+			pm = ls.comparePairwise(strings);
+			Assert.assertTrue(pm.isMapped());
+			Assert.assertEquals(ls.compare("hello", "Halo"), pm.get(3, 1), 0f);
+			pm.close();
+			
+			// The listener can cancel the computation
+			try {
+				ls.comparePairwise(strings, new ProgressListener() {
+					@Override
+					public boolean progress(long completed, long total) {
+						return false;
+					}
+				});
+				fail("Expected CancellationException");
+			} catch(CancellationException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void config_test() {
+		try
+		{
+			Levenshtein ls = new Levenshtein(LevFlag.ABSOLUTE);
+			LevenshteinConfig snapshot = ls.getConfig();
+			float distance = ls.compare("Hallo", "hello");
+			
+			// Changes build a new snapshot and leave the old one untouched
+			ls.setFlag(LevFlag.RELATIVE);
+			ls.setCost(5f, Levenshtein.CHAR_SUBSTITUTION);
+			Assert.assertNotSame(snapshot, ls.getConfig());
+			Assert.assertEquals(2f, snapshot.getCost(Levenshtein.CHAR_SUBSTITUTION), 0f);
+			Assert.assertEquals(5f, ls.getCost(Levenshtein.CHAR_SUBSTITUTION), 0f);
+			Assert.assertTrue(ls.compare("Hallo", "hello") <= 1f);
+			
+			// A snapshot can be restored or shared
+			ls.setConfig(snapshot);
+			Assert.assertEquals(distance, ls.compare("Hallo", "hello"), 0f);
+			Assert.assertEquals(distance, new Levenshtein(snapshot).compare("Hallo", "hello"), 0f);
+			
+			// Comparisons see either the old or the new costs while they are swapped
+			final Levenshtein shared = new Levenshtein(LevFlag.ABSOLUTE);
+			final float cheap = shared.compare("Hallo", "hello");
+			shared.setCost(4f, Levenshtein.CHAR_SUBSTITUTION);
+			final float expensive = shared.compare("Hallo", "hello");
+			final AtomicBoolean mixed = new AtomicBoolean();
+			
+			Thread[] threads = new Thread[4];
+			for(int i = 0; i < threads.length; i++) {
+				threads[i] = new Thread() {
+					@Override
+					public void run() {
+						for(int j = 0; j < 2000; j++) {
+							float result = shared.compare("Hallo", "hello");
+							if(result != cheap && result != expensive) {
+								mixed.set(true);
+							}
+						}
+					}
+				};
+				threads[i].start();
+			}
+			for(int i = 0; i < 2000; i++) {
+				shared.setCost(i % 2 == 0 ? 2f : 4f, Levenshtein.CHAR_SUBSTITUTION);
+			}
+			for(Thread thread : threads) {
+				thread.join();
+			}
+			Assert.assertFalse(mixed.get());
+			
+			// A subclass that assigns the protected fields still changes the configuration
+			Levenshtein assigned = new Levenshtein(LevFlag.ABSOLUTE) {
+				{
+					float[] costs = operationCosts.clone();
+					costs[CHAR_SUBSTITUTION] = 4f;
+					operationCosts = costs;
+				}
+			};
+			Assert.assertEquals(expensive, assigned.compare("Hallo", "hello"), 0f);
+			Assert.assertEquals(4f, assigned.getConfig().getCost(Levenshtein.CHAR_SUBSTITUTION), 0f);
+			
+			// Changing an element in place changes only the configuration of that object
+			float defaults = new Levenshtein(LevFlag.ABSOLUTE).compare("Hallo", "hello");
+			long fingerprint = new Levenshtein(LevFlag.ABSOLUTE).getConfig().fingerprint();
+			Levenshtein changed = new Levenshtein(LevFlag.ABSOLUTE) {
+				{
+					operationCosts[CHAR_SUBSTITUTION] = 4f;
+				}
+			};
+			Assert.assertEquals(expensive, changed.compare("Hallo", "hello"), 0f);
+			Assert.assertTrue(fingerprint != changed.getConfig().fingerprint());
+			Assert.assertEquals(defaults, new Levenshtein(LevFlag.ABSOLUTE).compare("Hallo", "hello"), 0f);
+			Assert.assertEquals(defaults, new Levenshtein().withFlags(LevFlag.ABSOLUTE).compare("Hallo", "hello"), 0f);
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void override_test() {
+		try
+		{
+			Levenshtein ls = new Levenshtein();
+			LevenshteinConfig snapshot = ls.getConfig();
+			
+			// Overrides apply to one call only
+			Assert.assertEquals(new Levenshtein(LevFlag.ABSOLUTE).compare("Hallo", "hello"), 
+					ls.compare("Hallo", "hello", LevFlag.ABSOLUTE), 0f);
+			Assert.assertEquals(new Levenshtein(LevFlag.PHONETIC).compare("gudmO:nIN", "g@mOn@n"), 
+					ls.compare("gudmO:nIN", "g@mOn@n", LevFlag.PHONETIC), 0f);
+			Assert.assertEquals(new Levenshtein(LevFlag.PHONETIC, LevFlag.ABSOLUTE).compare("gudmO:nIN", "g@mOn@n"), 
+					ls.compare("gudmO:nIN", "g@mOn@n", LevFlag.PHONETIC, LevFlag.ABSOLUTE), 0f);
+			Assert.assertSame(snapshot, ls.getConfig());
+			Assert.assertEquals(new Levenshtein().compare("Hallo", "hello"), ls.compare("Hallo", "hello"), 0f);
+			
+			// No overrides and repeated overrides share their snapshots
+			Assert.assertSame(snapshot, ls.withFlags().getConfig());
+			Assert.assertSame(ls.withFlags(LevFlag.ABSOLUTE).getConfig(), ls.withFlags(LevFlag.ABSOLUTE).getConfig());
+			
+			// Views can be changed without affecting the original
+			Levenshtein view = ls.withFlags(LevFlag.IGNORE_CASE);
+			Assert.assertEquals(1f, view.compare("Hallo", "hallo"), 0f);
+			view.setCost(5f, Levenshtein.CHAR_SUBSTITUTION);
+			Assert.assertEquals(2f, ls.getCost(Levenshtein.CHAR_SUBSTITUTION), 0f);
+			Assert.assertTrue(ls.compare("Hallo", "hallo") < 1f);
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
 
-}
\ No newline at end of file
+}
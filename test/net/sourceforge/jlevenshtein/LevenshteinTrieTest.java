@@ -0,0 +1,73 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LevenshteinTrieTest {
+	
+	private static final RandomWords WORDS = new RandomWords("ab", 0, 8, "abAB", 20);
+
+	@Test
+	public void search_test() {
+		try
+		{
+			List<String> dictionary = WORDS.create(new Random(11), 1000);
+			
+			for(Levenshtein ls : Arrays.asList(new Levenshtein(LevFlag.ABSOLUTE), 
+					new Levenshtein(LevFlag.ABSOLUTE, LevFlag.IGNORE_CASE, LevFlag.DISALLOW_SWAP))) {
+				
+				LevenshteinTrie trie = new LevenshteinTrie(dictionary, ls);
+				Assert.assertEquals(1000, trie.size());
+				Assert.assertTrue(trie.nodes() < 1000 * 8);
+				
+				// The results equal a full scan
+				List<String> queries = WORDS.create(new Random(12), 20);
+				for(String query : queries) {
+					
+					float[] distances = ls.compareAll(query, dictionary);
+					List<SearchHit> hits = trie.search(query, 2.5f);
+					
+					List<Integer> expected = new ArrayList<Integer>();
+					for(int i = 0; i < distances.length; i++) {
+						if(distances[i] <= 2.5f) {
+							expected.add(i);
+						}
+					}
+					Assert.assertEquals(expected.size(), hits.size());
+					
+					for(SearchHit hit : hits) {
+						Assert.assertTrue(expected.contains(hit.dictionaryID()));
+						Assert.assertEquals(distances[hit.dictionaryID()], hit.distance(), 0f);
+					}
+					
+				}
+				
+			}
+			
+			LevenshteinTrie trie = new LevenshteinTrie(Arrays.asList("Hallo", "Hello", "Halo", "Hallo"));
+			List<SearchHit> hits = trie.search("Hallo", 0f);
+			Assert.assertEquals(2, hits.size());
+			Assert.assertEquals(0, hits.get(0).dictionaryID());
+			Assert.assertEquals(3, hits.get(1).dictionaryID());
+			Assert.assertEquals(1f, hits.get(0).index(), 0f);
+			
+			try {
+				new LevenshteinTrie(dictionary, new Levenshtein(LevFlag.PHONETIC));
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpillSorterTest {
+
+	@Test
+	public void sorted_test() {
+		try
+		{
+			Random random = new Random(71);
+			
+			// In memory and with several runs (at least 1024 values are buffered)
+			for(int count : new int[] {500, 5000}) {
+				
+				TreeSet<Long> expectedValues = new TreeSet<Long>();
+				LongSpillSorter values = new LongSpillSorter(0L);
+				TreeSet<Long> expectedPairs = new TreeSet<Long>();
+				LongSpillSorter pairs = new LongSpillSorter(0L, 2);
+				
+				try {
+					
+					for(int i = 0; i < count; i++) {
+						
+						long value = random.nextInt(count) - count / 2;
+						values.add(value);
+						expectedValues.add(value);
+						
+						long high = random.nextInt(50) - 25, low = random.nextInt(count);
+						pairs.add(high, low);
+						expectedPairs.add(high * 10000L + low);
+						
+					}
+					
+					Assert.assertEquals(count > 1024, values.runs() > 0);
+					
+					// All distinct values in ascending order
+					List<Long> sortedValues = new ArrayList<Long>();
+					for(PrimitiveIterator.OfLong iterator = values.sorted(); iterator.hasNext(); ) {
+						sortedValues.add(iterator.nextLong());
+					}
+					Assert.assertEquals(new ArrayList<Long>(expectedValues), sortedValues);
+					
+					// Pairs in lexicographic order (the low values are below 10000)
+					List<Long> sortedPairs = new ArrayList<Long>();
+					for(PrimitiveIterator.OfLong iterator = pairs.sorted(); iterator.hasNext(); ) {
+						sortedPairs.add(iterator.nextLong() * 10000L + iterator.nextLong());
+					}
+					Assert.assertEquals(new ArrayList<Long>(expectedPairs), sortedPairs);
+					
+				} finally {
+					values.close();
+					pairs.close();
+				}
+				
+			}
+			
+			try {
+				new LongSpillSorter(0L, 3);
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PhoneticBlockingIndexTest {
+	
+	private static final String CONSONANTS = "pbtdkgmnszfvlrSx";
+	private static final String VOWELS = "aeiouEOIU@y";
+	
+	private static List<String> randomWords(Random random, int count) {
+		
+		List<String> words = new ArrayList<String>(count);
+		for(int i = 0; i < count; i++) {
+			StringBuilder word = new StringBuilder();
+			for(int j = 1 + random.nextInt(3); j > 0; j--) {
+				word.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+				word.append(VOWELS.charAt(random.nextInt(VOWELS.length())));
+			}
+			word.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+			words.add(word.toString());
+		}
+		
+		return words;
+		
+	}
+	
+	private static List<String> changeVowels(Random random, List<String> words) {
+		
+		List<String> changed = new ArrayList<String>(words.size());
+		for(String word : words) {
+			char[] chars = word.toCharArray();
+			for(int i = 1; i < chars.length; i += 2) {
+				if(random.nextBoolean()) {
+					chars[i] = VOWELS.charAt(random.nextInt(VOWELS.length()));
+				}
+			}
+			changed.add(new String(chars));
+		}
+		
+		return changed;
+		
+	}
+
+	@Test
+	public void blocking_test() {
+		try
+		{
+			Random random = new Random(31);
+			List<String> dictionary = randomWords(random, 400);
+			List<String> queries = changeVowels(random, dictionary.subList(0, 20));
+			
+			Levenshtein ls = new Levenshtein(LevFlag.PHONETIC);
+			PhoneticBlockingIndex index = new PhoneticBlockingIndex(dictionary, ls, 0);
+			Assert.assertEquals(400, index.size());
+			
+			// Vowels do not change the key, places and manners of consonants do
+			Assert.assertEquals(index.blockKey("mAn"), index.blockKey("mIn"));
+			Assert.assertEquals(index.blockKey("mAn"), index.blockKey("mAnn"));
+			Assert.assertEquals(index.blockKey("pat"), index.blockKey("bad"));
+			Assert.assertFalse(index.blockKey("pat").equals(index.blockKey("pan")));
+			Assert.assertFalse(index.blockKey("pat").equals(index.blockKey("kat")));
+			
+			// The results are the matches of a full scan among the candidates
+			for(String query : queries) {
+				
+				int[] candidates = index.candidates(query);
+				List<SearchHit> hits = index.search(query, 0.95f);
+				
+				int expected = 0;
+				for(int entryID : candidates) {
+					if(ls.compare(query, dictionary.get(entryID)) >= 0.95f) {
+						expected++;
+					}
+				}
+				Assert.assertEquals(expected, hits.size());
+				
+				for(int i = 0; i < hits.size(); i++) {
+					Assert.assertEquals(ls.compare(query, hits.get(i).getEntry()), hits.get(i).index(), 0f);
+					if(i > 0) {
+						Assert.assertTrue(hits.get(i-1).index() >= hits.get(i).index());
+					}
+				}
+				
+			}
+			
+			// The original of a query with other vowels is always a candidate
+			for(int i = 0; i < queries.size(); i++) {
+				boolean found = false;
+				for(int entryID : index.candidates(queries.get(i))) {
+					found |= entryID == i;
+				}
+				Assert.assertTrue(found);
+			}
+			
+			// A larger radius finds more matches and compares more pairs
+			BlockingReport exact = index.evaluate(queries, 0.95f);
+			BlockingReport nearby = new PhoneticBlockingIndex(dictionary, ls, 1).evaluate(queries, 0.95f);
+			
+			Assert.assertEquals(20L * 400L, exact.possiblePairs());
+			Assert.assertEquals(exact.matches(), nearby.matches());
+			Assert.assertTrue(exact.matches() >= 20L);
+			Assert.assertTrue(exact.reductionRatio() > 0.9);
+			Assert.assertTrue(nearby.recall() >= exact.recall());
+			Assert.assertTrue(nearby.candidatePairs() >= exact.candidatePairs());
+			
+			try {
+				new PhoneticBlockingIndex(dictionary, new Levenshtein(), 0);
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QGramIndexTest {
+	
+	private static final RandomWords WORDS = new RandomWords("", 1, 12, "abcdeAB", 25);
+
+	@Test
+	public void search_test() {
+		try
+		{
+			List<String> dictionary = WORDS.create(new Random(21), 2000);
+			List<String> queries = WORDS.create(new Random(22), 15);
+			
+			for(Levenshtein ls : Arrays.asList(new Levenshtein(LevFlag.ABSOLUTE), 
+					new Levenshtein(LevFlag.ABSOLUTE, LevFlag.IGNORE_CASE, LevFlag.DISALLOW_SWAP))) {
+				for(int q = 1; q <= 3; q++) {
+					
+					QGramIndex index = new QGramIndex(dictionary, ls, q);
+					Assert.assertEquals(2000, index.size());
+					
+					// The results equal a full scan (exact recall)
+					for(String query : queries) {
+						
+						float[] distances = ls.compareAll(query, dictionary);
+						
+						for(float maxDistance : new float[] {0f, 1f, 2.5f, 4f}) {
+							
+							List<SearchHit> hits = index.search(query, maxDistance);
+							
+							int expected = 0;
+							for(int i = 0; i < distances.length; i++) {
+								if(distances[i] <= maxDistance) {
+									expected++;
+								}
+							}
+							Assert.assertEquals(expected, hits.size());
+							
+							for(SearchHit hit : hits) {
+								Assert.assertEquals(distances[hit.dictionaryID()], hit.distance(), 0f);
+							}
+							
+						}
+						
+					}
+					
+				}
+			}
+			
+			// Small distances generate few candidates
+			QGramIndex index = new QGramIndex(dictionary);
+			Assert.assertTrue(index.candidates("abcdeabcde", 1f).length < dictionary.size() / 10);
+			
+			try {
+				new QGramIndex(dictionary, new Levenshtein(), 4);
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package net.sourceforge.jlevenshtein;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates reproducible dictionaries of random words for the tests of the indexes
+ */
+public class RandomWords {
+	
+	private final String prefix;
+	private final int minLength;
+	private final int lengthRange;
+	private final String alphabet;
+	private final int sentencePeriod;
+	
+	/**
+	 * @param prefix The start of every word
+	 * @param minLength The minimum number of random characters after the prefix
+	 * @param lengthRange The number of possible lengths from the minimum on
+	 * @param alphabet The characters to draw from
+	 * @param sentencePeriod Every word with an ID divisible by this value is doubled into two words 
+	 * 		(<code>0</code> for single words only)
+	 */
+	public RandomWords(String prefix, int minLength, int lengthRange, String alphabet, int sentencePeriod) {
+		this.prefix = prefix;
+		this.minLength = minLength;
+		this.lengthRange = lengthRange;
+		this.alphabet = alphabet;
+		this.sentencePeriod = sentencePeriod;
+	}
+	
+	public List<String> create(Random random, int count) {
+		
+		List<String> words = new ArrayList<String>(count);
+		for(int i = 0; i < count; i++) {
+			StringBuilder word = new StringBuilder(prefix);
+			for(int j = minLength + random.nextInt(lengthRange); j > 0; j--) {
+				word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			words.add(sentencePeriod > 0 && i % sentencePeriod == 0 ? word + " " + word : word.toString());
+		}
+		
+		return words;
+		
+	}
+	
+}
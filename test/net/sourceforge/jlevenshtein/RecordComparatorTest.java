@@ -0,0 +1,110 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecordComparatorTest {
+	
+	private static String randomWord(Random random, String alphabet, int length) {
+		
+		StringBuilder word = new StringBuilder();
+		for(int i = 0; i < length; i++) {
+			word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		
+		return word.toString();
+		
+	}
+	
+	private static String[] randomRecord(Random random) {
+		return new String[] {
+			randomWord(random, "pbtmnsaeiou", 3 + random.nextInt(3)), 
+			randomWord(random, "abcde", 2 + random.nextInt(4)) + " " + randomWord(random, "abcde.-", 3) + " 1" + random.nextInt(3), 
+			randomWord(random, "abcdeAB", 3 + random.nextInt(5))
+		};
+	}
+
+	@Test
+	public void compare_test() {
+		try
+		{
+			Levenshtein name = new Levenshtein(LevFlag.PHONETIC);
+			Levenshtein street = new Levenshtein(LevFlag.STRIP_SPECIAL, LevFlag.TREAT_AS_SENTANCE);
+			Levenshtein city = new Levenshtein(LevFlag.TREAT_AS_ONE_WORD);
+			
+			RecordComparator comparator = new RecordComparator(Arrays.asList(new RecordField("name", name, 2f), 
+					new RecordField("street", street, 1f), new RecordField("city", city, 1f)));
+			
+			// Cheapest fields first
+			Assert.assertEquals("city", comparator.getEvaluationOrder().get(0).getName());
+			Assert.assertEquals("street", comparator.getEvaluationOrder().get(1).getName());
+			Assert.assertEquals("name", comparator.getEvaluationOrder().get(2).getName());
+			
+			// Later changes of the configuration do not affect the fields
+			city.setFlag(LevFlag.ABSOLUTE);
+			
+			Random random = new Random(51);
+			List<String[]> firstRecords = new ArrayList<String[]>();
+			List<String[]> secondRecords = new ArrayList<String[]>();
+			for(int i = 0; i < 600; i++) {
+				String[] record = randomRecord(random);
+				firstRecords.add(record);
+				secondRecords.add(i % 3 == 0 ? record.clone() : randomRecord(random));
+				if(i % 3 == 0) {
+					secondRecords.get(i)[2] = randomWord(random, "abcdeAB", 4);
+				}
+			}
+			
+			city.setFlag(LevFlag.RELATIVE);
+			float[] batch = comparator.comparePairs(firstRecords, secondRecords, 0.7f);
+			
+			int matches = 0;
+			for(int i = 0; i < firstRecords.size(); i++) {
+				
+				String[] first = firstRecords.get(i), second = secondRecords.get(i);
+				
+				// The score is the weighted mean of the fields
+				float expected = (2f * name.compare(first[0], second[0]) + street.compare(first[1], second[1]) + 
+						city.compare(first[2], second[2])) / 4f;
+				float score = comparator.compare(first, second);
+				Assert.assertEquals(expected, score, 0.00001f);
+				
+				// Early stops only drop pairs below the threshold
+				float thresholdScore = comparator.compare(first, second, 0.7f);
+				if(score >= 0.7f) {
+					Assert.assertEquals(score, thresholdScore, 0.00001f);
+					Assert.assertEquals(thresholdScore, batch[i], 0f);
+					matches++;
+				} else {
+					Assert.assertTrue(Float.isNaN(thresholdScore));
+					Assert.assertTrue(Float.isNaN(batch[i]));
+				}
+				
+			}
+			Assert.assertTrue(matches >= 200);
+			
+			try {
+				comparator.compare(new String[] {"mAn", "a street"}, firstRecords.get(0));
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+			
+			try {
+				new RecordField("name", name, 0f);
+				fail("Expected IllegalArgumentException");
+			} catch(IllegalArgumentException e) {}
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}
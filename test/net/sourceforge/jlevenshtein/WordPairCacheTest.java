@@ -0,0 +1,96 @@
+package net.sourceforge.jlevenshtein;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WordPairCacheTest {
+	
+	@Test
+	public void cache_test() {
+		try
+		{
+			String[] vocabulary = {"Hallo", "hello", "world", "Welt", "the", "quick", "brown", "fox", "lazy", "dog"};
+			Random random = new Random(3);
+			List<String> sentences = new ArrayList<String>();
+			for(int i = 0; i < 200; i++) {
+				StringBuilder sentence = new StringBuilder();
+				for(int j = random.nextInt(6); j >= 0; j--) {
+					sentence.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+				}
+				sentences.add(sentence.toString());
+			}
+			
+			Levenshtein plain = new Levenshtein();
+			Levenshtein cached = new Levenshtein();
+			WordPairCache cache = new WordPairCache(1000);
+			cached.setWordCache(cache);
+			Assert.assertSame(cache, cached.getWordCache());
+			
+			// The results do not change, the recurring word pairs are computed once
+			for(int i = 1; i < sentences.size(); i++) {
+				Assert.assertEquals(plain.compare(sentences.get(i - 1), sentences.get(i)), 
+						cached.compare(sentences.get(i - 1), sentences.get(i)), 0f);
+			}
+			Assert.assertTrue(cache.size() <= vocabulary.length * vocabulary.length);
+			Assert.assertTrue(cache.stats().hitRate() > 0.5);
+			Assert.assertEquals(vocabulary.length, cache.words());
+			
+			// Another configuration shares the vocabulary but not the results
+			int size = cache.size();
+			cached.setFlag(LevFlag.ABSOLUTE);
+			plain.setFlag(LevFlag.ABSOLUTE);
+			Assert.assertEquals(plain.compare("Hallo Welt", "hello world"), cached.compare("Hallo Welt", "hello world"), 0f);
+			Assert.assertTrue(cache.size() > size);
+			Assert.assertEquals(vocabulary.length, cache.words());
+			
+			// Detailed results are computed from the matrices
+			Assert.assertEquals(plain.compareDetailed("Hallo Welt", "hello world").distance(), 
+					cached.compareDetailed("Hallo Welt", "hello world").distance(), 0f);
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+	
+	@Test
+	public void bound_test() {
+		try
+		{
+			Levenshtein ls = new Levenshtein();
+			WordPairCache cache = new WordPairCache(16, 4);
+			ls.setWordCache(cache);
+			
+			// Words beyond the vocabulary are compared without the cache
+			Assert.assertEquals(new Levenshtein().compare("a b c d e f", "f e d c b a"), ls.compare("a b c d e f", "f e d c b a"), 0f);
+			Assert.assertEquals(4, cache.words());
+			Assert.assertTrue(cache.size() <= 16);
+			
+			for(int i = 0; i < 50; i++) {
+				Assert.assertEquals(new Levenshtein().compare("a b c d", "d c b a x" + i), ls.compare("a b c d", "d c b a x" + i), 0f);
+				Assert.assertTrue(cache.size() <= 16);
+			}
+			
+			cache.clear();
+			Assert.assertEquals(0, cache.size());
+			
+			// Single words are not cached
+			ls.setFlag(LevFlag.TREAT_AS_ONE_WORD);
+			ls.compare("Hallo Welt", "hello world");
+			Assert.assertEquals(0, cache.size());
+		}
+		
+		catch(Exception ex)
+		{
+			fail("Unexpected"+ex.getStackTrace());
+		}
+	}
+
+}